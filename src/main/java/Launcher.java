@@ -1,10 +1,17 @@
 import javafx.application.Application;
+import robert.BatchRunner;
+import robert.Robert;
 
 /**
  * A launcher class to workaround classpath issues.
+ * Starts the GUI, or batch mode when given "--script &lt;file&gt;" or "--batch".
  */
 public class Launcher {
     public static void main(String[] args) {
+        if (BatchRunner.isBatchMode(args)) {
+            Robert.main(args);
+            return;
+        }
         Application.launch(Main.class, args);
     }
 }
\ No newline at end of file
@@ -28,4 +28,9 @@ public class Main extends Application {
             e.printStackTrace();
         }
     }
+
+    @Override
+    public void stop() {
+        robert.shutdown();  // write out any changes still buffered by storage
+    }
 }
\ No newline at end of file
@@ -1,8 +1,18 @@
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javafx.application.Platform;
 import javafx.fxml.FXML;
+import javafx.geometry.Side;
 import javafx.scene.control.Button;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.MenuItem;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.control.TextField;
 import javafx.scene.image.Image;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.VBox;
 import robert.Robert;
@@ -11,6 +21,8 @@ import robert.Robert;
  * Controller for the main GUI.
  */
 public class MainWindow extends AnchorPane {
+    private static final int MAX_SUGGESTIONS = 5;
+
     @FXML
     private ScrollPane scrollPane;
     @FXML
@@ -21,6 +33,14 @@ public class MainWindow extends AnchorPane {
     private Button sendButton;
 
     private Robert robert;
+    private final ContextMenu suggestions = new ContextMenu();
+    // Completions are looked up off the JavaFX thread, one at a time, newest input only
+    private final ExecutorService completer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "input-completer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile String latestInput = "";
 
     private Image userImage = new Image(this.getClass().getResourceAsStream("/images/User.png"));
     private Image dukeImage = new Image(this.getClass().getResourceAsStream("/images/Robert.png"));
@@ -28,6 +48,13 @@ public class MainWindow extends AnchorPane {
     @FXML
     public void initialize() {
         scrollPane.vvalueProperty().bind(dialogContainer.heightProperty());
+        userInput.textProperty().addListener((observable, oldText, newText) -> requestCompletions(newText));
+        userInput.addEventFilter(KeyEvent.KEY_PRESSED, event -> {
+            if (event.getCode() == KeyCode.TAB && suggestions.isShowing() && !suggestions.getItems().isEmpty()) {
+                acceptCompletion(suggestions.getItems().get(0).getText());
+                event.consume();
+            }
+        });
         showWelcomeMessage();
     }
 
@@ -49,6 +76,52 @@ public class MainWindow extends AnchorPane {
                 DialogBox.getDukeDialog(response, dukeImage)
         );
         userInput.clear();
+        suggestions.hide();
+    }
+
+    /**
+     * Looks up completions for the given input in the background and shows them
+     * if the input has not changed by the time they are ready.
+     */
+    private void requestCompletions(String input) {
+        latestInput = input;
+        if (robert == null || input.isBlank()) {
+            suggestions.hide();
+            return;
+        }
+        completer.submit(() -> {
+            if (!input.equals(latestInput)) {
+                return; // Superseded by a later key press
+            }
+            List<String> completions = robert.getCompletions(input, MAX_SUGGESTIONS);
+            Platform.runLater(() -> showCompletions(input, completions));
+        });
+    }
+
+    private void showCompletions(String input, List<String> completions) {
+        if (!input.equals(userInput.getText())) {
+            return;
+        }
+        if (completions.isEmpty() || completions.equals(List.of(input))) {
+            suggestions.hide();
+            return;
+        }
+        suggestions.getItems().clear();
+        for (String completion : completions) {
+            MenuItem item = new MenuItem(completion);
+            item.setMnemonicParsing(false);
+            item.setOnAction(event -> acceptCompletion(completion));
+            suggestions.getItems().add(item);
+        }
+        if (!suggestions.isShowing()) {
+            suggestions.show(userInput, Side.TOP, 0, 0);
+        }
+    }
+
+    private void acceptCompletion(String completion) {
+        userInput.setText(completion);
+        userInput.positionCaret(completion.length());
+        suggestions.hide();
     }
 
     /**
@@ -60,4 +133,4 @@ public class MainWindow extends AnchorPane {
                 DialogBox.getDukeDialog(welcomeText, dukeImage)
         );
     }
-}
\ No newline at end of file
+}
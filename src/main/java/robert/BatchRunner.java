@@ -0,0 +1,192 @@
+package robert;
+
+import robert.parser.CommandLine;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Runs a file of commands against Robert without the interactive interface, for seeding and
+ * migrating task lists.
+ *
+ * <p>Commands are read one per line; blank lines and lines starting with '#' are skipped, and
+ * "bye" ends the run early. A line may hold several commands separated by semicolons, which run
+ * as one pipeline, as they do when typed in. Persistence is deferred: rather than journaling every
+ * change, the whole list is saved as a snapshot every so many commands and once at the end.
+ * Responses are written to a buffered writer, errors prefixed with their line number, and the run
+ * ends with a summary of how many commands ran, how many failed and how fast they went.</p>
+ */
+public class BatchRunner {
+    static final int DEFAULT_CHECKPOINT_INTERVAL = 10_000;
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+    private static final String USAGE =
+            "Usage: --script <file> [--checkpoint <commands>] or --batch [--checkpoint <commands>]";
+
+    private final Robert robert;
+    private final int checkpointInterval;
+
+    /**
+     * Constructs a BatchRunner for the given Robert.
+     *
+     * @param robert The Robert to run commands against. Nothing else should use it during a run.
+     * @param checkpointInterval Number of commands between snapshots.
+     */
+    public BatchRunner(Robert robert, int checkpointInterval) {
+        assert checkpointInterval > 0 : "Checkpoint interval should be positive";
+        this.robert = robert;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Runs every command in the input and writes the responses and a summary to the output.
+     * The output is flushed only at the end.
+     *
+     * @param input Commands, one per line.
+     * @param output Where to write the responses.
+     * @return The summary line.
+     * @throws IOException If the input cannot be read, the output cannot be written or the tasks cannot be saved.
+     */
+    public String run(BufferedReader input, Writer output) throws IOException {
+        robert.deferPersistence();
+        long start = System.nanoTime();
+        int commandCount = 0;
+        int failureCount = 0;
+        int checkpointCount = 0;
+        int sinceCheckpoint = 0;
+        int lineNumber = 0;
+        String text;
+        while ((text = input.readLine()) != null) {
+            lineNumber++;
+            CommandLine line = new CommandLine(text);
+            if (line.tokenCount() == 0 || line.tokenStartsWith(0, '#')) {
+                continue;
+            }
+            List<CommandLine> pipeline = CommandLine.split(text, Robert.PIPELINE_DELIMITER);
+            Robert.Reply reply = robert.respond(pipeline.isEmpty() ? List.of(line) : pipeline);
+            commandCount += reply.getCommandCount();
+            String response = reply.getResponses();
+            if (reply.getError() != null) {
+                failureCount++;
+                String error = "Line " + lineNumber + ": " + reply.getError();
+                response = response.isEmpty() ? error : response + "\n\n" + error;
+            }
+            writeMessage(output, response);
+            sinceCheckpoint += reply.getCommandCount();
+            if (sinceCheckpoint >= checkpointInterval) {
+                robert.checkpoint();
+                checkpointCount++;
+                sinceCheckpoint = 0;
+            }
+            if (reply.isBye()) {
+                break;
+            }
+        }
+        if (sinceCheckpoint > 0) {
+            robert.checkpoint();
+            checkpointCount++;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        String summary = String.format("Ran %d command(s) in %.2f s (%.0f commands/s): %d succeeded, %d failed. "
+                + "Saved %d checkpoint(s). Now you have %d task(s) in the list.",
+                commandCount, seconds, commandCount / Math.max(seconds, 1e-9), commandCount - failureCount,
+                failureCount, checkpointCount, robert.getTaskCount());
+        writeMessage(output, summary);
+        output.flush();
+        return summary;
+    }
+
+    /**
+     * Writes a message one indented line at a time, as {@link robert.ui.Ui#showMessage(String)} does.
+     */
+    private static void writeMessage(Writer output, String message) throws IOException {
+        int start = 0;
+        while (start <= message.length()) {
+            int end = message.indexOf('\n', start);
+            end = end < 0 ? message.length() : end;
+            output.write(' ');
+            output.write(message, start, end - start);
+            output.write(System.lineSeparator());
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Checks whether the command line arguments ask for batch mode.
+     *
+     * @param args Command line arguments.
+     * @return true if the first argument is "--script" or "--batch".
+     */
+    public static boolean isBatchMode(String[] args) {
+        return args.length > 0 && (args[0].equals("--script") || args[0].equals("--batch"));
+    }
+
+    /**
+     * Runs batch mode as asked for by the command line arguments: "--script &lt;file&gt;" reads the
+     * commands from a file and "--batch" from standard input, and "--checkpoint &lt;commands&gt;"
+     * optionally sets how often the list is saved.
+     *
+     * @param filePath Path to the file used for saving and loading tasks.
+     * @param args Command line arguments.
+     * @return The exit status: 0 if the run completed, even if some commands failed, or 1 otherwise.
+     */
+    public static int run(String filePath, String[] args) {
+        assert isBatchMode(args) : "Arguments should ask for batch mode";
+        boolean isScript = args[0].equals("--script");
+        int next = isScript ? 2 : 1;
+        int checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+        if (args.length == next + 2 && args[next].equals("--checkpoint")) {
+            checkpointInterval = parsePositive(args[next + 1]);
+            next += 2;
+        }
+        if (args.length != next || checkpointInterval <= 0) {
+            System.out.println(USAGE);
+            return 1;
+        }
+
+        Robert robert = new Robert(filePath);
+        Writer output = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8),
+                OUTPUT_BUFFER_SIZE);
+        try (BufferedReader input = isScript
+                ? new BufferedReader(new FileReader(args[1], StandardCharsets.UTF_8))
+                : new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))) {
+            new BatchRunner(robert, checkpointInterval).run(input, output);
+            return 0;
+        } catch (IOException e) {
+            flushQuietly(output);
+            System.out.println("Batch run failed: " + e.getMessage());
+            return 1;
+        } finally {
+            robert.shutdown();
+        }
+    }
+
+    /**
+     * Writes out the responses produced before a failed run stopped, ignoring any further error.
+     */
+    private static void flushQuietly(Writer output) {
+        try {
+            output.flush();
+        } catch (IOException e) {
+            // The failure being reported already covers it
+        }
+    }
+
+    /**
+     * Parses a positive number from an argument.
+     *
+     * @return The number, or 0 if the argument is not a positive number.
+     */
+    private static int parsePositive(String argument) {
+        try {
+            return Math.max(0, Integer.parseInt(argument));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
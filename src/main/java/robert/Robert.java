@@ -1,218 +1,817 @@
 package robert;
 
 import robert.storage.Storage;
+import robert.storage.TaskImporter;
+import robert.storage.UndoLog;
+import robert.task.ConcurrentTaskList;
 import robert.task.TaskList;
+import robert.task.WordTrie;
 import robert.task.Task;
 import robert.task.Todo;
 import robert.task.Deadline;
 import robert.task.Event;
 import robert.ui.Ui;
+import robert.parser.CommandLine;
+import robert.parser.CommandRegistry;
+import robert.parser.DateTimeCodec;
 import robert.parser.Parser;
 import robert.exception.RobertException;
 import robert.exception.DuplicateTaskException;
+import java.io.File;
 import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Main class for the Robert chatbot application.
  * Handles the main program flow and user command processing.
+ *
+ * <p>Commands are looked up in a {@link CommandRegistry} shared by the GUI and the command-line
+ * interface, so both give the same responses. {@link #getResponse(String)} may be called from
+ * several threads at once. A single command that only reads the list, such as "list" or "find",
+ * takes no lock and never waits for a change. Commands that change the list are serialized, so
+ * that checking, changing and journaling a task happen together and in the same order. Several
+ * commands separated by semicolons are serialized as a whole, read-only ones included, and
+ * journaled in one write.</p>
  */
 public class Robert {
+    static final char PIPELINE_DELIMITER = ';';
     private static final String FILE_PATH = "./data/duke.txt";
+    private static final int FUZZY_MATCH_LIMIT = 5;
+    private static final int UPCOMING_DEFAULT_COUNT = 5;
+    private static final int DEFAULT_UNDO_LIMIT = 1000;
+    private static final int IMPORT_ERRORS_SHOWN = 10;
+    private static final Set<String> COMMANDS_TAKING_WORDS = Set.of("todo", "deadline", "event", "find", "fuzzy");
+
+    private final CommandRegistry commands = new CommandRegistry();
+    private final WordTrie commandWords = new WordTrie();
     private Storage storage;
-    private TaskList tasks;
+    private ConcurrentTaskList tasks;
+    private UndoLog history;
     private Ui ui;
 
+    /**
+     * Responses to the commands of one input line. The commands stop at the first one that fails,
+     * so an error always comes after the responses of the commands before it.
+     */
+    static class Reply {
+        private final StringBuilder responses = new StringBuilder();
+        private String error; // Null if no command failed
+        private int commandCount;
+        private boolean isBye;
+
+        /**
+         * Returns the responses of the commands that succeeded, separated by blank lines.
+         */
+        String getResponses() {
+            return responses.toString();
+        }
+
+        /**
+         * Returns the message of the command that failed, prefixed by its number if the line
+         * held several commands, or null if none failed.
+         */
+        String getError() {
+            return error;
+        }
+
+        /**
+         * Returns the number of commands that ran, the one that failed included.
+         */
+        int getCommandCount() {
+            return commandCount;
+        }
+
+        /**
+         * Checks whether the last command that ran was "bye".
+         */
+        boolean isBye() {
+            return isBye;
+        }
+
+        /**
+         * Returns the responses followed by the error, if any, as shown to the user.
+         */
+        String getText() {
+            if (error == null) {
+                return getResponses();
+            }
+            return responses.length() == 0 ? error : responses + "\n\n" + error;
+        }
+    }
+
     /**
      * Constructs a new Robert instance with the specified file path for storage.
      *
      * @param filePath Path to the file used for saving and loading tasks.
      */
     public Robert(String filePath) {
+        this(filePath, DEFAULT_UNDO_LIMIT);
+    }
+
+    /**
+     * Constructs a new Robert instance that keeps up to the given number of commands for undo.
+     * The undo history is saved next to the data file and journaled along with the tasks.
+     *
+     * @param filePath Path to the file used for saving and loading tasks.
+     * @param undoLimit Most commands that can be undone.
+     */
+    public Robert(String filePath, int undoLimit) {
         ui = new Ui();
         storage = new Storage(filePath);
+        history = new UndoLog(filePath + ".undo", undoLimit);
         try {
-            tasks = new TaskList(storage.load());
+            tasks = new ConcurrentTaskList(storage.loadTaskList());
         } catch (IOException e) {
             ui.showLoadingError();
-            tasks = new TaskList();
+            tasks = new ConcurrentTaskList();
+        }
+        try {
+            history.load();
+        } catch (IOException e) {
+            System.out.println("Warning: Failed to load undo history: " + e.getMessage());
+        }
+        history.journalTo(storage);
+        registerCommands();
+    }
+
+    /**
+     * Registers every command, in the order they are listed to the user.
+     */
+    private void registerCommands() {
+        commands.register("list", "list", line -> getTaskListString());
+        commands.register("mark", "mark <num|#id>", this::handleMark);
+        commands.register("unmark", "unmark <num|#id>", this::handleUnmark);
+        commands.register("todo", "todo <desc>", this::handleTodo);
+        commands.register("deadline", "deadline <desc> /by <time>", this::handleDeadline);
+        commands.register("event", "event <desc> /from <start> /to <end>", this::handleEvent);
+        commands.register("delete", "delete <num|#id>", this::handleDelete);
+        commands.register("find", "find <keyword>", this::handleFind);
+        commands.register("fuzzy", "fuzzy <text>", this::handleFuzzy);
+        commands.register("upcoming", "upcoming [count]", this::handleUpcoming);
+        commands.register("due", "due <date>", this::handleDue);
+        commands.register("between", "between <date> <date>", this::handleBetween);
+        commands.register("conflicts", "conflicts", line -> getConflictsString());
+        commands.register("import", "import <file>", this::handleImport);
+        commands.register("undo", "undo", line -> handleUndo());
+        commands.register("redo", "redo", line -> handleRedo());
+        commands.register("bye", "bye", line -> handleBye());
+        for (String word : commands.getWords()) {
+            commandWords.add(word);
         }
     }
 
     /**
-     * Generates a response for the user's chat message.
+     * Generates a response for the user's chat message. The message may hold several commands
+     * separated by semicolons, e.g. "todo a; todo b; mark 2", which are answered together.
      */
     public String getResponse(String input) {
+        List<CommandLine> pipeline = CommandLine.split(input, PIPELINE_DELIMITER);
+        if (pipeline.size() <= 1) {
+            return respond(pipeline.isEmpty() ? new CommandLine(input) : pipeline.get(0));
+        }
+        return respond(pipeline).getText();
+    }
+
+    /**
+     * Carries out several commands in order and collects their responses.
+     * Every command word is looked up before any command runs, so a mistyped command leaves the
+     * list untouched. The commands run together, so no other change comes between them, and their
+     * changes are journaled in a single write once the last one is done. The first command that
+     * fails stops the ones after it, since they may refer to tasks by positions it was meant to
+     * change, and so does "bye".
+     *
+     * @param pipeline The commands, already split into tokens.
+     * @return The responses, with the error prefixed by the command number if the pipeline holds
+     *         several commands.
+     */
+    synchronized Reply respond(List<CommandLine> pipeline) {
+        Reply reply = new Reply();
+        CommandRegistry.Command[] resolved = new CommandRegistry.Command[pipeline.size()];
+        for (int i = 0; i < resolved.length; i++) {
+            resolved[i] = commands.find(pipeline.get(i));
+            if (resolved[i] == null) {
+                reply.commandCount = 1;
+                reply.error = errorPrefix(pipeline, i) + commands.getUsageMessage();
+                return reply;
+            }
+        }
+        storage.deferWrites();
         try {
-            String command = Parser.parseCommand(input);
-            
-            if (command.equals("bye")) {
-                return "Bye. Hope to see you again soon!";
-            } else if (command.equals("list")) {
-                return getTaskListString();
-            } else if (command.equals("mark")) {
-                return handleMark(input);
-            } else if (command.equals("unmark")) {
-                return handleUnmark(input);
-            } else if (command.equals("todo")) {
-                return handleTodo(input);
-            } else if (command.equals("deadline")) {
-                return handleDeadline(input);
-            } else if (command.equals("event")) {
-                return handleEvent(input);
-            } else if (command.equals("delete")) {
-                return handleDelete(input);
-            } else if (command.equals("find")) {
-                return handleFind(input);
-            } else {
-                return "Only 'list', 'mark <num>', 'unmark <num>', 'todo <desc>', 'deadline <desc> /by <time>', 'event <desc> /from <start> /to <end>', 'delete <num>', 'find <keyword>', and 'bye' commands are supported.";
+            for (int i = 0; i < resolved.length; i++) {
+                reply.commandCount++;
+                String response;
+                try {
+                    response = resolved[i].execute(pipeline.get(i));
+                } catch (RobertException | IOException e) {
+                    reply.error = errorPrefix(pipeline, i) + describeError(e);
+                    break;
+                }
+                reply.responses.append(i > 0 ? "\n\n" : "").append(response);
+                if (pipeline.get(i).tokenEquals(0, "bye")) {
+                    reply.isBye = true;
+                    break;
+                }
             }
-        } catch (DuplicateTaskException e) {
-            return "This task already exists in your list:\n  " + e.getMessage();
+        } finally {
+            storage.resumeWrites();
+        }
+        return reply;
+    }
+
+    /**
+     * Returns what goes before the error of a command: its number, if the pipeline holds several.
+     */
+    private static String errorPrefix(List<CommandLine> pipeline, int i) {
+        return pipeline.size() > 1 ? "Command " + (i + 1) + ": " : "";
+    }
+
+    /**
+     * Carries out the command in the tokenized input and returns the response, or the error message.
+     */
+    private String respond(CommandLine line) {
+        try {
+            return execute(line);
         } catch (RobertException | IOException e) {
-            return e.getMessage();
+            return describeError(e);
         }
     }
 
+    /**
+     * Carries out the command in the tokenized input.
+     *
+     * @param line The user input, split into tokens.
+     * @return Response message.
+     * @throws RobertException If the command is unknown or its input is invalid.
+     * @throws IOException If saving tasks fails.
+     */
+    private String execute(CommandLine line) throws RobertException, IOException {
+        CommandRegistry.Command command = commands.find(line);
+        if (command == null) {
+            throw new RobertException(commands.getUsageMessage());
+        }
+        return command.execute(line);
+    }
+
+    /**
+     * Turns an exception thrown by a command into the message shown to the user.
+     */
+    static String describeError(Exception e) {
+        if (e instanceof DuplicateTaskException) {
+            return "This task already exists in your list:\n  " + e.getMessage();
+        }
+        return e.getMessage();
+    }
+
+    /**
+     * Keeps changes in memory instead of journaling them as they happen, until the next
+     * {@link #checkpoint()}. Used by batch mode, where nothing else changes the list meanwhile.
+     */
+    void deferPersistence() {
+        storage.deferWrites();
+    }
+
+    /**
+     * Saves the whole list as a snapshot covering every change made since persistence was deferred
+     * or since the last checkpoint.
+     *
+     * @throws IOException If saving tasks fails.
+     */
+    synchronized void checkpoint() throws IOException {
+        storage.checkpoint(tasks);
+    }
+
+    /**
+     * Returns the number of tasks in the list.
+     *
+     * @return The number of tasks.
+     */
+    int getTaskCount() {
+        return tasks.size();
+    }
+
+    /**
+     * Handles the "bye" command by writing out any changes still pending.
+     *
+     * @return Response message.
+     * @throws IOException If saving tasks fails.
+     */
+    private String handleBye() throws IOException {
+        storage.flush();
+        return "Bye. Hope to see you again soon!";
+    }
+
+    /**
+     * Suggests ways to complete a partly typed command: the command word itself, or the
+     * last word of a description or search from the words already in the task list.
+     *
+     * @param input The text typed so far.
+     * @param limit The most suggestions to return.
+     * @return Up to limit completed versions of the input, in alphabetical order.
+     */
+    public List<String> getCompletions(String input, int limit) {
+        ArrayList<String> completions = new ArrayList<>();
+        String lastCommand = input.substring(input.lastIndexOf(PIPELINE_DELIMITER) + 1);
+        String command = Parser.parseCommand(lastCommand);
+        int wordStart = Math.max(Math.max(input.lastIndexOf(' '), input.lastIndexOf('\t')),
+                input.lastIndexOf(PIPELINE_DELIMITER)) + 1;
+        String word = input.substring(wordStart);
+        if (word.isEmpty()) {
+            return completions;
+        }
+        if (lastCommand.stripLeading().length() == word.length()) {
+            for (String commandWord : commandWords.complete(word, limit)) {
+                completions.add(input.substring(0, wordStart) + commandWord);
+            }
+        } else if (COMMANDS_TAKING_WORDS.contains(command) && !word.startsWith("/")) {
+            for (String completion : tasks.completeWord(word, limit)) {
+                completions.add(input.substring(0, wordStart) + completion);
+            }
+        }
+        return completions;
+    }
+
     private String getTaskListString() {
-        if (tasks.size() == 0) {
+        TaskList snapshot = tasks.snapshot();
+        if (snapshot.size() == 0) {
             return "You have no tasks in your list.";
         }
         StringBuilder sb = new StringBuilder("Here are the tasks in your list:\n");
-        for (int i = 0; i < tasks.size(); i++) {
-            sb.append((i + 1)).append(". ").append(tasks.get(i)).append("\n");
+        for (int i = 0; i < snapshot.size(); i++) {
+            Task task = snapshot.get(i);
+            sb.append((i + 1)).append(". #").append(task.getId()).append(" ").append(task).append("\n");
         }
         return sb.toString().trim();
     }
 
+    /**
+     * Parses the task that a "mark", "unmark" or "delete" command refers to,
+     * given either as its position in the list or as "#id".
+     *
+     * @param line The user input, split into tokens.
+     * @return The zero-based index of the task, which may be out of range for a position.
+     * @throws RobertException If the input format is invalid or no task has the ID.
+     */
+    private int parseTaskIndex(CommandLine line) throws RobertException {
+        if (!Parser.hasTaskId(line)) {
+            return Parser.parseTaskIndex(line);
+        }
+        long id = Parser.parseTaskId(line);
+        int index = tasks.indexOfId(id);
+        if (index < 0) {
+            throw new RobertException("No task has ID #" + id + ".");
+        }
+        return index;
+    }
+
     /**
      * Handles the "mark" command to mark a task as done.
      *
-     * @param input The full user input string.
+     * @param line The user input, split into tokens.
      * @return Response message.
      * @throws RobertException If the task index is invalid.
      * @throws IOException If saving tasks fails.
      */
-    private String handleMark(String input) throws RobertException, IOException {
-        int index = Parser.parseTaskIndex(input);
+    private synchronized String handleMark(CommandLine line) throws RobertException, IOException {
+        if (Parser.isTaskBatch(line)) {
+            return listTasks("Nice! I've marked these tasks as done:", setDoneInBatch(line, true));
+        }
+        int index = parseTaskIndex(line);
         if (index < 0 || index >= tasks.size()) {
             throw new RobertException("Task number out of range. You have " + tasks.size() + " task(s).");
         }
-        tasks.markTask(index);
-        storage.save(tasks);
+        setDone(index, true);
         return "Nice! I've marked this task as done:\n  " + tasks.get(index);
     }
 
     /**
      * Handles the "unmark" command to unmark a task as not done.
      *
-     * @param input The full user input string.
+     * @param line The user input, split into tokens.
      * @return Response message.
      * @throws RobertException If the task index is invalid.
      * @throws IOException If saving tasks fails.
      */
-    private String handleUnmark(String input) throws RobertException, IOException {
-        int index = Parser.parseTaskIndex(input);
+    private synchronized String handleUnmark(CommandLine line) throws RobertException, IOException {
+        if (Parser.isTaskBatch(line)) {
+            return listTasks("OK, I've marked these tasks as not done yet:", setDoneInBatch(line, false));
+        }
+        int index = parseTaskIndex(line);
         if (index < 0 || index >= tasks.size()) {
             throw new RobertException("Task number out of range. You have " + tasks.size() + " task(s).");
         }
-        tasks.unmarkTask(index);
-        storage.save(tasks);
+        setDone(index, false);
         return "OK, I've marked this task as not done yet:\n  " + tasks.get(index);
     }
 
+    /**
+     * Adds a task, journals it and records it for undo.
+     *
+     * @param task The task to add.
+     * @throws IOException If saving tasks fails.
+     */
+    private void addTask(Task task) throws IOException {
+        tasks.add(task);
+        storage.appendAdd(task);
+        history.record(new UndoLog.Operation(UndoLog.Kind.ADD, List.of(task), new int[] {tasks.size() - 1}));
+    }
+
+    /**
+     * Marks the task at the given index as done or not done, journaling and recording it for undo
+     * only if its status actually changes.
+     *
+     * @param index Index of the task.
+     * @param isDone Whether to mark the task as done or as not done.
+     * @throws IOException If saving tasks fails.
+     */
+    private void setDone(int index, boolean isDone) throws IOException {
+        if (tasks.get(index).isDone() == isDone) {
+            return;
+        }
+        if (isDone) {
+            tasks.markTask(index);
+            storage.appendMark(tasks.get(index));
+        } else {
+            tasks.unmarkTask(index);
+            storage.appendUnmark(tasks.get(index));
+        }
+        history.record(new UndoLog.Operation(isDone ? UndoLog.Kind.MARK : UndoLog.Kind.UNMARK,
+                List.of(tasks.get(index)), new int[0]));
+    }
+
+    /**
+     * Deletes the task at the given index, journals it and records it for undo.
+     *
+     * @param index Index of the task.
+     * @return The removed task.
+     * @throws IOException If saving tasks fails.
+     */
+    private Task deleteTask(int index) throws IOException {
+        Task removedTask = tasks.remove(index);
+        storage.appendDelete(removedTask);
+        history.record(new UndoLog.Operation(UndoLog.Kind.DELETE, List.of(removedTask), new int[] {index}));
+        return removedTask;
+    }
+
+    /**
+     * Handles the "undo" command by applying the inverse of the latest change.
+     *
+     * @return Response message.
+     * @throws RobertException If there is nothing to undo or the change no longer matches the list.
+     * @throws IOException If saving tasks fails.
+     */
+    private synchronized String handleUndo() throws RobertException, IOException {
+        UndoLog.Operation operation = history.takeUndo();
+        if (operation == null) {
+            throw new RobertException("Nothing to undo.");
+        }
+        apply(operation, true);
+        history.undone(operation);
+        return "OK, I've undone " + describe(operation) + "\nNow you have " + tasks.size() + " task(s) in the list.";
+    }
+
+    /**
+     * Handles the "redo" command by applying the latest undone change again.
+     *
+     * @return Response message.
+     * @throws RobertException If there is nothing to redo or the change no longer matches the list.
+     * @throws IOException If saving tasks fails.
+     */
+    private synchronized String handleRedo() throws RobertException, IOException {
+        UndoLog.Operation operation = history.takeRedo();
+        if (operation == null) {
+            throw new RobertException("Nothing to redo.");
+        }
+        apply(operation, false);
+        history.redone(operation);
+        return "OK, I've redone " + describe(operation) + "\nNow you have " + tasks.size() + " task(s) in the list.";
+    }
+
+    /**
+     * Applies an operation, or its inverse, and journals the result.
+     * Tasks are found by ID. If any of them is missing, or an added task is already back,
+     * the history no longer matches the list and is cleared.
+     *
+     * @param operation The operation.
+     * @param isInverse Whether to revert the operation rather than apply it.
+     * @throws RobertException If the operation no longer matches the list.
+     * @throws IOException If saving tasks fails.
+     */
+    private void apply(UndoLog.Operation operation, boolean isInverse) throws RobertException, IOException {
+        UndoLog.Kind kind = operation.getKind();
+        boolean isListChange = kind == UndoLog.Kind.ADD || kind == UndoLog.Kind.DELETE;
+        boolean isAdding = isListChange && (kind == UndoLog.Kind.ADD) != isInverse;
+        boolean isMarking = (kind == UndoLog.Kind.MARK) != isInverse;
+        List<Task> touched = operation.getTasks();
+        int[] indices = new int[touched.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = tasks.indexOfId(touched.get(i).getId());
+            if ((indices[i] >= 0) == isAdding) {
+                history.clear();
+                throw new RobertException("Cannot " + (isInverse ? "undo" : "redo")
+                        + " that, as the list has changed since.");
+            }
+        }
+        if (isAdding) {
+            int[] positions = operation.getPositions();
+            for (int i = 0; i < positions.length; i++) {
+                int position = Math.min(positions[i], tasks.size());
+                tasks.insert(position, touched.get(i));
+                storage.appendInsert(position, touched.get(i));
+            }
+            return;
+        }
+        Arrays.sort(indices);
+        if (isListChange) {
+            storage.appendDeletes(tasks.removeTasks(indices));
+            return;
+        }
+        ArrayList<Task> changedTasks = new ArrayList<>(indices.length);
+        if (isMarking) {
+            tasks.markTasks(indices);
+        } else {
+            tasks.unmarkTasks(indices);
+        }
+        for (int index : indices) {
+            changedTasks.add(tasks.get(index));
+        }
+        if (isMarking) {
+            storage.appendMarks(changedTasks);
+        } else {
+            storage.appendUnmarks(changedTasks);
+        }
+    }
+
+    /**
+     * Describes an operation for the undo and redo messages, e.g. "adding: [T][ ] read book".
+     */
+    private static String describe(UndoLog.Operation operation) {
+        String action;
+        switch (operation.getKind()) {
+            case ADD:
+                action = "adding";
+                break;
+            case DELETE:
+                action = "deleting";
+                break;
+            case MARK:
+                action = "marking";
+                break;
+            default:
+                action = "unmarking";
+                break;
+        }
+        List<Task> touched = operation.getTasks();
+        return touched.size() == 1 ? action + ": " + touched.get(0) : action + " " + touched.size() + " tasks.";
+    }
+
+    /**
+     * Marks or unmarks every task a batch command such as "mark 1-500" refers to, in one pass.
+     * Only the tasks whose status actually changes are journaled, all in one group, and recorded
+     * for undo as one change. A batch that changes nothing is not recorded at all.
+     *
+     * @param line The user input, split into tokens.
+     * @param isDone Whether to mark the tasks as done or as not done.
+     * @return The tasks the command refers to, in list order.
+     * @throws RobertException If the task numbers are invalid.
+     * @throws IOException If saving tasks fails.
+     */
+    private List<Task> setDoneInBatch(CommandLine line, boolean isDone) throws RobertException, IOException {
+        int[] indices = Parser.parseTaskIndices(line, tasks.size());
+        int[] changed = new int[indices.length];
+        int changedCount = 0;
+        for (int index : indices) {
+            if (tasks.get(index).isDone() != isDone) {
+                changed[changedCount++] = index;
+            }
+        }
+        if (changedCount > 0) {
+            changed = Arrays.copyOf(changed, changedCount);
+            if (isDone) {
+                tasks.markTasks(changed);
+            } else {
+                tasks.unmarkTasks(changed);
+            }
+            ArrayList<Task> changedTasks = new ArrayList<>(changedCount);
+            for (int index : changed) {
+                changedTasks.add(tasks.get(index));
+            }
+            if (isDone) {
+                storage.appendMarks(changedTasks);
+            } else {
+                storage.appendUnmarks(changedTasks);
+            }
+            history.record(new UndoLog.Operation(isDone ? UndoLog.Kind.MARK : UndoLog.Kind.UNMARK, changedTasks,
+                    new int[0]));
+        }
+        ArrayList<Task> batch = new ArrayList<>(indices.length);
+        for (int index : indices) {
+            batch.add(tasks.get(index));
+        }
+        return batch;
+    }
+
+    /**
+     * Deletes every task a batch command such as "delete 3,7,9" refers to in one sweep,
+     * and journals the deletions in one group.
+     *
+     * @param line The user input, split into tokens.
+     * @return The removed tasks, in list order.
+     * @throws RobertException If the task numbers are invalid.
+     * @throws IOException If saving tasks fails.
+     */
+    private List<Task> deleteInBatch(CommandLine line) throws RobertException, IOException {
+        int[] indices = Parser.parseTaskIndices(line, tasks.size());
+        List<Task> removedTasks = tasks.removeTasks(indices);
+        storage.appendDeletes(removedTasks);
+        history.record(new UndoLog.Operation(UndoLog.Kind.DELETE, removedTasks, indices));
+        return removedTasks;
+    }
+
+    /**
+     * Formats a heading followed by a numbered list of tasks.
+     */
+    private static String listTasks(String heading, List<Task> batch) {
+        StringBuilder sb = new StringBuilder(heading);
+        for (int i = 0; i < batch.size(); i++) {
+            sb.append("\n  ").append(i + 1).append(".").append(batch.get(i));
+        }
+        return sb.toString();
+    }
+
     /**
      * Handles the "todo" command to add a new Todo task.
      *
-     * @param input The full user input string.
+     * @param line The user input, split into tokens.
      * @return Response message.
      * @throws RobertException If the input is invalid.
      * @throws IOException If saving tasks fails.
      */
-    private String handleTodo(String input) throws RobertException, IOException {
-        Todo todo = Parser.parseTodo(input);
+    private synchronized String handleTodo(CommandLine line) throws RobertException, IOException {
+        Todo todo = Parser.parseTodo(line);
         
         // Check for duplicates
-        if (tasks.isDuplicate(todo)) {
-            Task existingTask = tasks.findDuplicate(todo);
+        Task existingTask = tasks.findDuplicate(todo);
+        if (existingTask != null) {
             throw new DuplicateTaskException(existingTask.toString());
         }
         
-        tasks.add(todo);
-        storage.save(tasks);
+        addTask(todo);
         return "Got it. I've added this task:\n  " + todo + "\nNow you have " + tasks.size() + " task(s) in the list.";
     }
 
     /**
      * Handles the "deadline" command to add a new Deadline task.
      *
-     * @param input The full user input string.
+     * @param line The user input, split into tokens.
      * @return Response message.
      * @throws RobertException If the input is invalid.
      * @throws IOException If saving tasks fails.
      */
-    private String handleDeadline(String input) throws RobertException, IOException {
-        Deadline deadline = Parser.parseDeadline(input);
+    private synchronized String handleDeadline(CommandLine line) throws RobertException, IOException {
+        Deadline deadline = Parser.parseDeadline(line);
         
         // Check for duplicates
-        if (tasks.isDuplicate(deadline)) {
-            Task existingTask = tasks.findDuplicate(deadline);
+        Task existingTask = tasks.findDuplicate(deadline);
+        if (existingTask != null) {
             throw new DuplicateTaskException(existingTask.toString());
         }
         
-        tasks.add(deadline);
-        storage.save(tasks);
+        addTask(deadline);
         return "Got it. I've added this task:\n  " + deadline + "\nNow you have " + tasks.size() + " task(s) in the list.";
     }
 
     /**
      * Handles the "event" command to add a new Event task.
      *
-     * @param input The full user input string.
+     * @param line The user input, split into tokens.
      * @return Response message.
      * @throws RobertException If the input is invalid.
      * @throws IOException If saving tasks fails.
      */
-    private String handleEvent(String input) throws RobertException, IOException {
-        Event event = Parser.parseEvent(input);
+    private synchronized String handleEvent(CommandLine line) throws RobertException, IOException {
+        Event event = Parser.parseEvent(line);
         
         // Check for duplicates
-        if (tasks.isDuplicate(event)) {
-            Task existingTask = tasks.findDuplicate(event);
+        Task existingTask = tasks.findDuplicate(event);
+        if (existingTask != null) {
             throw new DuplicateTaskException(existingTask.toString());
         }
         
-        tasks.add(event);
-        storage.save(tasks);
-        return "Got it. I've added this task:\n  " + event + "\nNow you have " + tasks.size() + " task(s) in the list.";
+        TaskList overlapping = tasks.findOverlapping(event);
+        addTask(event);
+        StringBuilder sb = new StringBuilder("Got it. I've added this task:\n  " + event
+                + "\nNow you have " + tasks.size() + " task(s) in the list.");
+        if (overlapping.size() > 0) {
+            sb.append("\nNote that it overlaps with:");
+            for (int i = 0; i < overlapping.size(); i++) {
+                sb.append("\n  ").append(overlapping.get(i));
+            }
+        }
+        return sb.toString();
     }
 
     /**
      * Handles the "delete" command to remove a task.
      *
-     * @param input The full user input string.
+     * @param line The user input, split into tokens.
      * @return Response message.
      * @throws RobertException If the task index is invalid.
      * @throws IOException If saving tasks fails.
      */
-    private String handleDelete(String input) throws RobertException, IOException {
-        int index = Parser.parseTaskIndex(input);
+    private synchronized String handleDelete(CommandLine line) throws RobertException, IOException {
+        if (Parser.isTaskBatch(line)) {
+            return listTasks("Noted. I've removed these tasks:", deleteInBatch(line))
+                    + "\nNow you have " + tasks.size() + " task(s) in the list.";
+        }
+        int index = parseTaskIndex(line);
         if (index < 0 || index >= tasks.size()) {
             throw new RobertException("Task number out of range. You have " + tasks.size() + " task(s).");
         }
-        Task removedTask = tasks.remove(index);
-        storage.save(tasks);
+        Task removedTask = deleteTask(index);
         return "Noted. I've removed this task:\n  " + removedTask + "\nNow you have " + tasks.size() + " task(s) in the list.";
     }
 
+    /**
+     * Handles the "import" command to add the tasks from a CSV, JSON lines or iCalendar file.
+     * The file is read and parsed before the list is locked. The tasks that are not duplicates are
+     * then added together, saved in one snapshot and recorded for undo as a single change.
+     *
+     * @param line The user input, split into tokens.
+     * @return Response message, describing any records that could not be imported.
+     * @throws RobertException If the file is missing or of an unsupported type.
+     * @throws IOException If the file cannot be read or saving tasks fails.
+     */
+    private String handleImport(CommandLine line) throws RobertException, IOException {
+        String path = Parser.parseImport(line);
+        if (!TaskImporter.isSupported(path)) {
+            throw new RobertException("Only .csv, .jsonl, .ndjson and .ics files can be imported.");
+        }
+        if (!new File(path).isFile()) {
+            throw new RobertException("Cannot find the file '" + path + "'.");
+        }
+        long start = System.nanoTime();
+        TaskImporter.Result result = storage.importTasks(path,
+                count -> ui.showMessage("Read " + count + " record(s) so far..."));
+        List<Task> added = addImported(result.getTasks());
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        StringBuilder sb = new StringBuilder(String.format("Imported %d task(s) from %d record(s) in %.2f s.",
+                added.size(), result.getRecordCount(), seconds));
+        int duplicateCount = result.getTasks().size() - added.size();
+        if (duplicateCount > 0) {
+            sb.append("\nSkipped ").append(duplicateCount).append(" duplicate(s).");
+        }
+        if (result.getErrorCount() > 0) {
+            sb.append("\n").append(result.getErrorCount()).append(" record(s) could not be imported:");
+            List<String> errors = result.getErrors();
+            for (int i = 0; i < Math.min(errors.size(), IMPORT_ERRORS_SHOWN); i++) {
+                sb.append("\n  ").append(errors.get(i));
+            }
+            if (result.getErrorCount() > IMPORT_ERRORS_SHOWN) {
+                sb.append("\n  ...and ").append(result.getErrorCount() - IMPORT_ERRORS_SHOWN).append(" more.");
+            }
+        }
+        return sb.append("\nNow you have ").append(tasks.size()).append(" task(s) in the list.").toString();
+    }
+
+    /**
+     * Adds the imported tasks that are not duplicates in one step, saves the list as a snapshot
+     * instead of journaling every task, and records the tasks for undo together.
+     *
+     * @param imported The tasks read from the file.
+     * @return The tasks that were added.
+     * @throws IOException If saving tasks fails.
+     */
+    private synchronized List<Task> addImported(List<Task> imported) throws IOException {
+        int firstIndex = tasks.size();
+        List<Task> added = tasks.addAllNew(imported);
+        if (added.isEmpty()) {
+            return added;
+        }
+        storage.checkpoint(tasks);
+        int[] positions = new int[added.size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = firstIndex + i;
+        }
+        history.record(new UndoLog.Operation(UndoLog.Kind.ADD, added, positions));
+        return added;
+    }
+
     /**
      * Handles the "find" command to search for tasks containing a keyword.
      *
-     * @param input The full user input string.
+     * @param line The user input, split into tokens.
      * @return Response message.
      * @throws RobertException If the keyword is invalid.
      */
-    private String handleFind(String input) throws RobertException {
-        String keyword = Parser.parseFind(input);
+    private String handleFind(CommandLine line) throws RobertException {
+        String keyword = Parser.parseFind(line);
         TaskList matchingTasks = tasks.findTasks(keyword);
         if (matchingTasks.size() == 0) {
             return "No matching tasks found.";
@@ -225,102 +824,167 @@ public class Robert {
         }
     }
 
+    /**
+     * Handles the "fuzzy" command to find the tasks closest to some possibly misspelled text.
+     *
+     * @param line The user input, split into tokens.
+     * @return Response message.
+     * @throws RobertException If the text is missing.
+     */
+    private String handleFuzzy(CommandLine line) throws RobertException {
+        String text = Parser.parseFuzzy(line);
+        TaskList closestTasks = tasks.findFuzzy(text, FUZZY_MATCH_LIMIT);
+        if (closestTasks.size() == 0) {
+            return "No similar tasks found.";
+        }
+        StringBuilder sb = new StringBuilder("Here are the closest matches in your list:\n");
+        for (int i = 0; i < closestTasks.size(); i++) {
+            sb.append((i + 1)).append(".").append(closestTasks.get(i)).append("\n");
+        }
+        return sb.toString().trim();
+    }
+
+    /**
+     * Handles the "upcoming" command to list the next deadlines and events that are not done.
+     *
+     * @param line The user input, split into tokens.
+     * @return Response message.
+     * @throws RobertException If the count is invalid.
+     */
+    private String handleUpcoming(CommandLine line) throws RobertException {
+        int count = Parser.parseUpcoming(line, UPCOMING_DEFAULT_COUNT);
+        TaskList upcomingTasks = tasks.findUpcoming(LocalDateTime.now(), count);
+        if (upcomingTasks.size() == 0) {
+            return "No upcoming deadlines or events.";
+        }
+        StringBuilder sb = new StringBuilder("Here are your upcoming tasks:\n");
+        for (int i = 0; i < upcomingTasks.size(); i++) {
+            sb.append((i + 1)).append(".").append(upcomingTasks.get(i)).append("\n");
+        }
+        return sb.toString().trim();
+    }
+
+    /**
+     * Handles the "due" command to list deadlines and events on a date.
+     *
+     * @param line The user input, split into tokens.
+     * @return Response message.
+     * @throws RobertException If the date is invalid.
+     */
+    private String handleDue(CommandLine line) throws RobertException {
+        LocalDate date = Parser.parseDue(line);
+        return getTasksInRangeString(findOn(date, date), "due on " + formatDate(date));
+    }
+
+    /**
+     * Handles the "between" command to list deadlines and events within a date range.
+     *
+     * @param line The user input, split into tokens.
+     * @return Response message.
+     * @throws RobertException If either date is invalid.
+     */
+    private String handleBetween(CommandLine line) throws RobertException {
+        LocalDate[] range = Parser.parseBetween(line);
+        return getTasksInRangeString(findOn(range[0], range[1]),
+                "between " + formatDate(range[0]) + " and " + formatDate(range[1]));
+    }
+
+    /**
+     * Finds the deadlines and events falling on any day from the first date to the last, inclusive.
+     */
+    private TaskList findOn(LocalDate first, LocalDate last) {
+        return tasks.findBetween(first.atStartOfDay(), last.atTime(LocalTime.MAX));
+    }
+
+    private static String formatDate(LocalDate date) {
+        return DateTimeCodec.formatDisplayDate(date);
+    }
+
+    private static String getTasksInRangeString(TaskList tasksInRange, String range) {
+        if (tasksInRange.size() == 0) {
+            return "No tasks " + range + ".";
+        }
+        StringBuilder sb = new StringBuilder("Here are the tasks " + range + ":\n");
+        for (int i = 0; i < tasksInRange.size(); i++) {
+            sb.append((i + 1)).append(".").append(tasksInRange.get(i)).append("\n");
+        }
+        return sb.toString().trim();
+    }
+
+    /**
+     * Lists every pair of overlapping events for the "conflicts" command.
+     */
+    private String getConflictsString() {
+        List<Event[]> conflicts = tasks.findConflicts();
+        if (conflicts.isEmpty()) {
+            return "No overlapping events found.";
+        }
+        StringBuilder sb = new StringBuilder("Here are the overlapping events in your list:\n");
+        for (int i = 0; i < conflicts.size(); i++) {
+            sb.append((i + 1)).append(".").append(conflicts.get(i)[0]).append("\n");
+            sb.append("  overlaps ").append(conflicts.get(i)[1]).append("\n");
+        }
+        return sb.toString().trim();
+    }
+
     /**
      * Runs the command-line interface version of Robert.
-     * This method is for backward compatibility with the CLI version.
+     * Each command goes through the same registry as {@link #getResponse(String)}.
      */
     public void run() {
         ui.showWelcome();
-        
+
         while (true) {
             String input = ui.readCommand();
             ui.showLine();
-            
-            try {
-                String command = Parser.parseCommand(input);
-                
-                if (command.equals("bye")) {
-                    ui.showGoodbye();
-                    ui.showLine();
-                    break;
-                } else if (command.equals("list")) {
-                    ui.showTaskList(tasks);
-                } else if (command.equals("mark")) {
-                    int index = Parser.parseTaskIndex(input);
-                    if (index < 0 || index >= tasks.size()) {
-                        throw new RobertException("Task number out of range. You have " + tasks.size() + " task(s).");
-                    }
-                    tasks.markTask(index);
-                    storage.save(tasks);
-                    ui.showTaskMarked(tasks.get(index));
-                } else if (command.equals("unmark")) {
-                    int index = Parser.parseTaskIndex(input);
-                    if (index < 0 || index >= tasks.size()) {
-                        throw new RobertException("Task number out of range. You have " + tasks.size() + " task(s).");
-                    }
-                    tasks.unmarkTask(index);
-                    storage.save(tasks);
-                    ui.showTaskUnmarked(tasks.get(index));
-                } else if (command.equals("todo")) {
-                    Todo todo = Parser.parseTodo(input);
-                    if (tasks.isDuplicate(todo)) {
-                        Task existingTask = tasks.findDuplicate(todo);
-                        throw new DuplicateTaskException("This task already exists in your list: " + existingTask.toString());
-                    }
-                    tasks.add(todo);
-                    storage.save(tasks);
-                    ui.showTaskAdded(todo, tasks.size());
-                } else if (command.equals("deadline")) {
-                    Deadline deadline = Parser.parseDeadline(input);
-                    if (tasks.isDuplicate(deadline)) {
-                        Task existingTask = tasks.findDuplicate(deadline);
-                        throw new DuplicateTaskException("This task already exists in your list: " + existingTask.toString());
-                    }
-                    tasks.add(deadline);
-                    storage.save(tasks);
-                    ui.showTaskAdded(deadline, tasks.size());
-                } else if (command.equals("event")) {
-                    Event event = Parser.parseEvent(input);
-                    if (tasks.isDuplicate(event)) {
-                        Task existingTask = tasks.findDuplicate(event);
-                        throw new DuplicateTaskException("This task already exists in your list: " + existingTask.toString());
-                    }
-                    tasks.add(event);
-                    storage.save(tasks);
-                    ui.showTaskAdded(event, tasks.size());
-                } else if (command.equals("delete")) {
-                    int index = Parser.parseTaskIndex(input);
-                    if (index < 0 || index >= tasks.size()) {
-                        throw new RobertException("Task number out of range. You have " + tasks.size() + " task(s).");
-                    }
-                    Task removedTask = tasks.remove(index);
-                    storage.save(tasks);
-                    ui.showTaskDeleted(removedTask, tasks.size());
-                } else if (command.equals("find")) {
-                    String keyword = Parser.parseFind(input);
-                    TaskList matchingTasks = tasks.findTasks(keyword);
-                    ui.showMatchingTasks(matchingTasks);
-                } else {
-                    throw new RobertException("Only 'list', 'mark <num>', 'unmark <num>', 'todo <desc>', 'deadline <desc> /by <time>', 'event <desc> /from <start> /to <end>', 'delete <num>', 'find <keyword>', and 'bye' commands are supported.");
-                }
-            } catch (DuplicateTaskException e) {
-                ui.showError(e.getMessage());
-            } catch (RobertException | IOException e) {
-                ui.showError(e.getMessage());
-            } finally {
+            ui.showMessage(getResponse(input));
+            ui.showLine();
+            if (endsSession(input)) {
                 ui.showLine();
+                break;
             }
         }
-        
+
+        shutdown();
         ui.close();
     }
 
+    /**
+     * Checks whether the input ends the session, either on its own or as one of several commands.
+     */
+    private static boolean endsSession(String input) {
+        for (CommandLine line : CommandLine.split(input, PIPELINE_DELIMITER)) {
+            if (line.tokenEquals(0, "bye")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes any unsaved changes to disk and stops background storage work.
+     * Called when the application is shutting down.
+     */
+    public void shutdown() {
+        try {
+            storage.close();
+            history.save();
+        } catch (IOException e) {
+            ui.showError(e.getMessage());
+        }
+    }
+
     /**
      * Main entry point for the Robert chatbot application.
+     * With "--script &lt;file&gt;" or "--batch", runs the commands in the file or on standard input
+     * in batch mode instead of interactively; see {@link BatchRunner}.
      *
      * @param args Command line arguments.
      */
     public static void main(String[] args) {
+        if (BatchRunner.isBatchMode(args)) {
+            System.exit(BatchRunner.run(FILE_PATH, args));
+        }
         new Robert(FILE_PATH).run();
     }
 }
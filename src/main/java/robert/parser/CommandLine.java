@@ -0,0 +1,257 @@
+package robert.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A line of user input split into whitespace-separated tokens in a single pass.
+ *
+ * <p>Tokens are kept as start and end offsets into the original characters, so looking at
+ * them allocates nothing; only {@link #token(int)} and {@link #rest(int)} create strings.
+ * Whitespace means the same characters as {@code \s} in a regular expression.
+ * A CommandLine is itself a CharSequence over the input, so it can be passed to any
+ * {@link Parser} method in place of the input, saving the parser a second pass.</p>
+ */
+public class CommandLine implements CharSequence {
+    private static final int INITIAL_TOKENS = 4;
+
+    private final CharSequence input;
+    private int[] bounds = new int[2 * INITIAL_TOKENS]; // Start and end offset of each token
+    private int tokenCount;
+
+    /**
+     * Splits the given input into tokens.
+     *
+     * @param input The full user input.
+     */
+    public CommandLine(CharSequence input) {
+        this.input = input;
+        int length = input.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && isWhitespace(input.charAt(i))) {
+                i++;
+            }
+            if (i == length) {
+                break;
+            }
+            int start = i;
+            while (i < length && !isWhitespace(input.charAt(i))) {
+                i++;
+            }
+            if (2 * tokenCount == bounds.length) {
+                int[] grown = new int[bounds.length * 2];
+                System.arraycopy(bounds, 0, grown, 0, bounds.length);
+                bounds = grown;
+            }
+            bounds[2 * tokenCount] = start;
+            bounds[2 * tokenCount + 1] = i;
+            tokenCount++;
+        }
+    }
+
+    /**
+     * Returns the given input as a CommandLine, splitting it only if it is not one already.
+     *
+     * @param input The full user input, or a CommandLine made from it.
+     * @return The CommandLine.
+     */
+    public static CommandLine of(CharSequence input) {
+        return input instanceof CommandLine ? (CommandLine) input : new CommandLine(input);
+    }
+
+    /**
+     * Splits input holding several commands at every delimiter and tokenizes each command.
+     * Blank commands, such as after a trailing delimiter, are left out.
+     *
+     * @param input The full user input.
+     * @param delimiter The character between commands.
+     * @return The commands in the order they appear, or an empty list if the input is blank.
+     *     Input without a delimiter gives a single CommandLine over the input itself.
+     */
+    public static List<CommandLine> split(CharSequence input, char delimiter) {
+        ArrayList<CommandLine> lines = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i <= input.length(); i++) {
+            if (i < input.length() && input.charAt(i) != delimiter) {
+                continue;
+            }
+            CommandLine line = new CommandLine(start == 0 && i == input.length() ? input : input.subSequence(start, i));
+            if (line.tokenCount() > 0) {
+                lines.add(line);
+            }
+            start = i + 1;
+        }
+        return lines;
+    }
+
+    /**
+     * Returns the number of tokens.
+     *
+     * @return The number of tokens, 0 for blank input.
+     */
+    public int tokenCount() {
+        return tokenCount;
+    }
+
+    /**
+     * Returns the offset of the first character of a token.
+     *
+     * @param index Index of the token.
+     * @return The start offset in the input.
+     */
+    public int start(int index) {
+        assert index >= 0 && index < tokenCount : "Token index out of bounds";
+        return bounds[2 * index];
+    }
+
+    /**
+     * Returns the offset just past the last character of a token.
+     *
+     * @param index Index of the token.
+     * @return The end offset in the input.
+     */
+    public int end(int index) {
+        assert index >= 0 && index < tokenCount : "Token index out of bounds";
+        return bounds[2 * index + 1];
+    }
+
+    /**
+     * Checks whether a token consists of exactly the given characters, without creating a string.
+     *
+     * @param index Index of the token.
+     * @param word The characters to compare with.
+     * @return true if the token exists and equals the word.
+     */
+    public boolean tokenEquals(int index, String word) {
+        if (index >= tokenCount) {
+            return false;
+        }
+        int start = start(index);
+        if (end(index) - start != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (input.charAt(start + i) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a token starts with the given character.
+     *
+     * @param index Index of the token.
+     * @param c The character.
+     * @return true if the token exists and starts with the character.
+     */
+    public boolean tokenStartsWith(int index, char c) {
+        return index < tokenCount && input.charAt(start(index)) == c;
+    }
+
+    /**
+     * Returns a token as a string.
+     *
+     * @param index Index of the token.
+     * @return The token.
+     */
+    public String token(int index) {
+        return input.subSequence(start(index), end(index)).toString();
+    }
+
+    /**
+     * Returns everything from the start of a token to the end of the last token,
+     * keeping the whitespace between them as typed.
+     *
+     * @param index Index of the first token to include.
+     * @return The rest of the input, or an empty string if there are not that many tokens.
+     */
+    public String rest(int index) {
+        if (index >= tokenCount) {
+            return "";
+        }
+        return input.subSequence(start(index), end(tokenCount - 1)).toString();
+    }
+
+    /**
+     * Finds the first occurrence of the given text at or after an offset.
+     *
+     * @param text The text to look for.
+     * @param from The offset to start looking at.
+     * @return The offset of the text, or -1 if it does not occur.
+     */
+    public int indexOf(String text, int from) {
+        int last = input.length() - text.length();
+        for (int i = Math.max(0, from); i <= last; i++) {
+            int j = 0;
+            while (j < text.length() && input.charAt(i + j) == text.charAt(j)) {
+                j++;
+            }
+            if (j == text.length()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the first occurrence of the given character at or after an offset.
+     *
+     * @param c The character to look for.
+     * @param from The offset to start looking at.
+     * @return The offset of the character, or -1 if it does not occur.
+     */
+    public int indexOf(char c, int from) {
+        for (int i = Math.max(0, from); i < input.length(); i++) {
+            if (input.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the characters between two offsets with leading and trailing whitespace removed.
+     *
+     * @param from Offset of the first character.
+     * @param to Offset just past the last character.
+     * @return The stripped text, possibly empty.
+     */
+    public String strip(int from, int to) {
+        while (from < to && isWhitespace(input.charAt(from))) {
+            from++;
+        }
+        while (to > from && isWhitespace(input.charAt(to - 1))) {
+            to--;
+        }
+        return input.subSequence(from, to).toString();
+    }
+
+    @Override
+    public int length() {
+        return input.length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return input.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return input.subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return input.toString();
+    }
+
+    /**
+     * Checks whether a character is whitespace in the sense of {@code \s}.
+     */
+    static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
@@ -0,0 +1,150 @@
+package robert.parser;
+
+import robert.exception.RobertException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps command words to the code that carries them out.
+ *
+ * <p>Commands are kept in a small open-addressing table keyed by the command word. Looking up the
+ * first token of a {@link CommandLine} hashes and compares the characters where they lie in the
+ * input, so dispatching a command creates no strings. The registry also builds the message listing
+ * every supported command, in the order the commands were registered.</p>
+ */
+public class CommandRegistry {
+    private static final int INITIAL_CAPACITY = 32; // Slots in the table; kept at least twice the commands
+
+    /**
+     * Code that carries out one command.
+     */
+    public interface Command {
+        /**
+         * Carries out the command.
+         *
+         * @param line The user input, already split into tokens, starting with the command word.
+         * @return Response message.
+         * @throws RobertException If the input is invalid.
+         * @throws IOException If saving tasks fails.
+         */
+        String execute(CommandLine line) throws RobertException, IOException;
+    }
+
+    private String[] words = new String[INITIAL_CAPACITY];
+    private Command[] commands = new Command[INITIAL_CAPACITY];
+    private final ArrayList<String> wordsInOrder = new ArrayList<>();
+    private final ArrayList<String> usages = new ArrayList<>();
+    private String usageMessage; // Built on first use after a registration
+
+    /**
+     * Registers a command.
+     *
+     * @param word The command word, e.g. "mark".
+     * @param usage How to use the command, e.g. "mark &lt;num|#id&gt;", for the list of supported commands.
+     * @param command The code that carries out the command.
+     */
+    public void register(String word, String usage, Command command) {
+        assert !word.isEmpty() && CommandLine.of(word).tokenCount() == 1 : "Command words should be single words";
+        assert find(word) == null : "Command words should be registered once";
+        if (2 * (wordsInOrder.size() + 1) > words.length) {
+            rehash(words.length * 2);
+        }
+        put(word, command);
+        wordsInOrder.add(word);
+        usages.add(usage);
+        usageMessage = null;
+    }
+
+    /**
+     * Finds the command named by the first token of the input.
+     *
+     * @param line The user input, split into tokens.
+     * @return The command, or null if the input is blank or names no registered command.
+     */
+    public Command find(CommandLine line) {
+        if (line.tokenCount() == 0) {
+            return null;
+        }
+        int start = line.start(0);
+        int end = line.end(0);
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + line.charAt(i);
+        }
+        for (int slot = slotOf(hash); words[slot] != null; slot = (slot + 1) & (words.length - 1)) {
+            if (line.tokenEquals(0, words[slot])) {
+                return commands[slot];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the command with the given word.
+     *
+     * @param word The command word.
+     * @return The command, or null if no command has that word.
+     */
+    public Command find(String word) {
+        CommandLine line = new CommandLine(word);
+        return line.tokenCount() == 1 ? find(line) : null;
+    }
+
+    /**
+     * Returns the registered command words.
+     *
+     * @return The words, in the order they were registered.
+     */
+    public List<String> getWords() {
+        return new ArrayList<>(wordsInOrder);
+    }
+
+    /**
+     * Builds the message telling the user which commands are supported.
+     *
+     * @return The message, quoting the usage of every command in the order they were registered.
+     */
+    public String getUsageMessage() {
+        if (usageMessage != null) {
+            return usageMessage;
+        }
+        StringBuilder sb = new StringBuilder("Only ");
+        for (int i = 0; i < usages.size(); i++) {
+            if (i > 0) {
+                sb.append(i == usages.size() - 1 ? ", and " : ", ");
+            }
+            sb.append('\'').append(usages.get(i)).append('\'');
+        }
+        usageMessage = sb.append(" commands are supported.").toString();
+        return usageMessage;
+    }
+
+    private void put(String word, Command command) {
+        int slot = slotOf(word.hashCode());
+        while (words[slot] != null) {
+            slot = (slot + 1) & (words.length - 1);
+        }
+        words[slot] = word;
+        commands[slot] = command;
+    }
+
+    private void rehash(int capacity) {
+        String[] oldWords = words;
+        Command[] oldCommands = commands;
+        words = new String[capacity];
+        commands = new Command[capacity];
+        for (int i = 0; i < oldWords.length; i++) {
+            if (oldWords[i] != null) {
+                put(oldWords[i], oldCommands[i]);
+            }
+        }
+    }
+
+    /**
+     * Spreads the hash over the table, as {@link java.util.HashMap} does.
+     */
+    private int slotOf(int hash) {
+        return (hash ^ (hash >>> 16)) & (words.length - 1);
+    }
+}
@@ -0,0 +1,336 @@
+package robert.parser;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Reads and writes the date and time layouts Robert uses, working on the characters directly
+ * instead of going through a {@link java.time.format.DateTimeFormatter}.
+ *
+ * <p>Input uses the fixed-width layout "yyyy-MM-dd HHmm" (or "yyyy-MM-dd" and "HHmm" alone).
+ * Every field must have exactly its number of digits and name a real date and time, so
+ * "2019-02-30 1800" and "2019-12-01 2400" are rejected rather than adjusted.
+ * Tasks are displayed as "MMM d yyyy, h:mm a", e.g. "Dec 1 2019, 6:00 pm", with English
+ * month names and a lowercase am or pm whatever the default locale is.</p>
+ */
+public class DateTimeCodec {
+    /** Length of "yyyy-MM-dd HHmm". */
+    public static final int DATE_TIME_LENGTH = 15;
+    /** Length of "yyyy-MM-dd". */
+    public static final int DATE_LENGTH = 10;
+    /** Length of "HHmm". */
+    public static final int TIME_LENGTH = 4;
+
+    private static final String[] MONTHS = {
+        "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"
+    };
+    private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    /**
+     * Parses a date and time in the "yyyy-MM-dd HHmm" layout.
+     *
+     * @param text The text, e.g. "2019-12-01 1800".
+     * @return The date and time.
+     * @throws DateTimeParseException If the text is not a valid date and time in that layout.
+     */
+    public static LocalDateTime parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * Parses a date and time in the "yyyy-MM-dd HHmm" layout from part of some text.
+     *
+     * @param text The text.
+     * @param start Offset of the first character.
+     * @param end Offset just past the last character.
+     * @return The date and time.
+     * @throws DateTimeParseException If the characters are not a valid date and time in that layout.
+     */
+    public static LocalDateTime parse(CharSequence text, int start, int end) {
+        checkLength(text, start, end, DATE_TIME_LENGTH);
+        expect(text, start, end, start + DATE_LENGTH, ' ');
+        int date = parseDateFields(text, start, end);
+        int time = parseTimeFields(text, start + DATE_LENGTH + 1, start, end);
+        return LocalDateTime.of(date >>> 9, (date >>> 5) & 0xF, date & 0x1F, time / 60, time % 60);
+    }
+
+    /**
+     * Parses a date and time in the "yyyy-MM-dd HHmm" layout straight to minutes since
+     * 1970-01-01 0000, without building a {@link LocalDateTime}.
+     *
+     * @param text The text.
+     * @param start Offset of the first character.
+     * @param end Offset just past the last character.
+     * @return The minutes since the epoch, as used by the time indexes and columnar lists.
+     * @throws DateTimeParseException If the characters are not a valid date and time in that layout.
+     */
+    public static long parseEpochMinute(CharSequence text, int start, int end) {
+        checkLength(text, start, end, DATE_TIME_LENGTH);
+        expect(text, start, end, start + DATE_LENGTH, ' ');
+        int date = parseDateFields(text, start, end);
+        int time = parseTimeFields(text, start + DATE_LENGTH + 1, start, end);
+        return epochDay(date >>> 9, (date >>> 5) & 0xF, date & 0x1F) * MINUTES_PER_DAY + time;
+    }
+
+    /**
+     * Parses a date in the "yyyy-MM-dd" layout from part of some text.
+     *
+     * @param text The text.
+     * @param start Offset of the first character.
+     * @param end Offset just past the last character.
+     * @return The date.
+     * @throws DateTimeParseException If the characters are not a valid date in that layout.
+     */
+    public static LocalDate parseDate(CharSequence text, int start, int end) {
+        checkLength(text, start, end, DATE_LENGTH);
+        int date = parseDateFields(text, start, end);
+        return LocalDate.of(date >>> 9, (date >>> 5) & 0xF, date & 0x1F);
+    }
+
+    /**
+     * Parses a time of day in the "HHmm" layout.
+     *
+     * @param text The text, e.g. "1600".
+     * @return The time.
+     * @throws DateTimeParseException If the text is not a valid time in that layout.
+     */
+    public static LocalTime parseTime(CharSequence text) {
+        checkLength(text, 0, text.length(), TIME_LENGTH);
+        int time = parseTimeFields(text, 0, 0, text.length());
+        return LocalTime.of(time / 60, time % 60);
+    }
+
+    /**
+     * Formats a date and time in the "yyyy-MM-dd HHmm" layout.
+     *
+     * @param dateTime The date and time, in a year from 1 to 9999.
+     * @return The formatted text.
+     */
+    public static String format(LocalDateTime dateTime) {
+        return appendTo(new StringBuilder(DATE_TIME_LENGTH), dateTime).toString();
+    }
+
+    /**
+     * Appends a date and time in the "yyyy-MM-dd HHmm" layout.
+     *
+     * @param sb The builder to append to.
+     * @param dateTime The date and time, in a year from 1 to 9999.
+     * @return The builder.
+     */
+    public static StringBuilder appendTo(StringBuilder sb, LocalDateTime dateTime) {
+        assert dateTime.getYear() >= 1 && dateTime.getYear() <= 9999 : "Year should have four digits";
+        appendDigits(sb, dateTime.getYear(), 4).append('-');
+        appendDigits(sb, dateTime.getMonthValue(), 2).append('-');
+        appendDigits(sb, dateTime.getDayOfMonth(), 2).append(' ');
+        appendDigits(sb, dateTime.getHour(), 2);
+        return appendDigits(sb, dateTime.getMinute(), 2);
+    }
+
+    /**
+     * Formats a date and time for display, e.g. "Dec 1 2019, 6:00 pm".
+     *
+     * @param dateTime The date and time.
+     * @return The formatted text.
+     */
+    public static String formatDisplay(LocalDateTime dateTime) {
+        StringBuilder sb = new StringBuilder(20);
+        appendDisplayDate(sb, dateTime.toLocalDate()).append(", ");
+        return appendDisplayTime(sb, dateTime).toString();
+    }
+
+    /**
+     * Formats a date for display, e.g. "Dec 1 2019".
+     *
+     * @param date The date.
+     * @return The formatted text.
+     */
+    public static String formatDisplayDate(LocalDate date) {
+        return appendDisplayDate(new StringBuilder(11), date).toString();
+    }
+
+    /**
+     * Formats the time of day for display, e.g. "6:00 pm".
+     *
+     * @param dateTime The date and time.
+     * @return The formatted text.
+     */
+    public static String formatDisplayTime(LocalDateTime dateTime) {
+        return appendDisplayTime(new StringBuilder(8), dateTime).toString();
+    }
+
+    /**
+     * Parses a date and time as displayed, e.g. "Dec 1 2019, 6:00 pm".
+     *
+     * @param text The text.
+     * @return The date and time.
+     * @throws DateTimeParseException If the text is not a valid date and time as displayed.
+     */
+    public static LocalDateTime parseDisplay(CharSequence text) {
+        int end = text.length();
+        if (end < 3) {
+            throw error(text, 0, end, 0);
+        }
+        int month = 0;
+        while (month < MONTHS.length && !regionMatches(text, 0, MONTHS[month])) {
+            month++;
+        }
+        if (month == MONTHS.length) {
+            throw error(text, 0, end, 0);
+        }
+        int i = 3;
+        expect(text, 0, end, i++, ' ');
+        int dayEnd = skipDigits(text, i, Math.min(end, i + 2));
+        int day = parseNumber(text, i, dayEnd, 0, end);
+        i = dayEnd;
+        expect(text, 0, end, i++, ' ');
+        int year = parseNumber(text, i, i + 4, 0, end);
+        i += 4;
+        expect(text, 0, end, i++, ',');
+        expect(text, 0, end, i++, ' ');
+        int hourEnd = skipDigits(text, i, Math.min(end, i + 2));
+        int hour = parseNumber(text, i, hourEnd, 0, end);
+        i = hourEnd;
+        expect(text, 0, end, i++, ':');
+        int minute = parseNumber(text, i, i + 2, 0, end);
+        i += 2;
+        expect(text, 0, end, i++, ' ');
+        if (i + 2 != end || text.charAt(i + 1) != 'm' || text.charAt(i) != 'a' && text.charAt(i) != 'p') {
+            throw error(text, 0, end, Math.min(i, end));
+        }
+        if (hour < 1 || hour > 12 || minute > 59) {
+            throw error(text, 0, end, hourEnd);
+        }
+        hour = hour % 12 + (text.charAt(i) == 'p' ? 12 : 0);
+        checkDate(text, 0, end, year, month + 1, day);
+        return LocalDateTime.of(year, month + 1, day, hour, minute);
+    }
+
+    /**
+     * Reads the "yyyy-MM-dd" fields starting at start and checks that they name a real date.
+     *
+     * @return The year, month and day packed as year &lt;&lt; 9 | month &lt;&lt; 5 | day.
+     */
+    private static int parseDateFields(CharSequence text, int start, int end) {
+        int year = parseNumber(text, start, start + 4, start, end);
+        expect(text, start, end, start + 4, '-');
+        int month = parseNumber(text, start + 5, start + 7, start, end);
+        expect(text, start, end, start + 7, '-');
+        int day = parseNumber(text, start + 8, start + 10, start, end);
+        checkDate(text, start, end, year, month, day);
+        return year << 9 | month << 5 | day;
+    }
+
+    /**
+     * Reads the "HHmm" fields at the given offset.
+     *
+     * @return The minutes since midnight.
+     */
+    private static int parseTimeFields(CharSequence text, int offset, int start, int end) {
+        int hour = parseNumber(text, offset, offset + 2, start, end);
+        int minute = parseNumber(text, offset + 2, offset + 4, start, end);
+        if (hour > 23 || minute > 59) {
+            throw error(text, start, end, offset);
+        }
+        return hour * 60 + minute;
+    }
+
+    private static void checkDate(CharSequence text, int start, int end, int year, int month, int day) {
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) {
+            throw error(text, start, end, start);
+        }
+    }
+
+    private static int daysInMonth(int year, int month) {
+        boolean isLeap = year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
+        return month == 2 && isLeap ? 29 : DAYS_IN_MONTH[month - 1];
+    }
+
+    /**
+     * Counts the days from 1970-01-01 to a valid date in the proleptic Gregorian calendar.
+     */
+    private static long epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+
+    /**
+     * Reads the decimal digits from one offset to another as a non-negative number.
+     */
+    private static int parseNumber(CharSequence text, int from, int to, int start, int end) {
+        if (from >= to || to > end) {
+            throw error(text, start, end, Math.min(from, end));
+        }
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                throw error(text, start, end, i);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int skipDigits(CharSequence text, int from, int to) {
+        while (from < to && text.charAt(from) >= '0' && text.charAt(from) <= '9') {
+            from++;
+        }
+        return from;
+    }
+
+    private static void expect(CharSequence text, int start, int end, int offset, char c) {
+        if (offset >= end || text.charAt(offset) != c) {
+            throw error(text, start, end, Math.min(offset, end));
+        }
+    }
+
+    private static boolean regionMatches(CharSequence text, int offset, String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (text.charAt(offset + i) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void checkLength(CharSequence text, int start, int end, int length) {
+        if (end - start != length) {
+            throw error(text, start, end, start);
+        }
+    }
+
+    private static DateTimeParseException error(CharSequence text, int start, int end, int offset) {
+        String parsed = text.subSequence(start, end).toString();
+        return new DateTimeParseException("Text '" + parsed + "' could not be parsed at index " + (offset - start),
+                parsed, offset - start);
+    }
+
+    private static StringBuilder appendDisplayDate(StringBuilder sb, LocalDate date) {
+        sb.append(MONTHS[date.getMonthValue() - 1]).append(' ').append(date.getDayOfMonth()).append(' ');
+        return appendDigits(sb, date.getYear(), 4);
+    }
+
+    private static StringBuilder appendDisplayTime(StringBuilder sb, LocalDateTime dateTime) {
+        int hour = dateTime.getHour() % 12;
+        sb.append(hour == 0 ? 12 : hour).append(':');
+        appendDigits(sb, dateTime.getMinute(), 2);
+        return sb.append(dateTime.getHour() < 12 ? " am" : " pm");
+    }
+
+    /**
+     * Appends a non-negative number padded with zeros to the given width.
+     */
+    private static StringBuilder appendDigits(StringBuilder sb, int value, int width) {
+        for (int divisor = width == 4 ? 1000 : 10; divisor > 0; divisor /= 10) {
+            sb.append((char) ('0' + value / divisor % 10));
+        }
+        return sb;
+    }
+}
@@ -4,12 +4,18 @@ import robert.task.Todo;
 import robert.task.Deadline;
 import robert.task.Event;
 import robert.exception.RobertException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.BitSet;
 
 /**
  * Handles parsing of user input commands for the Robert chatbot.
+ *
+ * <p>Every method accepts the input as any CharSequence and splits it with {@link CommandLine},
+ * so passing a CommandLine the caller has already made avoids splitting the input again.
+ * No regular expressions are involved, and numbers, dates and times are parsed straight from the
+ * input, dates and times with {@link DateTimeCodec}.</p>
  */
 public class Parser {
     /**
@@ -18,12 +24,9 @@ public class Parser {
      * @param input The full user input string.
      * @return The command word.
      */
-    public static String parseCommand(String input) {
-        String trimmed = input.trim();
-        if (trimmed.isEmpty()) {
-            return "";
-        }
-        return trimmed.split("\\s+")[0];
+    public static String parseCommand(CharSequence input) {
+        CommandLine line = CommandLine.of(input);
+        return line.tokenCount() == 0 ? "" : line.token(0);
     }
 
     /**
@@ -33,20 +36,132 @@ public class Parser {
      * @return The zero-based task index.
      * @throws RobertException If the input format is invalid.
      */
-    public static int parseTaskIndex(String input) throws RobertException {
-        String[] parts = input.trim().split("\\s+");
-        assert parts.length > 0 : "Input should not be empty";
-        if (parts.length != 2) {
+    public static int parseTaskIndex(CharSequence input) throws RobertException {
+        CommandLine line = CommandLine.of(input);
+        assert line.tokenCount() > 0 : "Input should not be empty";
+        if (line.tokenCount() != 2) {
             throw new RobertException("Please provide a valid task number.");
         }
         try {
-            int index = Integer.parseInt(parts[1]);
+            int index = Integer.parseInt(line, line.start(1), line.end(1), 10);
             return index - 1; // Convert to 0-based index
         } catch (NumberFormatException e) {
             throw new RobertException("Please provide a valid task number.");
         }
     }
 
+    /**
+     * Checks whether the user input refers to several tasks at once, as a range like "1-500",
+     * a list like "3,7,9" or "all".
+     *
+     * @param input The full user input string.
+     * @return true if the argument is a range, a list or "all", false otherwise.
+     */
+    public static boolean isTaskBatch(CharSequence input) {
+        CommandLine line = CommandLine.of(input);
+        if (line.tokenCount() < 2) {
+            return false;
+        }
+        int argumentStart = line.start(1);
+        return line.tokenCount() == 2 && line.tokenEquals(1, "all") || line.indexOf(',', argumentStart) >= 0
+                || line.indexOf('-', argumentStart + 1) > 0;
+    }
+
+    /**
+     * Parses the task numbers of a batch command such as "mark 1-500", "delete 3,7,9" or "unmark all".
+     * Ranges and single numbers can be mixed, as in "delete 1-3,7".
+     *
+     * @param input The full user input string.
+     * @param taskCount The number of tasks in the list.
+     * @return The zero-based indexes, in increasing order without repeats.
+     * @throws RobertException If the input format is invalid or a number is out of range.
+     */
+    public static int[] parseTaskIndices(CharSequence input, int taskCount) throws RobertException {
+        CommandLine line = CommandLine.of(input);
+        if (line.tokenCount() < 2) {
+            throw new RobertException("Please provide task numbers, e.g., '1-3', '3,7,9' or 'all'.");
+        }
+        StringBuilder argument = new StringBuilder(line.end(line.tokenCount() - 1) - line.start(1));
+        for (int i = 1; i < line.tokenCount(); i++) {
+            argument.append(line, line.start(i), line.end(i));
+        }
+        if (line.tokenCount() == 2 && line.tokenEquals(1, "all")) {
+            if (taskCount == 0) {
+                throw new RobertException("You have no tasks yet.");
+            }
+            int[] indices = new int[taskCount];
+            for (int i = 0; i < taskCount; i++) {
+                indices[i] = i;
+            }
+            return indices;
+        }
+        BitSet selected = new BitSet(taskCount);
+        int itemStart = 0;
+        while (itemStart <= argument.length()) {
+            int itemEnd = argument.indexOf(",", itemStart);
+            itemEnd = itemEnd < 0 ? argument.length() : itemEnd;
+            int dash = itemEnd > itemStart ? argument.indexOf("-", itemStart + 1) : -1;
+            dash = dash < itemEnd ? dash : -1;
+            int first = parseTaskNumber(argument, itemStart, dash < 0 ? itemEnd : dash);
+            int last = dash < 0 ? first : parseTaskNumber(argument, dash + 1, itemEnd);
+            if (last < first) {
+                throw new RobertException("A range cannot end before it starts: "
+                        + argument.substring(itemStart, itemEnd));
+            }
+            if (last > taskCount) {
+                throw new RobertException("Task number out of range. You have " + taskCount + " task(s).");
+            }
+            selected.set(first - 1, last);
+            itemStart = itemEnd + 1;
+        }
+        return selected.stream().toArray();
+    }
+
+    private static int parseTaskNumber(CharSequence text, int start, int end) throws RobertException {
+        try {
+            int number = Integer.parseInt(text, start, end, 10);
+            if (number > 0) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new RobertException("Please provide valid task numbers, e.g., '1-3', '3,7,9' or 'all'.");
+    }
+
+    /**
+     * Checks whether the task in the user input is given as "#id" rather than by its position.
+     *
+     * @param input The full user input string.
+     * @return true if the argument starts with '#', false otherwise.
+     */
+    public static boolean hasTaskId(CharSequence input) {
+        return CommandLine.of(input).tokenStartsWith(1, '#');
+    }
+
+    /**
+     * Parses the task ID from user input of the form "mark #12".
+     *
+     * @param input The full user input string.
+     * @return The task ID.
+     * @throws RobertException If the input format is invalid.
+     */
+    public static long parseTaskId(CharSequence input) throws RobertException {
+        CommandLine line = CommandLine.of(input);
+        if (line.tokenCount() != 2 || !line.tokenStartsWith(1, '#')) {
+            throw new RobertException("Please provide a valid task ID, e.g., '#12'.");
+        }
+        try {
+            long id = Long.parseLong(line, line.start(1) + 1, line.end(1), 10);
+            if (id <= 0) {
+                throw new RobertException("Please provide a valid task ID, e.g., '#12'.");
+            }
+            return id;
+        } catch (NumberFormatException e) {
+            throw new RobertException("Please provide a valid task ID, e.g., '#12'.");
+        }
+    }
+
     /**
      * Parses a Todo task from the user input.
      *
@@ -54,14 +169,11 @@ public class Parser {
      * @return The Todo task.
      * @throws RobertException If the description is empty or invalid.
      */
-    public static Todo parseTodo(String input) throws RobertException {
-        String trimmed = input.trim();
-        assert trimmed.startsWith("todo") : "Input should start with 'todo'";
-        if (trimmed.length() <= 4 || !trimmed.startsWith("todo")) {
-            throw new RobertException("The description of a todo cannot be empty.");
-        }
-        String description = trimmed.substring(4).trim();
-        if (description.isEmpty()) {
+    public static Todo parseTodo(CharSequence input) throws RobertException {
+        CommandLine line = CommandLine.of(input);
+        assert line.tokenEquals(0, "todo") : "Input should start with 'todo'";
+        String description = line.rest(1);
+        if (!line.tokenEquals(0, "todo") || description.isEmpty()) {
             throw new RobertException("The description of a todo cannot be empty.");
         }
         return new Todo(description);
@@ -74,16 +186,18 @@ public class Parser {
      * @return The Deadline task.
      * @throws RobertException If the input format or date/time is invalid.
      */
-    public static Deadline parseDeadline(String input) throws RobertException {
-        assert input.startsWith("deadline") : "Input should start with 'deadline'";
-        String[] parts = input.substring(9).split(" /by ", 2);
-        if (parts.length < 2 || parts[0].trim().isEmpty() || parts[1].trim().isEmpty()) {
+    public static Deadline parseDeadline(CharSequence input) throws RobertException {
+        CommandLine line = CommandLine.of(input);
+        assert line.tokenEquals(0, "deadline") : "Input should start with 'deadline'";
+        int by = line.indexOf(" /by ", line.end(0));
+        String description = by < 0 ? "" : line.strip(line.end(0), by);
+        String time = by < 0 ? "" : line.strip(by + 5, line.length());
+        if (description.isEmpty() || time.isEmpty()) {
             throw new RobertException("Please provide a valid description and deadline, e.g., 'deadline return book /by 2019-12-02 1800'.");
         }
-        
+
         try {
-            LocalDateTime by = LocalDateTime.parse(parts[1].trim(), DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm"));
-            return new Deadline(parts[0].trim(), by);
+            return new Deadline(description, DateTimeCodec.parse(time));
         } catch (DateTimeParseException e) {
             throw new RobertException("Invalid date/time format. Please use 'yyyy-MM-dd HHmm', e.g., '2019-12-02 1800'.");
         }
@@ -96,35 +210,55 @@ public class Parser {
      * @return The Event task.
      * @throws RobertException If the input format or date/time is invalid.
      */
-    public static Event parseEvent(String input) throws RobertException {
-        assert input.startsWith("event") : "Input should start with 'event'";
-        String[] parts = input.substring(6).split(" /from ", 2);
-        if (parts.length < 2 || parts[0].trim().isEmpty()) {
+    public static Event parseEvent(CharSequence input) throws RobertException {
+        CommandLine line = CommandLine.of(input);
+        assert line.tokenEquals(0, "event") : "Input should start with 'event'";
+        int from = line.indexOf(" /from ", line.end(0));
+        String description = from < 0 ? "" : line.strip(line.end(0), from);
+        if (description.isEmpty()) {
             throw new RobertException("Please provide a valid description and event time, e.g., 'event project meeting /from 2019-12-02 1400 /to 1600'.");
         }
-        
-        String[] timeParts = parts[1].split(" /to ", 2);
-        if (timeParts.length < 2 || timeParts[0].trim().isEmpty() || timeParts[1].trim().isEmpty()) {
+
+        int to = line.indexOf(" /to ", from + 7);
+        String start = to < 0 ? "" : line.strip(from + 7, to);
+        String end = to < 0 ? "" : line.strip(to + 5, line.length());
+        if (start.isEmpty() || end.isEmpty()) {
             throw new RobertException("Please provide both start and end times, e.g., 'event project meeting /from 2019-12-02 1400 /to 1600'.");
         }
-        
+
         try {
-            LocalDateTime from = LocalDateTime.parse(timeParts[0].trim(), DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm"));
-            LocalDateTime to;
-            if (timeParts[1].trim().contains("-")) {
+            LocalDateTime startTime = DateTimeCodec.parse(start);
+            LocalDateTime endTime;
+            if (end.length() == DateTimeCodec.DATE_TIME_LENGTH) {
                 // Full date and time provided for /to
-                to = LocalDateTime.parse(timeParts[1].trim(), DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm"));
+                endTime = DateTimeCodec.parse(end);
             } else {
                 // Only time provided for /to, assume same day as /from
-                to = from.withHour(Integer.parseInt(timeParts[1].trim().substring(0, 2)))
-                         .withMinute(Integer.parseInt(timeParts[1].trim().substring(2)));
+                endTime = startTime.with(DateTimeCodec.parseTime(end));
             }
-            return new Event(parts[0].trim(), from, to);
-        } catch (DateTimeParseException | NumberFormatException e) {
+            return new Event(description, startTime, endTime);
+        } catch (DateTimeParseException e) {
             throw new RobertException("Invalid date/time format. Please use 'yyyy-MM-dd HHmm', e.g., '2019-12-02 1400'.");
         }
     }
 
+    /**
+     * Parses an import command to extract the path of the file to import.
+     *
+     * @param input The full user input string.
+     * @return The file path, which may contain spaces.
+     * @throws RobertException If the path is empty.
+     */
+    public static String parseImport(CharSequence input) throws RobertException {
+        CommandLine line = CommandLine.of(input);
+        assert line.tokenEquals(0, "import") : "Input should start with 'import'";
+        String path = line.rest(1);
+        if (!line.tokenEquals(0, "import") || path.isEmpty()) {
+            throw new RobertException("Please provide a file to import, e.g., 'import tasks.csv'.");
+        }
+        return path;
+    }
+
     /**
      * Parses a find command to extract the search keyword.
      *
@@ -132,16 +266,100 @@ public class Parser {
      * @return The search keyword.
      * @throws RobertException If the keyword is empty.
      */
-    public static String parseFind(String input) throws RobertException {
-        assert input.startsWith("find") : "Input should start with 'find'";
-        String trimmed = input.trim();
-        if (trimmed.length() <= 4 || !trimmed.startsWith("find")) {
-            throw new RobertException("Please provide a keyword to search for.");
-        }
-        String keyword = trimmed.substring(4).trim();
-        if (keyword.isEmpty()) {
+    public static String parseFind(CharSequence input) throws RobertException {
+        CommandLine line = CommandLine.of(input);
+        assert line.tokenEquals(0, "find") : "Input should start with 'find'";
+        String keyword = line.rest(1);
+        if (!line.tokenEquals(0, "find") || keyword.isEmpty()) {
             throw new RobertException("Please provide a keyword to search for.");
         }
         return keyword;
     }
+
+    /**
+     * Parses a fuzzy command to extract the text to search for.
+     *
+     * @param input The full user input string.
+     * @return The text to search for.
+     * @throws RobertException If the text is missing.
+     */
+    public static String parseFuzzy(CharSequence input) throws RobertException {
+        CommandLine line = CommandLine.of(input);
+        assert line.tokenEquals(0, "fuzzy") : "Input should start with 'fuzzy'";
+        String text = line.rest(1);
+        if (text.isEmpty()) {
+            throw new RobertException("Please provide some text to search for.");
+        }
+        return text;
+    }
+
+    /**
+     * Parses an upcoming command to extract how many tasks to list.
+     *
+     * @param input The full user input string.
+     * @param defaultCount The count to use when none is given.
+     * @return The number of tasks to list.
+     * @throws RobertException If the count is not a positive number.
+     */
+    public static int parseUpcoming(CharSequence input, int defaultCount) throws RobertException {
+        CommandLine line = CommandLine.of(input);
+        assert line.tokenEquals(0, "upcoming") : "Input should start with 'upcoming'";
+        if (line.tokenCount() == 1) {
+            return defaultCount;
+        }
+        try {
+            int count = line.tokenCount() == 2 ? Integer.parseInt(line, line.start(1), line.end(1), 10) : 0;
+            if (count > 0) {
+                return count;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new RobertException("Please provide a positive number of tasks, e.g., 'upcoming 3'.");
+    }
+
+    /**
+     * Parses a due command to extract the date to list tasks for.
+     *
+     * @param input The full user input string.
+     * @return The date.
+     * @throws RobertException If the date is missing or invalid.
+     */
+    public static LocalDate parseDue(CharSequence input) throws RobertException {
+        CommandLine line = CommandLine.of(input);
+        assert line.tokenEquals(0, "due") : "Input should start with 'due'";
+        if (line.tokenCount() != 2) {
+            throw new RobertException("Please provide a date, e.g., 'due 2019-12-02'.");
+        }
+        return parseDate(line, 1);
+    }
+
+    /**
+     * Parses a between command to extract the first and last dates of the range.
+     *
+     * @param input The full user input string.
+     * @return The first and last dates, in that order.
+     * @throws RobertException If either date is missing or invalid, or the range ends before it starts.
+     */
+    public static LocalDate[] parseBetween(CharSequence input) throws RobertException {
+        CommandLine line = CommandLine.of(input);
+        assert line.tokenEquals(0, "between") : "Input should start with 'between'";
+        if (line.tokenCount() != 3) {
+            throw new RobertException("Please provide two dates, e.g., 'between 2019-12-02 2019-12-08'.");
+        }
+        LocalDate start = parseDate(line, 1);
+        LocalDate end = parseDate(line, 2);
+        if (end.isBefore(start)) {
+            throw new RobertException("The second date cannot be before the first.");
+        }
+        return new LocalDate[] {start, end};
+    }
+
+    private static LocalDate parseDate(CommandLine line, int index) throws RobertException {
+        try {
+            return DateTimeCodec.parseDate(line, line.start(index), line.end(index));
+        } catch (DateTimeParseException e) {
+            throw new RobertException("Invalid date format. Please use 'yyyy-MM-dd', e.g., '2019-12-02'.");
+        }
+    }
 }
@@ -0,0 +1,480 @@
+package robert.storage;
+
+import robert.task.LazyTaskList;
+import robert.task.Task;
+import robert.task.TaskList;
+import robert.task.TaskSource;
+import robert.task.Todo;
+import robert.task.Deadline;
+import robert.task.Event;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Reads and writes task snapshots in a compact, versioned binary format.
+ *
+ * <p>A snapshot starts with a header of magic number, format version, journal generation,
+ * next task ID and task count. Each task is then stored as a type byte, a flags byte holding
+ * the done bit, the task ID, a length-prefixed UTF-8 description and, for deadlines and events,
+ * their times as minutes since the epoch. Version 1 snapshots, which have no IDs, are still
+ * read; their tasks get IDs when they are added to a list.</p>
+ */
+public class BinarySnapshotFormat {
+    /**
+     * Decodes records from an open snapshot file for a {@link LazyTaskList}.
+     */
+    private static class SnapshotSource implements TaskSource {
+        private final FileChannel channel;
+        private final short version;
+
+        SnapshotSource(FileChannel channel, short version) {
+            this.channel = channel;
+            this.version = version;
+        }
+
+        @Override
+        public Task read(long offset) throws IOException {
+            return readRecord(channel, offset, version);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Signals a record whose type, length or times cannot be valid.
+     */
+    private static class CorruptedRecordException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        CorruptedRecordException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Fields of a validated file header.
+     */
+    private static class Header {
+        private final short version;
+        private final long generation;
+        private final long nextId;
+        private final int count;
+
+        Header(short version, long generation, long nextId, int count) {
+            this.version = version;
+            this.generation = generation;
+            this.nextId = nextId;
+            this.count = count;
+        }
+
+        int size() {
+            return version == VERSION_WITHOUT_IDS ? 4 + 2 + 8 + 4 : HEADER_SIZE;
+        }
+
+        int recordHeaderSize() {
+            return version == VERSION_WITHOUT_IDS ? 1 + 1 + 4 : RECORD_HEADER_SIZE;
+        }
+
+        /**
+         * Returns how many records a file of the given size can hold at most, so a corrupted
+         * count does not make the reader allocate more than the file could ever fill.
+         */
+        int maxCount(long fileSize) {
+            return (int) Math.min(count, Math.max(0, (fileSize - size()) / recordHeaderSize()));
+        }
+    }
+
+    private static final int MAGIC = 0x52425453; // "RBTS"
+    private static final short VERSION = 2;
+    private static final short VERSION_WITHOUT_IDS = 1;
+    private static final int HEADER_SIZE = 4 + 2 + 8 + 8 + 4;
+    private static final int RECORD_HEADER_SIZE = 1 + 1 + 8 + 4;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte TODO_TYPE = 'T';
+    private static final byte DEADLINE_TYPE = 'D';
+    private static final byte EVENT_TYPE = 'E';
+    private static final byte DONE_FLAG = 1;
+
+    /**
+     * Checks whether the given file starts with the binary snapshot header.
+     *
+     * @param file The file to check.
+     * @return true if the file is a binary snapshot, false otherwise.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static boolean isBinary(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(4);
+            while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                // keep reading until the magic number is complete
+            }
+            return !buffer.hasRemaining() && buffer.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Reads all tasks from a binary snapshot.
+     * A truncated snapshot, or one with a corrupted record, keeps the tasks read before the damaged
+     * record; comparing their number with {@link #readCount(File)} tells whether any were lost.
+     *
+     * @param file The snapshot file.
+     * @param tasks List to add the loaded tasks to.
+     * @return The journal generation already folded into the snapshot.
+     * @throws IOException If an I/O error occurs or the header is invalid.
+     */
+    public static long read(File file, ArrayList<Task> tasks) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            Header header = readHeader(channel);
+            int count = header.count;
+            tasks.ensureCapacity(tasks.size() + header.maxCount(channel.size()));
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.flip();
+            channel.position(header.size());
+
+            for (int i = 0; i < count; i++) {
+                try {
+                    buffer = fill(channel, buffer, header.recordHeaderSize());
+                    byte type = buffer.get();
+                    byte flags = buffer.get();
+                    long id = header.version == VERSION_WITHOUT_IDS ? 0 : buffer.getLong();
+                    int length = buffer.getInt();
+                    checkRecord(type, length);
+                    buffer = fill(channel, buffer, bodySize(type, length));
+                    tasks.add(decodeBody(buffer, type, flags, id, length));
+                } catch (EOFException e) {
+                    System.out.println("Warning: Snapshot is truncated, loaded " + i + " of " + count + " tasks.");
+                    break;
+                } catch (CorruptedRecordException e) {
+                    System.out.println("Warning: Snapshot record " + (i + 1) + " is corrupted (" + e.getMessage()
+                            + "), loaded " + i + " of " + count + " tasks.");
+                    break;
+                }
+            }
+            return header.generation;
+        }
+    }
+
+    /**
+     * Reads only the journal generation from the header of a binary snapshot.
+     *
+     * @param file The snapshot file.
+     * @return The journal generation already folded into the snapshot.
+     * @throws IOException If an I/O error occurs or the header is invalid.
+     */
+    public static long readGeneration(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return readHeader(channel).generation;
+        }
+    }
+
+    /**
+     * Reads only the next task ID from the header of a binary snapshot.
+     *
+     * @param file The snapshot file.
+     * @return The lowest ID not yet given to any task, or 1 for a snapshot without IDs.
+     * @throws IOException If an I/O error occurs or the header is invalid.
+     */
+    public static long readNextId(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return readHeader(channel).nextId;
+        }
+    }
+
+    /**
+     * Reads only the task count from the header of a binary snapshot.
+     *
+     * @param file The snapshot file.
+     * @return The number of tasks the snapshot was written with.
+     * @throws IOException If an I/O error occurs or the header is invalid.
+     */
+    public static int readCount(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return readHeader(channel).count;
+        }
+    }
+
+    /**
+     * Opens a binary snapshot as a {@link LazyTaskList}.
+     * Only the record offsets are read up front; tasks are decoded when first accessed.
+     * The returned list keeps the file open until it is closed. As with {@link #read(File, ArrayList)},
+     * the list ends before a truncated or corrupted record.
+     *
+     * @param file The snapshot file.
+     * @return A list backed by the snapshot file.
+     * @throws IOException If an I/O error occurs or the header is invalid.
+     */
+    public static LazyTaskList openLazy(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            Header header = readHeader(channel);
+            int count = header.count;
+            long fileSize = channel.size();
+            long[] offsets = new long[header.maxCount(fileSize)];
+            long[] ids = new long[offsets.length];
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.flip();
+            channel.position(header.size());
+            long position = header.size();
+            for (int i = 0; i < count; i++) {
+                String damage = null;
+                int skip = 0;
+                try {
+                    buffer = fill(channel, buffer, header.recordHeaderSize());
+                    byte type = buffer.get();
+                    buffer.get();
+                    ids[i] = header.version == VERSION_WITHOUT_IDS ? i + 1 : buffer.getLong();
+                    int length = buffer.getInt();
+                    checkRecord(type, length);
+                    skip = bodySize(type, length);
+                    if (skip > fileSize - position - header.recordHeaderSize()) {
+                        throw new EOFException();
+                    }
+                } catch (EOFException e) {
+                    damage = "Warning: Snapshot is truncated, loaded " + i + " of " + count + " tasks.";
+                } catch (CorruptedRecordException e) {
+                    damage = "Warning: Snapshot record " + (i + 1) + " is corrupted (" + e.getMessage()
+                            + "), loaded " + i + " of " + count + " tasks.";
+                }
+                if (damage != null) {
+                    System.out.println(damage);
+                    offsets = Arrays.copyOf(offsets, i);
+                    ids = Arrays.copyOf(ids, i);
+                    break;
+                }
+                offsets[i] = position;
+                position += header.recordHeaderSize() + skip;
+                if (buffer.remaining() >= skip) {
+                    buffer.position(buffer.position() + skip);
+                } else {
+                    channel.position(position);
+                    buffer.clear().flip();
+                }
+            }
+            LazyTaskList tasks = new LazyTaskList(new SnapshotSource(channel, header.version), offsets, ids);
+            tasks.reserveIdsBelow(header.nextId);
+            return tasks;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the given tasks as a binary snapshot.
+     * Tasks are streamed one at a time, so a lazily loaded list is never fully decoded.
+     *
+     * @param file The file to write.
+     * @param tasks Tasks to write.
+     * @param generation Journal generation folded into this snapshot.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void write(File file, TaskList tasks, long generation) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.putInt(MAGIC).putShort(VERSION).putLong(generation).putLong(tasks.getNextId()).putInt(tasks.size());
+
+            for (int i = 0; i < tasks.size(); i++) {
+                Task task = tasks.get(i);
+                byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+                int recordSize = RECORD_HEADER_SIZE + description.length + 16;
+                if (buffer.remaining() < recordSize) {
+                    drain(channel, buffer);
+                    if (buffer.capacity() < recordSize) {
+                        buffer = ByteBuffer.allocate(recordSize);
+                    }
+                }
+                buffer.put(typeOf(task)).put(task.isDone() ? DONE_FLAG : 0).putLong(task.getId());
+                buffer.putInt(description.length).put(description);
+                if (task instanceof Deadline) {
+                    buffer.putLong(toEpochMinute(((Deadline) task).getBy()));
+                } else if (task instanceof Event) {
+                    Event event = (Event) task;
+                    buffer.putLong(toEpochMinute(event.getFrom())).putLong(toEpochMinute(event.getTo()));
+                }
+            }
+            drain(channel, buffer);
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Reads and validates the file header.
+     */
+    private static Header readHeader(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 2);
+        readFully(channel, buffer, 0);
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a binary snapshot");
+        }
+        short version = buffer.getShort();
+        if (version == VERSION_WITHOUT_IDS) {
+            buffer = ByteBuffer.allocate(8 + 4);
+            readFully(channel, buffer, 4 + 2);
+            return checkCount(new Header(version, buffer.getLong(), 1, buffer.getInt()));
+        } else if (version == VERSION) {
+            buffer = ByteBuffer.allocate(8 + 8 + 4);
+            readFully(channel, buffer, 4 + 2);
+            return checkCount(new Header(version, buffer.getLong(), buffer.getLong(), buffer.getInt()));
+        }
+        throw new IOException("Unsupported snapshot version " + version);
+    }
+
+    private static Header checkCount(Header header) throws IOException {
+        if (header.count < 0) {
+            throw new IOException("Corrupted task count " + header.count);
+        }
+        return header;
+    }
+
+    /**
+     * Decodes the record stored at the given offset.
+     */
+    private static Task readRecord(FileChannel channel, long offset, short version) throws IOException {
+        boolean hasId = version != VERSION_WITHOUT_IDS;
+        ByteBuffer header = ByteBuffer.allocate(hasId ? RECORD_HEADER_SIZE : 1 + 1 + 4);
+        readFully(channel, header, offset);
+        byte type = header.get();
+        byte flags = header.get();
+        long id = hasId ? header.getLong() : 0;
+        int length = header.getInt();
+        checkRecord(type, length);
+        int bodySize = bodySize(type, length);
+        if (bodySize > channel.size() - offset - header.capacity()) {
+            throw new EOFException();
+        }
+        ByteBuffer body = ByteBuffer.allocate(bodySize);
+        readFully(channel, body, offset + header.capacity());
+        return decodeBody(body, type, flags, id, length);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Rejects a record header whose type is unknown or whose length cannot be right.
+     */
+    private static void checkRecord(byte type, int length) throws CorruptedRecordException {
+        if (type != TODO_TYPE && type != DEADLINE_TYPE && type != EVENT_TYPE) {
+            throw new CorruptedRecordException("unknown task type " + type);
+        }
+        if (length < 0 || bodySize(type, length) < 0) {
+            throw new CorruptedRecordException("invalid description length " + length);
+        }
+    }
+
+    private static int bodySize(byte type, int length) {
+        int timeCount = type == EVENT_TYPE ? 2 : type == DEADLINE_TYPE ? 1 : 0;
+        return length + 8 * timeCount;
+    }
+
+    /**
+     * Decodes the description and times of a record whose header has already been read.
+     */
+    private static Task decodeBody(ByteBuffer buffer, byte type, byte flags, long id, int length)
+            throws IOException {
+        String description = new String(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+
+        Task task;
+        try {
+            switch (type) {
+                case TODO_TYPE:
+                    task = new Todo(description);
+                    break;
+                case DEADLINE_TYPE:
+                    task = new Deadline(description, fromEpochMinute(buffer.getLong()));
+                    break;
+                case EVENT_TYPE:
+                    task = new Event(description, fromEpochMinute(buffer.getLong()),
+                            fromEpochMinute(buffer.getLong()));
+                    break;
+                default:
+                    throw new CorruptedRecordException("unknown task type " + type);
+            }
+        } catch (DateTimeException | ArithmeticException e) {
+            throw new CorruptedRecordException("invalid date/time");
+        }
+        if ((flags & DONE_FLAG) != 0) {
+            task.markAsDone();
+        }
+        if (id > 0) {
+            task.setId(id);
+        }
+        return task;
+    }
+
+    private static byte typeOf(Task task) {
+        if (task instanceof Deadline) {
+            return DEADLINE_TYPE;
+        } else if (task instanceof Event) {
+            return EVENT_TYPE;
+        }
+        return TODO_TYPE;
+    }
+
+    /**
+     * Makes sure at least {@code needed} bytes can be read from the buffer,
+     * refilling it from the channel and growing it if necessary.
+     * Fails without allocating anything if the rest of the file is shorter than that.
+     */
+    private static ByteBuffer fill(FileChannel channel, ByteBuffer buffer, int needed) throws IOException {
+        assert needed >= 0 : "Needed bytes should not be negative";
+        if (buffer.remaining() >= needed) {
+            return buffer;
+        }
+        if (needed - buffer.remaining() > channel.size() - channel.position()) {
+            throw new EOFException();
+        }
+        ByteBuffer target = buffer;
+        if (buffer.capacity() < needed) {
+            target = ByteBuffer.allocate(needed);
+            target.put(buffer);
+        } else {
+            target.compact();
+        }
+        while (target.position() < needed) {
+            if (channel.read(target) < 0) {
+                throw new EOFException();
+            }
+        }
+        target.flip();
+        return target;
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static long toEpochMinute(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    private static LocalDateTime fromEpochMinute(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,134 @@
+package robert.storage;
+
+import robert.task.Task;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Reads CSV files as written by spreadsheets and most export tools: values separated by commas,
+ * optionally quoted with double quotes, where a quoted value may hold commas, line breaks and
+ * doubled quotes. The first non-blank row names the columns; columns with other names are ignored.
+ */
+class CsvRecordReader implements RecordReader {
+    private final BufferedReader in;
+    private int lineNumber;
+    private int[] columns; // Column of each field in TaskImporter.FIELD_NAMES, or -1 if there is none
+
+    CsvRecordReader(BufferedReader in) {
+        this.in = in;
+    }
+
+    @Override
+    public ImportRecord next() throws IOException {
+        if (columns == null) {
+            readHeader();
+        }
+        String line = readNonBlankLine();
+        if (line == null) {
+            return null;
+        }
+        int startLine = lineNumber;
+        ArrayList<String> values = new ArrayList<>(columns.length);
+        String problem = split(line, values);
+        String[] fields = new String[TaskImporter.FIELD_NAMES.length];
+        for (int i = 0; i < fields.length; i++) {
+            if (columns[i] >= 0 && columns[i] < values.size()) {
+                fields[i] = values.get(columns[i]);
+            }
+        }
+        return new ImportRecord(startLine, fields, problem);
+    }
+
+    @Override
+    public Task toTask(ImportRecord record) {
+        return TaskImporter.createTask(record.values);
+    }
+
+    private void readHeader() throws IOException {
+        String line = readNonBlankLine();
+        ArrayList<String> names = new ArrayList<>();
+        if (line != null) {
+            split(line, names);
+        }
+        columns = new int[TaskImporter.FIELD_NAMES.length];
+        Arrays.fill(columns, -1);
+        for (int column = 0; column < names.size(); column++) {
+            String name = names.get(column).strip().toLowerCase(Locale.ROOT);
+            for (int i = 0; i < columns.length; i++) {
+                if (name.equals(TaskImporter.FIELD_NAMES[i]) && columns[i] < 0) {
+                    columns[i] = column;
+                }
+            }
+        }
+        if (columns[TaskImporter.DESCRIPTION] < 0) {
+            throw new IOException("The first row of a CSV file should name its columns, including 'description'.");
+        }
+    }
+
+    private String readNonBlankLine() throws IOException {
+        String line;
+        do {
+            line = in.readLine();
+            lineNumber++;
+        } while (line != null && line.isBlank());
+        return line;
+    }
+
+    /**
+     * Splits a row into values, reading further lines while a quoted value is still open.
+     *
+     * @return Why the row is malformed, or null if it is not.
+     */
+    private String split(String line, ArrayList<String> values) throws IOException {
+        if (line.indexOf('"') < 0) {
+            int start = 0;
+            for (int comma = line.indexOf(','); comma >= 0; comma = line.indexOf(',', start)) {
+                values.add(line.substring(start, comma));
+                start = comma + 1;
+            }
+            values.add(line.substring(start));
+            return null;
+        }
+        StringBuilder value = new StringBuilder();
+        boolean isQuoted = false;
+        int i = 0;
+        while (true) {
+            if (i == line.length()) {
+                if (!isQuoted) {
+                    values.add(value.toString());
+                    return null;
+                }
+                line = in.readLine();
+                if (line == null) {
+                    values.add(value.toString());
+                    return "A quoted value is never closed";
+                }
+                lineNumber++;
+                value.append('\n');
+                i = 0;
+                continue;
+            }
+            char c = line.charAt(i++);
+            if (isQuoted && c == '"') {
+                if (i < line.length() && line.charAt(i) == '"') {
+                    value.append('"');
+                    i++;
+                } else {
+                    isQuoted = false;
+                }
+            } else if (isQuoted) {
+                value.append(c);
+            } else if (c == '"') {
+                isQuoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+    }
+}
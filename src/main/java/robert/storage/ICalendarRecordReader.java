@@ -0,0 +1,283 @@
+package robert.storage;
+
+import robert.task.Task;
+import robert.task.TaskType;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Locale;
+
+/**
+ * Reads iCalendar (.ics) files. Each VTODO or VEVENT component is one record, holding its
+ * unfolded content lines; everything else in the calendar, including components nested in
+ * those two such as alarms, is skipped.
+ *
+ * <p>A VTODO becomes a deadline if it has a DUE date and a todo otherwise, and is done if its
+ * STATUS is COMPLETED or it has a COMPLETED date. A VEVENT becomes an event from DTSTART to DTEND,
+ * or to DTSTART plus DURATION; without either it lasts the whole day for an all-day event and no
+ * time at all otherwise. Times in UTC or with a known TZID are converted to local time.</p>
+ */
+class ICalendarRecordReader implements RecordReader {
+    private static final int DATE_LENGTH = 8; // yyyyMMdd
+    private static final int DATE_TIME_LENGTH = 15; // yyyyMMdd'T'HHmmss
+
+    private final BufferedReader in;
+    private int physicalLines;
+    private int lineNumber; // Line the content line last read starts on
+    private String nextLine; // Line read ahead to check whether it continues the one before
+    private int nextLineNumber;
+
+    ICalendarRecordReader(BufferedReader in) {
+        this.in = in;
+    }
+
+    @Override
+    public ImportRecord next() throws IOException {
+        String line;
+        while ((line = readContentLine()) != null) {
+            if (!hasName(line, "BEGIN")) {
+                continue;
+            }
+            String component = valueOf(line).strip().toUpperCase(Locale.ROOT);
+            if (component.equals("VTODO") || component.equals("VEVENT")) {
+                return readComponent(component);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Task toTask(ImportRecord record) {
+        boolean isTodo = record.values[0].equals("VTODO");
+        String summary = null;
+        String start = null;
+        String end = null;
+        String due = null;
+        String duration = null;
+        boolean isDone = false;
+        for (int i = 1; i < record.values.length; i++) {
+            String line = record.values[i];
+            if (hasName(line, "SUMMARY")) {
+                summary = unescape(valueOf(line));
+            } else if (hasName(line, "DTSTART")) {
+                start = line;
+            } else if (hasName(line, "DTEND")) {
+                end = line;
+            } else if (hasName(line, "DUE")) {
+                due = line;
+            } else if (hasName(line, "DURATION")) {
+                duration = valueOf(line).strip();
+            } else if (hasName(line, "STATUS")) {
+                isDone |= valueOf(line).strip().equalsIgnoreCase("COMPLETED");
+            } else if (hasName(line, "COMPLETED")) {
+                isDone = true;
+            }
+        }
+        if (isTodo) {
+            return due == null
+                    ? TaskImporter.createTask(TaskType.TODO, summary, isDone, null, null)
+                    : TaskImporter.createTask(TaskType.DEADLINE, summary, isDone, parseDateTime(due), null);
+        }
+        if (start == null) {
+            throw new IllegalArgumentException("An event needs a DTSTART");
+        }
+        LocalDateTime from = parseDateTime(start);
+        LocalDateTime to;
+        if (end != null) {
+            to = parseDateTime(end);
+        } else if (duration != null) {
+            to = from.plus(parseDuration(duration));
+        } else {
+            to = isDate(start) ? from.plusDays(1) : from;
+        }
+        return TaskImporter.createTask(TaskType.EVENT, summary, isDone, from, to);
+    }
+
+    private ImportRecord readComponent(String component) throws IOException {
+        int startLine = lineNumber;
+        ArrayList<String> lines = new ArrayList<>();
+        lines.add(component);
+        int depth = 0; // Components nested inside this one, such as VALARM
+        String line;
+        while ((line = readContentLine()) != null) {
+            if (hasName(line, "BEGIN")) {
+                depth++;
+            } else if (hasName(line, "END")) {
+                if (depth == 0) {
+                    return new ImportRecord(startLine, lines.toArray(new String[0]), null);
+                }
+                depth--;
+            } else if (depth == 0) {
+                lines.add(line);
+            }
+        }
+        return new ImportRecord(startLine, lines.toArray(new String[0]), "Missing END:" + component);
+    }
+
+    /**
+     * Reads one content line, joining the physical lines it was folded over.
+     */
+    private String readContentLine() throws IOException {
+        String line = nextLine;
+        lineNumber = nextLineNumber;
+        nextLine = null;
+        if (line == null) {
+            line = in.readLine();
+            lineNumber = ++physicalLines;
+        }
+        if (line == null) {
+            return null;
+        }
+        StringBuilder folded = null;
+        String following;
+        while ((following = in.readLine()) != null) {
+            physicalLines++;
+            if (following.isEmpty() || (following.charAt(0) != ' ' && following.charAt(0) != '\t')) {
+                nextLine = following;
+                nextLineNumber = physicalLines;
+                break;
+            }
+            if (folded == null) {
+                folded = new StringBuilder(line);
+            }
+            folded.append(following, 1, following.length());
+        }
+        return folded == null ? line : folded.toString();
+    }
+
+    /**
+     * Checks whether a content line has the given property name, ignoring case.
+     */
+    private static boolean hasName(String line, String name) {
+        if (!line.regionMatches(true, 0, name, 0, name.length()) || line.length() == name.length()) {
+            return false;
+        }
+        char next = line.charAt(name.length());
+        return next == ':' || next == ';';
+    }
+
+    /**
+     * Returns the parameters of a content line, between its name and the colon before its value.
+     */
+    private static String paramsOf(String line) {
+        int colon = valueStart(line) - 1;
+        int semicolon = line.indexOf(';');
+        return semicolon >= 0 && semicolon < colon ? line.substring(semicolon + 1, colon) : "";
+    }
+
+    private static String valueOf(String line) {
+        return line.substring(valueStart(line));
+    }
+
+    /**
+     * Finds where the value of a content line starts: after the first colon not inside a quoted parameter.
+     */
+    private static int valueStart(String line) {
+        boolean isQuoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                isQuoted = !isQuoted;
+            } else if (c == ':' && !isQuoted) {
+                return i + 1;
+            }
+        }
+        return line.length();
+    }
+
+    private static boolean isDate(String line) {
+        return valueOf(line).strip().length() == DATE_LENGTH;
+    }
+
+    /**
+     * Parses the date or date-time value of a DTSTART, DTEND or DUE line into local time.
+     */
+    private static LocalDateTime parseDateTime(String line) {
+        String value = valueOf(line).strip();
+        try {
+            if (value.length() == DATE_LENGTH) {
+                return LocalDateTime.of(parseNumber(value, 0, 4), parseNumber(value, 4, 6), parseNumber(value, 6, 8),
+                        0, 0);
+            }
+            boolean isUtc = value.length() == DATE_TIME_LENGTH + 1 && (value.charAt(DATE_TIME_LENGTH) == 'Z');
+            if ((value.length() == DATE_TIME_LENGTH || isUtc) && value.charAt(DATE_LENGTH) == 'T') {
+                LocalDateTime dateTime = LocalDateTime.of(parseNumber(value, 0, 4), parseNumber(value, 4, 6),
+                        parseNumber(value, 6, 8), parseNumber(value, 9, 11), parseNumber(value, 11, 13));
+                ZoneId zone = isUtc ? ZoneOffset.UTC : zoneOf(paramsOf(line));
+                return zone == null ? dateTime : dateTime.atZone(zone).withZoneSameInstant(ZoneId.systemDefault())
+                        .toLocalDateTime();
+            }
+        } catch (DateTimeException | NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid date/time '" + value + "'");
+    }
+
+    private static int parseNumber(String value, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (value.charAt(i) < '0' || value.charAt(i) > '9') {
+                throw new NumberFormatException(value);
+            }
+        }
+        return Integer.parseInt(value, start, end, 10);
+    }
+
+    /**
+     * Returns the zone named by a TZID parameter, or null for floating time or a zone Java does not know.
+     */
+    private static ZoneId zoneOf(String params) {
+        for (String param : params.split(";")) {
+            if (param.regionMatches(true, 0, "TZID=", 0, 5)) {
+                try {
+                    return ZoneId.of(param.substring(5).replace("\"", ""));
+                } catch (DateTimeException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parses a DURATION such as "PT1H30M", "P1D" or "P2W".
+     */
+    private static Duration parseDuration(String value) {
+        try {
+            if (value.length() > 2 && value.startsWith("P") && value.endsWith("W")) {
+                return Duration.ofDays(7L * Integer.parseInt(value.substring(1, value.length() - 1)));
+            }
+            Duration duration = Duration.parse(value);
+            if (!duration.isNegative()) {
+                return duration;
+            }
+        } catch (DateTimeException | NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid duration '" + value + "'");
+    }
+
+    /**
+     * Undoes iCalendar text escaping; escaped line breaks become spaces.
+     */
+    private static String unescape(String text) {
+        if (text.indexOf('\\') < 0) {
+            return text;
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                char escaped = text.charAt(++i);
+                sb.append(escaped == 'n' || escaped == 'N' ? ' ' : escaped);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,23 @@
+package robert.storage;
+
+/**
+ * One raw record read from an import file, not yet turned into a task.
+ */
+final class ImportRecord {
+    final int lineNumber;
+    final String[] values;
+    final String problem;
+
+    /**
+     * Constructs a record.
+     *
+     * @param lineNumber Line of the file the record starts on, from 1.
+     * @param values The record's raw values, as split by its reader.
+     * @param problem Why the record cannot be imported, found while reading it, or null if none was.
+     */
+    ImportRecord(int lineNumber, String[] values, String problem) {
+        this.lineNumber = lineNumber;
+        this.values = values;
+        this.problem = problem;
+    }
+}
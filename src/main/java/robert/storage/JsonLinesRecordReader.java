@@ -0,0 +1,203 @@
+package robert.storage;
+
+import robert.task.Task;
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Reads JSON lines files, which hold one JSON object per line. Only the object's top-level
+ * fields named in {@link TaskImporter#FIELD_NAMES} are used; nested objects and arrays are skipped.
+ * Splitting the file is just reading lines, so the JSON itself is parsed on the worker threads.
+ */
+class JsonLinesRecordReader implements RecordReader {
+    private final BufferedReader in;
+    private int lineNumber;
+
+    JsonLinesRecordReader(BufferedReader in) {
+        this.in = in;
+    }
+
+    @Override
+    public ImportRecord next() throws IOException {
+        String line;
+        do {
+            line = in.readLine();
+            lineNumber++;
+        } while (line != null && line.isBlank());
+        return line == null ? null : new ImportRecord(lineNumber, new String[] {line}, null);
+    }
+
+    @Override
+    public Task toTask(ImportRecord record) {
+        return TaskImporter.createTask(new ObjectParser(record.values[0]).parseFields());
+    }
+
+    /**
+     * Parses one JSON object. Strings, numbers and booleans are kept as text; null is kept as null.
+     */
+    private static class ObjectParser {
+        private final String text;
+        private int pos;
+
+        ObjectParser(String text) {
+            this.text = text;
+        }
+
+        /**
+         * Parses the object and returns its fields, indexed as in {@link TaskImporter#FIELD_NAMES}.
+         */
+        String[] parseFields() {
+            String[] fields = new String[TaskImporter.FIELD_NAMES.length];
+            expect('{');
+            if (peek() == '}') {
+                pos++;
+            } else {
+                do {
+                    String name = parseString();
+                    expect(':');
+                    int field = indexOfField(name);
+                    if (field >= 0) {
+                        fields[field] = parseScalar();
+                    } else {
+                        skipValue();
+                    }
+                } while (consume(','));
+                expect('}');
+            }
+            if (peek() != 0) {
+                throw error("Unexpected text after the object");
+            }
+            return fields;
+        }
+
+        private static int indexOfField(String name) {
+            for (int i = 0; i < TaskImporter.FIELD_NAMES.length; i++) {
+                if (TaskImporter.FIELD_NAMES[i].equals(name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private String parseScalar() {
+            char c = peek();
+            if (c == '"') {
+                return parseString();
+            }
+            if (c == '{' || c == '[') {
+                throw error("Expected a plain value");
+            }
+            int start = pos;
+            while (pos < text.length() && ",}] \t".indexOf(text.charAt(pos)) < 0) {
+                pos++;
+            }
+            String literal = text.substring(start, pos);
+            if (literal.isEmpty()) {
+                throw error("Expected a value");
+            }
+            return literal.equals("null") ? null : literal;
+        }
+
+        private void skipValue() {
+            char c = peek();
+            if (c == '"') {
+                parseString();
+            } else if (c == '{' || c == '[') {
+                char close = c == '{' ? '}' : ']';
+                pos++;
+                if (consume(close)) {
+                    return;
+                }
+                do {
+                    if (close == '}') {
+                        parseString();
+                        expect(':');
+                    }
+                    skipValue();
+                } while (consume(','));
+                expect(close);
+            } else {
+                parseScalar();
+            }
+        }
+
+        private String parseString() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (pos < text.length()) {
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (pos == text.length()) {
+                    break;
+                }
+                char escaped = text.charAt(pos++);
+                switch (escaped) {
+                    case 'b':
+                        sb.append('\b');
+                        break;
+                    case 'f':
+                        sb.append('\f');
+                        break;
+                    case 'n':
+                        sb.append('\n');
+                        break;
+                    case 'r':
+                        sb.append('\r');
+                        break;
+                    case 't':
+                        sb.append('\t');
+                        break;
+                    case 'u':
+                        if (pos + 4 > text.length()) {
+                            throw error("Invalid escape");
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("Invalid escape");
+                        }
+                        pos += 4;
+                        break;
+                    default:
+                        sb.append(escaped);
+                        break;
+                }
+            }
+            throw error("Unterminated string");
+        }
+
+        /**
+         * Skips whitespace and returns the next character, or 0 at the end of the text.
+         */
+        private char peek() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+            return pos < text.length() ? text.charAt(pos) : 0;
+        }
+
+        private boolean consume(char c) {
+            if (peek() == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!consume(c)) {
+                throw error("Expected '" + c + "'");
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Invalid JSON at column " + (pos + 1) + ": " + message);
+        }
+    }
+}
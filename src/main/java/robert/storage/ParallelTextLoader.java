@@ -0,0 +1,160 @@
+package robert.storage;
+
+import robert.task.Task;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Loads large text data files by memory-mapping them and parsing line-aligned chunks
+ * in parallel on the common ForkJoinPool.
+ * Results and warnings are merged back in file order, so the outcome is the same
+ * as reading the file line by line.
+ */
+public class ParallelTextLoader {
+    private static final long MIN_CHUNK_SIZE = 1024 * 1024;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * Holds the tasks and warnings produced by one chunk.
+     */
+    private static class ChunkResult {
+        private final ArrayList<Task> tasks = new ArrayList<>();
+        private final ArrayList<String> warnings = new ArrayList<>();
+        private long generation;
+    }
+
+    /**
+     * Reads all tasks from a text file, skipping corrupted lines.
+     *
+     * @param file The file to read.
+     * @param tasks List to add the loaded tasks to.
+     * @return The journal generation recorded in the file header, or 0 if there is none.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static long read(File file, ArrayList<Task> tasks) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            List<long[]> chunks = splitIntoChunks(channel);
+            ForkJoinPool pool = ForkJoinPool.commonPool();
+            List<ForkJoinTask<ChunkResult>> pending = new ArrayList<>(chunks.size());
+            for (long[] chunk : chunks) {
+                pending.add(pool.submit(() -> parseChunk(channel, chunk[0], chunk[1])));
+            }
+
+            long generation = 0;
+            for (int i = 0; i < pending.size(); i++) {
+                ChunkResult result;
+                try {
+                    result = pending.get(i).join();
+                } catch (RuntimeException e) {
+                    throw new IOException("Failed to read data file", e);
+                }
+                if (i == 0) {
+                    generation = result.generation;
+                }
+                for (String warning : result.warnings) {
+                    System.out.println(warning);
+                }
+                tasks.addAll(result.tasks);
+            }
+            return generation;
+        }
+    }
+
+    /**
+     * Splits the file into chunks of roughly equal size that each end right after a newline.
+     *
+     * @return List of {start, end} byte offsets.
+     */
+    private static List<long[]> splitIntoChunks(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        long chunkSize = Math.max(MIN_CHUNK_SIZE, size / ((long) parallelism * CHUNKS_PER_THREAD));
+        List<long[]> chunks = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(size, start + chunkSize);
+            // Move the boundary forward to just past the next newline
+            while (end < size) {
+                probe.clear();
+                int read = channel.read(probe, end);
+                if (read <= 0) {
+                    end = size;
+                    break;
+                }
+                int newline = indexOfNewline(probe, read);
+                if (newline >= 0) {
+                    end += newline + 1;
+                    break;
+                }
+                end += read;
+            }
+            chunks.add(new long[] {start, end});
+            start = end;
+        }
+        return chunks;
+    }
+
+    private static int indexOfNewline(ByteBuffer buffer, int length) {
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static ChunkResult parseChunk(FileChannel channel, long start, long end) {
+        ChunkResult result = new ChunkResult();
+        CharBuffer chars;
+        try {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            chars = StandardCharsets.UTF_8.decode(mapped);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        int lineStart = 0;
+        int length = chars.length();
+        boolean isFirstLine = start == 0;
+        while (lineStart < length) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && chars.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int contentEnd = lineEnd;
+            if (contentEnd > lineStart && chars.get(contentEnd - 1) == '\r') {
+                contentEnd--;
+            }
+            String line = chars.subSequence(lineStart, contentEnd).toString();
+            lineStart = lineEnd + 1;
+
+            if (isFirstLine && line.startsWith(TextFormat.GENERATION_PREFIX)) {
+                result.generation = TextFormat.parseGeneration(line);
+                isFirstLine = false;
+                continue;
+            }
+            isFirstLine = false;
+            try {
+                Task task = TextFormat.parseTask(line);
+                if (task != null) {
+                    result.tasks.add(task);
+                }
+            } catch (Exception e) {
+                result.warnings.add("Warning: Skipping corrupted task: " + line);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,28 @@
+package robert.storage;
+
+import robert.task.Task;
+import java.io.IOException;
+
+/**
+ * Reads one kind of import file. Splitting the input into records is sequential and happens on
+ * the importing thread; turning records into tasks is independent per record and happens on
+ * worker threads.
+ */
+interface RecordReader {
+    /**
+     * Reads the next record. Called only from the importing thread.
+     *
+     * @return The record, or null at the end of the input.
+     * @throws IOException If the input cannot be read or is not in this format at all.
+     */
+    ImportRecord next() throws IOException;
+
+    /**
+     * Turns a record into a task. May be called from several threads at once.
+     *
+     * @param record A record returned by {@link #next()}.
+     * @return The task, not yet marked with an ID.
+     * @throws IllegalArgumentException If the record does not describe a valid task; the message says why.
+     */
+    Task toTask(ImportRecord record);
+}
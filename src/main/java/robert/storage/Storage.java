@@ -1,21 +1,62 @@
 package robert.storage;
 
+import robert.task.ColumnarTaskList;
+import robert.task.ConcurrentTaskList;
+import robert.task.DirectDescriptionArena;
+import robert.task.LazyTaskList;
 import robert.task.Task;
 import robert.task.TaskList;
-import robert.task.Todo;
-import robert.task.Deadline;
-import robert.task.Event;
+import robert.task.TaskListSnapshot;
 import java.io.*;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Handles loading and saving of tasks to a file for persistence.
+ * Snapshots are written in a compact binary format; older text data files are
+ * detected and read transparently, and the text format remains available for
+ * importing and exporting task lists.
+ * Mutations are appended to a journal next to the snapshot file and folded
+ * back into the snapshot by a background compaction once the journal grows
+ * past a size threshold. Journal records refer to tasks by ID and are written
+ * behind in groups, so callers must {@link #flush()} before exiting. An attached
+ * {@link UndoLog} journals its changes in the same groups, to a journal of its own.
+ * A {@link ConcurrentTaskList} is saved and exported from a pinned snapshot, so writers
+ * carry on meanwhile, and the version saved is available from {@link #getPersistedVersion()}.
  */
 public class Storage {
+    private static final long DEFAULT_COMPACTION_THRESHOLD = 256 * 1024;
+    private static final long COLUMNAR_LOAD_THRESHOLD = 4 * 1024 * 1024;
+    private static final long LAZY_LOAD_THRESHOLD = 64 * 1024 * 1024;
+    private static final long DEFAULT_MAX_FLUSH_DELAY_MILLIS = 200;
+    private static final int DEFAULT_MAX_DIRTY_OPS = 64;
+    private static final String ADD_RECORD = "+ ";
+    private static final String MARK_RECORD = "M ";
+    private static final String UNMARK_RECORD = "U ";
+    private static final String DELETE_RECORD = "D ";
+    private static final String INSERT_RECORD = "I ";
+    private static final String HISTORY_RECORD = "H ";
+
     private final File file;
-    private static final DateTimeFormatter STORAGE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
+    private final File journalFile;
+    private final File compactingFile;
+    private final long compactionThreshold;
+    private final WriteBehindScheduler scheduler;
+    private final Object snapshotLock = new Object();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "storage-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private long generation = 1;
+    private volatile long persistedVersion = -1;
+    private volatile UndoLog history; // Null until an undo history is journaled here
 
     /**
      * Constructs a Storage object for the given file path.
@@ -23,106 +64,645 @@ public class Storage {
      * @param filePath Path to the file for storing tasks.
      */
     public Storage(String filePath) {
+        this(filePath, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Constructs a Storage object for the given file path with a custom compaction threshold.
+     *
+     * @param filePath Path to the file for storing tasks.
+     * @param compactionThreshold Journal size in bytes after which it is folded into the snapshot.
+     */
+    public Storage(String filePath, long compactionThreshold) {
+        this(filePath, compactionThreshold, DEFAULT_MAX_FLUSH_DELAY_MILLIS, DEFAULT_MAX_DIRTY_OPS);
+    }
+
+    /**
+     * Constructs a Storage object with custom compaction and write-behind settings.
+     *
+     * @param filePath Path to the file for storing tasks.
+     * @param compactionThreshold Journal size in bytes after which it is folded into the snapshot.
+     * @param maxFlushDelayMillis Longest time a journal record may wait before it is written.
+     * @param maxDirtyOps Number of unwritten journal records that forces a flush.
+     */
+    public Storage(String filePath, long compactionThreshold, long maxFlushDelayMillis, int maxDirtyOps) {
+        assert compactionThreshold > 0 : "Compaction threshold should be positive";
         this.file = new File(filePath);
+        this.journalFile = new File(filePath + ".journal");
+        this.compactingFile = new File(filePath + ".journal.old");
+        this.compactionThreshold = compactionThreshold;
+        this.scheduler = new WriteBehindScheduler(this::writeRecords, maxFlushDelayMillis, maxDirtyOps);
     }
 
     /**
-     * Loads tasks from the file.
+     * Loads tasks from the file, replaying any journaled mutations over the last snapshot.
      *
      * @return ArrayList of loaded tasks.
      * @throws IOException If an I/O error occurs.
      */
     public ArrayList<Task> load() throws IOException {
+        return loadFully().getTasks();
+    }
+
+    /**
+     * Loads tasks from the file into a TaskList.
+     * Large binary snapshots are opened lazily, so only the tasks that are accessed get decoded.
+     * Mid-sized ones are copied into a {@link ColumnarTaskList}, which holds the tasks in a fraction
+     * of the memory of one object per task. Everything else is loaded in full as by {@link #load()}.
+     *
+     * @return The loaded TaskList.
+     * @throws IOException If an I/O error occurs.
+     */
+    public TaskList loadTaskList() throws IOException {
+        if (file.length() < COLUMNAR_LOAD_THRESHOLD || !BinarySnapshotFormat.isBinary(file)) {
+            return loadFully();
+        }
+        long snapshotGeneration;
+        LazyTaskList lazyTasks;
+        try {
+            snapshotGeneration = BinarySnapshotFormat.readGeneration(file);
+            lazyTasks = BinarySnapshotFormat.openLazy(file);
+        } catch (IOException e) {
+            return loadFully(); // Sets the unreadable file aside
+        }
+        keepCopyIfDamaged(lazyTasks.size());
+        TaskList tasks = file.length() < LAZY_LOAD_THRESHOLD ? toColumnar(lazyTasks) : lazyTasks;
+        recoverJournals(tasks, snapshotGeneration);
+        return tasks;
+    }
+
+    /**
+     * Copies a lazily opened snapshot into a columnar list and closes the snapshot.
+     * Tasks are decoded one at a time, so they are never all on the heap at once,
+     * and their descriptions are kept off the heap where the garbage collector does not trace them.
+     */
+    private static ColumnarTaskList toColumnar(LazyTaskList snapshot) throws IOException {
+        try (LazyTaskList tasks = snapshot) {
+            ColumnarTaskList columns = new ColumnarTaskList(tasks.size(), new DirectDescriptionArena());
+            for (int i = 0; i < tasks.size(); i++) {
+                columns.add(tasks.get(i));
+            }
+            columns.reserveIdsBelow(tasks.getNextId());
+            return columns;
+        }
+    }
+
+    private TaskList loadFully() throws IOException {
         ArrayList<Task> tasks = new ArrayList<>();
+        long snapshotGeneration = 0;
+        long nextId = 1;
+        boolean isBinary = false;
         if (!file.exists()) {
             assert file.getParentFile() != null : "Parent directory should not be null";
             file.getParentFile().mkdirs(); // Create directories if they don't exist
             file.createNewFile(); // Create the file if it doesn't exist
         } else {
-            try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-                String line;
-                while ((line = br.readLine()) != null) {
-                    String[] parts = line.split(" \\| ");
-                    if (parts.length < 3) continue; // Skip malformed lines
-
-                    assert parts[0] != null : "Task type should not be null";
-                    assert parts[1] != null : "Task status should not be null";
-                    assert parts[2] != null : "Task description should not be null";
-                    
-                    String type = parts[0];
-                    boolean isDone = parts[1].equals("1");
-                    String description = parts[2];
-                    Task task = null;
-                    
-                    try {
-                        switch (type) {
-                            case "T":
-                                task = new Todo(description);
-                                break;
-                            case "D":
-                                if (parts.length >= 4) {
-                                    LocalDateTime by = LocalDateTime.parse(parts[3], STORAGE_FORMAT);
-                                    task = new Deadline(description, by);
-                                }
-                                break;
-                            case "E":
-                                if (parts.length >= 5) {
-                                    LocalDateTime from = LocalDateTime.parse(parts[3], STORAGE_FORMAT);
-                                    LocalDateTime to = LocalDateTime.parse(parts[4], STORAGE_FORMAT);
-                                    task = new Event(description, from, to);
-                                }
-                                break;
-                        }
-                        if (task != null) {
-                            if (isDone) {
-                                task.markAsDone();
-                            }
-                            tasks.add(task);
-                        }
-                    } catch (Exception e) {
-                        System.out.println("Warning: Skipping corrupted task: " + line);
-                    }
+            try {
+                snapshotGeneration = readSnapshot(tasks);
+                if (BinarySnapshotFormat.isBinary(file)) {
+                    nextId = BinarySnapshotFormat.readNextId(file);
+                    isBinary = true;
                 }
             } catch (Exception e) {
-                System.out.println("Warning: Data file is corrupted. Starting with an empty task list.");
+                tasks.clear();
+                snapshotGeneration = 0;
+                File kept = setAside(file);
+                System.out.println("Warning: Data file is corrupted. Starting with an empty task list. "
+                        + "The corrupted file has been kept as " + kept.getName() + ".");
+            }
+            if (isBinary) {
+                keepCopyIfDamaged(tasks.size());
             }
         }
-        return tasks;
+        TaskList taskList = new TaskList(tasks);
+        taskList.reserveIdsBelow(nextId);
+        recoverJournals(taskList, snapshotGeneration);
+        return taskList;
+    }
+
+    /**
+     * Replays journals left over from the last run and picks up the generation to continue with.
+     */
+    private synchronized void recoverJournals(TaskList tasks, long snapshotGeneration) throws IOException {
+        long compactingGeneration = replayJournal(compactingFile, snapshotGeneration, tasks);
+        long journalGeneration = replayJournal(journalFile, snapshotGeneration, tasks);
+        // Journals at or below the snapshot generation were already folded in before a crash
+        if (compactingGeneration <= snapshotGeneration) {
+            Files.deleteIfExists(compactingFile.toPath());
+        }
+        if (journalGeneration <= snapshotGeneration) {
+            Files.deleteIfExists(journalFile.toPath());
+        }
+        if (journalFile.exists()) {
+            generation = journalGeneration;
+        } else {
+            generation = Math.max(snapshotGeneration, compactingGeneration) + 1;
+        }
+        if (compactingFile.exists()) {
+            // A previous compaction did not finish; pick it up again
+            compactor.submit(this::compact);
+        }
     }
 
     /**
-     * Saves the given TaskList to the file.
+     * Saves the given TaskList to the file as a fresh snapshot and discards the journal.
+     * Journal records not yet written are dropped, as the snapshot covers them. For a
+     * {@link ConcurrentTaskList}, the version current at that moment is pinned and saved; changes
+     * journaled after that go under the next generation. A change must therefore be journaled
+     * before a save can start, as Robert ensures by doing both under its own lock.
      *
      * @param taskList The TaskList to save.
      * @throws IOException If an I/O error occurs.
      */
     public void save(TaskList taskList) throws IOException {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(file))) {
-            for (int i = 0; i < taskList.size(); i++) {
-                Task task = taskList.get(i);
-                StringBuilder sb = new StringBuilder();
-                
-                if (task instanceof Todo) {
-                    sb.append("T | ");
-                    sb.append(task.getStatusIcon().equals("X") ? "1" : "0").append(" | ");
-                    sb.append(task.getDescription());
-                } else if (task instanceof Deadline) {
-                    Deadline deadline = (Deadline) task;
-                    sb.append("D | ");
-                    sb.append(task.getStatusIcon().equals("X") ? "1" : "0").append(" | ");
-                    sb.append(task.getDescription()).append(" | ");
-                    sb.append(deadline.getBy().format(STORAGE_FORMAT));
-                } else if (task instanceof Event) {
-                    Event event = (Event) task;
-                    sb.append("E | ");
-                    sb.append(task.getStatusIcon().equals("X") ? "1" : "0").append(" | ");
-                    sb.append(task.getDescription()).append(" | ");
-                    sb.append(event.getFrom().format(STORAGE_FORMAT)).append(" | ");
-                    sb.append(event.getTo().format(STORAGE_FORMAT));
-                }
-                bw.write(sb.toString());
+        scheduler.checkpoint(() -> pin(taskList), this::writeCheckpoint);
+    }
+
+    /**
+     * Writes a pinned list as the snapshot of the current generation and starts the next one.
+     * Called by the write-behind scheduler, with no group of records being written meanwhile.
+     */
+    private synchronized void writeCheckpoint(TaskList tasks) throws IOException {
+        synchronized (snapshotLock) {
+            writeSnapshot(tasks, generation);
+            Files.deleteIfExists(compactingFile.toPath());
+            Files.deleteIfExists(journalFile.toPath());
+            generation++;
+            if (tasks instanceof TaskListSnapshot) {
+                persistedVersion = ((TaskListSnapshot) tasks).getVersion();
+            }
+        }
+        if (history != null) {
+            try {
+                history.save(); // Its journal entries were dropped with the task records
+            } catch (IOException e) {
+                System.out.println("Warning: Failed to save undo history: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns the version of the {@link ConcurrentTaskList} last saved by {@link #save(TaskList)}.
+     * The list has unsaved changes exactly when its version is higher.
+     *
+     * @return The saved version, or -1 if no concurrent list has been saved.
+     */
+    public long getPersistedVersion() {
+        return persistedVersion;
+    }
+
+    /**
+     * Exports the given TaskList to a file in the human-readable text format.
+     *
+     * @param taskList The TaskList to export.
+     * @param filePath Path of the text file to write.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void exportText(TaskList taskList, String filePath) throws IOException {
+        TaskList pinned = pin(taskList);
+        ArrayList<Task> tasks = new ArrayList<>(pinned.size());
+        for (int i = 0; i < pinned.size(); i++) {
+            tasks.add(pinned.get(i));
+        }
+        TextFormat.write(new File(filePath), tasks);
+    }
+
+    /**
+     * Imports tasks from a file in the human-readable text format.
+     *
+     * @param filePath Path of the text file to read.
+     * @return ArrayList of imported tasks.
+     * @throws IOException If an I/O error occurs.
+     */
+    public ArrayList<Task> importText(String filePath) throws IOException {
+        ArrayList<Task> tasks = new ArrayList<>();
+        TextFormat.read(new File(filePath), tasks);
+        return tasks;
+    }
+
+    /**
+     * Imports tasks from a CSV, JSON lines or iCalendar file exported by another tool.
+     * The tasks are only read; adding them to a list and saving it is up to the caller.
+     *
+     * @param filePath Path of the file to read, ending in .csv, .jsonl, .ndjson or .ics.
+     * @param listener Receives progress reports, or null if none are wanted.
+     * @return The tasks read and the records that could not be imported.
+     * @throws IOException If the file cannot be read or is not in the format its extension says.
+     */
+    public TaskImporter.Result importTasks(String filePath, TaskImporter.ProgressListener listener)
+            throws IOException {
+        return TaskImporter.read(new File(filePath), listener);
+    }
+
+    /**
+     * Appends a journal record for a newly added task.
+     *
+     * @param task The task that was added to the end of the list.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void appendAdd(Task task) throws IOException {
+        appendRecord(ADD_RECORD + TextFormat.formatTaskWithId(task));
+    }
+
+    /**
+     * Appends a journal record for a task inserted at a position other than the end,
+     * such as a deleted task that was put back.
+     *
+     * @param index The position the task was inserted at.
+     * @param task The task that was inserted.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void appendInsert(int index, Task task) throws IOException {
+        appendRecord(INSERT_RECORD + index + " " + TextFormat.formatTaskWithId(task));
+    }
+
+    /**
+     * Appends a journal record for a task marked as done.
+     *
+     * @param task The task that was marked.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void appendMark(Task task) throws IOException {
+        appendRecord(MARK_RECORD + TextFormat.ID_PREFIX + task.getId());
+    }
+
+    /**
+     * Appends a journal record for a task marked as not done.
+     *
+     * @param task The task that was unmarked.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void appendUnmark(Task task) throws IOException {
+        appendRecord(UNMARK_RECORD + TextFormat.ID_PREFIX + task.getId());
+    }
+
+    /**
+     * Appends a journal record for a deleted task.
+     *
+     * @param task The task that was removed.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void appendDelete(Task task) throws IOException {
+        appendRecord(DELETE_RECORD + TextFormat.ID_PREFIX + task.getId());
+    }
+
+    /**
+     * Appends journal records for a batch of tasks marked as done, written out together in one group.
+     *
+     * @param tasks The tasks that were marked.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void appendMarks(List<Task> tasks) throws IOException {
+        appendRecords(MARK_RECORD, tasks);
+    }
+
+    /**
+     * Appends journal records for a batch of tasks marked as not done, written out together in one group.
+     *
+     * @param tasks The tasks that were unmarked.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void appendUnmarks(List<Task> tasks) throws IOException {
+        appendRecords(UNMARK_RECORD, tasks);
+    }
+
+    /**
+     * Appends journal records for a batch of deleted tasks, written out together in one group.
+     *
+     * @param tasks The tasks that were removed.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void appendDeletes(List<Task> tasks) throws IOException {
+        appendRecords(DELETE_RECORD, tasks);
+    }
+
+    /**
+     * Journals the changes to the given undo history together with the task records, and saves
+     * the history whenever the tasks are saved as a snapshot. Called by {@link UndoLog#journalTo(Storage)}.
+     */
+    void attachHistory(UndoLog history) {
+        this.history = history;
+    }
+
+    /**
+     * Submits an entry of the attached undo history, to be written to its journal in the same group
+     * as the task records submitted around it.
+     */
+    void appendHistory(String entry) {
+        scheduler.submit(HISTORY_RECORD + entry);
+    }
+
+    /**
+     * Defers persistence for bulk work: from now on journal records are kept in memory instead of
+     * being written behind, until {@link #checkpoint(TaskList)} saves a snapshot covering them,
+     * {@link #flush()} writes them, {@link #resumeWrites()} is called or the storage is closed.
+     */
+    public void deferWrites() {
+        scheduler.hold();
+    }
+
+    /**
+     * Ends a {@link #deferWrites()}, so the journal records kept in memory meanwhile are written
+     * behind together in a single group.
+     */
+    public void resumeWrites() {
+        scheduler.release();
+    }
+
+    /**
+     * Saves the given TaskList as a fresh snapshot in place of the journal records buffered since
+     * {@link #deferWrites()} or the last checkpoint, which are dropped unwritten as by
+     * {@link #save(TaskList)}.
+     *
+     * @param taskList The TaskList to save.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void checkpoint(TaskList taskList) throws IOException {
+        save(taskList);
+    }
+
+    /**
+     * Writes all buffered journal records to disk now.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    public void flush() throws IOException {
+        scheduler.flush();
+    }
+
+    /**
+     * Flushes buffered journal records, waits for any pending background compaction
+     * and stops the background threads.
+     *
+     * @throws IOException If the final flush fails or is interrupted.
+     */
+    public void close() throws IOException {
+        scheduler.close();
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for compaction", e);
+        }
+    }
+
+    private void appendRecord(String record) {
+        scheduler.submit(record);
+    }
+
+    private void appendRecords(String recordType, List<Task> tasks) {
+        ArrayList<String> records = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            records.add(recordType + TextFormat.ID_PREFIX + task.getId());
+        }
+        scheduler.submitAll(records);
+    }
+
+    /**
+     * Appends a group of records to the journal in a single write, and the undo history entries
+     * among them to the history's journal after it. Called by the write-behind scheduler.
+     * A history entry that cannot be written is dropped with a warning rather than retried,
+     * since retrying the group would journal its task records twice.
+     */
+    private synchronized void writeRecords(List<String> records) throws IOException {
+        ArrayList<String> taskRecords = new ArrayList<>(records.size());
+        ArrayList<String> historyEntries = new ArrayList<>();
+        for (String record : records) {
+            if (record.startsWith(HISTORY_RECORD)) {
+                historyEntries.add(record.substring(HISTORY_RECORD.length()));
+            } else {
+                taskRecords.add(record);
+            }
+        }
+        if (!taskRecords.isEmpty()) {
+            writeTaskRecords(taskRecords);
+        }
+        if (!historyEntries.isEmpty() && history != null) {
+            try {
+                history.writeJournal(historyEntries);
+            } catch (IOException e) {
+                System.out.println("Warning: Failed to save undo history: " + e.getMessage());
+            }
+        }
+    }
+
+    private void writeTaskRecords(List<String> records) throws IOException {
+        boolean isNewJournal = journalFile.length() == 0;
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(journalFile, StandardCharsets.UTF_8, true))) {
+            if (isNewJournal) {
+                bw.write(TextFormat.GENERATION_PREFIX + generation);
+                bw.newLine();
+            }
+            for (String record : records) {
+                bw.write(record);
                 bw.newLine();
             }
         }
+        if (journalFile.length() >= compactionThreshold && !compactingFile.exists()) {
+            // Hand the full journal over to the compactor and start a fresh one
+            Files.move(journalFile.toPath(), compactingFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            generation++;
+            compactor.submit(this::compact);
+        }
+    }
+
+    /**
+     * Folds the rotated journal into a fresh snapshot.
+     * Runs on the compactor thread. A binary snapshot is opened lazily and streamed
+     * into the new one, so compaction does not need the whole list in memory.
+     */
+    private void compact() {
+        synchronized (snapshotLock) {
+            if (!compactingFile.exists()) {
+                return; // A full save already covered this journal
+            }
+            TaskList tasks = null;
+            try {
+                long snapshotGeneration = 0;
+                if (file.exists() && BinarySnapshotFormat.isBinary(file)) {
+                    snapshotGeneration = BinarySnapshotFormat.readGeneration(file);
+                    tasks = BinarySnapshotFormat.openLazy(file);
+                } else {
+                    ArrayList<Task> loaded = new ArrayList<>();
+                    snapshotGeneration = file.exists() ? readSnapshot(loaded) : 0;
+                    tasks = new TaskList(loaded);
+                }
+                long compactingGeneration = replayJournal(compactingFile, snapshotGeneration, tasks);
+                writeSnapshot(tasks, Math.max(snapshotGeneration, compactingGeneration));
+                Files.deleteIfExists(compactingFile.toPath());
+            } catch (IOException e) {
+                System.out.println("Warning: Failed to compact journal: " + e.getMessage());
+            } finally {
+                closeIfLazy(tasks);
+            }
+        }
+    }
+
+    /**
+     * Returns a view of the given list that will not change while it is being written out.
+     */
+    private static TaskList pin(TaskList tasks) {
+        if (tasks instanceof ConcurrentTaskList) {
+            return ((ConcurrentTaskList) tasks).snapshot();
+        }
+        return tasks;
+    }
+
+    private static void closeIfLazy(TaskList tasks) {
+        if (tasks instanceof LazyTaskList) {
+            try {
+                ((LazyTaskList) tasks).close();
+            } catch (IOException e) {
+                System.out.println("Warning: Failed to close snapshot: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reads the snapshot file into the given list, detecting whether it is
+     * a binary snapshot or an older text data file.
+     *
+     * @param tasks List to add the loaded tasks to.
+     * @return The journal generation already folded into the snapshot.
+     * @throws IOException If an I/O error occurs.
+     */
+    private long readSnapshot(ArrayList<Task> tasks) throws IOException {
+        if (BinarySnapshotFormat.isBinary(file)) {
+            return BinarySnapshotFormat.read(file, tasks);
+        }
+        return TextFormat.read(file, tasks);
+    }
+
+    /**
+     * Writes the given tasks as the new binary snapshot, replacing the old one atomically.
+     */
+    private void writeSnapshot(TaskList tasks, long snapshotGeneration) throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        BinarySnapshotFormat.write(tempFile, tasks, snapshotGeneration);
+        Files.move(tempFile.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Replays the records of a journal file over the given list.
+     * Journals whose generation is already part of the snapshot are skipped.
+     *
+     * @return The generation of the journal, or 0 if it does not exist or was set aside as corrupted.
+     */
+    private long replayJournal(File journal, long snapshotGeneration, TaskList tasks) throws IOException {
+        if (!journal.exists()) {
+            return 0;
+        }
+        long journalGeneration = -1;
+        try (BufferedReader br = new BufferedReader(new FileReader(journal, StandardCharsets.UTF_8))) {
+            String header = br.readLine();
+            if (header == null) {
+                return 0; // Created but never written to, so nothing is lost by deleting it
+            }
+            if (header.startsWith(TextFormat.GENERATION_PREFIX)) {
+                try {
+                    journalGeneration = TextFormat.parseGeneration(header);
+                } catch (NumberFormatException e) {
+                    // Handled below, once the file is closed
+                }
+            }
+            if (journalGeneration > snapshotGeneration) {
+                String record;
+                while ((record = br.readLine()) != null) {
+                    try {
+                        applyRecord(record, tasks);
+                    } catch (Exception e) {
+                        System.out.println("Warning: Skipping corrupted journal record: " + record);
+                    }
+                }
+            }
+        }
+        if (journalGeneration < 0) {
+            File kept = setAside(journal);
+            System.out.println("Warning: Journal " + journal.getName() + " is corrupted and was not replayed. "
+                    + "It has been kept as " + kept.getName() + ".");
+            return 0;
+        }
+        return journalGeneration;
+    }
+
+    /**
+     * Keeps a copy of a binary snapshot that held fewer tasks than it was written with,
+     * as the next save replaces it with only the tasks that could be read.
+     */
+    private void keepCopyIfDamaged(int loadedCount) throws IOException {
+        if (loadedCount >= BinarySnapshotFormat.readCount(file)) {
+            return;
+        }
+        File copy = unusedCorruptName(file);
+        Files.copy(file.toPath(), copy.toPath());
+        System.out.println("Warning: A copy of the damaged data file has been kept as " + copy.getName() + ".");
+    }
+
+    /**
+     * Moves a corrupted file out of the way under a name ending in ".corrupt", without
+     * replacing any file set aside before, so its contents can still be recovered by hand.
+     *
+     * @return The file it was moved to.
+     */
+    private static File setAside(File corrupted) throws IOException {
+        File target = unusedCorruptName(corrupted);
+        Files.move(corrupted.toPath(), target.toPath());
+        return target;
+    }
+
+    private static File unusedCorruptName(File corrupted) {
+        File target = new File(corrupted.getPath() + ".corrupt");
+        for (int i = 1; target.exists(); i++) {
+            target = new File(corrupted.getPath() + ".corrupt." + i);
+        }
+        return target;
+    }
+
+    private void applyRecord(String record, TaskList tasks) {
+        if (record.startsWith(ADD_RECORD)) {
+            Task task = TextFormat.parseTask(record.substring(ADD_RECORD.length()));
+            if (task == null) {
+                throw new IllegalArgumentException("Malformed task record");
+            }
+            if (task.getId() > 0 && tasks.indexOfId(task.getId()) >= 0) {
+                return; // Added while a save was in progress, so already in the snapshot
+            }
+            tasks.add(task);
+            return;
+        }
+        if (record.startsWith(INSERT_RECORD)) {
+            int space = record.indexOf(' ', INSERT_RECORD.length());
+            int position = Integer.parseInt(record.substring(INSERT_RECORD.length(), space));
+            Task task = TextFormat.parseTask(record.substring(space + 1));
+            if (task == null || position < 0) {
+                throw new IllegalArgumentException("Malformed task record");
+            }
+            if (task.getId() > 0 && tasks.indexOfId(task.getId()) >= 0) {
+                return; // Inserted while a save was in progress, so already in the snapshot
+            }
+            tasks.insert(Math.min(position, tasks.size()), task);
+            return;
+        }
+        String target = record.substring(2).trim();
+        int index;
+        if (target.startsWith(TextFormat.ID_PREFIX)) {
+            index = tasks.indexOfId(Long.parseLong(target.substring(TextFormat.ID_PREFIX.length())));
+        } else {
+            index = Integer.parseInt(target); // Journals written before tasks had IDs
+        }
+        if (index < 0 || index >= tasks.size()) {
+            throw new IllegalArgumentException("Task index out of range");
+        }
+        if (record.startsWith(MARK_RECORD)) {
+            tasks.markTask(index);
+        } else if (record.startsWith(UNMARK_RECORD)) {
+            tasks.unmarkTask(index);
+        } else if (record.startsWith(DELETE_RECORD)) {
+            tasks.remove(index);
+        } else {
+            throw new IllegalArgumentException("Unknown journal record");
+        }
     }
 }
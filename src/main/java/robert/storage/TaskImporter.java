@@ -0,0 +1,442 @@
+package robert.storage;
+
+import robert.parser.DateTimeCodec;
+import robert.task.Deadline;
+import robert.task.Event;
+import robert.task.Task;
+import robert.task.TaskType;
+import robert.task.Todo;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Imports tasks exported by other tools from CSV, JSON lines and iCalendar (.ics) files.
+ *
+ * <p>The file is streamed: the importing thread splits it into raw records and hands them out in
+ * batches to the common ForkJoinPool, where they are turned into tasks. Only a bounded number of
+ * batches is in flight at once, so memory use does not grow with the file beyond the tasks
+ * themselves. Results are merged back in file order. A record that cannot be imported does not
+ * stop the import; it is counted and described with its line number instead.</p>
+ *
+ * <p>CSV files need a header row naming their columns, and JSON lines files hold one object per
+ * line. Both use the fields "type" (todo, deadline or event; worked out from the dates if left
+ * out), "description", "done", "by", "from" and "to". Dates may be given as
+ * "yyyy-MM-dd HHmm", "yyyy-MM-dd" or in ISO 8601. iCalendar files contribute their VTODO
+ * components as todos or, if they have a due date, deadlines, and their VEVENT components as
+ * events.</p>
+ */
+public class TaskImporter {
+    static final String[] FIELD_NAMES = {"type", "description", "done", "by", "from", "to"};
+    static final int TYPE = 0;
+    static final int DESCRIPTION = 1;
+    static final int DONE = 2;
+    static final int BY = 3;
+    static final int FROM = 4;
+    static final int TO = 5;
+
+    private static final int BATCH_SIZE = 2048;
+    private static final int BATCHES_PER_THREAD = 4; // Batches in flight per worker thread
+    private static final int PROGRESS_INTERVAL = 100_000;
+    private static final int MAX_KEPT_ERRORS = 1000;
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    /**
+     * Receives progress reports while a file is imported.
+     */
+    public interface ProgressListener {
+        /**
+         * Called from the importing thread after every so many records.
+         *
+         * @param recordCount Number of records read so far.
+         */
+        void progress(int recordCount);
+    }
+
+    /**
+     * The outcome of importing a file: the tasks read, in file order, and the records that failed.
+     */
+    public static class Result {
+        private final ArrayList<Task> tasks = new ArrayList<>();
+        private final ArrayList<String> errors = new ArrayList<>();
+        private int recordCount;
+        private int errorCount;
+
+        /**
+         * Returns the tasks read from the file, without IDs and not yet checked for duplicates.
+         *
+         * @return The tasks, in file order.
+         */
+        public ArrayList<Task> getTasks() {
+            return tasks;
+        }
+
+        /**
+         * Returns descriptions of the records that could not be imported, such as
+         * "Line 12: Missing description". Only the first thousand are kept.
+         *
+         * @return The descriptions, in file order.
+         */
+        public List<String> getErrors() {
+            return errors;
+        }
+
+        /**
+         * Returns the number of records read, whether or not they could be imported.
+         *
+         * @return The number of records.
+         */
+        public int getRecordCount() {
+            return recordCount;
+        }
+
+        /**
+         * Returns the number of records that could not be imported, including those
+         * whose descriptions were not kept.
+         *
+         * @return The number of failed records.
+         */
+        public int getErrorCount() {
+            return errorCount;
+        }
+    }
+
+    /**
+     * Holds the tasks and errors produced from one batch of records.
+     */
+    private static class BatchResult {
+        private final ArrayList<Task> tasks = new ArrayList<>();
+        private final ArrayList<String> errors = new ArrayList<>();
+    }
+
+    /**
+     * Checks whether a file can be imported, judging by its extension.
+     *
+     * @param filePath Path of the file.
+     * @return true for .csv, .jsonl, .ndjson and .ics files.
+     */
+    public static boolean isSupported(String filePath) {
+        String extension = extensionOf(filePath);
+        return extension.equals("csv") || extension.equals("jsonl") || extension.equals("ndjson")
+                || extension.equals("ics");
+    }
+
+    /**
+     * Reads all tasks from a file, in the format given by its extension.
+     *
+     * @param file The file to read.
+     * @param listener Receives progress reports, or null if none are wanted.
+     * @return The tasks read and the records that failed.
+     * @throws IOException If the file cannot be read or is not in the format its extension says.
+     */
+    public static Result read(File file, ProgressListener listener) throws IOException {
+        assert isSupported(file.getPath()) : "File format should be supported";
+        try (BufferedReader in = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
+            skipByteOrderMark(in);
+            return read(createReader(extensionOf(file.getPath()), in), listener);
+        }
+    }
+
+    private static Result read(RecordReader reader, ProgressListener listener) throws IOException {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int maxInFlight = Math.max(2, pool.getParallelism() * BATCHES_PER_THREAD);
+        ArrayDeque<ForkJoinTask<BatchResult>> inFlight = new ArrayDeque<>();
+        Result result = new Result();
+        ArrayList<ImportRecord> batch = new ArrayList<>(BATCH_SIZE);
+        ImportRecord record;
+        while ((record = reader.next()) != null) {
+            batch.add(record);
+            result.recordCount++;
+            if (batch.size() == BATCH_SIZE) {
+                submit(pool, reader, batch, inFlight);
+                batch = new ArrayList<>(BATCH_SIZE);
+                if (inFlight.size() >= maxInFlight) {
+                    merge(inFlight.poll(), result);
+                }
+            }
+            if (listener != null && result.recordCount % PROGRESS_INTERVAL == 0) {
+                listener.progress(result.recordCount);
+            }
+        }
+        if (!batch.isEmpty()) {
+            submit(pool, reader, batch, inFlight);
+        }
+        while (!inFlight.isEmpty()) {
+            merge(inFlight.poll(), result);
+        }
+        return result;
+    }
+
+    private static void submit(ForkJoinPool pool, RecordReader reader, List<ImportRecord> batch,
+            ArrayDeque<ForkJoinTask<BatchResult>> inFlight) {
+        inFlight.add(pool.submit(() -> convert(reader, batch)));
+    }
+
+    /**
+     * Turns a batch of records into tasks on a worker thread.
+     */
+    private static BatchResult convert(RecordReader reader, List<ImportRecord> batch) {
+        BatchResult result = new BatchResult();
+        for (ImportRecord record : batch) {
+            try {
+                if (record.problem != null) {
+                    throw new IllegalArgumentException(record.problem);
+                }
+                result.tasks.add(reader.toTask(record));
+            } catch (IllegalArgumentException e) {
+                result.errors.add("Line " + record.lineNumber + ": " + e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    private static void merge(ForkJoinTask<BatchResult> pending, Result result) throws IOException {
+        BatchResult batch;
+        try {
+            batch = pending.join();
+        } catch (RuntimeException e) {
+            throw new IOException("Failed to import file", e);
+        }
+        result.tasks.addAll(batch.tasks);
+        result.errorCount += batch.errors.size();
+        for (int i = 0; i < batch.errors.size() && result.errors.size() < MAX_KEPT_ERRORS; i++) {
+            result.errors.add(batch.errors.get(i));
+        }
+    }
+
+    private static RecordReader createReader(String extension, BufferedReader in) {
+        switch (extension) {
+            case "csv":
+                return new CsvRecordReader(in);
+            case "ics":
+                return new ICalendarRecordReader(in);
+            default:
+                return new JsonLinesRecordReader(in);
+        }
+    }
+
+    private static String extensionOf(String filePath) {
+        String name = new File(filePath).getName();
+        return name.substring(name.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static void skipByteOrderMark(BufferedReader in) throws IOException {
+        in.mark(1);
+        if (in.read() != BYTE_ORDER_MARK) {
+            in.reset();
+        }
+    }
+
+    /**
+     * Creates a task from the fields of a CSV row or JSON object, indexed as in {@link #FIELD_NAMES}.
+     * Missing fields are null.
+     *
+     * @param fields The field values.
+     * @return The task.
+     * @throws IllegalArgumentException If the fields do not describe a valid task.
+     */
+    static Task createTask(String[] fields) {
+        String by = trimToNull(fields[BY]);
+        String from = trimToNull(fields[FROM]);
+        String to = trimToNull(fields[TO]);
+        TaskType type = parseType(trimToNull(fields[TYPE]), by, from);
+        boolean isDone = parseDone(trimToNull(fields[DONE]));
+        switch (type) {
+            case DEADLINE:
+                if (by == null) {
+                    throw new IllegalArgumentException("A deadline needs a 'by' date");
+                }
+                return createTask(type, fields[DESCRIPTION], isDone, parseDateTime(by), null);
+            case EVENT:
+                if (from == null || to == null) {
+                    throw new IllegalArgumentException("An event needs 'from' and 'to' dates");
+                }
+                LocalDateTime start = parseDateTime(from);
+                LocalDateTime end = to.length() == DateTimeCodec.TIME_LENGTH
+                        ? start.with(parseTime(to))
+                        : parseDateTime(to);
+                return createTask(type, fields[DESCRIPTION], isDone, start, end);
+            default:
+                return createTask(type, fields[DESCRIPTION], isDone, null, null);
+        }
+    }
+
+    /**
+     * Creates a task of the given type, checking the description and dates.
+     *
+     * @param type The type of task.
+     * @param description The description; runs of whitespace, including line breaks, become single spaces.
+     * @param isDone Whether the task is done.
+     * @param start The deadline, or the start of an event.
+     * @param end The end of an event.
+     * @return The task.
+     * @throws IllegalArgumentException If the description is blank or the dates are out of range.
+     */
+    static Task createTask(TaskType type, String description, boolean isDone, LocalDateTime start,
+            LocalDateTime end) {
+        String normalized = normalizeDescription(description);
+        if (normalized.isEmpty()) {
+            throw new IllegalArgumentException("Missing description");
+        }
+        Task task;
+        switch (type) {
+            case DEADLINE:
+                task = new Deadline(normalized, checkRange(start));
+                break;
+            case EVENT:
+                if (end.isBefore(start)) {
+                    throw new IllegalArgumentException("An event cannot end before it starts");
+                }
+                task = new Event(normalized, checkRange(start), checkRange(end));
+                break;
+            default:
+                task = new Todo(normalized);
+                break;
+        }
+        if (isDone) {
+            task.markAsDone();
+        }
+        return task;
+    }
+
+    /**
+     * Parses a date and time given as "yyyy-MM-dd HHmm", as "yyyy-MM-dd" for the start of that day,
+     * or in ISO 8601 with or without an offset. Times with an offset are converted to local time.
+     *
+     * @param text The text.
+     * @return The date and time, to the minute.
+     * @throws IllegalArgumentException If the text is in none of those layouts.
+     */
+    static LocalDateTime parseDateTime(String text) {
+        try {
+            if (text.length() == DateTimeCodec.DATE_TIME_LENGTH && text.charAt(DateTimeCodec.DATE_LENGTH) == ' ') {
+                return DateTimeCodec.parse(text);
+            }
+            if (text.length() == DateTimeCodec.DATE_LENGTH) {
+                return DateTimeCodec.parseDate(text, 0, text.length()).atStartOfDay();
+            }
+            if (text.length() > DateTimeCodec.DATE_LENGTH && text.charAt(DateTimeCodec.DATE_LENGTH) == 'T') {
+                LocalDateTime dateTime = hasOffset(text)
+                        ? OffsetDateTime.parse(text).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime()
+                        : LocalDateTime.parse(text);
+                return dateTime.truncatedTo(ChronoUnit.MINUTES);
+            }
+        } catch (DateTimeException e) {
+            // Reported below, with the layouts that are accepted
+        }
+        throw new IllegalArgumentException("Invalid date/time '" + text
+                + "'; use 'yyyy-MM-dd HHmm', 'yyyy-MM-dd' or ISO 8601");
+    }
+
+    /**
+     * Checks that a date and time can be stored, which needs a four-digit year.
+     *
+     * @param dateTime The date and time.
+     * @return The date and time, to the minute.
+     * @throws IllegalArgumentException If the year is out of range.
+     */
+    static LocalDateTime checkRange(LocalDateTime dateTime) {
+        if (dateTime.getYear() < 1 || dateTime.getYear() > 9999) {
+            throw new IllegalArgumentException("Date out of range: " + dateTime);
+        }
+        return dateTime.truncatedTo(ChronoUnit.MINUTES);
+    }
+
+    private static TaskType parseType(String type, String by, String from) {
+        if (type == null) {
+            return by != null ? TaskType.DEADLINE : from != null ? TaskType.EVENT : TaskType.TODO;
+        }
+        switch (type.toLowerCase(Locale.ROOT)) {
+            case "todo":
+            case "t":
+                return TaskType.TODO;
+            case "deadline":
+            case "d":
+                return TaskType.DEADLINE;
+            case "event":
+            case "e":
+                return TaskType.EVENT;
+            default:
+                throw new IllegalArgumentException("Unknown task type '" + type + "'");
+        }
+    }
+
+    private static boolean parseDone(String done) {
+        if (done == null) {
+            return false;
+        }
+        switch (done.toLowerCase(Locale.ROOT)) {
+            case "true":
+            case "yes":
+            case "y":
+            case "1":
+            case "x":
+            case "done":
+                return true;
+            case "false":
+            case "no":
+            case "n":
+            case "0":
+                return false;
+            default:
+                throw new IllegalArgumentException("Invalid done value '" + done + "'; use true or false");
+        }
+    }
+
+    private static LocalTime parseTime(String text) {
+        try {
+            return DateTimeCodec.parseTime(text);
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Invalid time '" + text + "'; use 'HHmm'");
+        }
+    }
+
+    private static boolean hasOffset(String text) {
+        char last = text.charAt(text.length() - 1);
+        return last == 'Z' || last == 'z' || text.indexOf('+', DateTimeCodec.DATE_LENGTH) >= 0
+                || text.indexOf('-', DateTimeCodec.DATE_LENGTH) >= 0;
+    }
+
+    private static String trimToNull(String text) {
+        if (text == null) {
+            return null;
+        }
+        String trimmed = text.strip();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private static String normalizeDescription(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        boolean isSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                isSpace = sb.length() > 0;
+            } else {
+                if (isSpace) {
+                    sb.append(' ');
+                    isSpace = false;
+                }
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,187 @@
+package robert.storage;
+
+import robert.parser.DateTimeCodec;
+import robert.task.Task;
+import robert.task.Todo;
+import robert.task.Deadline;
+import robert.task.Event;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes tasks in the human-readable "T | 1 | desc" line format.
+ * Used for the journal, for importing older data files and for exporting task lists.
+ * Lines may start with an optional "#id | " field holding the task ID.
+ */
+public class TextFormat {
+    static final String GENERATION_PREFIX = "# ";
+    static final String ID_PREFIX = "#";
+    private static final long PARALLEL_LOAD_THRESHOLD = 8 * 1024 * 1024;
+
+    /**
+     * Reads all tasks from a text file, skipping corrupted lines.
+     * Large files are handed to the {@link ParallelTextLoader}.
+     *
+     * @param file The file to read.
+     * @param tasks List to add the loaded tasks to.
+     * @return The journal generation recorded in the file header, or 0 if there is none.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static long read(File file, ArrayList<Task> tasks) throws IOException {
+        if (file.length() >= PARALLEL_LOAD_THRESHOLD) {
+            return ParallelTextLoader.read(file, tasks);
+        }
+        long generation = 0;
+        try (BufferedReader br = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
+            String line;
+            boolean isFirstLine = true;
+            while ((line = br.readLine()) != null) {
+                if (isFirstLine && line.startsWith(GENERATION_PREFIX)) {
+                    generation = parseGeneration(line);
+                    isFirstLine = false;
+                    continue;
+                }
+                isFirstLine = false;
+                try {
+                    Task task = parseTask(line);
+                    if (task != null) {
+                        tasks.add(task);
+                    }
+                } catch (Exception e) {
+                    System.out.println("Warning: Skipping corrupted task: " + line);
+                }
+            }
+        }
+        return generation;
+    }
+
+    /**
+     * Writes the given tasks to a text file, one task per line.
+     *
+     * @param file The file to write.
+     * @param tasks Tasks to write.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void write(File file, List<Task> tasks) throws IOException {
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8))) {
+            for (Task task : tasks) {
+                bw.write(formatTask(task));
+                bw.newLine();
+            }
+        }
+    }
+
+    /**
+     * Parses the generation number from a "# n" header line.
+     *
+     * @param line The header line.
+     * @return The generation number.
+     */
+    static long parseGeneration(String line) {
+        return Long.parseLong(line.substring(GENERATION_PREFIX.length()).trim());
+    }
+
+    /**
+     * Parses a task from a line in the "T | 1 | desc" storage format.
+     *
+     * @param line The stored line.
+     * @return The task, or null if the line is malformed.
+     */
+    public static Task parseTask(String line) {
+        long id = 0;
+        if (line.startsWith(ID_PREFIX)) {
+            int separator = line.indexOf(" | ");
+            if (separator < 0) {
+                return null;
+            }
+            id = Long.parseLong(line.substring(ID_PREFIX.length(), separator));
+            line = line.substring(separator + 3);
+        }
+        String[] parts = line.split(" \\| ");
+        if (parts.length < 3) {
+            return null; // Skip malformed lines
+        }
+
+        assert parts[0] != null : "Task type should not be null";
+        assert parts[1] != null : "Task status should not be null";
+        assert parts[2] != null : "Task description should not be null";
+
+        String type = parts[0];
+        boolean isDone = parts[1].equals("1");
+        String description = parts[2];
+        Task task = null;
+
+        switch (type) {
+            case "T":
+                task = new Todo(description);
+                break;
+            case "D":
+                if (parts.length >= 4) {
+                    LocalDateTime by = DateTimeCodec.parse(parts[3]);
+                    task = new Deadline(description, by);
+                }
+                break;
+            case "E":
+                if (parts.length >= 5) {
+                    LocalDateTime from = DateTimeCodec.parse(parts[3]);
+                    LocalDateTime to = DateTimeCodec.parse(parts[4]);
+                    task = new Event(description, from, to);
+                }
+                break;
+        }
+        if (task != null && isDone) {
+            task.markAsDone();
+        }
+        if (task != null && id > 0) {
+            task.setId(id);
+        }
+        return task;
+    }
+
+    /**
+     * Formats a task as a line in the "#id | T | 1 | desc" storage format,
+     * leaving out the ID field if the task has no ID yet.
+     *
+     * @param task The task to format.
+     * @return The formatted line.
+     */
+    public static String formatTaskWithId(Task task) {
+        if (task.getId() == 0) {
+            return formatTask(task);
+        }
+        return ID_PREFIX + task.getId() + " | " + formatTask(task);
+    }
+
+    /**
+     * Formats a task as a line in the "T | 1 | desc" storage format.
+     *
+     * @param task The task to format.
+     * @return The formatted line.
+     */
+    public static String formatTask(Task task) {
+        StringBuilder sb = new StringBuilder();
+
+        if (task instanceof Todo) {
+            sb.append("T | ");
+            sb.append(task.isDone() ? "1" : "0").append(" | ");
+            sb.append(task.getDescription());
+        } else if (task instanceof Deadline) {
+            Deadline deadline = (Deadline) task;
+            sb.append("D | ");
+            sb.append(task.isDone() ? "1" : "0").append(" | ");
+            sb.append(task.getDescription()).append(" | ");
+            DateTimeCodec.appendTo(sb, deadline.getBy());
+        } else if (task instanceof Event) {
+            Event event = (Event) task;
+            sb.append("E | ");
+            sb.append(task.isDone() ? "1" : "0").append(" | ");
+            sb.append(task.getDescription()).append(" | ");
+            DateTimeCodec.appendTo(sb, event.getFrom()).append(" | ");
+            DateTimeCodec.appendTo(sb, event.getTo());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,404 @@
+package robert.storage;
+
+import robert.task.Task;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Bounded history of the changes made to a task list, for undo and redo.
+ *
+ * <p>Each entry records one operation and just the tasks it touched, never a copy of the
+ * whole list, so memory grows with the number of operations kept. Once the cap is reached
+ * the oldest entry is dropped. Recording a new operation clears the redo history.</p>
+ *
+ * <p>The history is saved to a file next to the data file, one entry per block of lines,
+ * so undo keeps working after a restart. Once attached to a {@link Storage}, every change to the
+ * history is also appended to a journal beside that file, through the same write-behind path as
+ * the task records it goes with, so a crash loses no more of the history than of the tasks.
+ * The journal is folded back into the file on load, on {@link #save()} and whenever the tasks
+ * are saved as a snapshot.</p>
+ */
+public class UndoLog {
+    private static final String UNDO_SECTION = "undo";
+    private static final String REDO_SECTION = "redo";
+    private static final String RECORD_ENTRY = "RECORD";
+    private static final String TAKE_UNDO_ENTRY = "TAKE_UNDO";
+    private static final String UNDONE_ENTRY = "UNDONE";
+    private static final String TAKE_REDO_ENTRY = "TAKE_REDO";
+    private static final String REDONE_ENTRY = "REDONE";
+    private static final String CLEAR_ENTRY = "CLEAR";
+
+    /**
+     * Kinds of operation that can be undone.
+     */
+    public enum Kind {
+        ADD, DELETE, MARK, UNMARK
+    }
+
+    /**
+     * One operation on the task list: the tasks it touched and, for additions and deletions,
+     * the positions they were at.
+     */
+    public static class Operation {
+        private final Kind kind;
+        private final List<Task> tasks;
+        private final int[] positions;
+
+        /**
+         * Constructs an Operation.
+         *
+         * @param kind What the operation did.
+         * @param tasks The tasks it touched, in list order.
+         * @param positions Positions the tasks were added at or deleted from, in increasing order,
+         *     or an empty array for marks and unmarks.
+         */
+        public Operation(Kind kind, List<Task> tasks, int[] positions) {
+            assert kind == Kind.MARK || kind == Kind.UNMARK || positions.length == tasks.size()
+                    : "Every added or deleted task should have a position";
+            this.kind = kind;
+            this.tasks = tasks;
+            this.positions = positions;
+        }
+
+        /**
+         * Gets what the operation did.
+         *
+         * @return The kind of operation.
+         */
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * Gets the tasks the operation touched.
+         *
+         * @return The tasks, in list order.
+         */
+        public List<Task> getTasks() {
+            return tasks;
+        }
+
+        /**
+         * Gets the positions the tasks were added at or deleted from.
+         *
+         * @return The positions in increasing order, or an empty array for marks and unmarks.
+         */
+        public int[] getPositions() {
+            return positions;
+        }
+    }
+
+    private final File file;
+    private final File journal;
+    private final int capacity;
+    private final ArrayDeque<Operation> undoable = new ArrayDeque<>();
+    private final ArrayDeque<Operation> redoable = new ArrayDeque<>();
+    private Storage storage; // Where journal entries are submitted, or null if they are not journaled
+    private Operation taken; // Taken off one history and not yet put on the other
+
+    /**
+     * Constructs an empty UndoLog saved to the given file.
+     *
+     * @param filePath Path of the file to save the history to.
+     * @param capacity Most operations kept for undo.
+     */
+    public UndoLog(String filePath, int capacity) {
+        assert capacity > 0 : "Capacity should be positive";
+        this.file = new File(filePath);
+        this.journal = new File(filePath + ".journal");
+        this.capacity = capacity;
+    }
+
+    /**
+     * Journals every later change to the history through the given storage, which also saves the
+     * history whenever it saves the tasks as a snapshot.
+     *
+     * @param storage The storage that journals the task list.
+     */
+    public synchronized void journalTo(Storage storage) {
+        this.storage = storage;
+        storage.attachHistory(this);
+    }
+
+    /**
+     * Records an operation that was just applied, so it can be undone.
+     *
+     * @param operation The operation.
+     */
+    public synchronized void record(Operation operation) {
+        if (operation.getTasks().isEmpty()) {
+            return;
+        }
+        redoable.clear();
+        push(undoable, operation);
+        journal(RECORD_ENTRY + System.lineSeparator() + formatOperation(operation));
+    }
+
+    /**
+     * Takes the latest operation off the undo history.
+     * Pass it to {@link #undone(Operation)} once it has been reverted.
+     *
+     * @return The operation, or null if there is nothing to undo.
+     */
+    public synchronized Operation takeUndo() {
+        taken = undoable.pollLast();
+        journal(TAKE_UNDO_ENTRY);
+        return taken;
+    }
+
+    /**
+     * Makes a reverted operation available for redo.
+     *
+     * @param operation The operation taken by {@link #takeUndo()}.
+     */
+    public synchronized void undone(Operation operation) {
+        assert operation == taken : "Only the operation just taken can be undone";
+        push(redoable, operation);
+        taken = null;
+        journal(UNDONE_ENTRY);
+    }
+
+    /**
+     * Takes the latest undone operation off the redo history.
+     * Pass it to {@link #redone(Operation)} once it has been applied again.
+     *
+     * @return The operation, or null if there is nothing to redo.
+     */
+    public synchronized Operation takeRedo() {
+        taken = redoable.pollLast();
+        journal(TAKE_REDO_ENTRY);
+        return taken;
+    }
+
+    /**
+     * Makes a reapplied operation available for undo again, keeping the rest of the redo history.
+     *
+     * @param operation The operation taken by {@link #takeRedo()}.
+     */
+    public synchronized void redone(Operation operation) {
+        assert operation == taken : "Only the operation just taken can be redone";
+        push(undoable, operation);
+        taken = null;
+        journal(REDONE_ENTRY);
+    }
+
+    /**
+     * Clears both histories, for when they no longer match the list.
+     */
+    public synchronized void clear() {
+        undoable.clear();
+        redoable.clear();
+        taken = null;
+        journal(CLEAR_ENTRY);
+    }
+
+    /**
+     * Loads the history saved by {@link #save()}, if any, replays the journal over it and saves
+     * the result back as one file. Entries that cannot be read are skipped with a warning.
+     *
+     * @throws IOException If the file or the journal cannot be read, or the result cannot be saved.
+     */
+    public synchronized void load() throws IOException {
+        undoable.clear();
+        redoable.clear();
+        taken = null;
+        if (!file.exists() && !journal.exists()) {
+            return;
+        }
+        if (file.exists()) {
+            readHistory();
+        }
+        if (journal.exists()) {
+            replayJournal();
+        }
+        save();
+    }
+
+    /**
+     * Saves the history, replacing the file atomically, and deletes the journal it now covers.
+     * Called with no journal entries being written, such as by a {@link Storage} checkpoint
+     * or once the storage has been closed.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    public synchronized void save() throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(tempFile, StandardCharsets.UTF_8))) {
+            writeSection(bw, UNDO_SECTION, undoable);
+            writeSection(bw, REDO_SECTION, redoable);
+        }
+        Files.move(tempFile.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(journal.toPath());
+    }
+
+    /**
+     * Appends a group of journal entries to the journal file.
+     * Called by the storage's write-behind scheduler, which writes one group at a time.
+     *
+     * @param entries Entries, in the order they were made.
+     * @throws IOException If the journal cannot be written.
+     */
+    void writeJournal(List<String> entries) throws IOException {
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(journal, StandardCharsets.UTF_8, true))) {
+            for (String entry : entries) {
+                bw.write(entry);
+                bw.newLine();
+            }
+        }
+    }
+
+    private void journal(String entry) {
+        if (storage != null) {
+            storage.appendHistory(entry);
+        }
+    }
+
+    private void readHistory() throws IOException {
+        try (BufferedReader br = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
+            ArrayDeque<Operation> section = null;
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.equals(UNDO_SECTION)) {
+                    section = undoable;
+                } else if (line.equals(REDO_SECTION)) {
+                    section = redoable;
+                } else if (section != null && !line.isEmpty()) {
+                    Operation operation = readOperation(line, br);
+                    if (operation == null) {
+                        System.out.println("Warning: Skipping corrupted undo entry: " + line);
+                    } else {
+                        push(section, operation);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Makes the changes recorded in the journal again, as the methods that journaled them did.
+     * A change that cannot be read ends the replay, as the ones after it may depend on it.
+     */
+    private void replayJournal() throws IOException {
+        try (BufferedReader br = new BufferedReader(new FileReader(journal, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                switch (line) {
+                    case RECORD_ENTRY:
+                        String header = br.readLine();
+                        Operation operation = header == null ? null : readOperation(header, br);
+                        if (operation == null) {
+                            System.out.println("Warning: Skipping the rest of the corrupted undo journal at: "
+                                    + header);
+                            return;
+                        }
+                        redoable.clear();
+                        push(undoable, operation);
+                        break;
+                    case TAKE_UNDO_ENTRY:
+                        taken = undoable.pollLast();
+                        break;
+                    case UNDONE_ENTRY:
+                        push(redoable, taken);
+                        taken = null;
+                        break;
+                    case TAKE_REDO_ENTRY:
+                        taken = redoable.pollLast();
+                        break;
+                    case REDONE_ENTRY:
+                        push(undoable, taken);
+                        taken = null;
+                        break;
+                    case CLEAR_ENTRY:
+                        undoable.clear();
+                        redoable.clear();
+                        taken = null;
+                        break;
+                    default:
+                        System.out.println("Warning: Skipping the rest of the corrupted undo journal at: " + line);
+                        return;
+                }
+            }
+        } finally {
+            taken = null;
+        }
+    }
+
+    private void push(ArrayDeque<Operation> operations, Operation operation) {
+        if (operation == null) {
+            return; // Journaled after taking from an empty history
+        }
+        operations.addLast(operation);
+        if (operations.size() > capacity) {
+            operations.pollFirst();
+        }
+    }
+
+    private static void writeSection(BufferedWriter bw, String name, ArrayDeque<Operation> operations)
+            throws IOException {
+        bw.write(name);
+        bw.newLine();
+        for (Operation operation : operations) {
+            bw.write(formatOperation(operation));
+            bw.newLine();
+        }
+    }
+
+    /**
+     * Formats an operation as a "KIND count" line followed by one line per task,
+     * holding its position for additions and deletions and the task itself.
+     */
+    private static String formatOperation(Operation operation) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(operation.getKind()).append(' ').append(operation.getTasks().size());
+        Iterator<Task> tasks = operation.getTasks().iterator();
+        for (int i = 0; tasks.hasNext(); i++) {
+            Task task = tasks.next();
+            int position = operation.getPositions().length > 0 ? operation.getPositions()[i] : -1;
+            sb.append(System.lineSeparator()).append(position).append(' ').append(TextFormat.formatTaskWithId(task));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reads the task lines of the operation whose header line was just read.
+     *
+     * @return The operation, or null if it is malformed.
+     */
+    private static Operation readOperation(String header, BufferedReader br) throws IOException {
+        try {
+            String[] parts = header.split(" ");
+            Kind kind = Kind.valueOf(parts[0]);
+            int count = Integer.parseInt(parts[1]);
+            boolean hasPositions = kind == Kind.ADD || kind == Kind.DELETE;
+            ArrayList<Task> tasks = new ArrayList<>(count);
+            int[] positions = new int[hasPositions ? count : 0];
+            for (int i = 0; i < count; i++) {
+                String line = br.readLine();
+                int space = line.indexOf(' ');
+                Task task = TextFormat.parseTask(line.substring(space + 1));
+                if (task == null || task.getId() == 0) {
+                    return null;
+                }
+                if (hasPositions) {
+                    positions[i] = Integer.parseInt(line.substring(0, space));
+                }
+                tasks.add(task);
+            }
+            return new Operation(kind, tasks, positions);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
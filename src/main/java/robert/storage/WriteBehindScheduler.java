@@ -0,0 +1,227 @@
+package robert.storage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Buffers journal records and writes them out in groups on a background thread.
+ * A group is written once the oldest buffered record has waited for the maximum delay,
+ * or as soon as the number of buffered records reaches the maximum, whichever comes first.
+ * While held, records are only buffered, and are written by an explicit {@link #flush()}.
+ */
+public class WriteBehindScheduler {
+    /**
+     * Destination for a group of buffered records.
+     */
+    public interface RecordWriter {
+        /**
+         * Writes the given records in order.
+         *
+         * @param records Records to write.
+         * @throws IOException If an I/O error occurs.
+         */
+        void write(List<String> records) throws IOException;
+    }
+
+    /**
+     * Destination for a checkpoint that replaces buffered records.
+     *
+     * @param <T> Type of the captured checkpoint contents.
+     */
+    public interface CheckpointWriter<T> {
+        /**
+         * Writes the captured contents.
+         *
+         * @param contents What the checkpoint holds.
+         * @throws IOException If an I/O error occurs.
+         */
+        void write(T contents) throws IOException;
+    }
+
+    private final RecordWriter writer;
+    private final long maxDelayMillis;
+    private final int maxDirtyOps;
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "storage-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ArrayList<String> pending = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+    private int holdCount; // Background writing resumes when every hold is released
+
+    /**
+     * Constructs a scheduler that writes groups of records to the given writer.
+     *
+     * @param writer Destination for flushed records.
+     * @param maxDelayMillis Longest time a record may stay buffered.
+     * @param maxDirtyOps Number of buffered records that triggers an immediate flush.
+     */
+    public WriteBehindScheduler(RecordWriter writer, long maxDelayMillis, int maxDirtyOps) {
+        assert maxDelayMillis >= 0 : "Maximum delay should not be negative";
+        assert maxDirtyOps > 0 : "Maximum dirty operations should be positive";
+        this.writer = writer;
+        this.maxDelayMillis = maxDelayMillis;
+        this.maxDirtyOps = maxDirtyOps;
+    }
+
+    /**
+     * Buffers a record to be written by a later group flush.
+     *
+     * @param record The record to write.
+     */
+    public synchronized void submit(String record) {
+        pending.add(record);
+        scheduleFlush();
+    }
+
+    /**
+     * Buffers a batch of records together, so they are written by the same group flush.
+     *
+     * @param records The records to write, in order.
+     */
+    public synchronized void submitAll(List<String> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        pending.addAll(records);
+        scheduleFlush();
+    }
+
+    /**
+     * Stops writing groups in the background. Records are buffered until the next explicit flush,
+     * until a checkpoint covers them or until every hold is released.
+     */
+    public synchronized void hold() {
+        holdCount++;
+        cancelScheduledFlush();
+    }
+
+    /**
+     * Releases a {@link #hold()}. Once every hold is released, the records buffered meanwhile
+     * are written behind as one group, as if they had just been submitted together.
+     */
+    public synchronized void release() {
+        assert holdCount > 0 : "Release should follow a hold";
+        holdCount--;
+        if (!pending.isEmpty()) {
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * Replaces every buffered record with a checkpoint that already covers them, such as a snapshot.
+     * No group is written meanwhile, and the checkpoint's contents are captured while no record can
+     * be submitted, right as the buffered records are dropped. Every record is therefore either
+     * covered by the checkpoint or written by a later flush, never both.
+     *
+     * @param capture Captures what the checkpoint will hold.
+     * @param writer Writes the captured checkpoint.
+     * @throws IOException If writing the checkpoint fails. The dropped records are buffered again.
+     */
+    public <T> void checkpoint(Supplier<T> capture, CheckpointWriter<T> writer) throws IOException {
+        synchronized (flushLock) {
+            ArrayList<String> covered;
+            T contents;
+            synchronized (this) {
+                cancelScheduledFlush();
+                covered = pending;
+                pending = new ArrayList<>();
+                contents = capture.get();
+            }
+            try {
+                writer.write(contents);
+            } catch (IOException e) {
+                synchronized (this) {
+                    covered.addAll(pending);
+                    pending = covered;
+                    if (!pending.isEmpty()) {
+                        scheduleFlush();
+                    }
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void scheduleFlush() {
+        if (holdCount > 0) {
+            return;
+        }
+        if (pending.size() >= maxDirtyOps) {
+            cancelScheduledFlush();
+            scheduledFlush = executor.schedule(this::flushInBackground, 0, TimeUnit.MILLISECONDS);
+        } else if (scheduledFlush == null) {
+            scheduledFlush = executor.schedule(this::flushInBackground, maxDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes all buffered records now, on the calling thread.
+     *
+     * @throws IOException If an I/O error occurs. The records stay buffered for the next flush.
+     */
+    public void flush() throws IOException {
+        synchronized (flushLock) {
+            ArrayList<String> batch;
+            synchronized (this) {
+                cancelScheduledFlush();
+                batch = pending;
+                pending = new ArrayList<>();
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                writer.write(batch);
+            } catch (IOException e) {
+                synchronized (this) {
+                    // Keep the failed group ahead of anything submitted meanwhile
+                    batch.addAll(pending);
+                    pending = batch;
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Flushes all buffered records and stops the background thread.
+     *
+     * @throws IOException If the final flush fails.
+     */
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void flushInBackground() {
+        try {
+            flush();
+        } catch (IOException e) {
+            System.out.println("Warning: Failed to save tasks, will retry: " + e.getMessage());
+            synchronized (this) {
+                if (scheduledFlush == null && holdCount == 0 && !executor.isShutdown()) {
+                    scheduledFlush = executor.schedule(this::flushInBackground, maxDelayMillis, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+    }
+
+    private void cancelScheduledFlush() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package robert.task;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Represents a list of tasks stored column by column rather than as one object per task.
+ *
+ * <p>Types are kept in a byte array, done flags in a {@link BitSet}, IDs and times in
+ * {@code long[]} columns (times as minutes since the epoch) and descriptions in a shared
+ * {@link DescriptionArena}, which may live on or off the heap. A task added to the list is
+ * copied into the columns, and {@link #get(int)} builds a new task from them on every call,
+ * so status changes must go through {@link #markTask(int)} and {@link #unmarkTask(int)}.</p>
+ *
+ * <p>IDs are looked up by bisection while they increase along the list. Once an import or a restored
+ * task puts them out of order, a hash map of their positions is built on the next lookup and kept
+ * up to date from then on.</p>
+ */
+public class ColumnarTaskList extends ScanningTaskList implements AutoCloseable {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final TaskType[] TYPES = TaskType.values();
+
+    private final BitSet done = new BitSet();
+    private final DescriptionArena arena;
+    private byte[] types;
+    private long[] ids;
+    private long[] starts; // Deadline due time or event start; unused for todos
+    private long[] ends; // Event end; unused for todos and deadlines
+    private long[] descriptions; // References into the arena
+    private int size;
+    private boolean isSortedById = true;
+    private LongIntMap positionsById; // Built on the first lookup once the IDs are out of order
+
+    /**
+     * Constructs an empty ColumnarTaskList.
+     */
+    public ColumnarTaskList() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty ColumnarTaskList with room for the given number of tasks.
+     *
+     * @param capacity Number of tasks to allocate columns for.
+     */
+    public ColumnarTaskList(int capacity) {
+        this(capacity, new HeapDescriptionArena());
+    }
+
+    /**
+     * Constructs an empty ColumnarTaskList that keeps its descriptions in the given arena.
+     * The list takes ownership of the arena and closes it when the list is closed.
+     *
+     * @param capacity Number of tasks to allocate columns for.
+     * @param arena Empty arena to store descriptions in.
+     */
+    public ColumnarTaskList(int capacity, DescriptionArena arena) {
+        assert capacity >= 0 : "Capacity should not be negative";
+        this.arena = arena;
+        types = new byte[capacity];
+        ids = new long[capacity];
+        starts = new long[capacity];
+        ends = new long[capacity];
+        descriptions = new long[capacity];
+    }
+
+    /**
+     * Constructs a ColumnarTaskList holding copies of the given tasks.
+     *
+     * @param tasks Tasks to copy, in list order.
+     */
+    public ColumnarTaskList(List<Task> tasks) {
+        this(tasks.size());
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task.getId() == 0) {
+            task.setId(getNextId());
+        }
+        reserveIdsBelow(task.getId() + 1);
+        if (size == types.length) {
+            grow();
+        }
+        isSortedById &= size == 0 || ids[size - 1] < task.getId();
+        types[size] = (byte) task.getType().ordinal();
+        done.set(size, task.isDone());
+        ids[size] = task.getId();
+        if (task instanceof Deadline) {
+            starts[size] = TimeIndex.toEpochMinute(((Deadline) task).getBy());
+        } else if (task instanceof Event) {
+            starts[size] = TimeIndex.toEpochMinute(((Event) task).getFrom());
+            ends[size] = TimeIndex.toEpochMinute(((Event) task).getTo());
+        }
+        descriptions[size] = arena.append(task.getDescription());
+        if (positionsById != null) {
+            positionsById.put(task.getId(), size);
+        }
+        size++;
+    }
+
+    /**
+     * Inserts a copy of the task at the given position, shifting the columns after it up.
+     *
+     * @param index Position to insert the task at, from 0 to the size of the list.
+     * @param task Task to insert.
+     */
+    @Override
+    public void insert(int index, Task task) {
+        assert index >= 0 && index <= size : "Index out of bounds in insert";
+        add(task);
+        if (index == size - 1) {
+            return;
+        }
+        byte type = types[size - 1];
+        boolean isDone = done.get(size - 1);
+        long id = ids[size - 1];
+        long start = starts[size - 1];
+        long end = ends[size - 1];
+        long description = descriptions[size - 1];
+        int tail = size - 1 - index;
+        System.arraycopy(types, index, types, index + 1, tail);
+        System.arraycopy(ids, index, ids, index + 1, tail);
+        System.arraycopy(starts, index, starts, index + 1, tail);
+        System.arraycopy(ends, index, ends, index + 1, tail);
+        System.arraycopy(descriptions, index, descriptions, index + 1, tail);
+        BitSet doneAfter = done.get(index, size - 1);
+        done.clear(index, size);
+        for (int i = doneAfter.nextSetBit(0); i >= 0; i = doneAfter.nextSetBit(i + 1)) {
+            done.set(index + 1 + i);
+        }
+        types[index] = type;
+        done.set(index, isDone);
+        ids[index] = id;
+        starts[index] = start;
+        ends[index] = end;
+        descriptions[index] = description;
+        isSortedById &= (index == 0 || ids[index - 1] < id) && id < ids[index + 1];
+        updatePositions(index);
+    }
+
+    /**
+     * Removes and returns the task at the specified index.
+     * The columns are shifted down, and the arena is compacted once enough
+     * removed descriptions have piled up.
+     *
+     * @param index Index of the task to remove.
+     * @return The removed task.
+     */
+    @Override
+    public Task remove(int index) {
+        assert index >= 0 && index < size : "Index out of bounds in remove";
+        Task task = get(index);
+        arena.release(descriptions[index]);
+        if (positionsById != null) {
+            positionsById.remove(ids[index]);
+        }
+        int tail = size - index - 1;
+        System.arraycopy(types, index + 1, types, index, tail);
+        System.arraycopy(ids, index + 1, ids, index, tail);
+        System.arraycopy(starts, index + 1, starts, index, tail);
+        System.arraycopy(ends, index + 1, ends, index, tail);
+        System.arraycopy(descriptions, index + 1, descriptions, index, tail);
+        BitSet doneAfter = done.get(index + 1, size);
+        done.clear(index, size);
+        for (int i = doneAfter.nextSetBit(0); i >= 0; i = doneAfter.nextSetBit(i + 1)) {
+            done.set(index + i);
+        }
+        size--;
+        updatePositions(index);
+        if (arena.needsCompaction()) {
+            arena.compact(descriptions, size);
+        }
+        return task;
+    }
+
+    /**
+     * Removes and returns the tasks at the given indexes, shifting the remaining
+     * tasks down in one sweep over the columns.
+     *
+     * @param indices Indexes of the tasks to remove, in increasing order without repeats.
+     * @return The removed tasks, in list order.
+     */
+    @Override
+    public List<Task> removeTasks(int[] indices) {
+        ArrayList<Task> removedTasks = new ArrayList<>(indices.length);
+        int next = 0;
+        int kept = indices.length == 0 ? size : indices[0];
+        for (int i = kept; i < size; i++) {
+            if (next < indices.length && indices[next] == i) {
+                removedTasks.add(get(i));
+                arena.release(descriptions[i]);
+                if (positionsById != null) {
+                    positionsById.remove(ids[i]);
+                }
+                next++;
+                continue;
+            }
+            types[kept] = types[i];
+            ids[kept] = ids[i];
+            starts[kept] = starts[i];
+            ends[kept] = ends[i];
+            descriptions[kept] = descriptions[i];
+            done.set(kept, done.get(i));
+            if (positionsById != null) {
+                positionsById.put(ids[i], kept);
+            }
+            kept++;
+        }
+        assert next == indices.length : "Index out of bounds in removeTasks";
+        done.clear(kept, size);
+        size = kept;
+        if (arena.needsCompaction()) {
+            arena.compact(descriptions, size);
+        }
+        return removedTasks;
+    }
+
+    /**
+     * Returns a new task built from the columns at the specified index.
+     *
+     * @param index Index of the task.
+     * @return The task at the index.
+     */
+    @Override
+    public Task get(int index) {
+        assert index >= 0 && index < size : "Index out of bounds in get";
+        String description = arena.read(descriptions[index]);
+        Task task;
+        switch (TYPES[types[index]]) {
+            case DEADLINE:
+                task = new Deadline(description, TimeIndex.fromEpochMinute(starts[index]));
+                break;
+            case EVENT:
+                task = new Event(description, TimeIndex.fromEpochMinute(starts[index]),
+                        TimeIndex.fromEpochMinute(ends[index]));
+                break;
+            default:
+                task = new Todo(description);
+                break;
+        }
+        if (done.get(index)) {
+            task.markAsDone();
+        }
+        task.setId(ids[index]);
+        return task;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void markTask(int index) {
+        assert index >= 0 && index < size : "Index out of bounds in markTask";
+        done.set(index);
+    }
+
+    @Override
+    public void unmarkTask(int index) {
+        assert index >= 0 && index < size : "Index out of bounds in unmarkTask";
+        done.clear(index);
+    }
+
+    @Override
+    long getId(int index) {
+        assert index >= 0 && index < size : "Index out of bounds in getId";
+        return ids[index];
+    }
+
+    @Override
+    boolean isSortedById() {
+        return isSortedById;
+    }
+
+    @Override
+    public int indexOfId(long id) {
+        if (isSortedById) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            return index >= 0 ? index : -1;
+        }
+        if (positionsById == null) {
+            positionsById = new LongIntMap(size);
+            updatePositions(0);
+        }
+        return positionsById.get(id);
+    }
+
+    /**
+     * Closes the description arena.
+     *
+     * @throws IOException If the arena cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        arena.close();
+    }
+
+    /**
+     * Brings the positions of the tasks from the given index on up to date, if they are kept.
+     */
+    private void updatePositions(int from) {
+        if (positionsById != null) {
+            for (int i = from; i < size; i++) {
+                positionsById.put(ids[i], i);
+            }
+        }
+    }
+
+    private void grow() {
+        int capacity = Math.max(INITIAL_CAPACITY, types.length * 2);
+        types = Arrays.copyOf(types, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        descriptions = Arrays.copyOf(descriptions, capacity);
+    }
+}
@@ -0,0 +1,35 @@
+package robert.task;
+
+import java.util.List;
+
+/**
+ * Keeps a {@link WordTrie} of the words in task descriptions, tokenized as in {@link TokenIndex}.
+ */
+class CompletionIndex implements TaskIndex {
+    private final WordTrie words = new WordTrie();
+
+    @Override
+    public void add(Task task) {
+        for (String word : TokenIndex.tokenize(task.getDescription())) {
+            words.add(word);
+        }
+    }
+
+    @Override
+    public void remove(Task task) {
+        for (String word : TokenIndex.tokenize(task.getDescription())) {
+            words.remove(word);
+        }
+    }
+
+    /**
+     * Returns the words in task descriptions that start with the given prefix.
+     *
+     * @param prefix The start of the word, in lower case.
+     * @param limit The most words to return.
+     * @return Up to limit words, in alphabetical order.
+     */
+    List<String> complete(String prefix, int limit) {
+        return words.complete(prefix, limit);
+    }
+}
@@ -0,0 +1,576 @@
+package robert.task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Represents a list of tasks that can be shared between threads.
+ *
+ * <p>The tasks are published as an immutable, versioned {@link TaskListSnapshot} through a
+ * volatile field. Changes take the list's lock, derive the next version from the current
+ * snapshot and publish it, so each one takes effect at a single point and readers never wait:
+ * they see either the version from before a change or the one after it. {@link #snapshot()}
+ * pins a version for callers that read several times, such as rendering or saving the whole list.</p>
+ *
+ * <p>Duplicate checks, searches and lookups by ID go through indexes like those of {@link TaskList},
+ * of which the list keeps two copies. Each version is published together with one copy that matches it,
+ * and queries read that copy without taking the lock. A change is made to the other copy first,
+ * which is then published with the next version; the copy published before is brought up to date
+ * once the queries still reading it have finished. Writers may thus wait for readers, but readers
+ * never wait for writers. Both copies are built when the list is made, on a background thread for
+ * large lists so that loading does not wait for them. Until they are published, queries scan the
+ * current snapshot, and changes are kept to be applied to the new copies first.</p>
+ *
+ * <p>A list made over a {@link LazyTaskList}, which decodes a large list from disk on access,
+ * keeps that list as the base of its snapshots instead of reading every task. Until each of its
+ * chunks has been read, there are no indexes and queries scan the current snapshot instead.
+ * Any other list, a {@link ColumnarTaskList} included, is read in full and indexed up front.</p>
+ */
+public class ConcurrentTaskList extends TaskList {
+    static final int BACKGROUND_INDEXING_THRESHOLD = 10_000;
+
+    private volatile Version current;
+    private IndexCopy spare; // Guarded by this list's lock; the copy that no query can start reading
+    private ArrayList<Consumer<IndexCopy>> pendingChanges; // Guarded by this list's lock; made while indexing
+    private Thread indexer; // Guarded by this list's lock
+
+    /**
+     * A version of the list together with the copy of the indexes that matches it.
+     */
+    private static class Version {
+        private final TaskListSnapshot tasks;
+        private final IndexCopy indexes; // Null while some tasks have not been read from the base list
+
+        Version(TaskListSnapshot tasks, IndexCopy indexes) {
+            this.tasks = tasks;
+            this.indexes = indexes;
+        }
+    }
+
+    /**
+     * One copy of every index, with a count of the queries reading it.
+     */
+    private static class IndexCopy {
+        private final DuplicateIndex duplicateIndex = new DuplicateIndex();
+        private final TokenIndex tokenIndex = new TokenIndex();
+        private final TimeIndex timeIndex = new TimeIndex();
+        private final IntervalTree intervalTree = new IntervalTree();
+        private final TrigramIndex trigramIndex = new TrigramIndex();
+        private final CompletionIndex completionIndex = new CompletionIndex();
+        private final UpcomingIndex upcomingIndex = new UpcomingIndex();
+        private final IdIndex idIndex = new IdIndex();
+        private final List<TaskIndex> all = List.of(duplicateIndex, tokenIndex, timeIndex, intervalTree,
+                trigramIndex, completionIndex, upcomingIndex, idIndex);
+        private final AtomicInteger readers = new AtomicInteger();
+
+        IndexCopy(TaskListSnapshot tasks) {
+            assert !tasks.hasUnreadChunks() : "Indexes should only hold tasks that have been read";
+            for (int i = 0; i < tasks.size(); i++) {
+                add(tasks.get(i));
+            }
+        }
+
+        void add(Task task) {
+            for (TaskIndex index : all) {
+                index.add(task);
+            }
+        }
+
+        /**
+         * Adds a task put between two others, or after the last task if next is null.
+         */
+        void insert(Task task, Task previous, Task next) {
+            for (TaskIndex index : all) {
+                if (next == null) {
+                    index.add(task);
+                } else {
+                    index.insert(task, previous, next);
+                }
+            }
+        }
+
+        void remove(Task task) {
+            for (TaskIndex index : all) {
+                index.remove(task);
+            }
+        }
+
+        /**
+         * Swaps a task for its copy with the new status.
+         */
+        void replace(Task before, Task after) {
+            for (TaskIndex index : all) {
+                index.replace(before, after);
+            }
+        }
+
+        void awaitNoReaders() {
+            while (readers.get() > 0) {
+                Thread.yield();
+            }
+        }
+    }
+
+    /**
+     * Constructs an empty ConcurrentTaskList.
+     */
+    public ConcurrentTaskList() {
+        publishWithNewIndexes(TaskListSnapshot.EMPTY);
+    }
+
+    /**
+     * Constructs a ConcurrentTaskList holding the tasks of another list, in the same order
+     * and with the same IDs. The other list should not be used afterwards. A
+     * {@link LazyTaskList} becomes the base of the snapshots, so none of its tasks are read here;
+     * the tasks of any other list are read once and indexed.
+     *
+     * @param tasks The list to take the tasks from.
+     */
+    public ConcurrentTaskList(TaskList tasks) {
+        super.reserveIdsBelow(tasks.getNextId());
+        if (tasks instanceof LazyTaskList) {
+            publishWithNewIndexes(TaskListSnapshot.of((LazyTaskList) tasks));
+            return;
+        }
+        Task[] copy = new Task[tasks.size()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = tasks.get(i);
+            assert copy[i].getId() > 0 : "Tasks in a TaskList should have IDs";
+            super.reserveIdsBelow(copy[i].getId() + 1);
+        }
+        publishWithNewIndexes(TaskListSnapshot.of(copy, 0));
+    }
+
+    /**
+     * Returns the tasks as they are now. Later changes to this list do not affect the snapshot.
+     *
+     * @return A read-only snapshot of the current version.
+     */
+    public TaskListSnapshot snapshot() {
+        return current.tasks;
+    }
+
+    /**
+     * Returns the current version of the list, which goes up by one with every change.
+     *
+     * @return The current version.
+     */
+    public long getVersion() {
+        return current.tasks.getVersion();
+    }
+
+    /**
+     * Adds a task to the list, assigning it the next ID if it has none.
+     *
+     * @param task Task to add.
+     */
+    @Override
+    public synchronized void add(Task task) {
+        if (task.getId() == 0) {
+            task.setId(super.getNextId());
+        }
+        super.reserveIdsBelow(task.getId() + 1);
+        publish(current.tasks.withAdded(task), indexes -> indexes.add(task));
+    }
+
+    /**
+     * Inserts a task at the given position, assigning it the next ID if it has none.
+     * Only the chunk the task lands in is copied, along with the small arrays that locate the chunks,
+     * so this takes O(n / 64) time, as does every other change.
+     *
+     * @param index Position to insert the task at, from 0 to the size of the list.
+     * @param task Task to insert.
+     */
+    @Override
+    public synchronized void insert(int index, Task task) {
+        if (task.getId() == 0) {
+            task.setId(super.getNextId());
+        }
+        super.reserveIdsBelow(task.getId() + 1);
+        TaskListSnapshot before = current.tasks;
+        Task previous = index == 0 ? null : before.get(index - 1);
+        Task next = index == before.size() ? null : before.get(index);
+        publish(before.withInserted(index, task), indexes -> indexes.insert(task, previous, next));
+    }
+
+    /**
+     * Removes and returns the task at the specified index.
+     *
+     * @param index Index of the task to remove.
+     * @return The removed task.
+     */
+    @Override
+    public synchronized Task remove(int index) {
+        TaskListSnapshot tasks = current.tasks;
+        assert index >= 0 && index < tasks.size() : "Index out of bounds in remove";
+        Task task = tasks.get(index);
+        publish(tasks.withRemoved(index), indexes -> indexes.remove(task));
+        return task;
+    }
+
+    /**
+     * Marks the task at the specified index as done.
+     * The task is replaced by a marked copy, so snapshots taken earlier still show it as it was.
+     *
+     * @param index Index of the task.
+     */
+    @Override
+    public synchronized void markTask(int index) {
+        setStatuses(new int[] {index}, true);
+    }
+
+    /**
+     * Marks the task at the specified index as not done.
+     * The task is replaced by an unmarked copy, so snapshots taken earlier still show it as it was.
+     *
+     * @param index Index of the task.
+     */
+    @Override
+    public synchronized void unmarkTask(int index) {
+        setStatuses(new int[] {index}, false);
+    }
+
+    /**
+     * Removes and returns the tasks at the given indexes, publishing one new version for the whole batch.
+     *
+     * @param indices Indexes of the tasks to remove, in increasing order without repeats.
+     * @return The removed tasks, in list order.
+     */
+    @Override
+    public synchronized List<Task> removeTasks(int[] indices) {
+        TaskListSnapshot tasks = current.tasks;
+        ArrayList<Task> removedTasks = new ArrayList<>(indices.length);
+        for (int index : indices) {
+            removedTasks.add(tasks.get(index));
+        }
+        publish(tasks.withRemovedAll(indices), indexes -> {
+            for (Task task : removedTasks) {
+                indexes.remove(task);
+            }
+        });
+        return removedTasks;
+    }
+
+    /**
+     * Marks the tasks at the given indexes as done, publishing one new version for the whole batch.
+     *
+     * @param indices Indexes of the tasks, in increasing order without repeats.
+     */
+    @Override
+    public synchronized void markTasks(int[] indices) {
+        setStatuses(indices, true);
+    }
+
+    /**
+     * Marks the tasks at the given indexes as not done, publishing one new version for the whole batch.
+     *
+     * @param indices Indexes of the tasks, in increasing order without repeats.
+     */
+    @Override
+    public synchronized void unmarkTasks(int[] indices) {
+        setStatuses(indices, false);
+    }
+
+    /**
+     * Replaces the tasks at the given indexes by copies with the new status, and swaps
+     * each copy in for its task in the indexes.
+     */
+    private void setStatuses(int[] indices, boolean isDone) {
+        TaskListSnapshot before = current.tasks;
+        TaskListSnapshot after = before.withStatuses(indices, isDone);
+        Task[] replaced = new Task[indices.length];
+        Task[] copies = new Task[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            replaced[i] = before.get(indices[i]);
+            copies[i] = after.get(indices[i]);
+        }
+        publish(after, indexes -> {
+            for (int i = 0; i < replaced.length; i++) {
+                indexes.replace(replaced[i], copies[i]);
+            }
+        });
+    }
+
+    @Override
+    public synchronized long getNextId() {
+        return super.getNextId();
+    }
+
+    @Override
+    public synchronized void reserveIdsBelow(long nextId) {
+        super.reserveIdsBelow(nextId);
+    }
+
+    @Override
+    public Task get(int index) {
+        return current.tasks.get(index);
+    }
+
+    @Override
+    public int size() {
+        return current.tasks.size();
+    }
+
+    /**
+     * Returns the current position of the task with the given ID, through the ID index.
+     * While some tasks have not been read from the base list, the snapshot is searched instead.
+     *
+     * @param id ID of the task.
+     * @return Zero-based position of the task, or -1 if no task has the ID.
+     */
+    @Override
+    public int indexOfId(long id) {
+        return query(version -> version.indexes == null
+                ? version.tasks.indexOfId(id)
+                : version.indexes.idIndex.indexOf(id));
+    }
+
+    /**
+     * Finds the existing duplicate of a task through the hash index.
+     * While some tasks have not been read from the base list, the snapshot is scanned instead.
+     *
+     * @param task Task to check for duplicates.
+     * @return The existing duplicate task, or null if no duplicate exists.
+     */
+    @Override
+    public Task findDuplicate(Task task) {
+        return query(version -> version.indexes == null
+                ? version.tasks.findDuplicate(task)
+                : version.indexes.duplicateIndex.find(task));
+    }
+
+    /**
+     * Adds the given tasks that are not duplicates, publishing one new version for the whole batch.
+     * New tasks are assigned the next IDs in order.
+     *
+     * @param tasks Tasks to add.
+     * @return The tasks that were added, in order.
+     */
+    @Override
+    public synchronized List<Task> addAllNew(List<Task> tasks) {
+        Version before = current;
+        // Holds this batch, or the whole list while it has no indexes, like the scanning lists do
+        DuplicateIndex duplicates = new DuplicateIndex();
+        if (before.indexes == null) {
+            for (int i = 0; i < before.tasks.size(); i++) {
+                duplicates.add(before.tasks.get(i));
+            }
+        }
+        ArrayList<Task> added = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            if (before.indexes != null && before.indexes.duplicateIndex.find(task) != null
+                    || duplicates.addIfAbsent(task) != null) {
+                continue;
+            }
+            if (task.getId() == 0) {
+                task.setId(super.getNextId());
+            }
+            super.reserveIdsBelow(task.getId() + 1);
+            added.add(task);
+        }
+        if (added.isEmpty()) {
+            return added;
+        }
+        publish(before.tasks.withAddedAll(added), indexes -> {
+            for (Task task : added) {
+                indexes.add(task);
+            }
+        });
+        return added;
+    }
+
+    @Override
+    public TaskList findTasks(String keyword) {
+        return query(version -> version.indexes == null
+                ? version.tasks.findTasks(keyword)
+                : new TaskList(new ArrayList<>(version.indexes.tokenIndex.find(keyword))));
+    }
+
+    @Override
+    public TaskList findFuzzy(String text, int limit) {
+        return query(version -> version.indexes == null
+                ? version.tasks.findFuzzy(text, limit)
+                : resolveIds(version, version.indexes.trigramIndex.find(text, limit)));
+    }
+
+    /**
+     * Looks up the tasks with the given IDs in a version through its ID index.
+     */
+    private static TaskList resolveIds(Version version, List<Long> ids) {
+        ArrayList<Task> found = new ArrayList<>(ids.size());
+        for (long id : ids) {
+            int index = version.indexes.idIndex.indexOf(id);
+            if (index >= 0) {
+                found.add(version.tasks.get(index));
+            }
+        }
+        return new TaskList(found);
+    }
+
+    @Override
+    public List<String> completeWord(String prefix, int limit) {
+        return query(version -> version.indexes == null
+                ? version.tasks.completeWord(prefix, limit)
+                : version.indexes.completionIndex.complete(prefix.toLowerCase(Locale.ROOT), limit));
+    }
+
+    @Override
+    public TaskList findUpcoming(LocalDateTime from, int limit) {
+        return query(version -> version.indexes == null
+                ? version.tasks.findUpcoming(from, limit)
+                : new TaskList(new ArrayList<>(version.indexes.upcomingIndex.findUpcoming(from, limit))));
+    }
+
+    @Override
+    public TaskList findBetween(LocalDateTime start, LocalDateTime end) {
+        assert !end.isBefore(start) : "Range should not end before it starts";
+        return query(version -> version.indexes == null
+                ? version.tasks.findBetween(start, end)
+                : new TaskList(new ArrayList<>(version.indexes.timeIndex.findBetween(start, end))));
+    }
+
+    @Override
+    public TaskList findOverlapping(Event event) {
+        return query(version -> version.indexes == null
+                ? version.tasks.findOverlapping(event)
+                : new TaskList(new ArrayList<>(version.indexes.intervalTree.findOverlapping(event))));
+    }
+
+    @Override
+    public List<Event[]> findConflicts() {
+        return query(version -> version.indexes == null
+                ? version.tasks.findConflicts()
+                : version.indexes.intervalTree.findConflicts());
+    }
+
+    /**
+     * Answers a query from the current version and the copy of the indexes published with it.
+     * The copy is registered as being read first, so no writer changes it until the query is done.
+     */
+    private <T> T query(Function<Version, T> lookUp) {
+        Version version;
+        while (true) {
+            version = current;
+            if (version.indexes == null) {
+                return lookUp.apply(version);
+            }
+            version.indexes.readers.incrementAndGet();
+            if (current == version) {
+                break;
+            }
+            // A newer version was published meanwhile, so a writer may be about to change this copy
+            version.indexes.readers.decrementAndGet();
+        }
+        try {
+            return lookUp.apply(version);
+        } finally {
+            version.indexes.readers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Publishes the next version of the list. The change is made to the spare copy of the indexes,
+     * which is published with the version, and then to the copy published before, once no query
+     * is reading it any more; that copy becomes the spare.
+     *
+     * @param tasks The next version.
+     * @param change Brings a copy of the indexes from the current version to the next.
+     */
+    private void publish(TaskListSnapshot tasks, Consumer<IndexCopy> change) {
+        IndexCopy published = current.indexes;
+        if (published == null && pendingChanges != null) {
+            pendingChanges.add(change);
+            current = new Version(tasks, null);
+            return;
+        }
+        if (published == null) {
+            publishWithNewIndexes(tasks);
+            return;
+        }
+        change.accept(spare);
+        current = new Version(tasks, spare);
+        published.awaitNoReaders();
+        change.accept(published);
+        spare = published;
+    }
+
+    /**
+     * Publishes a version with both copies of the indexes built from scratch, or without indexes
+     * if some of its tasks have not been read from the base list. Large lists are published
+     * without indexes at first, and indexed on a background thread.
+     */
+    private void publishWithNewIndexes(TaskListSnapshot tasks) {
+        if (tasks.hasUnreadChunks()) {
+            current = new Version(tasks, null);
+            return;
+        }
+        if (tasks.size() < BACKGROUND_INDEXING_THRESHOLD) {
+            spare = new IndexCopy(tasks);
+            current = new Version(tasks, new IndexCopy(tasks));
+            return;
+        }
+        current = new Version(tasks, null);
+        pendingChanges = new ArrayList<>();
+        indexer = new Thread(() -> buildIndexes(tasks), "task-indexer");
+        indexer.setDaemon(true);
+        indexer.start();
+    }
+
+    /**
+     * Builds both copies of the indexes over the given version without holding the lock,
+     * then brings them up to date with the changes made meanwhile and publishes them.
+     * If building fails, the list goes on without indexes.
+     */
+    private void buildIndexes(TaskListSnapshot tasks) {
+        IndexCopy first = null;
+        IndexCopy second = null;
+        try {
+            first = new IndexCopy(tasks);
+            second = new IndexCopy(tasks);
+        } finally {
+            synchronized (this) {
+                if (second != null) {
+                    for (Consumer<IndexCopy> change : pendingChanges) {
+                        change.accept(first);
+                        change.accept(second);
+                    }
+                    spare = second;
+                    current = new Version(current.tasks, first);
+                }
+                pendingChanges = null;
+                indexer = null;
+            }
+        }
+    }
+
+    /**
+     * Returns every task in a new list.
+     * Changes to the returned list are not reflected here.
+     *
+     * @return ArrayList of tasks.
+     */
+    @Override
+    public ArrayList<Task> getTasks() {
+        return current.tasks.getTasks();
+    }
+
+    /**
+     * Waits until the indexes being built in the background, if any, are published.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public void awaitIndexes() throws InterruptedException {
+        Thread thread;
+        synchronized (this) {
+            thread = indexer;
+        }
+        if (thread != null) {
+            thread.join();
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package robert.task;
 
+import robert.parser.DateTimeCodec;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 /**
  * Represents a Deadline task with a due date and time.
@@ -29,7 +29,7 @@ public class Deadline extends Task {
      */
     public Deadline(String description, String by) {
         super(description, TaskType.DEADLINE);
-        this.by = LocalDateTime.parse(by, DateTimeFormatter.ofPattern("MMM d yyyy, h:mm a"));
+        this.by = DateTimeCodec.parseDisplay(by);
     }
 
     /**
@@ -48,6 +48,6 @@ public class Deadline extends Task {
      */
     @Override
     public String toString() {
-        return "[D]" + super.toString() + " (by: " + by.format(DateTimeFormatter.ofPattern("MMM d yyyy, h:mm a")) + ")";
+        return "[D]" + super.toString() + " (by: " + DateTimeCodec.formatDisplay(by) + ")";
     }
 }
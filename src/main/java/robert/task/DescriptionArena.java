@@ -0,0 +1,155 @@
+package robert.task;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Stores task descriptions back to back as UTF-8 in one shared region of memory.
+ *
+ * <p>Each description is referred to by a single long holding its offset in the upper half
+ * and its length in the lower half. Removed descriptions leave gaps behind, which are
+ * squeezed out by {@link #compact(long[], int)} once they take up more than half the arena.
+ * Subclasses decide where the bytes live.</p>
+ */
+public abstract class DescriptionArena implements Closeable {
+    static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+    private static final int MIN_GARBAGE_TO_COMPACT = 64 * 1024;
+
+    private int used;
+    private long garbage;
+
+    /**
+     * Appends a description to the arena.
+     *
+     * @param description The description to store.
+     * @return A reference to the stored description.
+     */
+    public long append(String description) {
+        byte[] encoded = description.getBytes(StandardCharsets.UTF_8);
+        if (encoded.length > capacity() - used) {
+            if (encoded.length > MAX_CAPACITY - used) {
+                throw new IllegalStateException("Description arena is full");
+            }
+            grow((int) Math.min(MAX_CAPACITY, Math.max(2L * capacity(), (long) used + encoded.length)));
+        }
+        long reference = toReference(used, encoded.length);
+        write(used, encoded);
+        used += encoded.length;
+        return reference;
+    }
+
+    /**
+     * Decodes a stored description.
+     *
+     * @param reference Reference returned by {@link #append(String)}.
+     * @return The description.
+     */
+    public String read(long reference) {
+        byte[] bytes = new byte[lengthOf(reference)];
+        read(offsetOf(reference), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Records that a stored description is no longer referenced.
+     *
+     * @param reference Reference of the removed description.
+     */
+    public void release(long reference) {
+        garbage += lengthOf(reference);
+    }
+
+    /**
+     * Checks whether removed descriptions take up enough space to be worth compacting.
+     *
+     * @return true if the arena should be compacted, false otherwise.
+     */
+    public boolean needsCompaction() {
+        return garbage >= MIN_GARBAGE_TO_COMPACT && garbage * 2 > used;
+    }
+
+    /**
+     * Moves the live descriptions down to close the gaps, in place, and updates their references.
+     * Descriptions are moved in offset order, whatever the order of the references,
+     * so a description is never overwritten before it has been moved.
+     *
+     * @param references References of every live description, in any order.
+     * @param count Number of references in use.
+     */
+    public void compact(long[] references, int count) {
+        long[] order = null; // Offset in the upper half and position in references in the lower half
+        for (int i = 1; i < count && order == null; i++) {
+            if (offsetOf(references[i]) < offsetOf(references[i - 1])) {
+                order = new long[count];
+                for (int j = 0; j < count; j++) {
+                    order[j] = ((long) offsetOf(references[j]) << 32) | j;
+                }
+                Arrays.sort(order);
+            }
+        }
+        int position = 0;
+        for (int k = 0; k < count; k++) {
+            int i = order == null ? k : (int) order[k];
+            int offset = offsetOf(references[i]);
+            int length = lengthOf(references[i]);
+            assert offset >= position : "Live descriptions should not overlap";
+            if (offset != position) {
+                move(offset, position, length);
+            }
+            references[i] = toReference(position, length);
+            position += length;
+        }
+        used = position;
+        garbage = 0;
+    }
+
+    /**
+     * Releases the memory behind the arena.
+     *
+     * @throws IOException If the arena cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+    }
+
+    /**
+     * Returns the number of bytes the arena can hold before it must grow.
+     */
+    protected abstract int capacity();
+
+    /**
+     * Enlarges the arena, keeping the bytes in use.
+     *
+     * @param capacity The new capacity, larger than the current one.
+     */
+    protected abstract void grow(int capacity);
+
+    /**
+     * Copies bytes into the arena.
+     */
+    protected abstract void write(int offset, byte[] bytes);
+
+    /**
+     * Fills the given array from the arena.
+     */
+    protected abstract void read(int offset, byte[] bytes);
+
+    /**
+     * Copies a range of bytes to a lower offset within the arena.
+     */
+    protected abstract void move(int from, int to, int length);
+
+    private static long toReference(int offset, int length) {
+        return ((long) offset << 32) | length;
+    }
+
+    private static int offsetOf(long reference) {
+        return (int) (reference >>> 32);
+    }
+
+    private static int lengthOf(long reference) {
+        return (int) reference;
+    }
+}
@@ -0,0 +1,48 @@
+package robert.task;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Description arena backed by a direct buffer outside the Java heap,
+ * so the garbage collector never has to trace or copy the descriptions.
+ */
+public class DirectDescriptionArena extends DescriptionArena {
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(INITIAL_CAPACITY);
+
+    /**
+     * Constructs an empty DirectDescriptionArena.
+     */
+    public DirectDescriptionArena() {
+    }
+
+    @Override
+    protected int capacity() {
+        return buffer.capacity();
+    }
+
+    @Override
+    protected void grow(int capacity) {
+        ByteBuffer grown = ByteBuffer.allocateDirect(capacity);
+        grown.put(0, buffer, 0, buffer.capacity());
+        buffer = grown;
+    }
+
+    @Override
+    protected void write(int offset, byte[] source) {
+        buffer.put(offset, source);
+    }
+
+    @Override
+    protected void read(int offset, byte[] target) {
+        buffer.get(offset, target);
+    }
+
+    @Override
+    protected void move(int from, int to, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(from, bytes);
+        buffer.put(to, bytes);
+    }
+}
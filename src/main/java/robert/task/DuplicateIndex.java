@@ -0,0 +1,123 @@
+package robert.task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Objects;
+
+/**
+ * Hash index over the fields that decide whether two tasks are duplicates:
+ * type, case-folded description and, for deadlines and events, their date/times.
+ */
+class DuplicateIndex implements TaskIndex {
+    /**
+     * Key holding the fields compared by {@link TaskList#areTasksEqual(Task, Task)}.
+     */
+    private static final class Key {
+        private final TaskType type;
+        private final String description;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final int hash; // Cached, as every lookup and insertion needs it
+
+        Key(Task task) {
+            this.type = task.getType();
+            this.description = fold(task.getDescription());
+            if (task instanceof Deadline) {
+                this.start = ((Deadline) task).getBy();
+                this.end = null;
+            } else if (task instanceof Event) {
+                this.start = ((Event) task).getFrom();
+                this.end = ((Event) task).getTo();
+            } else {
+                this.start = null;
+                this.end = null;
+            }
+            this.hash = 31 * (31 * (31 * type.hashCode() + description.hashCode()) + Objects.hashCode(start))
+                    + Objects.hashCode(end);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return hash == key.hash && type == key.type && description.equals(key.description)
+                    && Objects.equals(start, key.start) && Objects.equals(end, key.end);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private final HashMap<Key, ArrayList<Task>> entries = new HashMap<>();
+
+    @Override
+    public void add(Task task) {
+        entries.computeIfAbsent(new Key(task), key -> new ArrayList<>(1)).add(task);
+    }
+
+    @Override
+    public void remove(Task task) {
+        Key key = new Key(task);
+        ArrayList<Task> bucket = entries.get(key);
+        if (bucket == null) {
+            return;
+        }
+        for (int i = 0; i < bucket.size(); i++) {
+            if (bucket.get(i) == task) {
+                bucket.remove(i);
+                break;
+            }
+        }
+        if (bucket.isEmpty()) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Indexes a task unless it duplicates one already indexed, hashing its fields only once.
+     *
+     * @param task Task to add.
+     * @return The indexed duplicate, or null if the task was added.
+     */
+    Task addIfAbsent(Task task) {
+        Key key = new Key(task);
+        ArrayList<Task> bucket = entries.get(key);
+        if (bucket != null) {
+            return bucket.get(0);
+        }
+        bucket = new ArrayList<>(1);
+        bucket.add(task);
+        entries.put(key, bucket);
+        return null;
+    }
+
+    /**
+     * Returns an indexed task that is a duplicate of the given task.
+     *
+     * @param task Task to look up.
+     * @return The first indexed duplicate, or null if there is none.
+     */
+    Task find(Task task) {
+        ArrayList<Task> bucket = entries.get(new Key(task));
+        return bucket == null ? null : bucket.get(0);
+    }
+
+    /**
+     * Folds case the same way {@link String#equalsIgnoreCase(String)} compares characters.
+     */
+    private static String fold(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            sb.append(Character.toLowerCase(Character.toUpperCase(text.charAt(i))));
+        }
+        return sb.toString();
+    }
+}
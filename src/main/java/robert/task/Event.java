@@ -1,7 +1,7 @@
 package robert.task;
 
+import robert.parser.DateTimeCodec;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 /**
  * Represents an Event task with a start and end time.
@@ -51,7 +51,7 @@ public class Event extends Task {
     @Override
     public String toString() {
         return "[E]" + super.toString()
-                + " (from: " + from.format(DateTimeFormatter.ofPattern("MMM d yyyy, h:mm a"))
-                + " to: " + to.format(DateTimeFormatter.ofPattern("h:mm a")) + ")";
+                + " (from: " + DateTimeCodec.formatDisplay(from)
+                + " to: " + DateTimeCodec.formatDisplayTime(to) + ")";
     }
 }
@@ -0,0 +1,90 @@
+package robert.task;
+
+import java.util.Arrays;
+
+/**
+ * Binary indexed tree of counts, used to map between list positions and array slots
+ * when some slots hold deleted tasks. Updates, prefix sums and rank lookups take O(log n).
+ */
+class FenwickTree {
+    private int[] tree; // 1-based; tree[i] holds the sum of the lowbit(i) counts ending at i
+    private int size;
+
+    /**
+     * Constructs a tree over the given counts in O(n).
+     *
+     * @param counts Count of each slot.
+     */
+    FenwickTree(int[] counts) {
+        this.size = counts.length;
+        this.tree = new int[Math.max(16, size + 1)];
+        for (int i = 1; i <= size; i++) {
+            tree[i] += counts[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= size) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    /**
+     * Adds a slot after the last one.
+     *
+     * @param count Count of the new slot.
+     */
+    void append(int count) {
+        if (size + 1 == tree.length) {
+            tree = Arrays.copyOf(tree, tree.length * 2);
+        }
+        int i = ++size;
+        // Node i covers the slots (i - lowbit(i), i], all but the last of which already exist
+        tree[i] = count + prefixSum(i - 2) - prefixSum(i - (i & -i) - 1);
+    }
+
+    /**
+     * Adds to the count of a slot.
+     *
+     * @param slot Zero-based slot.
+     * @param delta Amount to add.
+     */
+    void add(int slot, int delta) {
+        assert slot >= 0 && slot < size : "Slot out of bounds in add";
+        for (int i = slot + 1; i <= size; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Returns the total count of the slots up to and including the given one.
+     *
+     * @param slot Zero-based slot, or -1 for an empty prefix.
+     * @return The prefix sum.
+     */
+    int prefixSum(int slot) {
+        int sum = 0;
+        for (int i = slot + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Finds the first slot whose prefix sum reaches the given rank.
+     * With counts of 0 and 1, this is the slot of the rank-th live entry.
+     *
+     * @param rank One-based rank.
+     * @return Zero-based slot.
+     */
+    int findSlot(int rank) {
+        assert rank > 0 && rank <= prefixSum(size - 1) : "Rank out of bounds in findSlot";
+        int position = 0;
+        for (int step = Integer.highestOneBit(Math.max(size, 1)); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next <= size && tree[next] < rank) {
+                position = next;
+                rank -= tree[next];
+            }
+        }
+        return position;
+    }
+}
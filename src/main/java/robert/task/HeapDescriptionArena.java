@@ -0,0 +1,43 @@
+package robert.task;
+
+import java.util.Arrays;
+
+/**
+ * Description arena backed by a byte array on the Java heap.
+ */
+public class HeapDescriptionArena extends DescriptionArena {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+
+    /**
+     * Constructs an empty HeapDescriptionArena.
+     */
+    public HeapDescriptionArena() {
+    }
+
+    @Override
+    protected int capacity() {
+        return bytes.length;
+    }
+
+    @Override
+    protected void grow(int capacity) {
+        bytes = Arrays.copyOf(bytes, capacity);
+    }
+
+    @Override
+    protected void write(int offset, byte[] source) {
+        System.arraycopy(source, 0, bytes, offset, source.length);
+    }
+
+    @Override
+    protected void read(int offset, byte[] target) {
+        System.arraycopy(bytes, offset, target, 0, target.length);
+    }
+
+    @Override
+    protected void move(int from, int to, int length) {
+        System.arraycopy(bytes, from, bytes, to, length);
+    }
+}
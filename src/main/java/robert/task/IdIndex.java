@@ -0,0 +1,111 @@
+package robert.task;
+
+import java.util.Arrays;
+
+/**
+ * Finds the position of a task by its ID, as {@link TaskList} does with its slots.
+ *
+ * <p>Each task holds a slot, and slots follow list order. A {@link LongIntMap} finds the slot of an ID,
+ * and a {@link FenwickTree} over the occupied slots turns it into a position in O(log n). A removed
+ * task leaves its slot empty, and a task put back between two others takes an empty slot between
+ * theirs, as one restored by undo does. When there is none, or once more slots are empty than
+ * occupied, the slots are handed out again in one O(n) sweep.</p>
+ */
+class IdIndex implements TaskIndex {
+    private static final int MIN_EMPTY_SLOTS_TO_COMPACT = 64;
+
+    private final LongIntMap slotsById = new LongIntMap();
+    private long[] idsBySlot = new long[16]; // 0 for an empty slot
+    private FenwickTree occupiedSlots = new FenwickTree(new int[0]);
+    private int slotCount;
+    private int emptySlots;
+
+    @Override
+    public void add(Task task) {
+        if (slotCount == idsBySlot.length) {
+            idsBySlot = Arrays.copyOf(idsBySlot, slotCount * 2);
+        }
+        idsBySlot[slotCount] = task.getId();
+        occupiedSlots.append(1);
+        slotsById.put(task.getId(), slotCount++);
+    }
+
+    @Override
+    public void insert(Task task, Task previous, Task next) {
+        int nextSlot = slotsById.get(next.getId());
+        int previousSlot = previous == null ? -1 : slotsById.get(previous.getId());
+        assert nextSlot > previousSlot : "Slots should follow list order";
+        if (nextSlot - previousSlot == 1) {
+            reassignSlots(nextSlot, task.getId());
+            return;
+        }
+        int slot = nextSlot - 1; // Empty, since no task lies between the two
+        idsBySlot[slot] = task.getId();
+        occupiedSlots.add(slot, 1);
+        emptySlots--;
+        slotsById.put(task.getId(), slot);
+    }
+
+    @Override
+    public void remove(Task task) {
+        int slot = slotsById.get(task.getId());
+        assert slot >= 0 : "Removed task should be in the index";
+        slotsById.remove(task.getId());
+        idsBySlot[slot] = 0;
+        occupiedSlots.add(slot, -1);
+        emptySlots++;
+        if (emptySlots >= MIN_EMPTY_SLOTS_TO_COMPACT && emptySlots > slotCount - emptySlots) {
+            reassignSlots(-1, 0);
+        }
+    }
+
+    /**
+     * Keeps the slot of the task, since its copy has the same ID.
+     */
+    @Override
+    public void replace(Task before, Task after) {
+        assert before.getId() == after.getId() : "A replaced task should keep its ID";
+    }
+
+    /**
+     * Returns the position of the task with the given ID.
+     *
+     * @param id ID of the task.
+     * @return Zero-based position of the task, or -1 if no task has the ID.
+     */
+    int indexOf(long id) {
+        int slot = slotsById.get(id);
+        if (slot < 0) {
+            return -1;
+        }
+        return emptySlots == 0 ? slot : occupiedSlots.prefixSum(slot) - 1;
+    }
+
+    /**
+     * Hands out the slots again without gaps, putting the given ID just before a slot if asked.
+     *
+     * @param insertBefore Slot to put the ID before, or -1 to put none.
+     * @param insertedId ID to put.
+     */
+    private void reassignSlots(int insertBefore, long insertedId) {
+        long[] ids = new long[Math.max(16, (slotCount - emptySlots + 1) * 2)];
+        int count = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slot == insertBefore) {
+                ids[count++] = insertedId;
+            }
+            if (idsBySlot[slot] != 0) {
+                ids[count++] = idsBySlot[slot];
+            }
+        }
+        for (int slot = 0; slot < count; slot++) {
+            slotsById.put(ids[slot], slot);
+        }
+        int[] counts = new int[count];
+        Arrays.fill(counts, 1);
+        idsBySlot = ids;
+        occupiedSlots = new FenwickTree(counts);
+        slotCount = count;
+        emptySlots = 0;
+    }
+}
@@ -0,0 +1,241 @@
+package robert.task;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Interval tree over events, for finding the events that overlap a time range.
+ *
+ * <p>Events are kept in a treap ordered by start time, where each node also records the
+ * latest end time in its subtree. A query skips every subtree that ends before the range,
+ * so it costs O(log n + k) expected for k results. Two events overlap if each starts before
+ * the other ends, so back-to-back events do not.</p>
+ */
+class IntervalTree implements TaskIndex {
+    /**
+     * Tree node holding one event and the latest end time in its subtree.
+     */
+    private static final class Node {
+        private Event event;
+        private final long start;
+        private final long end;
+        private final long order; // Breaks ties between events with the same start
+        private final int priority;
+        private long maxEnd;
+        private Node left;
+        private Node right;
+
+        Node(Event event, long order, int priority) {
+            this.event = event;
+            this.start = TimeIndex.toEpochMinute(event.getFrom());
+            this.end = TimeIndex.toEpochMinute(event.getTo());
+            this.order = order;
+            this.priority = priority;
+            this.maxEnd = end;
+        }
+    }
+
+    private final IdentityHashMap<Event, Node> nodes = new IdentityHashMap<>();
+    private final Random random = new Random();
+    private Node root;
+    private long nextOrder;
+
+    @Override
+    public void add(Task task) {
+        if (!(task instanceof Event)) {
+            return;
+        }
+        Node node = new Node((Event) task, nextOrder++, random.nextInt());
+        nodes.put(node.event, node);
+        root = insert(root, node);
+    }
+
+    @Override
+    public void remove(Task task) {
+        Node node = nodes.remove(task);
+        if (node != null) {
+            root = delete(root, node);
+        }
+    }
+
+    /**
+     * Replaces an event with a copy that has the same times, keeping its node in the tree.
+     */
+    @Override
+    public void replace(Task before, Task after) {
+        Node node = nodes.remove(before);
+        if (node != null) {
+            node.event = (Event) after;
+            nodes.put(node.event, node);
+        }
+    }
+
+    /**
+     * Returns the events overlapping the given event, ordered by start time.
+     *
+     * @param event Event to check against.
+     * @return Overlapping events, excluding the given event itself.
+     */
+    List<Event> findOverlapping(Event event) {
+        ArrayList<Event> overlapping = new ArrayList<>();
+        collect(root, TimeIndex.toEpochMinute(event.getFrom()), TimeIndex.toEpochMinute(event.getTo()),
+                overlapping);
+        overlapping.removeIf(other -> other == event);
+        return overlapping;
+    }
+
+    /**
+     * Returns every pair of overlapping events.
+     *
+     * @return Pairs of events, each ordered by start time.
+     */
+    List<Event[]> findConflicts() {
+        ArrayList<Event> events = new ArrayList<>(nodes.size());
+        inOrder(root, events);
+        return sweep(events);
+    }
+
+    /**
+     * Finds every pair of overlapping events by sweeping over their start times.
+     * Events that have ended are dropped from the active set as the sweep passes them,
+     * so this costs O(n + k) for k pairs.
+     *
+     * @param events Events ordered by start time.
+     * @return Pairs of events, each ordered by start time.
+     */
+    static List<Event[]> sweep(List<Event> events) {
+        ArrayList<Event[]> conflicts = new ArrayList<>();
+        ArrayList<Event> active = new ArrayList<>();
+        for (Event event : events) {
+            active.removeIf(other -> !other.getTo().isAfter(event.getFrom()));
+            for (Event other : active) {
+                if (event.getTo().isAfter(other.getFrom())) {
+                    conflicts.add(new Event[] {other, event});
+                }
+            }
+            active.add(event);
+        }
+        return conflicts;
+    }
+
+    /**
+     * Checks whether two events overlap, as {@link #findOverlapping(Event)} decides it.
+     *
+     * @param event1 First event.
+     * @param event2 Second event.
+     * @return true if each event starts before the other ends, false otherwise.
+     */
+    static boolean overlaps(Event event1, Event event2) {
+        return event1.getFrom().isBefore(event2.getTo()) && event2.getFrom().isBefore(event1.getTo());
+    }
+
+    private static void collect(Node node, long start, long end, List<Event> overlapping) {
+        if (node == null || node.maxEnd <= start) {
+            return;
+        }
+        collect(node.left, start, end, overlapping);
+        if (node.start < end) {
+            if (node.end > start) {
+                overlapping.add(node.event);
+            }
+            collect(node.right, start, end, overlapping);
+        }
+    }
+
+    private static void inOrder(Node node, List<Event> events) {
+        if (node == null) {
+            return;
+        }
+        inOrder(node.left, events);
+        events.add(node.event);
+        inOrder(node.right, events);
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (isBefore(added, node)) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node delete(Node node, Node removed) {
+        assert node != null : "Removed node should be in the tree";
+        if (node == removed) {
+            return merge(node.left, node.right);
+        }
+        if (isBefore(removed, node)) {
+            node.left = delete(node.left, removed);
+        } else {
+            node.right = delete(node.right, removed);
+        }
+        update(node);
+        return node;
+    }
+
+    /**
+     * Joins two treaps where every node of the first comes before every node of the second.
+     */
+    private static Node merge(Node first, Node second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.priority > second.priority) {
+            first.right = merge(first.right, second);
+            update(first);
+            return first;
+        }
+        second.left = merge(first, second.left);
+        update(second);
+        return second;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static void update(Node node) {
+        long maxEnd = node.end;
+        if (node.left != null) {
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static boolean isBefore(Node node1, Node node2) {
+        return node1.start < node2.start || (node1.start == node2.start && node1.order < node2.order);
+    }
+}
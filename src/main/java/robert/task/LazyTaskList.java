@@ -0,0 +1,328 @@
+package robert.task;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents a list of tasks that are decoded from a {@link TaskSource} only when accessed.
+ *
+ * <p>The list keeps one offset per task. Recently used tasks stay in a bounded LRU cache,
+ * while added and modified tasks are kept in memory until the list is saved elsewhere.
+ * A task that is still referenced is always returned as the same object, so marking it
+ * through the list is visible to anyone holding it.</p>
+ *
+ * <p>Task IDs are kept in an array beside the offsets. IDs are assigned in increasing order
+ * as tasks are appended, so the array stays sorted and is searched by bisection. Once an import or
+ * a restored task puts them out of order, a hash map of their positions is built on the next lookup
+ * and kept up to date from then on.</p>
+ */
+public class LazyTaskList extends ScanningTaskList implements AutoCloseable {
+    private static final int DEFAULT_CACHE_SIZE = 10_000;
+
+    /**
+     * Weak reference that remembers which key it was cached under.
+     */
+    private static class KeyedReference extends WeakReference<Task> {
+        private final long key;
+
+        KeyedReference(long key, Task task, ReferenceQueue<Task> queue) {
+            super(task, queue);
+            this.key = key;
+        }
+    }
+
+    private final TaskSource source;
+    private final LinkedHashMap<Long, Task> hot;
+    private final HashMap<Long, Task> pinned = new HashMap<>();
+    private final HashMap<Long, KeyedReference> canonical = new HashMap<>();
+    private final ReferenceQueue<Task> collected = new ReferenceQueue<>();
+    private long[] keys;
+    private long[] ids;
+    private int size;
+    private boolean isSortedById = true;
+    private LongIntMap positionsById; // Built on the first lookup once the IDs are out of order
+    private long nextNewKey = -1; // Keys of tasks not in the source are negative
+
+    /**
+     * Constructs a LazyTaskList over the given source with the default cache size.
+     * The tasks get IDs 1 to n in list order.
+     *
+     * @param source Source to decode tasks from.
+     * @param offsets Offsets of the tasks in the source, in list order.
+     */
+    public LazyTaskList(TaskSource source, long[] offsets) {
+        this(source, offsets, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Constructs a LazyTaskList over the given source.
+     * The tasks get IDs 1 to n in list order.
+     *
+     * @param source Source to decode tasks from.
+     * @param offsets Offsets of the tasks in the source, in list order.
+     * @param cacheSize Maximum number of unmodified tasks kept decoded.
+     */
+    public LazyTaskList(TaskSource source, long[] offsets, int cacheSize) {
+        this(source, offsets, sequentialIds(offsets.length), cacheSize);
+    }
+
+    /**
+     * Constructs a LazyTaskList over the given source with known task IDs and the default cache size.
+     *
+     * @param source Source to decode tasks from.
+     * @param offsets Offsets of the tasks in the source, in list order.
+     * @param ids IDs of the tasks, in list order.
+     */
+    public LazyTaskList(TaskSource source, long[] offsets, long[] ids) {
+        this(source, offsets, ids, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Constructs a LazyTaskList over the given source with known task IDs.
+     *
+     * @param source Source to decode tasks from.
+     * @param offsets Offsets of the tasks in the source, in list order.
+     * @param ids IDs of the tasks, in list order.
+     * @param cacheSize Maximum number of unmodified tasks kept decoded.
+     */
+    public LazyTaskList(TaskSource source, long[] offsets, long[] ids, int cacheSize) {
+        assert cacheSize > 0 : "Cache size should be positive";
+        assert ids.length == offsets.length : "Every offset should have an ID";
+        this.source = source;
+        this.keys = offsets;
+        this.ids = ids;
+        this.size = offsets.length;
+        for (int i = 0; i < size; i++) {
+            isSortedById &= i == 0 || ids[i - 1] < ids[i];
+        }
+        if (size > 0) {
+            reserveIdsBelow(Arrays.stream(ids).max().getAsLong() + 1);
+        }
+        this.hot = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Task> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task.getId() == 0) {
+            task.setId(getNextId());
+        }
+        reserveIdsBelow(task.getId() + 1);
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, Math.max(16, size * 2));
+            ids = Arrays.copyOf(ids, keys.length);
+        }
+        isSortedById &= size == 0 || ids[size - 1] < task.getId();
+        long key = nextNewKey--;
+        keys[size] = key;
+        if (positionsById != null) {
+            positionsById.put(task.getId(), size);
+        }
+        ids[size++] = task.getId();
+        pinned.put(key, task);
+    }
+
+    /**
+     * Inserts a task at the given position, shifting the offsets and IDs after it up.
+     *
+     * @param index Position to insert the task at, from 0 to the size of the list.
+     * @param task Task to insert.
+     */
+    @Override
+    public void insert(int index, Task task) {
+        assert index >= 0 && index <= size : "Index out of bounds in insert";
+        add(task);
+        if (index == size - 1) {
+            return;
+        }
+        long key = keys[size - 1];
+        long id = ids[size - 1];
+        System.arraycopy(keys, index, keys, index + 1, size - 1 - index);
+        System.arraycopy(ids, index, ids, index + 1, size - 1 - index);
+        keys[index] = key;
+        ids[index] = id;
+        isSortedById &= (index == 0 || ids[index - 1] < id) && id < ids[index + 1];
+        updatePositions(index);
+    }
+
+    /**
+     * Removes and returns the task at the specified index.
+     * This shifts the primitive offset and ID arrays rather than leaving an empty slot,
+     * which keeps the ID array dense for bisection.
+     *
+     * @param index Index of the task to remove.
+     * @return The removed task.
+     */
+    @Override
+    public Task remove(int index) {
+        assert index >= 0 && index < size : "Index out of bounds in remove";
+        Task task = get(index);
+        long key = keys[index];
+        if (positionsById != null) {
+            positionsById.remove(ids[index]);
+        }
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        size--;
+        updatePositions(index);
+        pinned.remove(key);
+        hot.remove(key);
+        canonical.remove(key);
+        return task;
+    }
+
+    /**
+     * Removes and returns the tasks at the given indexes, shifting the remaining
+     * offsets and IDs down in one sweep.
+     *
+     * @param indices Indexes of the tasks to remove, in increasing order without repeats.
+     * @return The removed tasks, in list order.
+     */
+    @Override
+    public List<Task> removeTasks(int[] indices) {
+        ArrayList<Task> removedTasks = new ArrayList<>(indices.length);
+        int next = 0;
+        int kept = indices.length == 0 ? size : indices[0];
+        for (int i = kept; i < size; i++) {
+            if (next < indices.length && indices[next] == i) {
+                removedTasks.add(get(i));
+                pinned.remove(keys[i]);
+                hot.remove(keys[i]);
+                canonical.remove(keys[i]);
+                if (positionsById != null) {
+                    positionsById.remove(ids[i]);
+                }
+                next++;
+                continue;
+            }
+            keys[kept] = keys[i];
+            ids[kept] = ids[i];
+            if (positionsById != null) {
+                positionsById.put(ids[i], kept);
+            }
+            kept++;
+        }
+        assert next == indices.length : "Index out of bounds in removeTasks";
+        size = kept;
+        return removedTasks;
+    }
+
+    @Override
+    public Task get(int index) {
+        assert index >= 0 && index < size : "Index out of bounds in get";
+        long key = keys[index];
+        Task task = pinned.get(key);
+        if (task != null) {
+            return task;
+        }
+        task = hot.get(key);
+        if (task != null) {
+            return task;
+        }
+        expungeCollected();
+        KeyedReference reference = canonical.get(key);
+        task = reference == null ? null : reference.get();
+        if (task == null) {
+            try {
+                task = source.read(key);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read task " + (index + 1), e);
+            }
+            task.setId(ids[index]);
+            canonical.put(key, new KeyedReference(key, task, collected));
+        }
+        hot.put(key, task);
+        return task;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    long getId(int index) {
+        assert index >= 0 && index < size : "Index out of bounds in getId";
+        return ids[index];
+    }
+
+    @Override
+    boolean isSortedById() {
+        return isSortedById;
+    }
+
+    @Override
+    public int indexOfId(long id) {
+        if (isSortedById) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            return index >= 0 ? index : -1;
+        }
+        if (positionsById == null) {
+            positionsById = new LongIntMap(size);
+            updatePositions(0);
+        }
+        return positionsById.get(id);
+    }
+
+    @Override
+    public void markTask(int index) {
+        Task task = get(index);
+        task.markAsDone();
+        pinned.put(keys[index], task);
+    }
+
+    @Override
+    public void unmarkTask(int index) {
+        Task task = get(index);
+        task.markAsNotDone();
+        pinned.put(keys[index], task);
+    }
+
+    /**
+     * Closes the underlying source.
+     *
+     * @throws IOException If the source cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    /**
+     * Brings the positions of the tasks from the given index on up to date, if they are kept.
+     */
+    private void updatePositions(int from) {
+        if (positionsById != null) {
+            for (int i = from; i < size; i++) {
+                positionsById.put(ids[i], i);
+            }
+        }
+    }
+
+    private static long[] sequentialIds(int count) {
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = i + 1;
+        }
+        return ids;
+    }
+
+    private void expungeCollected() {
+        KeyedReference reference;
+        while ((reference = (KeyedReference) collected.poll()) != null) {
+            canonical.remove(reference.key, reference);
+        }
+    }
+}
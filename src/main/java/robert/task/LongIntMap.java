@@ -0,0 +1,140 @@
+package robert.task;
+
+/**
+ * Hash map from positive long keys, such as task IDs, to int values.
+ * Entries are kept in two primitive arrays with linear probing, so neither keys nor values are boxed.
+ */
+class LongIntMap {
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys; // 0 marks an empty slot
+    private int[] values;
+    private int shift; // 64 minus the number of bits in a slot
+    private int size;
+
+    /**
+     * Constructs an empty map.
+     */
+    LongIntMap() {
+        this(0);
+    }
+
+    /**
+     * Constructs an empty map that holds the given number of entries before it grows.
+     *
+     * @param expectedSize Number of entries expected.
+     */
+    LongIntMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity *= 2;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * Returns the value for the given key.
+     *
+     * @param key Positive key.
+     * @return The value, or -1 if the key is not in the map.
+     */
+    int get(long key) {
+        assert key > 0 : "Keys should be positive";
+        int mask = keys.length - 1;
+        for (int slot = slotOf(key); keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Maps the given key to the value, replacing any value it had.
+     *
+     * @param key Positive key.
+     * @param value Value to store.
+     */
+    void put(long key, int value) {
+        assert key > 0 : "Keys should be positive";
+        int mask = keys.length - 1;
+        int slot = slotOf(key);
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == 0) {
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+        if (size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    /**
+     * Removes the given key, if present. Later entries of the same probe run are moved back
+     * into the gap, so lookups never need to skip deleted entries.
+     *
+     * @param key Positive key.
+     */
+    void remove(long key) {
+        assert key > 0 : "Keys should be positive";
+        int mask = keys.length - 1;
+        int hole = slotOf(key);
+        while (keys[hole] != key) {
+            if (keys[hole] == 0) {
+                return;
+            }
+            hole = (hole + 1) & mask;
+        }
+        for (int slot = (hole + 1) & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+            int home = slotOf(keys[slot]);
+            // The entry may fill the hole only if its home slot is not between the hole and itself
+            boolean isHomeAfterHole = hole < slot ? home > hole && home <= slot : home > hole || home <= slot;
+            if (!isHomeAfterHole) {
+                keys[hole] = keys[slot];
+                values[hole] = values[slot];
+                hole = slot;
+            }
+        }
+        keys[hole] = 0;
+        size--;
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return The number of keys in the map.
+     */
+    int size() {
+        return size;
+    }
+
+    private int slotOf(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        shift = Long.numberOfLeadingZeros(capacity - 1);
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = slotOf(oldKeys[i]);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package robert.task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+/**
+ * Base for task lists that do not keep every task on the heap as its own object.
+ * Hash and tree indexes would do exactly that, so queries scan the list instead.
+ */
+public abstract class ScanningTaskList extends TaskList {
+    /**
+     * Inserts a task at the given position, assigning it the next ID if it has none.
+     *
+     * @param index Position to insert the task at, from 0 to the size of the list.
+     * @param task Task to insert.
+     */
+    @Override
+    public abstract void insert(int index, Task task);
+
+    /**
+     * Returns the ID of the task at the given index.
+     * Lists that keep the IDs apart from the tasks should override this, so no task is built.
+     *
+     * @param index Index of the task.
+     * @return The ID of the task.
+     */
+    long getId(int index) {
+        return get(index).getId();
+    }
+
+    /**
+     * Checks whether the IDs increase along the list, so they can be binary searched.
+     *
+     * @return true if every ID is greater than the one before it, false otherwise.
+     */
+    boolean isSortedById() {
+        for (int i = 1; i < size(); i++) {
+            if (getId(i - 1) >= getId(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes the tasks at the given indexes one at a time, last first.
+     * Lists that keep their tasks in arrays should override this to compact in one sweep.
+     *
+     * @param indices Indexes of the tasks to remove, in increasing order without repeats.
+     * @return The removed tasks, in list order.
+     */
+    @Override
+    public List<Task> removeTasks(int[] indices) {
+        return removeEach(indices);
+    }
+
+    /**
+     * Finds a duplicate by scanning the list.
+     *
+     * @param task Task to check for duplicates.
+     * @return The existing duplicate task, or null if no duplicate exists.
+     */
+    @Override
+    public Task findDuplicate(Task task) {
+        for (int i = 0; i < size(); i++) {
+            Task existingTask = get(i);
+            if (areTasksEqual(existingTask, task)) {
+                return existingTask;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds matching tasks by scanning the list.
+     *
+     * @param keyword The keywords to search for, separated by spaces.
+     * @return A new TaskList containing matching tasks, in list order.
+     */
+    @Override
+    public TaskList findTasks(String keyword) {
+        List<String> terms = TokenIndex.tokenize(keyword);
+        ArrayList<Task> matchingTasks = new ArrayList<>();
+        for (int i = 0; i < size() && !terms.isEmpty(); i++) {
+            Task task = get(i);
+            if (TokenIndex.matches(task, terms)) {
+                matchingTasks.add(task);
+            }
+        }
+        return new TaskList(matchingTasks);
+    }
+
+    /**
+     * Finds the tasks closest to the given text through a trigram index built for this query only.
+     *
+     * @param text The words to search for, possibly misspelled.
+     * @param limit The most tasks to return.
+     * @return A new TaskList containing the closest tasks, best match first.
+     */
+    @Override
+    public TaskList findFuzzy(String text, int limit) {
+        TrigramIndex index = new TrigramIndex();
+        for (int i = 0; i < size(); i++) {
+            index.add(get(i));
+        }
+        return resolveIds(index.find(text, limit));
+    }
+
+    /**
+     * Suggests words completing the given prefix through a trie built for this query only.
+     *
+     * @param prefix The start of a word.
+     * @param limit The most words to return.
+     * @return Up to limit lower-case words starting with the prefix, in alphabetical order.
+     */
+    @Override
+    public List<String> completeWord(String prefix, int limit) {
+        CompletionIndex index = new CompletionIndex();
+        for (int i = 0; i < size(); i++) {
+            index.add(get(i));
+        }
+        return index.complete(prefix.toLowerCase(Locale.ROOT), limit);
+    }
+
+    /**
+     * Finds tasks within the given range by scanning the list.
+     *
+     * @param start Start of the range, inclusive.
+     * @param end End of the range, inclusive.
+     * @return A new TaskList containing matching tasks, in time order.
+     */
+    @Override
+    public TaskList findBetween(LocalDateTime start, LocalDateTime end) {
+        ArrayList<Task> matchingTasks = new ArrayList<>();
+        for (int i = 0; i < size(); i++) {
+            Task task = get(i);
+            if (TimeIndex.isBetween(task, start, end)) {
+                matchingTasks.add(task);
+            }
+        }
+        matchingTasks.sort(Comparator.comparing(task -> firstTimeWithin(task, start)));
+        return new TaskList(matchingTasks);
+    }
+
+    private static LocalDateTime firstTimeWithin(Task task, LocalDateTime start) {
+        if (task instanceof Deadline) {
+            return ((Deadline) task).getBy();
+        }
+        Event event = (Event) task;
+        return event.getFrom().isBefore(start) ? event.getTo() : event.getFrom();
+    }
+
+    /**
+     * Finds the next deadlines and events that are not done by scanning the list
+     * and keeping the soonest in a bounded heap, so the whole list is never sorted.
+     *
+     * @param from The time to look ahead from, usually now.
+     * @param limit The most tasks to return.
+     * @return A new TaskList of up to limit matching tasks, soonest first.
+     */
+    @Override
+    public TaskList findUpcoming(LocalDateTime from, int limit) {
+        Comparator<Task> soonestFirst = Comparator.comparing(UpcomingIndex::timeOf);
+        PriorityQueue<Task> soonest = new PriorityQueue<>(soonestFirst.reversed());
+        for (int i = 0; i < size() && limit > 0; i++) {
+            Task task = get(i);
+            if (task.isDone() || !(task instanceof Deadline || task instanceof Event)
+                    || UpcomingIndex.timeOf(task).isBefore(from)) {
+                continue;
+            }
+            if (soonest.size() < limit) {
+                soonest.add(task);
+            } else if (soonestFirst.compare(task, soonest.peek()) < 0) {
+                soonest.poll();
+                soonest.add(task);
+            }
+        }
+        ArrayList<Task> upcoming = new ArrayList<>(soonest);
+        upcoming.sort(soonestFirst);
+        return new TaskList(upcoming);
+    }
+
+    /**
+     * Finds overlapping events by scanning the list.
+     *
+     * @param event Event to check against, which need not be in the list.
+     * @return A new TaskList containing overlapping events, ordered by start time.
+     */
+    @Override
+    public TaskList findOverlapping(Event event) {
+        ArrayList<Task> overlapping = new ArrayList<>();
+        for (Event other : getEventsByStart()) {
+            if (other != event && IntervalTree.overlaps(other, event)) {
+                overlapping.add(other);
+            }
+        }
+        return new TaskList(overlapping);
+    }
+
+    /**
+     * Finds every pair of overlapping events by sorting the events in the list and sweeping over them.
+     *
+     * @return Pairs of overlapping events, each ordered by start time.
+     */
+    @Override
+    public List<Event[]> findConflicts() {
+        return IntervalTree.sweep(getEventsByStart());
+    }
+
+    private List<Event> getEventsByStart() {
+        ArrayList<Event> events = new ArrayList<>();
+        for (int i = 0; i < size(); i++) {
+            Task task = get(i);
+            if (task instanceof Event) {
+                events.add((Event) task);
+            }
+        }
+        events.sort(Comparator.comparing(Event::getFrom));
+        return events;
+    }
+
+    /**
+     * Returns every task in a new list.
+     * This materializes every task, and changes to the returned list are not reflected here.
+     *
+     * @return ArrayList of tasks.
+     */
+    @Override
+    public ArrayList<Task> getTasks() {
+        ArrayList<Task> tasks = new ArrayList<>(size());
+        for (int i = 0; i < size(); i++) {
+            tasks.add(get(i));
+        }
+        return tasks;
+    }
+}
@@ -7,6 +7,7 @@ public class Task {
     private String description;
     private boolean isDone;
     private TaskType type;
+    private long id; // 0 until the task is first added to a TaskList
 
     /**
      * Constructs a Task with the given description and type.
@@ -35,6 +36,15 @@ public class Task {
         this.isDone = false;
     }
 
+    /**
+     * Returns whether this task is done.
+     *
+     * @return true if done, false otherwise.
+     */
+    public boolean isDone() {
+        return isDone;
+    }
+
     /**
      * Returns the status icon representing whether the task is done.
      *
@@ -53,6 +63,27 @@ public class Task {
         return type;
     }
 
+    /**
+     * Returns the stable ID of this task.
+     *
+     * @return The ID, or 0 if none has been assigned yet.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Assigns the stable ID of this task. IDs are assigned by {@link TaskList}
+     * and restored from storage; once assigned, an ID never changes.
+     *
+     * @param id The positive ID.
+     */
+    public void setId(long id) {
+        assert id > 0 : "Task ID should be positive";
+        assert this.id == 0 || this.id == id : "Task ID should not change once assigned";
+        this.id = id;
+    }
+
     /**
      * Gets the description of the task.
      *
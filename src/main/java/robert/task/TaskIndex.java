@@ -0,0 +1,52 @@
+package robert.task;
+
+/**
+ * Represents an index over the tasks of a {@link TaskList} that is kept up to date
+ * as tasks are added, removed, marked and unmarked.
+ */
+interface TaskIndex {
+    /**
+     * Adds a task to the index.
+     *
+     * @param task Task to add.
+     */
+    void add(Task task);
+
+    /**
+     * Adds a task that was put between two others in the list, rather than after the last task.
+     * Indexes that return tasks in list order should override this.
+     *
+     * @param task Task to add.
+     * @param previous The task now before it, or null if it is first.
+     * @param next The task now after it.
+     */
+    default void insert(Task task, Task previous, Task next) {
+        add(task);
+    }
+
+    /**
+     * Removes a task from the index.
+     *
+     * @param task Task to remove.
+     */
+    void remove(Task task);
+
+    /**
+     * Called after a task in the index has been marked as done or not done.
+     *
+     * @param task The task whose status changed.
+     */
+    default void statusChanged(Task task) {
+    }
+
+    /**
+     * Replaces a task in the index with an equal copy, such as one marked as done in its place.
+     *
+     * @param before The task in the index.
+     * @param after The copy that takes its place.
+     */
+    default void replace(Task before, Task after) {
+        remove(before);
+        add(after);
+    }
+}
@@ -1,12 +1,39 @@
 package robert.task;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
 
 /**
  * Represents a list of tasks.
+ * Duplicate checks and searches go through indexes that are built on first use
+ * and then kept up to date as tasks are added and removed.
+ *
+ * <p>Every task gets a stable ID when it is first added. A removed task leaves an empty
+ * slot behind instead of shifting the tasks after it; a {@link FenwickTree} over the
+ * occupied slots maps list positions to slots, and the slots are compacted once more
+ * than half of them are empty.</p>
  */
 public class TaskList {
-    private ArrayList<Task> tasks;
+    private static final int MIN_EMPTY_SLOTS_TO_COMPACT = 64;
+
+    private ArrayList<Task> tasks; // A null slot holds a removed task until the next compaction
+    private int emptySlots;
+    private FenwickTree occupiedSlots; // Only kept while there are empty slots
+    private HashMap<Long, Integer> slotsById;
+    private long nextId = 1;
+    private final ArrayList<TaskIndex> indexes = new ArrayList<>();
+    private DuplicateIndex duplicateIndex;
+    private TokenIndex tokenIndex;
+    private TimeIndex timeIndex;
+    private IntervalTree intervalTree;
+    private TrigramIndex trigramIndex;
+    private CompletionIndex completionIndex;
+    private UpcomingIndex upcomingIndex;
 
     /**
      * Constructs an empty TaskList.
@@ -22,15 +49,120 @@ public class TaskList {
      */
     public TaskList(ArrayList<Task> tasks) {
         this.tasks = tasks;
+        assignIds();
     }
 
     /**
-     * Adds a task to the list.
+     * Adds a task to the list, assigning it the next ID if it has none.
      *
      * @param task Task to add.
      */
     public void add(Task task) {
+        assignId(task);
         tasks.add(task);
+        if (occupiedSlots != null) {
+            occupiedSlots.append(1);
+        }
+        if (slotsById != null) {
+            slotsById.put(task.getId(), tasks.size() - 1);
+        }
+        for (TaskIndex index : indexes) {
+            index.add(task);
+        }
+    }
+
+    /**
+     * Inserts a task at the given position, assigning it the next ID if it has none.
+     * Used to put a deleted task back where it was. If the slot the task left behind is still
+     * empty, the task goes back into it in O(log n); only once the slots have been compacted
+     * do the tasks after the position shift up, in one block move.
+     *
+     * @param index Position to insert the task at, from 0 to the size of the list.
+     * @param task Task to insert.
+     */
+    public void insert(int index, Task task) {
+        assert index >= 0 && index <= size() : "Index out of bounds in insert";
+        if (index == size()) {
+            add(task);
+            return;
+        }
+        assignId(task);
+        Task previous = index == 0 ? null : get(index - 1);
+        Task next = get(index);
+        int slot = emptySlotBefore(index);
+        if (slot >= 0) {
+            tasks.set(slot, task);
+            occupiedSlots.add(slot, 1);
+            emptySlots--;
+            if (slotsById != null) {
+                slotsById.put(task.getId(), slot);
+            }
+        } else {
+            compact();
+            tasks.add(index, task);
+            slotsById = null; // Rebuilt with the shifted slots on the next lookup
+        }
+        for (TaskIndex taskIndex : indexes) {
+            taskIndex.insert(task, previous, next);
+        }
+    }
+
+    /**
+     * Finds an empty slot between the task at the given position and the one before it,
+     * such as the slot left by a task deleted from that position.
+     *
+     * @return The slot, or -1 if the two tasks are in adjacent slots.
+     */
+    private int emptySlotBefore(int index) {
+        if (occupiedSlots == null) {
+            return -1;
+        }
+        int nextSlot = toSlot(index);
+        int previousSlot = index == 0 ? -1 : toSlot(index - 1);
+        return nextSlot - previousSlot > 1 ? nextSlot - 1 : -1;
+    }
+
+    /**
+     * Returns the ID that the next task added without one will get.
+     *
+     * @return The next ID.
+     */
+    public long getNextId() {
+        return nextId;
+    }
+
+    /**
+     * Makes sure IDs below the given one are never assigned again,
+     * for example to tasks that were deleted before the list was saved.
+     *
+     * @param nextId The lowest ID that may still be assigned.
+     */
+    public void reserveIdsBelow(long nextId) {
+        this.nextId = Math.max(this.nextId, nextId);
+    }
+
+    /**
+     * Returns the current position of the task with the given ID.
+     *
+     * @param id ID of the task.
+     * @return Zero-based position of the task, or -1 if no task has the ID.
+     */
+    public int indexOfId(long id) {
+        if (slotsById == null) {
+            slotsById = new HashMap<>();
+            for (int slot = 0; slot < tasks.size(); slot++) {
+                Task task = tasks.get(slot);
+                if (task != null) {
+                    assignId(task);
+                    slotsById.put(task.getId(), slot);
+                }
+            }
+        }
+        Integer slot = slotsById.get(id);
+        if (slot == null) {
+            return -1;
+        }
+        return occupiedSlots == null ? slot : occupiedSlots.prefixSum(slot) - 1;
     }
 
     /**
@@ -42,12 +174,7 @@ public class TaskList {
      * @return true if a duplicate exists, false otherwise.
      */
     public boolean isDuplicate(Task task) {
-        for (Task existingTask : tasks) {
-            if (areTasksEqual(existingTask, task)) {
-                return true;
-            }
-        }
-        return false;
+        return findDuplicate(task) != null;
     }
 
     /**
@@ -57,12 +184,29 @@ public class TaskList {
      * @return The existing duplicate task, or null if no duplicate exists.
      */
     public Task findDuplicate(Task task) {
-        for (Task existingTask : tasks) {
-            if (areTasksEqual(existingTask, task)) {
-                return existingTask;
+        if (duplicateIndex == null) {
+            duplicateIndex = buildIndex(new DuplicateIndex());
+        }
+        return duplicateIndex.find(task);
+    }
+
+    /**
+     * Adds the given tasks in order, skipping any that duplicate a task already in the list
+     * or earlier among the given tasks. Each task is checked against the duplicate index,
+     * so a batch costs time in proportion to its own size rather than the list's.
+     *
+     * @param tasks Tasks to add.
+     * @return The tasks that were added, in order.
+     */
+    public List<Task> addAllNew(List<Task> tasks) {
+        ArrayList<Task> added = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            if (findDuplicate(task) == null) {
+                add(task);
+                added.add(task);
             }
         }
-        return null;
+        return added;
     }
 
     /**
@@ -72,7 +216,7 @@ public class TaskList {
      * @param task2 Second task to compare.
      * @return true if tasks are equal, false otherwise.
      */
-    private boolean areTasksEqual(Task task1, Task task2) {
+    static boolean areTasksEqual(Task task1, Task task2) {
         // Check if types are different
         if (task1.getType() != task2.getType()) {
             return false;
@@ -109,8 +253,86 @@ public class TaskList {
      * @return The removed task.
      */
     public Task remove(int index) {
-        assert index >= 0 && index < tasks.size() : "Index out of bounds in remove";
-        return tasks.remove(index);
+        assert index >= 0 && index < size() : "Index out of bounds in remove";
+        int slot = toSlot(index);
+        Task removedTask = tasks.get(slot);
+        if (occupiedSlots == null && slot == tasks.size() - 1) {
+            tasks.remove(slot); // Nothing to shift
+        } else {
+            if (occupiedSlots == null) {
+                int[] counts = new int[tasks.size()];
+                Arrays.fill(counts, 1);
+                occupiedSlots = new FenwickTree(counts);
+            }
+            tasks.set(slot, null);
+            occupiedSlots.add(slot, -1);
+            emptySlots++;
+        }
+        if (slotsById != null) {
+            slotsById.remove(removedTask.getId());
+        }
+        for (TaskIndex taskIndex : indexes) {
+            taskIndex.remove(removedTask);
+        }
+        if (emptySlots >= MIN_EMPTY_SLOTS_TO_COMPACT && emptySlots > size()) {
+            compact();
+        }
+        return removedTask;
+    }
+
+    /**
+     * Removes and returns the tasks at the given indexes.
+     * A batch small enough to leave at most half of the slots empty is removed one task at a time;
+     * a larger one empties its slots and compacts the list in a single sweep.
+     *
+     * @param indices Indexes of the tasks to remove, in increasing order without repeats.
+     * @return The removed tasks, in list order.
+     */
+    public List<Task> removeTasks(int[] indices) {
+        int emptyAfter = emptySlots + indices.length;
+        if (emptyAfter < MIN_EMPTY_SLOTS_TO_COMPACT || emptyAfter <= size() - indices.length) {
+            return removeEach(indices);
+        }
+        ArrayList<Task> removedTasks = new ArrayList<>(indices.length);
+        int next = 0;
+        int index = 0;
+        for (int slot = 0; slot < tasks.size() && next < indices.length; slot++) {
+            Task task = tasks.get(slot);
+            if (task == null) {
+                continue;
+            }
+            if (indices[next] == index) {
+                assert next == 0 || indices[next - 1] < indices[next] : "Indexes should be increasing";
+                removedTasks.add(task);
+                tasks.set(slot, null);
+                emptySlots++;
+                next++;
+            }
+            index++;
+        }
+        assert next == indices.length : "Index out of bounds in removeTasks";
+        compact();
+        for (Task removedTask : removedTasks) {
+            for (TaskIndex taskIndex : indexes) {
+                taskIndex.remove(removedTask);
+            }
+        }
+        return removedTasks;
+    }
+
+    /**
+     * Removes the tasks at the given indexes one at a time, last first so the other indexes stay valid.
+     *
+     * @param indices Indexes of the tasks to remove, in increasing order without repeats.
+     * @return The removed tasks, in list order.
+     */
+    List<Task> removeEach(int[] indices) {
+        Task[] removedTasks = new Task[indices.length];
+        for (int i = indices.length - 1; i >= 0; i--) {
+            assert i == 0 || indices[i - 1] < indices[i] : "Indexes should be increasing";
+            removedTasks[i] = remove(indices[i]);
+        }
+        return new ArrayList<>(Arrays.asList(removedTasks));
     }
 
     /**
@@ -120,8 +342,8 @@ public class TaskList {
      * @return The task at the index.
      */
     public Task get(int index) {
-        assert index >= 0 && index < tasks.size() : "Index out of bounds in get";
-        return tasks.get(index);
+        assert index >= 0 && index < size() : "Index out of bounds in get";
+        return tasks.get(toSlot(index));
     }
 
     /**
@@ -130,7 +352,7 @@ public class TaskList {
      * @return Number of tasks.
      */
     public int size() {
-        return tasks.size();
+        return tasks.size() - emptySlots;
     }
 
     /**
@@ -139,8 +361,12 @@ public class TaskList {
      * @param index Index of the task.
      */
     public void markTask(int index) {
-        assert index >= 0 && index < tasks.size() : "Index out of bounds in markTask";
-        tasks.get(index).markAsDone();
+        assert index >= 0 && index < size() : "Index out of bounds in markTask";
+        Task task = get(index);
+        task.markAsDone();
+        for (TaskIndex taskIndex : indexes) {
+            taskIndex.statusChanged(task);
+        }
     }
 
     /**
@@ -149,32 +375,225 @@ public class TaskList {
      * @param index Index of the task.
      */
     public void unmarkTask(int index) {
-        assert index >= 0 && index < tasks.size() : "Index out of bounds in unmarkTask";
-        tasks.get(index).markAsNotDone();
+        assert index >= 0 && index < size() : "Index out of bounds in unmarkTask";
+        Task task = get(index);
+        task.markAsNotDone();
+        for (TaskIndex taskIndex : indexes) {
+            taskIndex.statusChanged(task);
+        }
+    }
+
+    /**
+     * Marks the tasks at the given indexes as done.
+     *
+     * @param indices Indexes of the tasks, in increasing order without repeats.
+     */
+    public void markTasks(int[] indices) {
+        for (int index : indices) {
+            markTask(index);
+        }
+    }
+
+    /**
+     * Marks the tasks at the given indexes as not done.
+     *
+     * @param indices Indexes of the tasks, in increasing order without repeats.
+     */
+    public void unmarkTasks(int[] indices) {
+        for (int index : indices) {
+            unmarkTask(index);
+        }
     }
 
     /**
      * Returns the list of tasks.
+     * Callers may modify the returned list, so all indexes are dropped
+     * and rebuilt on the next lookup.
      *
      * @return ArrayList of tasks.
      */
     public ArrayList<Task> getTasks() {
+        compact();
+        slotsById = null;
+        indexes.clear();
+        duplicateIndex = null;
+        tokenIndex = null;
+        timeIndex = null;
+        intervalTree = null;
+        trigramIndex = null;
+        completionIndex = null;
+        upcomingIndex = null;
         return tasks;
     }
 
     /**
-     * Finds tasks that contain the specified keyword in their description.
+     * Finds tasks whose description contains a word starting with each of the given keywords.
+     * For example, "book club" matches "join the bookworm club" but not "read book".
      *
-     * @param keyword The keyword to search for.
-     * @return A new TaskList containing matching tasks.
+     * @param keyword The keywords to search for, separated by spaces.
+     * @return A new TaskList containing matching tasks, in list order.
      */
     public TaskList findTasks(String keyword) {
-        ArrayList<Task> matchingTasks = new ArrayList<>();
+        if (tokenIndex == null) {
+            tokenIndex = buildIndex(new TokenIndex());
+        }
+        return new TaskList(new ArrayList<>(tokenIndex.find(keyword)));
+    }
+
+    /**
+     * Finds the tasks whose words come closest to the given text, allowing for typos.
+     * Tasks are ranked by how many trigrams their words share with the words of the text,
+     * then by edit distance.
+     *
+     * @param text The words to search for, possibly misspelled.
+     * @param limit The most tasks to return.
+     * @return A new TaskList containing the closest tasks, best match first.
+     */
+    public TaskList findFuzzy(String text, int limit) {
+        if (trigramIndex == null) {
+            trigramIndex = buildIndex(new TrigramIndex());
+        }
+        return resolveIds(trigramIndex.find(text, limit));
+    }
+
+    /**
+     * Suggests words from task descriptions that complete the given prefix.
+     *
+     * @param prefix The start of a word.
+     * @param limit The most words to return.
+     * @return Up to limit lower-case words starting with the prefix, in alphabetical order.
+     */
+    public List<String> completeWord(String prefix, int limit) {
+        if (completionIndex == null) {
+            completionIndex = buildIndex(new CompletionIndex());
+        }
+        return completionIndex.complete(prefix.toLowerCase(Locale.ROOT), limit);
+    }
+
+    /**
+     * Looks up the tasks with the given IDs, skipping IDs no longer in the list.
+     *
+     * @param ids IDs of the tasks, in the order to return them.
+     * @return A new TaskList containing the tasks.
+     */
+    TaskList resolveIds(List<Long> ids) {
+        ArrayList<Task> found = new ArrayList<>(ids.size());
+        for (long id : ids) {
+            int index = indexOfId(id);
+            if (index >= 0) {
+                found.add(get(index));
+            }
+        }
+        return new TaskList(found);
+    }
+
+    /**
+     * Finds deadlines due and events starting or ending within the given range.
+     *
+     * @param start Start of the range, inclusive.
+     * @param end End of the range, inclusive.
+     * @return A new TaskList containing matching tasks, in time order.
+     */
+    public TaskList findBetween(LocalDateTime start, LocalDateTime end) {
+        assert !end.isBefore(start) : "Range should not end before it starts";
+        if (timeIndex == null) {
+            timeIndex = buildIndex(new TimeIndex());
+        }
+        return new TaskList(new ArrayList<>(timeIndex.findBetween(start, end)));
+    }
+
+    /**
+     * Finds the next deadlines and events that are not done yet.
+     *
+     * @param from The time to look ahead from, usually now.
+     * @param limit The most tasks to return.
+     * @return A new TaskList of up to limit deadlines due and events starting at or after the time,
+     *     soonest first.
+     */
+    public TaskList findUpcoming(LocalDateTime from, int limit) {
+        if (upcomingIndex == null) {
+            upcomingIndex = buildIndex(new UpcomingIndex());
+        }
+        return new TaskList(new ArrayList<>(upcomingIndex.findUpcoming(from, limit)));
+    }
+
+    /**
+     * Finds the events that overlap the given event.
+     *
+     * @param event Event to check against, which need not be in the list.
+     * @return A new TaskList containing overlapping events, ordered by start time.
+     */
+    public TaskList findOverlapping(Event event) {
+        return new TaskList(new ArrayList<>(getIntervalTree().findOverlapping(event)));
+    }
+
+    /**
+     * Finds every pair of overlapping events in the list.
+     *
+     * @return Pairs of overlapping events, each ordered by start time.
+     */
+    public List<Event[]> findConflicts() {
+        return getIntervalTree().findConflicts();
+    }
+
+    private IntervalTree getIntervalTree() {
+        if (intervalTree == null) {
+            intervalTree = buildIndex(new IntervalTree());
+        }
+        return intervalTree;
+    }
+
+    /**
+     * Maps a list position to the slot holding that task.
+     */
+    private int toSlot(int index) {
+        return occupiedSlots == null ? index : occupiedSlots.findSlot(index + 1);
+    }
+
+    /**
+     * Drops the empty slots left by removed tasks.
+     */
+    private void compact() {
+        if (emptySlots == 0) {
+            return;
+        }
+        tasks.removeIf(Objects::isNull);
+        emptySlots = 0;
+        occupiedSlots = null;
+        slotsById = null; // Rebuilt with the new slots on the next lookup
+    }
+
+    private void assignIds() {
+        for (Task task : tasks) {
+            if (task != null && task.getId() > 0) {
+                nextId = Math.max(nextId, task.getId() + 1);
+            }
+        }
+        for (Task task : tasks) {
+            if (task != null) {
+                assignId(task);
+            }
+        }
+    }
+
+    private void assignId(Task task) {
+        if (task.getId() == 0) {
+            task.setId(nextId++);
+        } else {
+            nextId = Math.max(nextId, task.getId() + 1);
+        }
+    }
+
+    /**
+     * Fills a new index with the current tasks and keeps it updated from then on.
+     */
+    private <T extends TaskIndex> T buildIndex(T index) {
         for (Task task : tasks) {
-            if (task.toString().toLowerCase().contains(keyword.toLowerCase())) {
-                matchingTasks.add(task);
+            if (task != null) {
+                index.add(task);
             }
         }
-        return new TaskList(matchingTasks);
+        indexes.add(index);
+        return index;
     }
 }
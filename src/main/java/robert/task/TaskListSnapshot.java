@@ -0,0 +1,724 @@
+package robert.task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Represents the tasks of a {@link ConcurrentTaskList} as they were at one version.
+ * A snapshot is never changed after it is made, so it can be read from any thread
+ * without locking, and queries on it scan the tasks.
+ *
+ * <p>The tasks are kept in chunks of up to {@value #CHUNK_SIZE}. A change copies only the chunk
+ * it touches and the small array of chunk references, and shares every other chunk with the
+ * snapshot it was made from. Tasks are never changed in place either: marking one replaces it
+ * with a marked copy.</p>
+ *
+ * <p>A snapshot made over a {@link ScanningTaskList}, such as a large list loaded lazily from disk,
+ * starts with no chunk read. Tasks in a chunk that has not been read are fetched from that base
+ * list on access, under the base list's lock, and a chunk is only read into memory once a change
+ * touches it. The base list itself is never changed.</p>
+ *
+ * <p>Each chunk comes with the lower-case descriptions of its tasks, which {@link #findTasks(String)}
+ * matches against. Once the chunks already read hold at least {@value #DEFAULT_PARALLEL_FIND_THRESHOLD}
+ * tasks, they are searched in parallel on the common ForkJoinPool, a group of chunks per job, while
+ * the calling thread scans the chunks still in the base list. The matches are merged back in list
+ * order.</p>
+ */
+public class TaskListSnapshot extends ScanningTaskList {
+    static final int CHUNK_SIZE = 64;
+    static final int DEFAULT_PARALLEL_FIND_THRESHOLD = 50_000;
+    static final TaskListSnapshot EMPTY = new TaskListSnapshot(new Task[0][], new String[0][], new int[0], new int[0],
+            null, 0, 0, true);
+    private static final int JOBS_PER_THREAD = 4;
+
+    private final Task[][] chunks; // A null chunk has not been read from the base list
+    private final String[][] keyChunks; // Lower-case description of each task, chunked like the tasks
+    private final int[] chunkEnds; // Index one past the last task of each chunk
+    private final int[] baseStarts; // Position in the base list of the first task of each chunk not read
+    private final ScanningTaskList base; // Null once every chunk has been read
+    private final int size;
+    private final long version;
+    private final boolean isSortedById;
+
+    private TaskListSnapshot(Task[][] chunks, String[][] keyChunks, int[] chunkEnds, int[] baseStarts,
+            ScanningTaskList base, int size, long version, boolean isSortedById) {
+        assert chunks.length == chunkEnds.length : "Every chunk should have an end";
+        assert chunks.length == keyChunks.length : "Every chunk should have keys";
+        assert chunks.length == baseStarts.length : "Every chunk should have a base position";
+        boolean hasUnreadChunks = false;
+        for (Task[] chunk : chunks) {
+            if (chunk == null) {
+                hasUnreadChunks = true;
+                break;
+            }
+        }
+        assert !hasUnreadChunks || base != null : "Unread chunks should have a base list";
+        this.chunks = chunks;
+        this.keyChunks = keyChunks;
+        this.chunkEnds = chunkEnds;
+        this.baseStarts = baseStarts;
+        this.base = hasUnreadChunks ? base : null;
+        this.size = size;
+        this.version = version;
+        this.isSortedById = isSortedById;
+    }
+
+    /**
+     * Returns a snapshot of the given tasks at the given version.
+     */
+    static TaskListSnapshot of(Task[] tasks, long version) {
+        boolean isSortedById = true;
+        for (int i = 1; i < tasks.length && isSortedById; i++) {
+            isSortedById = tasks[i - 1].getId() < tasks[i].getId();
+        }
+        int chunkCount = (tasks.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        Task[][] chunks = new Task[chunkCount][];
+        String[][] keyChunks = new String[chunkCount][];
+        int[] chunkEnds = new int[chunkCount];
+        for (int c = 0; c < chunkCount; c++) {
+            int end = Math.min(tasks.length, (c + 1) * CHUNK_SIZE);
+            chunks[c] = Arrays.copyOfRange(tasks, c * CHUNK_SIZE, end);
+            keyChunks[c] = keysOf(chunks[c]);
+            chunkEnds[c] = end;
+        }
+        return new TaskListSnapshot(chunks, keyChunks, chunkEnds, new int[chunkCount], null, tasks.length, version,
+                isSortedById);
+    }
+
+    /**
+     * Returns a snapshot at version 0 over the given list, without reading any of its tasks.
+     * The list must not be changed afterwards.
+     */
+    static TaskListSnapshot of(ScanningTaskList base) {
+        int size = base.size();
+        int chunkCount = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int[] chunkEnds = new int[chunkCount];
+        int[] baseStarts = new int[chunkCount];
+        for (int c = 0; c < chunkCount; c++) {
+            baseStarts[c] = c * CHUNK_SIZE;
+            chunkEnds[c] = Math.min(size, (c + 1) * CHUNK_SIZE);
+        }
+        return new TaskListSnapshot(new Task[chunkCount][], new String[chunkCount][], chunkEnds, baseStarts, base,
+                size, 0, base.isSortedById());
+    }
+
+    /**
+     * Checks whether some tasks are still fetched from the base list on access.
+     * Such tasks are not kept in memory, so the same task may come back as a different object.
+     *
+     * @return true if some chunk has not been read yet, false otherwise.
+     */
+    boolean hasUnreadChunks() {
+        return base != null;
+    }
+
+    /**
+     * Returns the version of the list this snapshot was taken at.
+     * Every change to a {@link ConcurrentTaskList} produces the next version.
+     *
+     * @return The version, starting from 0 for a new list.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the next version, with the given task appended.
+     */
+    TaskListSnapshot withAdded(Task task) {
+        boolean isSorted = isSortedById && (size == 0 || getId(size - 1) < task.getId());
+        int last = chunks.length - 1;
+        if (last >= 0 && chunkLength(last) < CHUNK_SIZE) {
+            Task[] chunk = chunk(last);
+            String[] keys = keys(last, chunk);
+            Task[][] newChunks = chunks.clone();
+            newChunks[last] = Arrays.copyOf(chunk, chunk.length + 1);
+            newChunks[last][chunk.length] = task;
+            String[][] newKeyChunks = keyChunks.clone();
+            newKeyChunks[last] = Arrays.copyOf(keys, keys.length + 1);
+            newKeyChunks[last][keys.length] = TokenIndex.keyOf(task);
+            int[] newEnds = chunkEnds.clone();
+            newEnds[last]++;
+            return new TaskListSnapshot(newChunks, newKeyChunks, newEnds, baseStarts, base, size + 1, version + 1,
+                    isSorted);
+        }
+        Task[][] newChunks = Arrays.copyOf(chunks, chunks.length + 1);
+        newChunks[chunks.length] = new Task[] {task};
+        String[][] newKeyChunks = Arrays.copyOf(keyChunks, keyChunks.length + 1);
+        newKeyChunks[keyChunks.length] = new String[] {TokenIndex.keyOf(task)};
+        int[] newEnds = Arrays.copyOf(chunkEnds, chunkEnds.length + 1);
+        newEnds[chunkEnds.length] = size + 1;
+        return new TaskListSnapshot(newChunks, newKeyChunks, newEnds, Arrays.copyOf(baseStarts, chunks.length + 1),
+                base, size + 1, version + 1, isSorted);
+    }
+
+    /**
+     * Returns the next version, with the given tasks appended. The last chunk is topped up
+     * and the rest of the tasks go into new full chunks, so earlier chunks are shared.
+     */
+    TaskListSnapshot withAddedAll(List<Task> tasks) {
+        boolean isSorted = isSortedById;
+        long lastId = size == 0 ? 0 : getId(size - 1);
+        for (int i = 0; i < tasks.size() && isSorted; i++) {
+            isSorted = lastId < tasks.get(i).getId();
+            lastId = tasks.get(i).getId();
+        }
+        int last = chunks.length - 1;
+        int topUp = last >= 0 ? Math.min(tasks.size(), CHUNK_SIZE - chunkLength(last)) : 0;
+        int newChunkCount = (tasks.size() - topUp + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        Task[][] newChunks = Arrays.copyOf(chunks, chunks.length + newChunkCount);
+        String[][] newKeyChunks = Arrays.copyOf(keyChunks, keyChunks.length + newChunkCount);
+        int[] newEnds = Arrays.copyOf(chunkEnds, chunkEnds.length + newChunkCount);
+        int next = 0;
+        if (topUp > 0) {
+            Task[] chunk = chunk(last);
+            newChunks[last] = Arrays.copyOf(chunk, chunk.length + topUp);
+            newKeyChunks[last] = Arrays.copyOf(keys(last, chunk), chunk.length + topUp);
+            for (int i = chunk.length; i < newChunks[last].length; i++) {
+                newChunks[last][i] = tasks.get(next);
+                newKeyChunks[last][i] = TokenIndex.keyOf(tasks.get(next));
+                next++;
+            }
+            newEnds[last] += topUp;
+        }
+        for (int c = chunks.length; c < newChunks.length; c++) {
+            int length = Math.min(CHUNK_SIZE, tasks.size() - next);
+            newChunks[c] = new Task[length];
+            newKeyChunks[c] = new String[length];
+            for (int i = 0; i < length; i++) {
+                newChunks[c][i] = tasks.get(next);
+                newKeyChunks[c][i] = TokenIndex.keyOf(tasks.get(next));
+                next++;
+            }
+            newEnds[c] = size + next;
+        }
+        return new TaskListSnapshot(newChunks, newKeyChunks, newEnds, Arrays.copyOf(baseStarts, newChunks.length),
+                base, size + tasks.size(), version + 1, isSorted);
+    }
+
+    /**
+     * Returns the next version, with the task inserted at the given index.
+     * Only the chunk it lands in is copied; a chunk that grows past twice the chunk size is split in two.
+     */
+    TaskListSnapshot withInserted(int index, Task task) {
+        assert index >= 0 && index <= size : "Index out of bounds in withInserted";
+        if (index == size) {
+            return withAdded(task);
+        }
+        boolean isSorted = isSortedById && (index == 0 || getId(index - 1) < task.getId())
+                && task.getId() < getId(index);
+        int c = chunkOf(index);
+        int offset = index - chunkStart(c);
+        Task[] oldChunk = chunk(c);
+        String[] oldKeys = keys(c, oldChunk);
+        Task[] chunk = new Task[oldChunk.length + 1];
+        String[] keys = new String[chunk.length];
+        System.arraycopy(oldChunk, 0, chunk, 0, offset);
+        System.arraycopy(oldKeys, 0, keys, 0, offset);
+        chunk[offset] = task;
+        keys[offset] = TokenIndex.keyOf(task);
+        System.arraycopy(oldChunk, offset, chunk, offset + 1, oldChunk.length - offset);
+        System.arraycopy(oldKeys, offset, keys, offset + 1, oldChunk.length - offset);
+        int parts = chunk.length > 2 * CHUNK_SIZE ? 2 : 1;
+        Task[][] newChunks = new Task[chunks.length + parts - 1][];
+        String[][] newKeyChunks = new String[chunks.length + parts - 1][];
+        int[] newEnds = new int[chunks.length + parts - 1];
+        int[] newBaseStarts = new int[chunks.length + parts - 1];
+        System.arraycopy(chunks, 0, newChunks, 0, c);
+        System.arraycopy(keyChunks, 0, newKeyChunks, 0, c);
+        System.arraycopy(chunkEnds, 0, newEnds, 0, c);
+        System.arraycopy(baseStarts, 0, newBaseStarts, 0, c);
+        if (parts == 1) {
+            newChunks[c] = chunk;
+            newKeyChunks[c] = keys;
+        } else {
+            newChunks[c] = Arrays.copyOfRange(chunk, 0, CHUNK_SIZE);
+            newKeyChunks[c] = Arrays.copyOfRange(keys, 0, CHUNK_SIZE);
+            newChunks[c + 1] = Arrays.copyOfRange(chunk, CHUNK_SIZE, chunk.length);
+            newKeyChunks[c + 1] = Arrays.copyOfRange(keys, CHUNK_SIZE, chunk.length);
+            newEnds[c] = chunkStart(c) + CHUNK_SIZE;
+        }
+        System.arraycopy(chunks, c + 1, newChunks, c + parts, chunks.length - c - 1);
+        System.arraycopy(keyChunks, c + 1, newKeyChunks, c + parts, chunks.length - c - 1);
+        System.arraycopy(baseStarts, c + 1, newBaseStarts, c + parts, chunks.length - c - 1);
+        for (int i = c; i < chunkEnds.length; i++) {
+            newEnds[i + parts - 1] = chunkEnds[i] + 1;
+        }
+        return new TaskListSnapshot(newChunks, newKeyChunks, newEnds, newBaseStarts, base, size + 1, version + 1,
+                isSorted);
+    }
+
+    /**
+     * Returns the next version, without the task at the given index.
+     * The chunks are rebuilt once removals have left them less than half full on average.
+     */
+    TaskListSnapshot withRemoved(int index) {
+        assert index >= 0 && index < size : "Index out of bounds in withRemoved";
+        int c = chunkOf(index);
+        int offset = index - chunkStart(c);
+        Task[][] newChunks;
+        String[][] newKeyChunks;
+        int[] newEnds;
+        int[] newBaseStarts;
+        if (chunkLength(c) == 1) {
+            newChunks = withoutElement(chunks, c, new Task[chunks.length - 1][]);
+            newKeyChunks = withoutElement(keyChunks, c, new String[chunks.length - 1][]);
+            newEnds = new int[chunks.length - 1];
+            System.arraycopy(chunkEnds, 0, newEnds, 0, c);
+            System.arraycopy(chunkEnds, c + 1, newEnds, c, newEnds.length - c);
+            newBaseStarts = new int[chunks.length - 1];
+            System.arraycopy(baseStarts, 0, newBaseStarts, 0, c);
+            System.arraycopy(baseStarts, c + 1, newBaseStarts, c, newBaseStarts.length - c);
+        } else {
+            Task[] chunk = chunk(c);
+            newChunks = chunks.clone();
+            newChunks[c] = withoutElement(chunk, offset, new Task[chunk.length - 1]);
+            newKeyChunks = keyChunks.clone();
+            newKeyChunks[c] = withoutElement(keys(c, chunk), offset, new String[chunk.length - 1]);
+            newEnds = chunkEnds.clone();
+            newBaseStarts = baseStarts;
+        }
+        for (int i = c; i < newEnds.length; i++) {
+            newEnds[i]--;
+        }
+        TaskListSnapshot removed = new TaskListSnapshot(newChunks, newKeyChunks, newEnds, newBaseStarts, base,
+                size - 1, version + 1, isSortedById);
+        if (newChunks.length > 2 * ((size - 1) / CHUNK_SIZE + 1)) {
+            return removed.rechunked();
+        }
+        return removed;
+    }
+
+    /**
+     * Returns the next version, without the tasks at the given indexes.
+     * The chunks are swept once: untouched chunks are shared, emptied ones are dropped
+     * and the rest are copied without the removed tasks.
+     */
+    TaskListSnapshot withRemovedAll(int[] indices) {
+        Task[][] newChunks = new Task[chunks.length][];
+        String[][] newKeyChunks = new String[chunks.length][];
+        int[] newEnds = new int[chunks.length];
+        int[] newBaseStarts = new int[chunks.length];
+        int chunkCount = 0;
+        int newSize = 0;
+        int next = 0;
+        for (int c = 0; c < chunks.length; c++) {
+            int start = chunkStart(c);
+            int first = next;
+            while (next < indices.length && indices[next] < chunkEnds[c]) {
+                assert next == 0 || indices[next - 1] < indices[next] : "Indexes should be increasing";
+                next++;
+            }
+            int removedCount = next - first;
+            if (removedCount == chunkLength(c)) {
+                continue;
+            }
+            if (removedCount == 0) {
+                newChunks[chunkCount] = chunks[c];
+                newKeyChunks[chunkCount] = keyChunks[c];
+                newBaseStarts[chunkCount] = baseStarts[c];
+            } else {
+                Task[] oldChunk = chunk(c);
+                String[] oldKeys = keys(c, oldChunk);
+                Task[] chunk = new Task[oldChunk.length - removedCount];
+                String[] keys = new String[chunk.length];
+                int kept = 0;
+                int removed = first;
+                for (int i = 0; i < oldChunk.length; i++) {
+                    if (removed < next && indices[removed] == start + i) {
+                        removed++;
+                    } else {
+                        chunk[kept] = oldChunk[i];
+                        keys[kept++] = oldKeys[i];
+                    }
+                }
+                newChunks[chunkCount] = chunk;
+                newKeyChunks[chunkCount] = keys;
+            }
+            newSize += chunkLength(c) - removedCount;
+            newEnds[chunkCount++] = newSize;
+        }
+        assert next == indices.length : "Index out of bounds in withRemovedAll";
+        TaskListSnapshot removed = new TaskListSnapshot(Arrays.copyOf(newChunks, chunkCount),
+                Arrays.copyOf(newKeyChunks, chunkCount), Arrays.copyOf(newEnds, chunkCount),
+                Arrays.copyOf(newBaseStarts, chunkCount), base, newSize, version + 1, isSortedById);
+        if (chunkCount > 2 * ((newSize - 1) / CHUNK_SIZE + 1)) {
+            return removed.rechunked();
+        }
+        return removed;
+    }
+
+    /**
+     * Returns this version with each run of read chunks packed into full chunks.
+     * Chunks that have not been read are kept as they are, so nothing is read from the base list.
+     */
+    private TaskListSnapshot rechunked() {
+        int capacity = chunks.length + size / CHUNK_SIZE + 1;
+        Task[][] newChunks = new Task[capacity][];
+        String[][] newKeyChunks = new String[capacity][];
+        int[] newEnds = new int[capacity];
+        int[] newBaseStarts = new int[capacity];
+        int chunkCount = 0;
+        int c = 0;
+        while (c < chunks.length) {
+            if (chunks[c] == null) {
+                newBaseStarts[chunkCount] = baseStarts[c];
+                newEnds[chunkCount++] = chunkEnds[c];
+                c++;
+                continue;
+            }
+            int runStart = chunkStart(c);
+            int runEnd = c;
+            while (runEnd < chunks.length && chunks[runEnd] != null) {
+                runEnd++;
+            }
+            Task[] tasks = new Task[chunkEnds[runEnd - 1] - runStart];
+            String[] keys = new String[tasks.length];
+            for (int position = 0; c < runEnd; c++) {
+                System.arraycopy(chunks[c], 0, tasks, position, chunks[c].length);
+                System.arraycopy(keyChunks[c], 0, keys, position, chunks[c].length);
+                position += chunks[c].length;
+            }
+            for (int from = 0; from < tasks.length; from += CHUNK_SIZE) {
+                int to = Math.min(tasks.length, from + CHUNK_SIZE);
+                newChunks[chunkCount] = Arrays.copyOfRange(tasks, from, to);
+                newKeyChunks[chunkCount] = Arrays.copyOfRange(keys, from, to);
+                newEnds[chunkCount++] = runStart + to;
+            }
+        }
+        return new TaskListSnapshot(Arrays.copyOf(newChunks, chunkCount), Arrays.copyOf(newKeyChunks, chunkCount),
+                Arrays.copyOf(newEnds, chunkCount), Arrays.copyOf(newBaseStarts, chunkCount), base, size, version,
+                isSortedById);
+    }
+
+    /**
+     * Returns the next version, with the tasks at the given indexes replaced by copies
+     * that are marked as done or not done. Each chunk touched is copied once.
+     */
+    TaskListSnapshot withStatuses(int[] indices, boolean isDone) {
+        Task[][] newChunks = chunks.clone();
+        String[][] newKeyChunks = keyChunks;
+        int copiedChunk = -1;
+        for (int index : indices) {
+            assert index >= 0 && index < size : "Index out of bounds in withStatuses";
+            int c = chunkOf(index);
+            if (c != copiedChunk) {
+                if (chunks[c] == null) {
+                    if (newKeyChunks == keyChunks) {
+                        newKeyChunks = keyChunks.clone();
+                    }
+                    newChunks[c] = chunk(c);
+                    newKeyChunks[c] = keys(c, newChunks[c]);
+                } else {
+                    newChunks[c] = chunks[c].clone();
+                }
+                copiedChunk = c;
+            }
+            Task copy = copyOf(newChunks[c][index - chunkStart(c)]);
+            if (isDone) {
+                copy.markAsDone();
+            } else {
+                copy.markAsNotDone();
+            }
+            newChunks[c][index - chunkStart(c)] = copy;
+        }
+        return new TaskListSnapshot(newChunks, newKeyChunks, chunkEnds, baseStarts, base, size, version + 1,
+                isSortedById);
+    }
+
+    /**
+     * Returns the next version, with the task at the given index replaced by a copy
+     * that is marked as done or not done.
+     */
+    TaskListSnapshot withStatus(int index, boolean isDone) {
+        return withStatuses(new int[] {index}, isDone);
+    }
+
+    /**
+     * Finds tasks with a word starting with each keyword, in parallel if the list is large.
+     *
+     * @param keyword The keywords to search for, separated by spaces.
+     * @return A new TaskList containing matching tasks, in list order.
+     */
+    @Override
+    public TaskList findTasks(String keyword) {
+        return findTasks(keyword, DEFAULT_PARALLEL_FIND_THRESHOLD, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Finds tasks with a word starting with each keyword, splitting the search across the pool
+     * if the chunks already read hold at least the given number of tasks. Only those chunks go to
+     * the pool, a group per job; chunks still in the base list are scanned on the calling thread
+     * meanwhile, since reading them takes the base list's lock.
+     */
+    TaskList findTasks(String keyword, int parallelThreshold, ForkJoinPool pool) {
+        List<String> terms = TokenIndex.tokenize(keyword);
+        if (terms.isEmpty()) {
+            return new TaskList(new ArrayList<>());
+        }
+        int[] readChunks = new int[chunks.length];
+        int readChunkCount = 0;
+        int readTaskCount = 0;
+        for (int c = 0; c < chunks.length; c++) {
+            if (chunks[c] != null) {
+                readChunks[readChunkCount++] = c;
+                readTaskCount += chunks[c].length;
+            }
+        }
+        if (readTaskCount < parallelThreshold || pool.getParallelism() == 1) {
+            return new TaskList(findInChunks(terms, 0, chunks.length));
+        }
+        Task[][] found = new Task[chunks.length][]; // Matches in each chunk, or null if none
+        int jobCount = Math.min(readChunkCount, pool.getParallelism() * JOBS_PER_THREAD);
+        List<ForkJoinTask<?>> jobs = new ArrayList<>(jobCount);
+        for (int j = 0; j < jobCount; j++) {
+            int from = (int) ((long) readChunkCount * j / jobCount);
+            int to = (int) ((long) readChunkCount * (j + 1) / jobCount);
+            jobs.add(pool.submit(() -> {
+                for (int k = from; k < to; k++) {
+                    found[readChunks[k]] = findInChunk(terms, readChunks[k]);
+                }
+            }));
+        }
+        for (int c = 0; c < chunks.length; c++) {
+            if (chunks[c] == null) {
+                found[c] = findInChunk(terms, c);
+            }
+        }
+        for (ForkJoinTask<?> job : jobs) {
+            job.join();
+        }
+        ArrayList<Task> matchingTasks = new ArrayList<>();
+        for (Task[] matches : found) {
+            if (matches != null) {
+                matchingTasks.addAll(Arrays.asList(matches));
+            }
+        }
+        return new TaskList(matchingTasks);
+    }
+
+    /**
+     * Returns the matching tasks of one chunk, or null if there are none.
+     */
+    private Task[] findInChunk(List<String> terms, int c) {
+        ArrayList<Task> matches = findInChunks(terms, c, c + 1);
+        return matches.isEmpty() ? null : matches.toArray(new Task[0]);
+    }
+
+    private ArrayList<Task> findInChunks(List<String> terms, int fromChunk, int toChunk) {
+        ArrayList<Task> matchingTasks = new ArrayList<>();
+        for (int c = fromChunk; c < toChunk; c++) {
+            Task[] chunk = chunk(c);
+            String[] keys = keys(c, chunk);
+            for (int i = 0; i < keys.length; i++) {
+                if (TokenIndex.matchesKey(keys[i], terms)) {
+                    matchingTasks.add(chunk[i]);
+                }
+            }
+        }
+        return matchingTasks;
+    }
+
+    @Override
+    public void add(Task task) {
+        throw new UnsupportedOperationException("Task list snapshots cannot be changed");
+    }
+
+    @Override
+    public void insert(int index, Task task) {
+        throw new UnsupportedOperationException("Task list snapshots cannot be changed");
+    }
+
+    @Override
+    public Task remove(int index) {
+        throw new UnsupportedOperationException("Task list snapshots cannot be changed");
+    }
+
+    @Override
+    public void markTask(int index) {
+        throw new UnsupportedOperationException("Task list snapshots cannot be changed");
+    }
+
+    @Override
+    public void unmarkTask(int index) {
+        throw new UnsupportedOperationException("Task list snapshots cannot be changed");
+    }
+
+    @Override
+    public Task get(int index) {
+        assert index >= 0 && index < size : "Index out of bounds in get";
+        int c = chunkOf(index);
+        if (chunks[c] == null) {
+            synchronized (base) {
+                return base.get(baseStarts[c] + index - chunkStart(c));
+            }
+        }
+        return chunks[c][index - chunkStart(c)];
+    }
+
+    @Override
+    long getId(int index) {
+        assert index >= 0 && index < size : "Index out of bounds in getId";
+        int c = chunkOf(index);
+        if (chunks[c] == null) {
+            synchronized (base) {
+                return base.getId(baseStarts[c] + index - chunkStart(c));
+            }
+        }
+        return chunks[c][index - chunkStart(c)].getId();
+    }
+
+    @Override
+    boolean isSortedById() {
+        return isSortedById;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the position of the task with the given ID, by bisection while the IDs increase
+     * along the list and by a scan otherwise. A snapshot keeps no map of its IDs, since each version
+     * would need its own; {@link ConcurrentTaskList} looks IDs up in its index instead.
+     *
+     * @param id ID of the task.
+     * @return Zero-based position of the task, or -1 if no task has the ID.
+     */
+    @Override
+    public int indexOfId(long id) {
+        if (!isSortedById) {
+            for (int i = 0; i < size; i++) {
+                if (getId(i) == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleId = getId(middle);
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns every task in a new list, copying the chunks directly.
+     *
+     * @return ArrayList of tasks.
+     */
+    @Override
+    public ArrayList<Task> getTasks() {
+        return new ArrayList<>(Arrays.asList(toArray()));
+    }
+
+    private Task[] toArray() {
+        Task[] tasks = new Task[size];
+        int position = 0;
+        for (int c = 0; c < chunks.length; c++) {
+            Task[] chunk = chunk(c);
+            System.arraycopy(chunk, 0, tasks, position, chunk.length);
+            position += chunk.length;
+        }
+        return tasks;
+    }
+
+    /**
+     * Finds the chunk holding the task at the given index.
+     */
+    private int chunkOf(int index) {
+        int low = 0;
+        int high = chunkEnds.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (chunkEnds[middle] <= index) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int chunkStart(int chunk) {
+        return chunk == 0 ? 0 : chunkEnds[chunk - 1];
+    }
+
+    private int chunkLength(int chunk) {
+        return chunkEnds[chunk] - chunkStart(chunk);
+    }
+
+    /**
+     * Returns the tasks of a chunk, fetching them from the base list if the chunk has not been read.
+     * A chunk fetched here is not kept, so callers that change it must store it in the next version.
+     */
+    private Task[] chunk(int c) {
+        if (chunks[c] != null) {
+            return chunks[c];
+        }
+        Task[] chunk = new Task[chunkLength(c)];
+        synchronized (base) {
+            for (int i = 0; i < chunk.length; i++) {
+                chunk[i] = base.get(baseStarts[c] + i);
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Returns the keys of a chunk, given the tasks that {@link #chunk(int)} returned for it.
+     */
+    private String[] keys(int c, Task[] chunk) {
+        return keyChunks[c] != null ? keyChunks[c] : keysOf(chunk);
+    }
+
+    private static String[] keysOf(Task[] tasks) {
+        String[] keys = new String[tasks.length];
+        for (int i = 0; i < tasks.length; i++) {
+            keys[i] = TokenIndex.keyOf(tasks[i]);
+        }
+        return keys;
+    }
+
+    /**
+     * Copies the given array into the target, leaving out one element.
+     */
+    private static <T> T[] withoutElement(T[] source, int index, T[] target) {
+        System.arraycopy(source, 0, target, 0, index);
+        System.arraycopy(source, index + 1, target, index, target.length - index);
+        return target;
+    }
+
+    private static Task copyOf(Task task) {
+        Task copy;
+        if (task instanceof Deadline) {
+            copy = new Deadline(task.getDescription(), ((Deadline) task).getBy());
+        } else if (task instanceof Event) {
+            copy = new Event(task.getDescription(), ((Event) task).getFrom(), ((Event) task).getTo());
+        } else if (task instanceof Todo) {
+            copy = new Todo(task.getDescription());
+        } else {
+            copy = new Task(task.getDescription(), task.getType());
+        }
+        if (task.isDone()) {
+            copy.markAsDone();
+        }
+        if (task.getId() > 0) {
+            copy.setId(task.getId());
+        }
+        return copy;
+    }
+}
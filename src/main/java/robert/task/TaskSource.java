@@ -0,0 +1,18 @@
+package robert.task;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Represents a store that tasks can be decoded from on demand, such as a snapshot file.
+ */
+public interface TaskSource extends Closeable {
+    /**
+     * Decodes the task stored at the given offset.
+     *
+     * @param offset Offset of the task record in the store.
+     * @return The decoded task.
+     * @throws IOException If the record cannot be read.
+     */
+    Task read(long offset) throws IOException;
+}
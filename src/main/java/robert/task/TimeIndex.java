@@ -0,0 +1,115 @@
+package robert.task;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Sorted index of deadlines by due time and events by start and end time,
+ * keyed by minutes since the epoch.
+ */
+class TimeIndex implements TaskIndex {
+    private final TreeMap<Long, ArrayList<Task>> byMinute = new TreeMap<>();
+
+    @Override
+    public void add(Task task) {
+        for (LocalDateTime time : timesOf(task)) {
+            byMinute.computeIfAbsent(toEpochMinute(time), key -> new ArrayList<>(1)).add(task);
+        }
+    }
+
+    @Override
+    public void remove(Task task) {
+        for (LocalDateTime time : timesOf(task)) {
+            long minute = toEpochMinute(time);
+            ArrayList<Task> bucket = byMinute.get(minute);
+            if (bucket == null) {
+                continue;
+            }
+            for (int i = 0; i < bucket.size(); i++) {
+                if (bucket.get(i) == task) {
+                    bucket.remove(i);
+                    break;
+                }
+            }
+            if (bucket.isEmpty()) {
+                byMinute.remove(minute);
+            }
+        }
+    }
+
+    /**
+     * Replaces a task with a copy that has the same times, keeping its place among tasks at the same minute.
+     */
+    @Override
+    public void replace(Task before, Task after) {
+        for (LocalDateTime time : timesOf(before)) {
+            ArrayList<Task> bucket = byMinute.get(toEpochMinute(time));
+            assert bucket != null : "Replaced task should be in the index";
+            for (int i = 0; i < bucket.size(); i++) {
+                if (bucket.get(i) == before) {
+                    bucket.set(i, after);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns deadlines due and events starting or ending within the given range, in time order.
+     *
+     * @param start Start of the range, inclusive.
+     * @param end End of the range, inclusive.
+     * @return Matching tasks.
+     */
+    List<Task> findBetween(LocalDateTime start, LocalDateTime end) {
+        ArrayList<Task> matches = new ArrayList<>();
+        IdentityHashMap<Task, Boolean> seen = new IdentityHashMap<>();
+        for (ArrayList<Task> bucket : byMinute.subMap(toEpochMinute(start), true, toEpochMinute(end), true).values()) {
+            for (Task task : bucket) {
+                if (seen.put(task, Boolean.TRUE) == null) {
+                    matches.add(task);
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Checks whether a task falls within the given range, as {@link #findBetween} would find it.
+     *
+     * @param task Task to check.
+     * @param start Start of the range, inclusive.
+     * @param end End of the range, inclusive.
+     * @return true if the task falls within the range, false otherwise.
+     */
+    static boolean isBetween(Task task, LocalDateTime start, LocalDateTime end) {
+        for (LocalDateTime time : timesOf(task)) {
+            if (!time.isBefore(start) && !time.isAfter(end)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<LocalDateTime> timesOf(Task task) {
+        if (task instanceof Deadline) {
+            return List.of(((Deadline) task).getBy());
+        } else if (task instanceof Event) {
+            Event event = (Event) task;
+            return List.of(event.getFrom(), event.getTo());
+        }
+        return List.of();
+    }
+
+    static long toEpochMinute(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    static LocalDateTime fromEpochMinute(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,235 @@
+package robert.task;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Inverted index from description tokens to the tasks containing them.
+ *
+ * <p>A token is a run of letters or digits, compared in lower case. Each query keyword
+ * matches tasks with a token that starts with it, and a task must match every keyword.
+ * Each task gets an ordinal when it is added, and matches are returned in ordinal order,
+ * which is also list order. Ordinals are handed out with wide gaps, so a task put back between
+ * two others can take an ordinal between theirs.</p>
+ */
+class TokenIndex implements TaskIndex {
+    private static final long ORDINAL_GAP = 1L << 20;
+
+    private final TreeMap<String, LinkedHashSet<Task>> postings = new TreeMap<>();
+    private final IdentityHashMap<Task, Long> ordinals = new IdentityHashMap<>();
+    private long lastOrdinal;
+
+    @Override
+    public void add(Task task) {
+        lastOrdinal += ORDINAL_GAP;
+        put(task, lastOrdinal);
+    }
+
+    /**
+     * Adds a task with an ordinal halfway between those of its neighbours in the list.
+     * Once there is no room left between them, every ordinal is spread out again first.
+     */
+    @Override
+    public void insert(Task task, Task previous, Task next) {
+        assert ordinals.containsKey(next) && (previous == null || ordinals.containsKey(previous))
+                : "Neighbours should be in the index";
+        if (previous != null && ordinals.get(next) - ordinals.get(previous) < 2) {
+            renumber();
+        }
+        long upper = ordinals.get(next);
+        long lower = previous == null ? upper - ORDINAL_GAP : ordinals.get(previous);
+        put(task, lower + (upper - lower) / 2);
+    }
+
+    private void put(Task task, long ordinal) {
+        ordinals.put(task, ordinal);
+        for (String token : tokenize(task.getDescription())) {
+            postings.computeIfAbsent(token, key -> new LinkedHashSet<>()).add(task);
+        }
+    }
+
+    /**
+     * Hands out the ordinals again in the same order, with full gaps between them.
+     */
+    private void renumber() {
+        ArrayList<Map.Entry<Task, Long>> entries = new ArrayList<>(ordinals.entrySet());
+        entries.sort(Map.Entry.comparingByValue());
+        lastOrdinal = 0;
+        for (Map.Entry<Task, Long> entry : entries) {
+            lastOrdinal += ORDINAL_GAP;
+            ordinals.put(entry.getKey(), lastOrdinal);
+        }
+    }
+
+    @Override
+    public void remove(Task task) {
+        if (ordinals.remove(task) == null) {
+            return;
+        }
+        for (String token : tokenize(task.getDescription())) {
+            LinkedHashSet<Task> posting = postings.get(token);
+            if (posting != null) {
+                posting.remove(task);
+                if (posting.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces a task with a copy that has the same description, keeping its place in list order.
+     */
+    @Override
+    public void replace(Task before, Task after) {
+        Long ordinal = ordinals.get(before);
+        if (ordinal == null) {
+            return;
+        }
+        remove(before);
+        put(after, ordinal);
+    }
+
+    /**
+     * Returns the tasks matching every keyword of the query, in list order.
+     *
+     * @param query Keywords separated by spaces or punctuation.
+     * @return Matching tasks.
+     */
+    List<Task> find(String query) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // Start from the most selective keyword and filter its candidates by the others
+        SortedMap<String, LinkedHashSet<Task>> narrowest = null;
+        long narrowestCount = Long.MAX_VALUE;
+        for (String term : terms) {
+            SortedMap<String, LinkedHashSet<Task>> range = postings.subMap(term, term + Character.MAX_VALUE);
+            long count = countUpTo(range.values(), narrowestCount);
+            if (count < narrowestCount) {
+                narrowest = range;
+                narrowestCount = count;
+            }
+        }
+        assert narrowest != null : "At least one keyword should have been considered";
+
+        ArrayList<Task> candidates = new ArrayList<>();
+        if (narrowest.size() == 1) {
+            candidates.addAll(narrowest.values().iterator().next());
+        } else {
+            IdentityHashMap<Task, Boolean> seen = new IdentityHashMap<>();
+            for (LinkedHashSet<Task> posting : narrowest.values()) {
+                for (Task task : posting) {
+                    if (seen.put(task, Boolean.TRUE) == null) {
+                        candidates.add(task);
+                    }
+                }
+            }
+        }
+        candidates.sort((task1, task2) -> Long.compare(ordinals.get(task1), ordinals.get(task2)));
+
+        ArrayList<Task> matches = new ArrayList<>();
+        for (Task task : candidates) {
+            if (terms.size() == 1 || matches(task, terms)) {
+                matches.add(task);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Checks whether a task has a token starting with each of the given keywords.
+     *
+     * @param task Task to check.
+     * @param terms Lower-case keywords.
+     * @return true if every keyword matches, false otherwise.
+     */
+    static boolean matches(Task task, List<String> terms) {
+        List<String> tokens = tokenize(task.getDescription());
+        for (String term : terms) {
+            boolean isFound = false;
+            for (String token : tokens) {
+                if (token.startsWith(term)) {
+                    isFound = true;
+                    break;
+                }
+            }
+            if (!isFound) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the key that {@link #matchesKey(String, List)} matches keywords against.
+     *
+     * @param task Task to make the key for.
+     * @return The task description in lower case.
+     */
+    static String keyOf(Task task) {
+        return task.getDescription().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Checks whether a task key has a token starting with each of the given keywords.
+     * Gives the same result as {@link #matches(Task, List)} without splitting the key into tokens.
+     *
+     * @param key Key of the task, from {@link #keyOf(Task)}.
+     * @param terms Lower-case keywords, from {@link #tokenize(String)}.
+     * @return true if every keyword matches, false otherwise.
+     */
+    static boolean matchesKey(String key, List<String> terms) {
+        for (String term : terms) {
+            int position = key.indexOf(term);
+            while (position > 0 && Character.isLetterOrDigit(key.charAt(position - 1))) {
+                position = key.indexOf(term, position + 1);
+            }
+            if (position < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Splits text into lower-case tokens of letters and digits.
+     *
+     * @param text Text to split.
+     * @return The tokens, in order of appearance.
+     */
+    static List<String> tokenize(String text) {
+        ArrayList<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean isWordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (isWordChar && start < 0) {
+                start = i;
+            } else if (!isWordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static long countUpTo(Collection<LinkedHashSet<Task>> postingSets, long limit) {
+        long count = 0;
+        for (LinkedHashSet<Task> posting : postingSets) {
+            count += posting.size();
+            if (count >= limit) {
+                break;
+            }
+        }
+        return count;
+    }
+}
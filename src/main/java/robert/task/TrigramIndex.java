@@ -0,0 +1,237 @@
+package robert.task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trigram index over the words of task descriptions, for finding tasks despite typos.
+ *
+ * <p>Words are tokenized as in {@link TokenIndex} and padded with two spaces in front and one
+ * behind, so "book" has the trigrams "  b", " bo", "boo", "ook" and "ok ". Each trigram maps to
+ * the distinct words containing it, and each word to the sorted IDs of the tasks containing it. A query
+ * word is compared against the vocabulary rather than against every task: words sharing a
+ * trigram with it are ranked by trigram overlap and then by edit distance, and only the tasks
+ * of the closest words are scored.</p>
+ */
+class TrigramIndex implements TaskIndex {
+    private static final int CANDIDATE_WORDS = 16; // Closest words considered per query word
+    private static final int TASKS_PER_WORD = 256; // Tasks scored per candidate word
+
+    private final HashMap<Long, HashSet<String>> wordsByTrigram = new HashMap<>();
+    private final HashMap<String, IdList> idsByWord = new HashMap<>();
+
+    /**
+     * Sorted, growable array of task IDs. IDs are usually added in increasing order,
+     * so most additions go at the end.
+     */
+    private static class IdList {
+        private long[] ids = new long[2];
+        private int size;
+
+        void add(long id) {
+            int position = size == 0 || ids[size - 1] < id ? size : Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0 && position < size) {
+                return; // Already present
+            }
+            position = position < 0 ? -position - 1 : position;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            return true;
+        }
+    }
+
+    /**
+     * Holds how well a vocabulary word matches one query word.
+     */
+    private static class WordMatch {
+        private final String word;
+        private final int overlap;
+        private final int distance;
+
+        WordMatch(String word, int overlap, int distance) {
+            this.word = word;
+            this.overlap = overlap;
+            this.distance = distance;
+        }
+    }
+
+    @Override
+    public void add(Task task) {
+        assert task.getId() > 0 : "Indexed tasks should have IDs";
+        for (String word : new HashSet<>(TokenIndex.tokenize(task.getDescription()))) {
+            IdList ids = idsByWord.get(word);
+            if (ids == null) {
+                ids = new IdList();
+                idsByWord.put(word, ids);
+                for (long trigram : trigramsOf(word)) {
+                    wordsByTrigram.computeIfAbsent(trigram, key -> new HashSet<>()).add(word);
+                }
+            }
+            ids.add(task.getId());
+        }
+    }
+
+    @Override
+    public void remove(Task task) {
+        for (String word : new HashSet<>(TokenIndex.tokenize(task.getDescription()))) {
+            IdList ids = idsByWord.get(word);
+            if (ids == null || !ids.remove(task.getId()) || ids.size > 0) {
+                continue;
+            }
+            idsByWord.remove(word);
+            for (long trigram : trigramsOf(word)) {
+                HashSet<String> words = wordsByTrigram.get(trigram);
+                words.remove(word);
+                if (words.isEmpty()) {
+                    wordsByTrigram.remove(trigram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the IDs of the tasks that best match the words of the query.
+     * A task scores, for each query word, the overlap and edit distance of its closest word;
+     * tasks are ranked by total overlap, then by total distance, then by ID.
+     *
+     * @param query Words to look for, possibly misspelled.
+     * @param limit Most IDs to return.
+     * @return IDs of the best matching tasks, best first.
+     */
+    List<Long> find(String query, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(TokenIndex.tokenize(query)));
+        HashMap<Long, int[]> scores = new HashMap<>(); // Overlap and distance for each query word
+        for (int t = 0; t < terms.size(); t++) {
+            String term = terms.get(t);
+            for (WordMatch match : findClosestWords(term)) {
+                IdList ids = idsByWord.get(match.word);
+                for (int i = 0; i < ids.size && i < TASKS_PER_WORD; i++) {
+                    long id = ids.ids[i];
+                    int[] score = scores.computeIfAbsent(id, key -> new int[2 * terms.size()]);
+                    if (match.overlap > score[2 * t]
+                            || match.overlap == score[2 * t] && match.distance < score[2 * t + 1]) {
+                        score[2 * t] = match.overlap;
+                        score[2 * t + 1] = match.distance;
+                    }
+                }
+            }
+        }
+
+        ArrayList<long[]> ranked = new ArrayList<>(scores.size());
+        for (Map.Entry<Long, int[]> entry : scores.entrySet()) {
+            long overlap = 0;
+            long distance = 0;
+            int[] score = entry.getValue();
+            for (int t = 0; t < terms.size(); t++) {
+                overlap += score[2 * t];
+                distance += score[2 * t] > 0 ? score[2 * t + 1] : terms.get(t).length();
+            }
+            ranked.add(new long[] {entry.getKey(), overlap, distance});
+        }
+        ranked.sort(Comparator.<long[]>comparingLong(entry -> -entry[1])
+                .thenComparingLong(entry -> entry[2])
+                .thenComparingLong(entry -> entry[0]));
+        ArrayList<Long> ids = new ArrayList<>();
+        for (int i = 0; i < ranked.size() && i < limit; i++) {
+            ids.add(ranked.get(i)[0]);
+        }
+        return ids;
+    }
+
+    /**
+     * Finds the vocabulary words closest to a query word.
+     * Words sharing at least one trigram with it and within a small edit distance qualify.
+     */
+    private List<WordMatch> findClosestWords(String term) {
+        HashMap<String, Integer> overlaps = new HashMap<>();
+        for (long trigram : new HashSet<>(trigramsOf(term))) {
+            HashSet<String> words = wordsByTrigram.get(trigram);
+            if (words != null) {
+                for (String word : words) {
+                    overlaps.merge(word, 1, Integer::sum);
+                }
+            }
+        }
+        int maxDistance = Math.max(1, term.length() / 3);
+        ArrayList<WordMatch> matches = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : overlaps.entrySet()) {
+            int distance = editDistance(term, entry.getKey(), maxDistance);
+            if (distance <= maxDistance) {
+                matches.add(new WordMatch(entry.getKey(), entry.getValue(), distance));
+            }
+        }
+        matches.sort(Comparator.<WordMatch>comparingInt(match -> -match.overlap)
+                .thenComparingInt(match -> match.distance)
+                .thenComparing(match -> match.word));
+        return matches.subList(0, Math.min(CANDIDATE_WORDS, matches.size()));
+    }
+
+    /**
+     * Splits a word into its padded trigrams, each packed into a long.
+     */
+    static List<Long> trigramsOf(String word) {
+        String padded = "  " + word + " ";
+        ArrayList<Long> trigrams = new ArrayList<>(padded.length() - 2);
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add((long) padded.charAt(i) << 32 | (long) padded.charAt(i + 1) << 16 | padded.charAt(i + 2));
+        }
+        return trigrams;
+    }
+
+    /**
+     * Computes the edit distance between two words, counting an insertion, deletion, substitution
+     * or swap of two adjacent letters as one edit, and giving up once it must exceed the limit.
+     *
+     * @return The distance, or limit + 1 if it is larger than the limit.
+     */
+    static int editDistance(String a, String b, int limit) {
+        if (Math.abs(a.length() - b.length()) > limit) {
+            return limit + 1;
+        }
+        int[] beforePrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], beforePrevious[j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] swap = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], limit + 1);
+    }
+}
@@ -0,0 +1,93 @@
+package robert.task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Sorted index of the deadlines and events that are not done yet, keyed by the minute
+ * a deadline is due or an event starts. Tasks leave the index when marked as done
+ * and come back when unmarked, so finding the next k takes O(log n + k).
+ */
+class UpcomingIndex implements TaskIndex {
+    private final TreeMap<Long, ArrayList<Task>> byMinute = new TreeMap<>();
+
+    @Override
+    public void add(Task task) {
+        if (task.isDone() || !(task instanceof Deadline || task instanceof Event)) {
+            return;
+        }
+        ArrayList<Task> bucket = byMinute.computeIfAbsent(keyOf(task), key -> new ArrayList<>(1));
+        for (Task other : bucket) {
+            if (other == task) {
+                return;
+            }
+        }
+        bucket.add(task);
+    }
+
+    @Override
+    public void remove(Task task) {
+        if (!(task instanceof Deadline || task instanceof Event)) {
+            return;
+        }
+        long minute = keyOf(task);
+        ArrayList<Task> bucket = byMinute.get(minute);
+        if (bucket == null) {
+            return;
+        }
+        for (int i = 0; i < bucket.size(); i++) {
+            if (bucket.get(i) == task) {
+                bucket.remove(i);
+                break;
+            }
+        }
+        if (bucket.isEmpty()) {
+            byMinute.remove(minute);
+        }
+    }
+
+    @Override
+    public void statusChanged(Task task) {
+        if (task.isDone()) {
+            remove(task);
+        } else {
+            add(task);
+        }
+    }
+
+    /**
+     * Returns the next deadlines and events that are not done, due or starting at or after the given time.
+     *
+     * @param from The time to look ahead from.
+     * @param limit The most tasks to return.
+     * @return Up to limit tasks, soonest first.
+     */
+    List<Task> findUpcoming(LocalDateTime from, int limit) {
+        ArrayList<Task> upcoming = new ArrayList<>();
+        for (ArrayList<Task> bucket : byMinute.tailMap(TimeIndex.toEpochMinute(from), true).values()) {
+            for (Task task : bucket) {
+                if (upcoming.size() == limit) {
+                    return upcoming;
+                }
+                upcoming.add(task);
+            }
+        }
+        return upcoming;
+    }
+
+    /**
+     * Returns the time that decides when a task is coming up: when a deadline is due or an event starts.
+     *
+     * @param task A deadline or event.
+     * @return The time.
+     */
+    static LocalDateTime timeOf(Task task) {
+        return task instanceof Deadline ? ((Deadline) task).getBy() : ((Event) task).getFrom();
+    }
+
+    private static long keyOf(Task task) {
+        return TimeIndex.toEpochMinute(timeOf(task));
+    }
+}
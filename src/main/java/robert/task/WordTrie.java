@@ -0,0 +1,140 @@
+package robert.task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Prefix tree over words, for suggesting completions of a partly typed word.
+ *
+ * <p>Each node keeps its children in arrays sorted by character and counts how many times
+ * the word ending there was added, so a word added by several tasks stays until all of them
+ * are removed. Branches left without words are pruned on removal, which keeps a lookup down to
+ * walking the prefix and then the first few words below it.</p>
+ */
+public class WordTrie {
+    private final Node root = new Node();
+
+    /**
+     * Represents one character position in the trie.
+     */
+    private static class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private int count; // Number of times the word ending here was added
+
+        Node child(char key) {
+            int position = Arrays.binarySearch(keys, key);
+            return position >= 0 ? children[position] : null;
+        }
+
+        Node addChild(char key) {
+            int position = Arrays.binarySearch(keys, key);
+            if (position >= 0) {
+                return children[position];
+            }
+            position = -position - 1;
+            keys = insert(keys, position, key);
+            Node child = new Node();
+            Node[] grown = Arrays.copyOf(children, children.length + 1);
+            System.arraycopy(children, position, grown, position + 1, children.length - position);
+            grown[position] = child;
+            children = grown;
+            return child;
+        }
+
+        void removeChild(char key) {
+            int position = Arrays.binarySearch(keys, key);
+            char[] newKeys = new char[keys.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, position);
+            System.arraycopy(keys, position + 1, newKeys, position, newKeys.length - position);
+            System.arraycopy(children, 0, newChildren, 0, position);
+            System.arraycopy(children, position + 1, newChildren, position, newChildren.length - position);
+            keys = newKeys;
+            children = newChildren;
+        }
+
+        boolean isEmpty() {
+            return count == 0 && keys.length == 0;
+        }
+
+        private static char[] insert(char[] keys, int position, char key) {
+            char[] grown = new char[keys.length + 1];
+            System.arraycopy(keys, 0, grown, 0, position);
+            grown[position] = key;
+            System.arraycopy(keys, position, grown, position + 1, keys.length - position);
+            return grown;
+        }
+    }
+
+    /**
+     * Adds one occurrence of a word.
+     *
+     * @param word The word to add.
+     */
+    public void add(String word) {
+        assert !word.isEmpty() : "Word should not be empty";
+        Node node = root;
+        for (int i = 0; i < word.length(); i++) {
+            node = node.addChild(word.charAt(i));
+        }
+        node.count++;
+    }
+
+    /**
+     * Removes one occurrence of a word, dropping it once no occurrences are left.
+     *
+     * @param word The word to remove.
+     * @return true if the word was in the trie, false otherwise.
+     */
+    public boolean remove(String word) {
+        Node[] path = new Node[word.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < word.length(); i++) {
+            path[i + 1] = path[i].child(word.charAt(i));
+            if (path[i + 1] == null) {
+                return false;
+            }
+        }
+        if (path[word.length()].count == 0) {
+            return false;
+        }
+        path[word.length()].count--;
+        for (int i = word.length(); i > 0 && path[i].isEmpty(); i--) {
+            path[i - 1].removeChild(word.charAt(i - 1));
+        }
+        return true;
+    }
+
+    /**
+     * Returns the words starting with the given prefix, in alphabetical order.
+     * A word equal to the prefix is included.
+     *
+     * @param prefix The start of the word.
+     * @param limit The most words to return.
+     * @return Up to limit words with the prefix.
+     */
+    public List<String> complete(String prefix, int limit) {
+        ArrayList<String> words = new ArrayList<>();
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        if (node != null) {
+            collect(node, new StringBuilder(prefix), words, limit);
+        }
+        return words;
+    }
+
+    private static void collect(Node node, StringBuilder word, List<String> words, int limit) {
+        if (node.count > 0 && words.size() < limit) {
+            words.add(word.toString());
+        }
+        for (int i = 0; i < node.keys.length && words.size() < limit; i++) {
+            word.append(node.keys[i]);
+            collect(node.children[i], word, words, limit);
+            word.setLength(word.length() - 1);
+        }
+    }
+}
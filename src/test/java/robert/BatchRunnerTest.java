@@ -0,0 +1,70 @@
+package robert;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class BatchRunnerTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void run_script_executesCommandsAndSavesSnapshots() throws Exception {
+        String dataPath = tempDir.resolve("tasks.txt").toString();
+        StringBuilder script = new StringBuilder("# seed the list\n\n");
+        for (int i = 0; i < 25; i++) {
+            script.append("todo task ").append(i).append('\n');
+        }
+        script.append("todo task 3\n").append("mark 1-10\n").append("deadline report /by 2019-02-30 1800\n")
+                .append("bye\n").append("todo never run\n");
+        Robert robert = new Robert(dataPath);
+        StringWriter output = new StringWriter();
+
+        String summary = new BatchRunner(robert, 10).run(new BufferedReader(new StringReader(script.toString())), output);
+        robert.shutdown();
+
+        assertTrue(summary.startsWith("Ran 29 command(s) in "), summary);
+        assertTrue(summary.endsWith("27 succeeded, 2 failed. Saved 3 checkpoint(s). Now you have 25 task(s) in the list."),
+                summary);
+        assertTrue(output.toString().contains(" Line 28: This task already exists in your list:"));
+        assertTrue(output.toString().contains(" Line 30: Invalid date/time format."));
+        assertTrue(output.toString().contains(" Bye. Hope to see you again soon!"));
+        assertFalse(Files.exists(Path.of(dataPath + ".journal")));
+
+        String list = new Robert(dataPath).getResponse("list");
+        assertTrue(list.contains("10. #10 [T][X] task 9"), list);
+        assertTrue(list.contains("25. #25 [T][ ] task 24"), list);
+        assertFalse(list.contains("never run"));
+    }
+
+    @Test
+    public void run_scriptWithPipelines_runsLinesAsPipelinesAndStopsAtFailure() throws Exception {
+        String script = "todo a; todo b ;mark 2\ndelete 5; todo never run\ntodo c; bye; todo after bye\ntodo d\n";
+        Robert robert = new Robert(tempDir.resolve("tasks.txt").toString());
+        StringWriter output = new StringWriter();
+
+        String summary = new BatchRunner(robert, 10).run(new BufferedReader(new StringReader(script)), output);
+        robert.shutdown();
+
+        assertTrue(summary.startsWith("Ran 6 command(s) in "), summary);
+        assertTrue(summary.endsWith("5 succeeded, 1 failed. Saved 1 checkpoint(s). Now you have 3 task(s) in the list."),
+                summary);
+        assertTrue(output.toString().contains(" Line 2: Command 1: Task number out of range. You have 2 task(s)."));
+        assertTrue(output.toString().contains("[T][X] b"));
+        assertFalse(output.toString().contains("never run"));
+        assertFalse(output.toString().contains("after bye"));
+    }
+
+    @Test
+    public void isBatchMode_arguments_detectsScriptAndBatch() {
+        assertTrue(BatchRunner.isBatchMode(new String[] {"--script", "commands.txt"}));
+        assertTrue(BatchRunner.isBatchMode(new String[] {"--batch", "--checkpoint", "100"}));
+        assertFalse(BatchRunner.isBatchMode(new String[] {}));
+        assertFalse(BatchRunner.isBatchMode(new String[] {"--help"}));
+    }
+}
@@ -0,0 +1,301 @@
+package robert;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+public class RobertTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void getResponse_manyThreads_appliesEveryCommandOnce() throws Exception {
+        String dataPath = tempDir.resolve("duke.txt").toString();
+        Robert robert = new Robert(dataPath);
+        int sessions = 8;
+        int tasksPerSession = 40;
+        CountDownLatch start = new CountDownLatch(1);
+        List<String> failures = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int s = 0; s < sessions; s++) {
+            String name = "session" + s;
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < tasksPerSession; i++) {
+                        expect(failures, robert.getResponse("todo " + name + " task " + i), "Got it.");
+                        expect(failures, robert.getResponse("find " + name), "Here are the matching tasks");
+                    }
+                    HashMap<String, Long> ids = readIds(robert.getResponse("list"));
+                    for (int i = 0; i < tasksPerSession; i++) {
+                        long id = ids.get(name + " task " + i);
+                        if (i % 2 == 0) {
+                            expect(failures, robert.getResponse("mark #" + id), "Nice!");
+                        }
+                        if (i % 4 == 3) {
+                            expect(failures, robert.getResponse("delete #" + id), "Noted.");
+                        }
+                    }
+                } catch (Exception e) {
+                    synchronized (failures) {
+                        failures.add(e.toString());
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(List.of(), failures);
+        String list = robert.getResponse("list");
+        HashMap<String, Long> ids = readIds(list);
+        assertEquals(sessions * tasksPerSession * 3 / 4, ids.size());
+        assertEquals(ids.size(), ids.values().stream().distinct().count());
+        assertEquals(sessions * tasksPerSession / 2, list.split("\\[X\\]", -1).length - 1);
+
+        robert.getResponse("bye");
+        assertEquals(list, new Robert(dataPath).getResponse("list"));
+    }
+
+    @Test
+    public void getResponse_unknownOrBlankCommand_listsSupportedCommands() {
+        Robert robert = new Robert(tempDir.resolve("tasks.txt").toString());
+        String expected = "Only 'list', 'mark <num|#id>', 'unmark <num|#id>', 'todo <desc>', 'deadline <desc> /by <time>', "
+                + "'event <desc> /from <start> /to <end>', 'delete <num|#id>', 'find <keyword>', 'fuzzy <text>', "
+                + "'upcoming [count]', 'due <date>', 'between <date> <date>', 'conflicts', 'import <file>', "
+                + "'undo', 'redo', and 'bye' commands are supported.";
+
+        assertEquals(expected, robert.getResponse("hello there"));
+        assertEquals(expected, robert.getResponse("   "));
+        assertEquals(expected, robert.getResponse("listing"));
+        assertTrue(robert.getResponse(" \t todo  read book ").contains("[T][ ] read book"));
+    }
+
+    @Test
+    public void getCompletions_commandAndDescriptionWords_completesLastWord() {
+        Robert robert = new Robert(tempDir.resolve("duke.txt").toString());
+        robert.getResponse("todo read book");
+        robert.getResponse("todo return bread");
+
+        assertEquals(List.of("deadline", "delete", "due"), robert.getCompletions("d", 5));
+        assertEquals(List.of("todo read", "todo return"), robert.getCompletions("todo re", 5));
+        assertEquals(List.of("find book", "find bread"), robert.getCompletions("find b", 5));
+        assertEquals(List.of(), robert.getCompletions("mark b", 5));
+        assertEquals(List.of(), robert.getCompletions("todo read ", 5));
+
+        robert.getResponse("delete 1");
+        assertEquals(List.of("find bread"), robert.getCompletions("find b", 5));
+    }
+
+    @Test
+    public void getResponse_batchCommands_applyAndPersistOnce() {
+        String dataPath = tempDir.resolve("duke.txt").toString();
+        Robert robert = new Robert(dataPath);
+        for (int i = 1; i <= 10; i++) {
+            robert.getResponse("todo task " + i);
+        }
+
+        String marked = robert.getResponse("mark 2-4,8");
+        assertTrue(marked.startsWith("Nice! I've marked these tasks as done:"));
+        assertEquals(4, marked.split("\\[X\\]", -1).length - 1);
+        assertTrue(robert.getResponse("unmark 3").contains("[ ] task 3"));
+        String deleted = robert.getResponse("delete 1,3-4");
+        assertTrue(deleted.startsWith("Noted. I've removed these tasks:\n  1.[T][ ] task 1"));
+        assertTrue(deleted.endsWith("Now you have 7 task(s) in the list."));
+        assertTrue(robert.getResponse("delete 2-8").startsWith("Task number out of range."));
+        String list = robert.getResponse("list");
+        assertEquals(2, list.split("\\[X\\]", -1).length - 1);
+
+        robert.getResponse("bye");
+        assertEquals(list, new Robert(dataPath).getResponse("list"));
+        robert.getResponse("unmark all");
+        assertEquals(0, robert.getResponse("list").split("\\[X\\]", -1).length - 1);
+    }
+
+    @Test
+    public void undoAndRedo_addMarkAndDelete_restoreListAndSurviveRestart() {
+        String dataPath = tempDir.resolve("duke.txt").toString();
+        Robert robert = new Robert(dataPath);
+        robert.getResponse("todo read book");
+        robert.getResponse("todo return book");
+        robert.getResponse("todo join sports club");
+        robert.getResponse("mark 1-2");
+        String before = robert.getResponse("list");
+        robert.getResponse("delete 2");
+
+        assertTrue(robert.getResponse("undo").startsWith("OK, I've undone deleting: [T][X] return book"));
+        assertEquals(before, robert.getResponse("list"));
+        assertTrue(robert.getResponse("undo").startsWith("OK, I've undone marking 2 tasks."));
+        assertEquals(0, robert.getResponse("list").split("\\[X\\]", -1).length - 1);
+        assertTrue(robert.getResponse("redo").startsWith("OK, I've redone marking 2 tasks."));
+        assertEquals(before, robert.getResponse("list"));
+        robert.getResponse("undo");
+        robert.getResponse("undo");
+        assertEquals(2, robert.getResponse("list").split("\n").length - 1);
+        robert.shutdown();
+
+        Robert restarted = new Robert(dataPath);
+        assertTrue(restarted.getResponse("redo").startsWith("OK, I've redone adding: [T][ ] join sports club"));
+        restarted.getResponse("redo");
+        restarted.getResponse("redo");
+        assertEquals("Nothing to redo.", restarted.getResponse("redo"));
+        String list = restarted.getResponse("list");
+        restarted.getResponse("todo buy bread");
+        assertEquals("Nothing to redo.", restarted.getResponse("redo"));
+        restarted.getResponse("undo");
+        assertEquals(list, restarted.getResponse("list"));
+    }
+
+    @Test
+    public void undo_afterRestartWithoutShutdown_usesJournaledHistory() {
+        String dataPath = tempDir.resolve("duke.txt").toString();
+        Robert robert = new Robert(dataPath);
+        robert.getResponse("todo read book; todo return book");
+        robert.getResponse("delete 1");
+        robert.getResponse("bye");
+
+        Robert restarted = new Robert(dataPath);
+        assertTrue(restarted.getResponse("undo").startsWith("OK, I've undone deleting: [T][ ] read book"));
+        assertTrue(restarted.getResponse("list").contains("1. #1 [T][ ] read book"));
+    }
+
+    @Test
+    public void undo_afterBatchThatChangedNothing_undoesEarlierChange() {
+        Robert robert = new Robert(tempDir.resolve("duke.txt").toString());
+        robert.getResponse("todo read book");
+        robert.getResponse("todo return book");
+        robert.getResponse("mark 1-2");
+        robert.getResponse("mark 1-2");
+        robert.getResponse("unmark 1");
+        robert.getResponse("unmark 1");
+
+        assertTrue(robert.getResponse("unmark 1,1").startsWith("OK, I've marked these tasks as not done yet:"));
+        assertTrue(robert.getResponse("undo").startsWith("OK, I've undone unmarking: [T][ ] read book"));
+        assertTrue(robert.getResponse("undo").startsWith("OK, I've undone marking 2 tasks."));
+        assertTrue(robert.getResponse("undo").startsWith("OK, I've undone adding: [T][ ] return book"));
+    }
+
+    @Test
+    public void find_afterUndoOfDelete_keepsListOrder() {
+        Robert robert = new Robert(tempDir.resolve("duke.txt").toString());
+        robert.getResponse("todo read book");
+        robert.getResponse("todo return book");
+        robert.getResponse("todo sell book");
+        robert.getResponse("find book");
+        robert.getResponse("delete 2");
+        robert.getResponse("undo");
+
+        String response = robert.getResponse("find book");
+        int read = response.indexOf("read book");
+        int returned = response.indexOf("return book");
+        int sell = response.indexOf("sell book");
+        assertTrue(read >= 0 && read < returned && returned < sell, response);
+    }
+
+    @Test
+    public void undo_pastLimit_stopsAtOldestKept() {
+        Robert robert = new Robert(tempDir.resolve("duke.txt").toString(), 2);
+        robert.getResponse("todo read book");
+        robert.getResponse("todo return book");
+        robert.getResponse("todo join sports club");
+        robert.getResponse("undo");
+        robert.getResponse("undo");
+        assertEquals("Nothing to undo.", robert.getResponse("undo"));
+        assertTrue(robert.getResponse("list").contains("read book"));
+    }
+
+    private static void expect(List<String> failures, String response, String prefix) {
+        if (!response.startsWith(prefix)) {
+            synchronized (failures) {
+                failures.add(response);
+            }
+        }
+    }
+
+    /**
+     * Maps each description in a "list" response to its task ID.
+     */
+    private static HashMap<String, Long> readIds(String list) {
+        HashMap<String, Long> ids = new HashMap<>();
+        for (String line : list.split("\n")) {
+            int hash = line.indexOf(". #");
+            if (hash < 0) {
+                continue;
+            }
+            int space = line.indexOf(' ', hash + 3);
+            ids.put(line.substring(line.indexOf("] ", space) + 2), Long.parseLong(line.substring(hash + 3, space)));
+        }
+        return ids;
+    }
+
+    @Test
+    public void getResponse_pipeline_runsInOrderAndPersists() {
+        String dataPath = tempDir.resolve("duke.txt").toString();
+        Robert robert = new Robert(dataPath);
+
+        String response = robert.getResponse("todo a; todo b ;mark 2; delete 5;");
+        String[] parts = response.split("\n\n");
+        assertEquals(4, parts.length);
+        assertTrue(parts[0].startsWith("Got it."));
+        assertTrue(parts[2].contains("[T][X] b"));
+        assertEquals("Command 4: Task number out of range. You have 2 task(s).", parts[3]);
+        assertTrue(robert.getResponse("todo c; hello; todo d").startsWith("Command 2: Only 'list'"));
+        String list = robert.getResponse("list");
+        assertFalse(list.contains("[T][ ] c"));
+
+        assertTrue(robert.getResponse("list; bye; todo e").endsWith("Bye. Hope to see you again soon!"));
+        assertEquals(list, new Robert(dataPath).getResponse("list"));
+        assertEquals(List.of("todo a; mark"), robert.getCompletions("todo a; ma", 5));
+    }
+
+    @Test
+    public void getResponse_pipelineWithFailingCommand_stopsAtFailure() {
+        Robert robert = new Robert(tempDir.resolve("duke.txt").toString());
+        robert.getResponse("todo a; todo b; todo c");
+
+        String response = robert.getResponse("mark 1; delete 7; delete 1");
+        String[] parts = response.split("\n\n");
+        assertEquals(2, parts.length);
+        assertTrue(parts[0].startsWith("Nice!"));
+        assertEquals("Command 2: Task number out of range. You have 3 task(s).", parts[1]);
+        assertEquals("Command 1: Task number out of range. You have 3 task(s).", robert.getResponse("delete 4; mark 1"));
+        String list = robert.getResponse("list");
+        assertTrue(list.contains("[T][X] a"), list);
+        assertEquals(3, list.split("\n").length - 1);
+    }
+
+    @Test
+    public void import_csvFile_addsNewTasksOnceAndUndoesAsOne() throws Exception {
+        String dataPath = tempDir.resolve("duke.txt").toString();
+        Path csv = tempDir.resolve("export.csv");
+        Files.writeString(csv, "description,by\nread book,\nreturn book,2019-12-01 1800\n"
+                + ",\nread book,\njoin club,\n");
+        Robert robert = new Robert(dataPath);
+        robert.getResponse("todo join club");
+
+        String response = robert.getResponse("import " + csv);
+        assertTrue(response.startsWith("Imported 2 task(s) from 5 record(s) in "));
+        assertTrue(response.contains("\nSkipped 2 duplicate(s).\n1 record(s) could not be imported:\n"
+                + "  Line 4: Missing description\nNow you have 3 task(s) in the list."));
+        String list = robert.getResponse("list");
+        assertTrue(list.contains("3. #3 [D][ ] return book (by: Dec 1 2019, 6:00 pm)"));
+        assertEquals(list, new Robert(dataPath).getResponse("list"));
+
+        assertTrue(robert.getResponse("undo").startsWith("OK, I've undone adding 2 tasks."));
+        assertTrue(robert.getResponse("import " + tempDir.resolve("missing.csv")).startsWith("Cannot find"));
+        assertTrue(robert.getResponse("import notes.txt").startsWith("Only .csv"));
+        robert.getResponse("bye");
+        assertEquals(1, new Robert(dataPath).getTaskCount());
+    }
+}
@@ -0,0 +1,55 @@
+package robert.parser;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class CommandLineTest {
+    @Test
+    public void tokens_mixedWhitespace_matchRegexSplit() {
+        for (String input : List.of("", "   ", "list", "  todo \t read   book  ", "a b c d e f g h i j",
+                "deadline return book /by 2019-12-01 1800", "\u000Bx\fy\r\nz")) {
+            CommandLine line = new CommandLine(input);
+            ArrayList<String> tokens = new ArrayList<>();
+            for (int i = 0; i < line.tokenCount(); i++) {
+                tokens.add(line.token(i));
+            }
+            String trimmed = input.trim();
+            List<String> expected = trimmed.isEmpty() ? List.of() : Arrays.asList(trimmed.split("\\s+"));
+            assertEquals(expected, tokens, input);
+        }
+    }
+
+    @Test
+    public void accessors_tokenRegions_compareWithoutCopying() {
+        CommandLine line = new CommandLine("  todo   read  book ");
+
+        assertTrue(line.tokenEquals(0, "todo"));
+        assertFalse(line.tokenEquals(0, "tod"));
+        assertFalse(line.tokenEquals(3, "book"));
+        assertTrue(line.tokenStartsWith(1, 'r'));
+        assertFalse(line.tokenStartsWith(5, 'r'));
+        assertEquals("read  book", line.rest(1));
+        assertEquals("", line.rest(3));
+        assertEquals(line.start(2), line.indexOf("book", 0));
+        assertEquals(line.start(2), line.indexOf('b', 0));
+        assertEquals(-1, line.indexOf(" /by ", 0));
+        assertEquals("read", line.strip(line.end(0), line.end(1) + 1));
+        assertSame(line, CommandLine.of(line));
+    }
+
+    @Test
+    public void split_severalCommands_tokenizesEachAndSkipsBlanks() {
+        List<CommandLine> lines = CommandLine.split(" todo a ;;todo  b; mark 2 ; ", ';');
+
+        assertEquals(3, lines.size());
+        assertEquals("a", lines.get(0).rest(1));
+        assertEquals("b", lines.get(1).rest(1));
+        assertTrue(lines.get(2).tokenEquals(0, "mark"));
+        assertTrue(CommandLine.split(" ; ", ';').isEmpty());
+        String single = "todo read book";
+        assertSame(single, CommandLine.split(single, ';').get(0).toString());
+    }
+}
@@ -0,0 +1,39 @@
+package robert.parser;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CommandRegistryTest {
+    @Test
+    public void find_registeredWords_returnsTheirCommands() throws Exception {
+        CommandRegistry registry = new CommandRegistry();
+        ArrayList<String> words = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String word = "command" + i;
+            words.add(word);
+            registry.register(word, word, line -> word + ":" + line.rest(1));
+        }
+
+        for (String word : words) {
+            CommandLine line = new CommandLine("  " + word + " a  b ");
+            assertEquals(word + ":a  b", registry.find(line).execute(line));
+        }
+        assertNull(registry.find(new CommandLine("command100")));
+        assertNull(registry.find(new CommandLine("command")));
+        assertNull(registry.find(new CommandLine("   ")));
+        assertEquals(words, registry.getWords());
+    }
+
+    @Test
+    public void getUsageMessage_registeredUsages_listedInOrder() {
+        CommandRegistry registry = new CommandRegistry();
+        registry.register("list", "list", line -> "");
+        registry.register("mark", "mark <num|#id>", line -> "");
+        registry.register("bye", "bye", line -> "");
+
+        assertEquals("Only 'list', 'mark <num|#id>', and 'bye' commands are supported.", registry.getUsageMessage());
+        assertEquals(List.of("list", "mark", "bye"), registry.getWords());
+    }
+}
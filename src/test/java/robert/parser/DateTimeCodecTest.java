@@ -0,0 +1,63 @@
+package robert.parser;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.Random;
+
+public class DateTimeCodecTest {
+    private static final DateTimeFormatter STORAGE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
+    private static final DateTimeFormatter DISPLAY_FORMAT =
+            DateTimeFormatter.ofPattern("MMM d yyyy, h:mm a", new Locale("en", "SG"));
+
+    @Test
+    public void parseAndFormat_randomTimes_matchDateTimeFormatter() {
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            LocalDateTime time = LocalDateTime.ofEpochSecond(
+                    (random.nextLong() & Long.MAX_VALUE) % 253402300740L - 62135596800L, 0, ZoneOffset.UTC)
+                    .withSecond(0);
+            String text = time.format(STORAGE_FORMAT);
+
+            assertEquals(text, DateTimeCodec.format(time));
+            assertEquals(time, DateTimeCodec.parse(text));
+            assertEquals(time.toEpochSecond(ZoneOffset.UTC) / 60, DateTimeCodec.parseEpochMinute(text, 0, text.length()));
+            assertEquals(time.format(DISPLAY_FORMAT), DateTimeCodec.formatDisplay(time));
+            assertEquals(time, DateTimeCodec.parseDisplay(DateTimeCodec.formatDisplay(time)));
+        }
+    }
+
+    @Test
+    public void parse_partOfText_readsOnlyThatPart() {
+        String line = "D | 0 | return book | 2024-02-29 0905 | x";
+
+        assertEquals(LocalDateTime.of(2024, 2, 29, 9, 5), DateTimeCodec.parse(line, 22, 37));
+        assertEquals(LocalDate.of(2024, 2, 29), DateTimeCodec.parseDate(line, 22, 32));
+        assertEquals(LocalTime.of(16, 0), DateTimeCodec.parseTime("1600"));
+        assertEquals("Feb 29 2024", DateTimeCodec.formatDisplayDate(LocalDate.of(2024, 2, 29)));
+        assertEquals("12:00 am", DateTimeCodec.formatDisplayTime(LocalDateTime.of(2019, 12, 1, 0, 0)));
+        assertEquals("12:30 pm", DateTimeCodec.formatDisplayTime(LocalDateTime.of(2019, 12, 1, 12, 30)));
+    }
+
+    @Test
+    public void parse_invalidText_throwsDateTimeParseException() {
+        for (String text : new String[] {"", "2019-12-01", "2019-12-01 180", "2019-12-01 18000", "2019-12-01T1800",
+                "2019/12/01 1800", "2019-13-01 1800", "2019-00-01 1800", "2019-02-29 1800", "2019-04-31 1800",
+                "2019-12-00 1800", "2019-12-01 2400", "2019-12-01 1860", "0000-12-01 1800", "2019-1a-01 1800",
+                "+019-12-01 1800", " 2019-12-01 1800"}) {
+            assertThrows(DateTimeParseException.class, () -> DateTimeCodec.parse(text));
+        }
+        assertThrows(DateTimeParseException.class, () -> DateTimeCodec.parseTime("930"));
+        assertThrows(DateTimeParseException.class, () -> DateTimeCodec.parseTime("2500"));
+        assertThrows(DateTimeParseException.class, () -> DateTimeCodec.parseDate("2019-2-01", 0, 9));
+        assertThrows(DateTimeParseException.class, () -> DateTimeCodec.parseDisplay("Dec 1 2019, 13:00 pm"));
+        assertThrows(DateTimeParseException.class, () -> DateTimeCodec.parseDisplay("Dez 1 2019, 6:00 pm"));
+        assertThrows(DateTimeParseException.class, () -> DateTimeCodec.parseDisplay("Dec 1 2019, 6:00 PM"));
+    }
+}
@@ -0,0 +1,160 @@
+package robert.parser;
+
+import robert.exception.RobertException;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.BitSet;
+
+/**
+ * Compares the latency and allocation of tokenizing and dispatching one command before and after
+ * {@link CommandLine} and {@link CommandRegistry}. The "before" side repeats what Robert used to do:
+ * split the input with a regular expression to find the command word, walk an if/else chain,
+ * then split the input again to parse the arguments. Not part of the test suite; run it by hand,
+ * for example {@code java -cp <classpath> robert.parser.ParserBenchmark 2000000}, where the optional
+ * argument is the number of times each command is parsed.
+ */
+public class ParserBenchmark {
+    private static final String[] INPUTS = {
+        "list",
+        "mark 12",
+        "delete #42",
+        "unmark 1-3,7",
+        "todo read book",
+        "find book",
+        "deadline return book /by 2019-12-01 1800",
+        "event project meeting /from 2019-12-02 1400 /to 1600",
+        "hello there",
+    };
+    private static final int WARM_UP_ROUNDS = 3;
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
+
+    private static long sink;
+
+    public static void main(String[] args) throws RobertException {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        CommandRegistry registry = createRegistry();
+        System.out.printf("%-55s %12s %12s %12s %12s%n", "command", "before ns", "after ns", "before B", "after B");
+        for (String input : INPUTS) {
+            for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+                measureBefore(input, runs / 10);
+                measureAfter(registry, input, runs / 10);
+            }
+            double[] before = measureBefore(input, runs);
+            double[] after = measureAfter(registry, input, runs);
+            System.out.printf("%-55s %12.1f %12.1f %12.1f %12.1f%n", input, before[0], after[0], before[1], after[1]);
+        }
+        System.out.println("Checksum: " + sink);
+    }
+
+    /**
+     * Returns the average nanoseconds and bytes allocated per command for the old parsing.
+     */
+    private static double[] measureBefore(String input, int runs) throws RobertException {
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            sink += parseBefore(input);
+        }
+        return new double[] {(System.nanoTime() - start) / (double) runs, (allocatedBytes() - bytes) / (double) runs};
+    }
+
+    /**
+     * Returns the average nanoseconds and bytes allocated per command for the registry.
+     */
+    private static double[] measureAfter(CommandRegistry registry, String input, int runs) throws RobertException {
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            CommandLine line = new CommandLine(input);
+            CommandRegistry.Command command = registry.find(line);
+            sink += command == null ? registry.getUsageMessage().length() : execute(command, line);
+        }
+        return new double[] {(System.nanoTime() - start) / (double) runs, (allocatedBytes() - bytes) / (double) runs};
+    }
+
+    private static long execute(CommandRegistry.Command command, CommandLine line) throws RobertException {
+        try {
+            return command.execute(line).length();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static CommandRegistry createRegistry() {
+        CommandRegistry registry = new CommandRegistry();
+        registry.register("list", "list", line -> "list");
+        registry.register("mark", "mark <num|#id>", ParserBenchmark::parseTaskAfter);
+        registry.register("unmark", "unmark <num|#id>", ParserBenchmark::parseTaskAfter);
+        registry.register("todo", "todo <desc>", line -> Parser.parseTodo(line).getDescription());
+        registry.register("deadline", "deadline <desc> /by <time>", line -> Parser.parseDeadline(line).getDescription());
+        registry.register("event", "event <desc> /from <start> /to <end>", line -> Parser.parseEvent(line).getDescription());
+        registry.register("delete", "delete <num|#id>", ParserBenchmark::parseTaskAfter);
+        registry.register("find", "find <keyword>", Parser::parseFind);
+        registry.register("bye", "bye", line -> "bye");
+        return registry;
+    }
+
+    private static String parseTaskAfter(CommandLine line) throws RobertException {
+        if (Parser.isTaskBatch(line)) {
+            return Parser.parseTaskIndices(line, 100).length > 0 ? "batch" : "";
+        }
+        return Parser.hasTaskId(line) ? "id" + (Parser.parseTaskId(line) & 1) : "index" + (Parser.parseTaskIndex(line) & 1);
+    }
+
+    /**
+     * Parses a command the way Robert and Parser did before the registry.
+     */
+    private static long parseBefore(String input) throws RobertException {
+        String trimmed = input.trim();
+        String command = trimmed.isEmpty() ? "" : trimmed.split("\\s+")[0];
+        if (command.equals("bye")) {
+            return 1;
+        } else if (command.equals("list")) {
+            return 2;
+        } else if (command.equals("mark") || command.equals("unmark") || command.equals("delete")) {
+            String[] batch = input.trim().split("\\s+", 2);
+            if (batch.length == 2 && (batch[1].equals("all") || batch[1].indexOf(',') >= 0
+                    || batch[1].indexOf('-', 1) > 0)) {
+                String argument = batch[1].replaceAll("\\s+", "");
+                BitSet selected = new BitSet(100);
+                for (String item : argument.split(",", -1)) {
+                    int dash = item.indexOf('-', 1);
+                    int first = Integer.parseInt(dash < 0 ? item : item.substring(0, dash));
+                    int last = dash < 0 ? first : Integer.parseInt(item.substring(dash + 1));
+                    selected.set(first - 1, last);
+                }
+                return selected.stream().toArray().length;
+            }
+            String[] parts = input.trim().split("\\s+");
+            if (parts[1].startsWith("#")) {
+                return Long.parseLong(parts[1].substring(1));
+            }
+            return Integer.parseInt(parts[1]) - 1;
+        } else if (command.equals("todo")) {
+            return trimmed.substring(4).trim().length();
+        } else if (command.equals("deadline")) {
+            String[] parts = input.substring(9).split(" /by ", 2);
+            return parts[0].trim().length()
+                    + LocalDateTime.parse(parts[1].trim(), DATE_TIME_FORMAT).getMinute();
+        } else if (command.equals("event")) {
+            String[] parts = input.substring(6).split(" /from ", 2);
+            String[] timeParts = parts[1].split(" /to ", 2);
+            LocalDateTime from = LocalDateTime.parse(timeParts[0].trim(), DATE_TIME_FORMAT);
+            return parts[0].trim().length() + from.withHour(Integer.parseInt(timeParts[1].trim().substring(0, 2)))
+                    .withMinute(Integer.parseInt(timeParts[1].trim().substring(2))).getHour();
+        } else if (command.equals("find")) {
+            return trimmed.substring(4).trim().length();
+        } else {
+            return ("Only 'list', 'mark <num|#id>', 'unmark <num|#id>', 'todo <desc>',"
+                    + " 'deadline <desc> /by <time>', 'event <desc> /from <start> /to <end>', 'delete <num|#id>',"
+                    + " 'find <keyword>', and 'bye' commands are supported.").length();
+        }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -6,6 +6,7 @@ import robert.exception.RobertException;
 import robert.task.Todo;
 import robert.task.Deadline;
 import robert.task.Event;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 public class ParserTest {
@@ -34,6 +35,20 @@ public class ParserTest {
         assertEquals(9, Parser.parseTaskIndex("delete 10"));
     }
 
+    @Test
+    public void parseTaskId_validId_success() throws RobertException {
+        assertTrue(Parser.hasTaskId("delete #12"));
+        assertFalse(Parser.hasTaskId("delete 12"));
+        assertEquals(12, Parser.parseTaskId("delete #12"));
+    }
+
+    @Test
+    public void parseTaskId_invalidId_throwsException() {
+        assertThrows(RobertException.class, () -> Parser.parseTaskId("mark #"));
+        assertThrows(RobertException.class, () -> Parser.parseTaskId("mark #0"));
+        assertThrows(RobertException.class, () -> Parser.parseTaskId("mark #abc"));
+    }
+
     @Test
     public void parseTaskIndex_invalidFormat_throwsException() {
         assertThrows(RobertException.class, () -> Parser.parseTaskIndex("mark"));
@@ -83,4 +98,72 @@ public class ParserTest {
         assertThrows(RobertException.class, () -> Parser.parseEvent("event project meeting /from 2019-12-02 1400"));
         assertThrows(RobertException.class, () -> Parser.parseEvent("event project meeting /from invalid /to 1600"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void parseTaskIndices_rangesListsAndAll_returnsSortedIndexes() throws RobertException {
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4}, Parser.parseTaskIndices("mark 1-5", 10));
+        assertArrayEquals(new int[] {2, 6, 8}, Parser.parseTaskIndices("delete 9,3,7,3", 10));
+        assertArrayEquals(new int[] {0, 1, 2, 6}, Parser.parseTaskIndices("delete 1-3, 7", 10));
+        assertArrayEquals(new int[] {0, 1, 2}, Parser.parseTaskIndices("unmark all", 3));
+        assertTrue(Parser.isTaskBatch("mark 1-5"));
+        assertTrue(Parser.isTaskBatch("delete 3,7"));
+        assertTrue(Parser.isTaskBatch("unmark all"));
+        assertFalse(Parser.isTaskBatch("mark 3"));
+        assertFalse(Parser.isTaskBatch("mark -3"));
+    }
+
+    @Test
+    public void parseTaskIndices_invalidInput_throwsException() {
+        assertThrows(RobertException.class, () -> Parser.parseTaskIndices("mark 1-11", 10));
+        assertThrows(RobertException.class, () -> Parser.parseTaskIndices("mark 5-3", 10));
+        assertThrows(RobertException.class, () -> Parser.parseTaskIndices("mark 0,1", 10));
+        assertThrows(RobertException.class, () -> Parser.parseTaskIndices("mark 1,,2", 10));
+        assertThrows(RobertException.class, () -> Parser.parseTaskIndices("mark a-b", 10));
+        assertThrows(RobertException.class, () -> Parser.parseTaskIndices("mark all", 0));
+    }
+
+    @Test
+    public void parseFuzzy_text_returnsTrimmedText() throws RobertException {
+        assertEquals("raed bok", Parser.parseFuzzy("fuzzy   raed bok "));
+        assertThrows(RobertException.class, () -> Parser.parseFuzzy("fuzzy   "));
+    }
+
+    @Test
+    public void parseImport_path_keepsInnerSpaces() throws RobertException {
+        assertEquals("my exports/tasks.csv", Parser.parseImport("import  my exports/tasks.csv "));
+        assertThrows(RobertException.class, () -> Parser.parseImport("import"));
+    }
+
+    @Test
+    public void parseUpcoming_count_returnsCountOrDefault() throws RobertException {
+        assertEquals(5, Parser.parseUpcoming("upcoming", 5));
+        assertEquals(3, Parser.parseUpcoming("upcoming 3", 5));
+        assertThrows(RobertException.class, () -> Parser.parseUpcoming("upcoming 0", 5));
+        assertThrows(RobertException.class, () -> Parser.parseUpcoming("upcoming three", 5));
+        assertThrows(RobertException.class, () -> Parser.parseUpcoming("upcoming 3 4", 5));
+    }
+
+    @Test
+    public void parseDue_validDate_returnsDate() throws RobertException {
+        assertEquals(LocalDate.of(2019, 12, 2), Parser.parseDue("due 2019-12-02"));
+    }
+
+    @Test
+    public void parseDue_invalidInput_throwsException() {
+        assertThrows(RobertException.class, () -> Parser.parseDue("due"));
+        assertThrows(RobertException.class, () -> Parser.parseDue("due 02/12/2019"));
+    }
+
+    @Test
+    public void parseBetween_validDates_returnsRange() throws RobertException {
+        LocalDate[] range = Parser.parseBetween("between 2019-12-02 2019-12-08");
+        assertEquals(LocalDate.of(2019, 12, 2), range[0]);
+        assertEquals(LocalDate.of(2019, 12, 8), range[1]);
+    }
+
+    @Test
+    public void parseBetween_invalidInput_throwsException() {
+        assertThrows(RobertException.class, () -> Parser.parseBetween("between 2019-12-02"));
+        assertThrows(RobertException.class, () -> Parser.parseBetween("between 2019-12-08 2019-12-02"));
+    }
+}
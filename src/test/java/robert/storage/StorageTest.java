@@ -0,0 +1,400 @@
+package robert.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import robert.task.ColumnarTaskList;
+import robert.task.ConcurrentTaskList;
+import robert.task.LazyTaskList;
+import robert.task.Task;
+import robert.task.TaskList;
+import robert.task.Todo;
+import robert.task.Deadline;
+import robert.task.Event;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class StorageTest {
+    @TempDir
+    Path tempDir;
+
+    private String dataPath() {
+        return tempDir.resolve("duke.txt").toString();
+    }
+
+    @Test
+    public void load_missingFile_returnsEmptyList() throws Exception {
+        Storage storage = new Storage(dataPath());
+        assertEquals(0, storage.load().size());
+        assertTrue(new File(dataPath()).exists());
+    }
+
+    @Test
+    public void load_afterJournaledMutations_replaysJournal() throws Exception {
+        Storage storage = new Storage(dataPath());
+        TaskList taskList = new TaskList(storage.load());
+        Todo todo = new Todo("read book");
+        Deadline deadline = new Deadline("return book", LocalDateTime.of(2019, 12, 1, 18, 0));
+        for (Task task : List.of(todo, deadline, new Todo("join sports club"))) {
+            taskList.add(task);
+            storage.appendAdd(task);
+        }
+        storage.appendMark(deadline);
+        storage.appendDelete(todo);
+        storage.flush();
+
+        ArrayList<Task> tasks = new Storage(dataPath()).load();
+        assertEquals(2, tasks.size());
+        assertEquals("[D][X] return book (by: Dec 1 2019, 6:00 pm)", tasks.get(0).toString());
+        assertEquals("[T][ ] join sports club", tasks.get(1).toString());
+    }
+
+    @Test
+    public void load_journaledInsert_restoresPosition() throws Exception {
+        Storage storage = new Storage(dataPath());
+        TaskList taskList = new TaskList(storage.load());
+        Todo todo = new Todo("read book");
+        for (Task task : List.of(todo, new Todo("return book"), new Todo("join sports club"))) {
+            taskList.add(task);
+            storage.appendAdd(task);
+        }
+        storage.appendDelete(todo);
+        storage.appendInsert(1, todo);
+        storage.appendInsert(0, new Todo("buy bread"));
+        storage.flush();
+
+        ArrayList<Task> tasks = new Storage(dataPath()).load();
+        assertEquals(4, tasks.size());
+        assertEquals("[T][ ] buy bread", tasks.get(0).toString());
+        assertEquals("[T][ ] read book", tasks.get(2).toString());
+        assertEquals(1, tasks.get(2).getId());
+    }
+
+    @Test
+    public void save_afterJournaledMutations_foldsJournalIntoSnapshot() throws Exception {
+        Storage storage = new Storage(dataPath());
+        TaskList taskList = new TaskList(storage.load());
+        Todo todo = new Todo("read book");
+        taskList.add(todo);
+        storage.appendAdd(todo);
+        storage.save(taskList);
+
+        assertFalse(new File(dataPath() + ".journal").exists());
+        taskList.markTask(0);
+        storage.appendMark(todo);
+        storage.flush();
+
+        ArrayList<Task> tasks = new Storage(dataPath()).load();
+        assertEquals(1, tasks.size());
+        assertEquals("[T][X] read book", tasks.get(0).toString());
+    }
+
+    @Test
+    public void load_textDataFile_isImported() throws Exception {
+        Files.write(Path.of(dataPath()), List.of(
+                "T | 1 | buy groceries",
+                "E | 0 | CCA Meeting | 2025-09-09 1800 | 2025-09-09 2200",
+                "not a task"));
+
+        ArrayList<Task> tasks = new Storage(dataPath()).load();
+        assertEquals(2, tasks.size());
+        assertEquals("[T][X] buy groceries", tasks.get(0).toString());
+        assertEquals("[E][ ] CCA Meeting (from: Sep 9 2025, 6:00 pm to: 10:00 pm)", tasks.get(1).toString());
+    }
+
+    @Test
+    public void save_binarySnapshot_roundTripsAllTaskTypes() throws Exception {
+        Storage storage = new Storage(dataPath());
+        TaskList taskList = new TaskList(storage.load());
+        taskList.add(new Todo("read b\u00f6\u00f6k"));
+        taskList.add(new Deadline("return book", LocalDateTime.of(2019, 12, 1, 18, 0)));
+        taskList.add(new Event("project meeting", LocalDateTime.of(2019, 12, 2, 14, 0),
+                LocalDateTime.of(2019, 12, 2, 16, 0)));
+        taskList.markTask(2);
+        storage.save(taskList);
+
+        ArrayList<Task> tasks = new Storage(dataPath()).load();
+        assertEquals(3, tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            assertEquals(taskList.get(i).toString(), tasks.get(i).toString());
+        }
+    }
+
+    @Test
+    public void openLazy_binarySnapshot_matchesFullLoad() throws Exception {
+        Storage storage = new Storage(dataPath());
+        TaskList taskList = new TaskList(storage.load());
+        for (int i = 0; i < 100; i++) {
+            taskList.add(new Deadline("deadline " + i, LocalDateTime.of(2019, 12, 1, 18, 0).plusDays(i)));
+        }
+        taskList.markTask(42);
+        storage.save(taskList);
+
+        try (LazyTaskList lazy = BinarySnapshotFormat.openLazy(new File(dataPath()))) {
+            assertEquals(100, lazy.size());
+            assertEquals(taskList.get(42).toString(), lazy.get(42).toString());
+            assertEquals(taskList.get(99).toString(), lazy.get(99).toString());
+        }
+    }
+
+    @Test
+    public void exportText_thenImportText_preservesTasks() throws Exception {
+        Storage storage = new Storage(dataPath());
+        TaskList taskList = new TaskList();
+        taskList.add(new Deadline("return book", LocalDateTime.of(2019, 12, 1, 18, 0)));
+        String exportPath = tempDir.resolve("export.txt").toString();
+        storage.exportText(taskList, exportPath);
+
+        assertEquals(List.of("D | 0 | return book | 2019-12-01 1800"), Files.readAllLines(Path.of(exportPath)));
+        assertEquals(1, storage.importText(exportPath).size());
+    }
+
+    @Test
+    public void parallelTextLoader_multipleChunks_matchesFileOrder() throws Exception {
+        List<String> lines = new ArrayList<>();
+        lines.add("# 7");
+        for (int i = 0; i < 60_000; i++) {
+            lines.add(i % 1000 == 999 ? "D | 0 | broken | not a date" : "T | 0 | task number " + i);
+        }
+        Path path = tempDir.resolve("large.txt");
+        Files.write(path, lines);
+
+        ArrayList<Task> tasks = new ArrayList<>();
+        assertEquals(7, ParallelTextLoader.read(path.toFile(), tasks));
+        assertEquals(59_940, tasks.size());
+        assertEquals("[T][ ] task number 0", tasks.get(0).toString());
+        assertEquals("[T][ ] task number 1000", tasks.get(999).toString());
+        assertEquals("[T][ ] task number 59998", tasks.get(59_939).toString());
+    }
+
+    @Test
+    public void appendMark_beforeFlush_isNotWrittenYet() throws Exception {
+        Storage storage = new Storage(dataPath(), 1024, 60_000, 100);
+        storage.load();
+        storage.appendAdd(new Todo("read book"));
+        assertFalse(new File(dataPath() + ".journal").exists());
+
+        storage.flush();
+        assertEquals(1, new Storage(dataPath()).load().size());
+    }
+
+    @Test
+    public void appendRecord_pastThreshold_compactsWithoutLosingRecords() throws Exception {
+        Storage storage = new Storage(dataPath(), 64);
+        TaskList taskList = new TaskList(storage.load());
+        for (int i = 0; i < 20; i++) {
+            Todo todo = new Todo("task " + i);
+            taskList.add(todo);
+            storage.appendAdd(todo);
+        }
+        storage.appendUnmark(taskList.get(3));
+        storage.close();
+
+        ArrayList<Task> tasks = new Storage(dataPath()).load();
+        assertEquals(20, tasks.size());
+        assertEquals("[T][ ] task 19", tasks.get(19).toString());
+    }
+
+    @Test
+    public void load_savedAndJournaledTasks_keepsIds() throws Exception {
+        Storage storage = new Storage(dataPath());
+        TaskList taskList = new TaskList(storage.load());
+        taskList.add(new Todo("read book"));
+        taskList.add(new Todo("return book"));
+        taskList.add(new Todo("join sports club"));
+        storage.save(taskList);
+
+        Task removed = taskList.remove(0);
+        storage.appendDelete(removed);
+        Todo todo = new Todo("buy bread");
+        taskList.add(todo);
+        storage.appendAdd(todo);
+        storage.appendMark(todo);
+        storage.close();
+
+        TaskList loaded = new Storage(dataPath()).loadTaskList();
+        assertEquals(3, loaded.size());
+        assertEquals(2, loaded.get(0).getId());
+        assertEquals(4, loaded.get(2).getId());
+        assertEquals("[T][X] buy bread", loaded.get(loaded.indexOfId(4)).toString());
+    }
+
+    @Test
+    public void loadTaskList_midSizedSnapshot_loadsColumnsAndReplaysJournal() throws Exception {
+        Storage storage = new Storage(dataPath());
+        TaskList taskList = new TaskList(storage.load());
+        for (int i = 0; i < 100_000; i++) {
+            taskList.add(new Deadline("return library book number " + i, LocalDateTime.of(2019, 12, 1, 18, 0)));
+        }
+        taskList.remove(99_999);
+        storage.save(taskList);
+        storage.appendMark(taskList.get(5));
+        storage.appendDelete(taskList.remove(0));
+        storage.close();
+
+        TaskList loaded = new Storage(dataPath()).loadTaskList();
+        assertTrue(loaded instanceof ColumnarTaskList);
+        assertEquals(99_998, loaded.size());
+        assertEquals("[D][X] return library book number 5 (by: Dec 1 2019, 6:00 pm)", loaded.get(4).toString());
+        assertEquals(99_999, loaded.get(loaded.size() - 1).getId());
+        Todo todo = new Todo("buy bread");
+        loaded.add(todo);
+        assertEquals(100_001, todo.getId());
+
+        ConcurrentTaskList shared = new ConcurrentTaskList(loaded);
+        shared.awaitIndexes();
+        assertSame(shared.get(4), shared.findTasks("number 5").get(0));
+        assertSame(shared.get(shared.size() - 1), shared.findDuplicate(new Todo("Buy Bread")));
+    }
+
+    @Test
+    public void save_lastTaskDeleted_doesNotReuseItsId() throws Exception {
+        Storage storage = new Storage(dataPath());
+        TaskList taskList = new TaskList(storage.load());
+        taskList.add(new Todo("read book"));
+        taskList.add(new Todo("return book"));
+        taskList.remove(1);
+        storage.save(taskList);
+
+        TaskList loaded = new Storage(dataPath()).loadTaskList();
+        Todo todo = new Todo("buy bread");
+        loaded.add(todo);
+        assertEquals(3, todo.getId());
+    }
+
+    @Test
+    public void load_journalWithPositions_replaysByPosition() throws Exception {
+        Files.writeString(new File(dataPath() + ".journal").toPath(),
+                "# 1\n+ T | 0 | read book\n+ T | 0 | return book\nM 1\nD 0\n");
+
+        ArrayList<Task> tasks = new Storage(dataPath()).load();
+        assertEquals(1, tasks.size());
+        assertEquals("[T][X] return book", tasks.get(0).toString());
+        assertEquals(2, tasks.get(0).getId());
+    }
+
+    @Test
+    public void save_concurrentTaskList_recordsPersistedVersion() throws Exception {
+        Storage storage = new Storage(dataPath());
+        ConcurrentTaskList taskList = new ConcurrentTaskList(storage.loadTaskList());
+        assertEquals(-1, storage.getPersistedVersion());
+        taskList.add(new Todo("read book"));
+        taskList.add(new Todo("return book"));
+        taskList.markTask(1);
+        storage.save(taskList);
+        assertEquals(3, storage.getPersistedVersion());
+
+        taskList.remove(0);
+        assertTrue(taskList.getVersion() > storage.getPersistedVersion());
+        assertEquals("[T][ ] read book", new Storage(dataPath()).load().get(0).toString());
+    }
+
+    @Test
+    public void load_journalAddAlreadyInSnapshot_isNotAddedAgain() throws Exception {
+        Storage storage = new Storage(dataPath());
+        TaskList taskList = new TaskList(storage.load());
+        Todo todo = new Todo("read book");
+        taskList.add(todo);
+        storage.save(taskList);
+        // The record of an add that a concurrent save already included
+        storage.appendAdd(todo);
+        storage.flush();
+
+        ArrayList<Task> tasks = new Storage(dataPath()).load();
+        assertEquals(1, tasks.size());
+        assertEquals(1, tasks.get(0).getId());
+    }
+
+    @Test
+    public void load_journalWithCorruptedHeader_keepsJournal() throws Exception {
+        File journal = new File(dataPath() + ".journal");
+        Files.writeString(journal.toPath(), "#x 2\n+ T | 0 | read book\n");
+
+        assertEquals(0, new Storage(dataPath()).load().size());
+        assertFalse(journal.exists());
+        File kept = new File(dataPath() + ".journal.corrupt");
+        assertEquals("#x 2\n+ T | 0 | read book\n", Files.readString(kept.toPath()));
+
+        // A second corrupted journal does not replace the first one set aside
+        Files.writeString(journal.toPath(), "garbage\n");
+        new Storage(dataPath()).load();
+        assertTrue(kept.exists());
+        assertTrue(new File(dataPath() + ".journal.corrupt.1").exists());
+    }
+
+    @Test
+    public void save_withUnwrittenRecords_doesNotJournalThemAgain() throws Exception {
+        Storage storage = new Storage(dataPath(), 256 * 1024, 60_000, 1000);
+        ConcurrentTaskList taskList = new ConcurrentTaskList(storage.loadTaskList());
+        Todo todo = new Todo("read book");
+        taskList.add(todo);
+        storage.appendAdd(todo);
+        Task removed = taskList.remove(0);
+        storage.appendDelete(removed);
+        taskList.insert(0, removed);
+        storage.appendInsert(0, removed);
+
+        storage.save(taskList);
+        storage.flush();
+        assertFalse(new File(dataPath() + ".journal").exists());
+        taskList.markTask(0);
+        storage.appendMark(todo);
+        storage.close();
+
+        ArrayList<Task> tasks = new Storage(dataPath()).load();
+        assertEquals(1, tasks.size());
+        assertEquals("[T][X] read book", tasks.get(0).toString());
+    }
+
+    @Test
+    public void load_damagedBinarySnapshot_keepsEarlierTasksAndACopy() throws Exception {
+        Storage storage = new Storage(dataPath());
+        TaskList taskList = new TaskList(storage.load());
+        for (String description : List.of("a", "b", "c")) {
+            taskList.add(new Todo(description));
+        }
+        storage.save(taskList);
+        Path path = Path.of(dataPath());
+        byte[] original = Files.readAllBytes(path);
+        int secondRecord = 4 + 2 + 8 + 8 + 4 + (1 + 1 + 8 + 4 + 1);
+
+        byte[] unknownType = original.clone();
+        unknownType[secondRecord] = 'X';
+        Files.write(path, unknownType);
+        ArrayList<Task> tasks = new Storage(dataPath()).load();
+        assertEquals(1, tasks.size());
+        assertEquals("a", tasks.get(0).getDescription());
+        assertArrayEquals(unknownType, Files.readAllBytes(Path.of(dataPath() + ".corrupt")));
+
+        byte[] hugeLength = original.clone();
+        hugeLength[secondRecord + 1 + 1 + 8] = 0x7f;
+        Files.write(path, hugeLength);
+        assertEquals(1, new Storage(dataPath()).load().size());
+        try (LazyTaskList lazy = BinarySnapshotFormat.openLazy(new File(dataPath()))) {
+            assertEquals(1, lazy.size());
+        }
+        assertTrue(new File(dataPath() + ".corrupt.1").exists());
+    }
+
+    @Test
+    public void load_unreadableSnapshotHeader_setsFileAside() throws Exception {
+        Storage storage = new Storage(dataPath());
+        TaskList taskList = new TaskList(storage.load());
+        taskList.add(new Todo("read book"));
+        storage.save(taskList);
+        byte[] bytes = Files.readAllBytes(Path.of(dataPath()));
+        bytes[5] = 99; // Unsupported format version
+        Files.write(Path.of(dataPath()), bytes);
+
+        Storage reopened = new Storage(dataPath());
+        TaskList loaded = new TaskList(reopened.load());
+        assertEquals(0, loaded.size());
+        loaded.add(new Todo("return book"));
+        reopened.save(loaded);
+        assertArrayEquals(bytes, Files.readAllBytes(Path.of(dataPath() + ".corrupt")));
+    }
+}
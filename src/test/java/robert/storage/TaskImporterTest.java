@@ -0,0 +1,152 @@
+package robert.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import robert.task.Deadline;
+import robert.task.Event;
+import robert.task.Task;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TaskImporterTest {
+    @TempDir
+    Path tempDir;
+
+    private TaskImporter.Result importFile(String name, String content) throws Exception {
+        Path path = tempDir.resolve(name);
+        Files.writeString(path, content, StandardCharsets.UTF_8);
+        return TaskImporter.read(path.toFile(), null);
+    }
+
+    @Test
+    public void read_csv_mapsColumnsByHeaderAndCollectsErrors() throws Exception {
+        TaskImporter.Result result = importFile("tasks.csv", "\uFEFFid,Description,type,by,from,to,done\n"
+                + "1,read book,,,,,\n"
+                + "\n"
+                + "2,\"return \"\"the\"\" book\",deadline,2019-12-01 1800,,,yes\n"
+                + "3,\"project\nmeeting, part 2\",,,2019-12-02T14:00,1600,\n"
+                + "4,,todo,,,,\n"
+                + "5,call bob,deadline,tomorrow,,,\n");
+
+        assertEquals(5, result.getRecordCount());
+        List<Task> tasks = result.getTasks();
+        assertEquals(3, tasks.size());
+        assertEquals("[T][ ] read book", tasks.get(0).toString());
+        assertEquals("return \"the\" book", tasks.get(1).getDescription());
+        assertTrue(tasks.get(1).isDone());
+        assertEquals(LocalDateTime.of(2019, 12, 1, 18, 0), ((Deadline) tasks.get(1)).getBy());
+        assertEquals("project meeting, part 2", tasks.get(2).getDescription());
+        assertEquals(LocalDateTime.of(2019, 12, 2, 16, 0), ((Event) tasks.get(2)).getTo());
+        assertEquals(2, result.getErrorCount());
+        assertEquals("Line 7: Missing description", result.getErrors().get(0));
+        assertTrue(result.getErrors().get(1).startsWith("Line 8: Invalid date/time 'tomorrow'"));
+    }
+
+    @Test
+    public void read_csvWithoutDescriptionColumn_fails() {
+        assertThrows(IOException.class, () -> importFile("tasks.csv", "name,due\nread book,\n"));
+    }
+
+    @Test
+    public void read_jsonLines_skipsUnknownFieldsAndReportsBadLines() throws Exception {
+        TaskImporter.Result result = importFile("tasks.jsonl",
+                "{\"description\": \"read \\\"book\\\" \\u00e9\", \"tags\": [\"a\", {\"b\": [1, 2]}], \"done\": true}\n"
+                + "{\"type\": \"event\", \"description\": \"trip\", \"from\": \"2019-12-02\", \"to\": \"2019-12-04\"}\n"
+                + "{\"description\": \"broken\"\n"
+                + "{\"type\": \"meeting\", \"description\": \"x\"}\n"
+                + "{\"by\": \"2019-12-01T18:00:30\", \"description\": \"essay\", \"done\": null}\n");
+
+        List<Task> tasks = result.getTasks();
+        assertEquals(3, tasks.size());
+        assertEquals("read \"book\" \u00e9", tasks.get(0).getDescription());
+        assertTrue(tasks.get(0).isDone());
+        assertEquals(LocalDateTime.of(2019, 12, 4, 0, 0), ((Event) tasks.get(1)).getTo());
+        assertEquals(LocalDateTime.of(2019, 12, 1, 18, 0), ((Deadline) tasks.get(2)).getBy());
+        assertFalse(tasks.get(2).isDone());
+        assertEquals(2, result.getErrorCount());
+        assertTrue(result.getErrors().get(0).startsWith("Line 3: Invalid JSON"));
+        assertEquals("Line 4: Unknown task type 'meeting'", result.getErrors().get(1));
+    }
+
+    @Test
+    public void read_iCalendar_mapsTodosAndEvents() throws Exception {
+        TaskImporter.Result result = importFile("calendar.ics", String.join("\r\n",
+                "BEGIN:VCALENDAR",
+                "VERSION:2.0",
+                "BEGIN:VTIMEZONE",
+                "TZID:Asia/Singapore",
+                "END:VTIMEZONE",
+                "BEGIN:VTODO",
+                "SUMMARY:read",
+                "  book",
+                "STATUS:COMPLETED",
+                "END:VTODO",
+                "BEGIN:VTODO",
+                "SUMMARY:return book\\, today",
+                "DUE;VALUE=DATE-TIME:20191201T180000",
+                "END:VTODO",
+                "BEGIN:VEVENT",
+                "SUMMARY:holiday",
+                "DTSTART;VALUE=DATE:20191224",
+                "BEGIN:VALARM",
+                "SUMMARY:not the event",
+                "END:VALARM",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "SUMMARY:call",
+                "DTSTART:20191202T010000Z",
+                "DURATION:PT30M",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "SUMMARY:no start",
+                "END:VEVENT",
+                "END:VCALENDAR", ""));
+
+        List<Task> tasks = result.getTasks();
+        assertEquals(4, tasks.size());
+        assertEquals("[T][X] read book", tasks.get(0).toString());
+        assertEquals("return book, today", tasks.get(1).getDescription());
+        assertEquals(LocalDateTime.of(2019, 12, 1, 18, 0), ((Deadline) tasks.get(1)).getBy());
+        assertEquals("holiday", tasks.get(2).getDescription());
+        assertEquals(LocalDateTime.of(2019, 12, 25, 0, 0), ((Event) tasks.get(2)).getTo());
+        LocalDateTime callStart = LocalDateTime.of(2019, 12, 2, 1, 0).atOffset(ZoneOffset.UTC)
+                .atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        assertEquals(callStart, ((Event) tasks.get(3)).getFrom());
+        assertEquals(callStart.plusMinutes(30), ((Event) tasks.get(3)).getTo());
+        assertEquals(List.of("Line 27: An event needs a DTSTART"), result.getErrors());
+    }
+
+    @Test
+    public void read_manyRecords_keepsFileOrderAndReportsProgress() throws Exception {
+        StringBuilder sb = new StringBuilder("description,done\n");
+        for (int i = 0; i < 250_000; i++) {
+            sb.append("task ").append(i).append(i % 1000 == 999 ? ",maybe\n" : ",\n");
+        }
+        Path path = tempDir.resolve("many.csv");
+        Files.writeString(path, sb, StandardCharsets.UTF_8);
+        ArrayList<Integer> reports = new ArrayList<>();
+
+        TaskImporter.Result result = TaskImporter.read(new File(path.toString()), reports::add);
+
+        assertEquals(250_000, result.getRecordCount());
+        assertEquals(List.of(100_000, 200_000), reports);
+        assertEquals(250, result.getErrorCount());
+        assertEquals("Line 1001: Invalid done value 'maybe'; use true or false", result.getErrors().get(0));
+        assertEquals(249_750, result.getTasks().size());
+        for (int i = 0, expected = 0; i < result.getTasks().size(); i++, expected++) {
+            if (expected % 1000 == 999) {
+                expected++;
+            }
+            assertEquals("task " + expected, result.getTasks().get(i).getDescription());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package robert.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import robert.task.Deadline;
+import robert.task.TaskList;
+import robert.task.Todo;
+import java.io.File;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class UndoLogTest {
+    @TempDir
+    Path tempDir;
+
+    private static UndoLog.Operation add(long id, String description) {
+        Todo todo = new Todo(description);
+        todo.setId(id);
+        return new UndoLog.Operation(UndoLog.Kind.ADD, List.of(todo), new int[] {(int) id - 1});
+    }
+
+    @Test
+    public void record_pastCapacity_dropsOldest() {
+        UndoLog log = new UndoLog(tempDir.resolve("duke.txt.undo").toString(), 2);
+        log.record(add(1, "read book"));
+        log.record(add(2, "return book"));
+        log.record(add(3, "join sports club"));
+
+        assertEquals(3, log.takeUndo().getTasks().get(0).getId());
+        assertEquals(2, log.takeUndo().getTasks().get(0).getId());
+        assertNull(log.takeUndo());
+    }
+
+    @Test
+    public void record_afterUndo_clearsRedo() {
+        UndoLog log = new UndoLog(tempDir.resolve("duke.txt.undo").toString(), 10);
+        log.record(add(1, "read book"));
+        UndoLog.Operation operation = log.takeUndo();
+        log.undone(operation);
+        assertSame(operation, log.takeRedo());
+        log.redone(operation);
+        assertSame(operation, log.takeUndo());
+        log.undone(operation);
+
+        log.record(add(2, "return book"));
+        assertNull(log.takeRedo());
+    }
+
+    @Test
+    public void saveThenLoad_roundTripsBothHistories() throws Exception {
+        String path = tempDir.resolve("duke.txt.undo").toString();
+        UndoLog log = new UndoLog(path, 10);
+        Deadline deadline = new Deadline("return book", LocalDateTime.of(2019, 12, 1, 18, 0));
+        deadline.setId(7);
+        log.record(new UndoLog.Operation(UndoLog.Kind.DELETE, List.of(deadline), new int[] {4}));
+        log.record(new UndoLog.Operation(UndoLog.Kind.MARK, List.of(add(2, "read book").getTasks().get(0)),
+                new int[0]));
+        log.undone(log.takeUndo());
+        log.save();
+
+        UndoLog loaded = new UndoLog(path, 10);
+        loaded.load();
+        assertFalse(new File(path + ".journal").exists());
+        UndoLog.Operation redo = loaded.takeRedo();
+        assertEquals(UndoLog.Kind.MARK, redo.getKind());
+        assertEquals("[T][ ] read book", redo.getTasks().get(0).toString());
+        assertEquals(2, redo.getTasks().get(0).getId());
+        UndoLog.Operation undo = loaded.takeUndo();
+        assertEquals(UndoLog.Kind.DELETE, undo.getKind());
+        assertEquals(deadline.toString(), undo.getTasks().get(0).toString());
+        assertEquals(7, undo.getTasks().get(0).getId());
+        assertEquals(4, undo.getPositions()[0]);
+        assertNull(loaded.takeUndo());
+    }
+
+    @Test
+    public void journalTo_changesNeverSaved_replayedOnLoad() throws Exception {
+        String dataPath = tempDir.resolve("duke.txt").toString();
+        Storage storage = new Storage(dataPath);
+        storage.load();
+        UndoLog log = new UndoLog(dataPath + ".undo", 10);
+        log.journalTo(storage);
+        log.record(add(1, "read book"));
+        log.record(add(2, "return book"));
+        log.record(add(3, "join sports club"));
+        log.undone(log.takeUndo());
+        storage.flush();
+
+        UndoLog loaded = new UndoLog(dataPath + ".undo", 10);
+        loaded.load();
+        assertFalse(new File(dataPath + ".undo.journal").exists());
+        assertEquals(3, loaded.takeRedo().getTasks().get(0).getId());
+        assertEquals(2, loaded.takeUndo().getTasks().get(0).getId());
+        assertEquals(1, loaded.takeUndo().getTasks().get(0).getId());
+        assertNull(loaded.takeUndo());
+
+        storage.deferWrites();
+        log.record(add(4, "buy bread"));
+        storage.checkpoint(new TaskList());
+        loaded = new UndoLog(dataPath + ".undo", 10);
+        loaded.load();
+        assertEquals(4, loaded.takeUndo().getTasks().get(0).getId());
+        storage.close();
+    }
+}
@@ -0,0 +1,115 @@
+package robert.task;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ColumnarTaskListTest {
+    private ColumnarTaskList taskList;
+    private Todo todo;
+    private Deadline deadline;
+    private Event event;
+
+    @BeforeEach
+    public void setUp() {
+        taskList = new ColumnarTaskList();
+        todo = new Todo("read b\u00f6\u00f6k");
+        deadline = new Deadline("return book", LocalDateTime.of(2019, 12, 1, 18, 0));
+        event = new Event("project meeting",
+                LocalDateTime.of(2019, 12, 2, 14, 0),
+                LocalDateTime.of(2019, 12, 2, 16, 0));
+    }
+
+    @Test
+    public void get_addedTasks_rebuildsEqualTasks() {
+        deadline.markAsDone();
+        taskList.add(todo);
+        taskList.add(deadline);
+        taskList.add(event);
+
+        assertEquals(3, taskList.size());
+        assertEquals(todo.toString(), taskList.get(0).toString());
+        assertEquals(deadline.toString(), taskList.get(1).toString());
+        assertEquals(event.toString(), taskList.get(2).toString());
+        assertEquals(2, taskList.get(1).getId());
+    }
+
+    @Test
+    public void markAndRemove_shiftsDoneFlags() {
+        taskList.add(todo);
+        taskList.add(deadline);
+        taskList.add(event);
+        taskList.markTask(2);
+
+        Task removed = taskList.remove(0);
+        assertEquals(todo.toString(), removed.toString());
+        assertEquals("[D][ ] return book (by: Dec 1 2019, 6:00 pm)", taskList.get(0).toString());
+        assertTrue(taskList.get(1).isDone());
+        assertEquals(1, taskList.indexOfId(3));
+
+        taskList.unmarkTask(1);
+        assertFalse(taskList.get(1).isDone());
+    }
+
+    @Test
+    public void remove_manyTasks_compactsArenaWithoutLosingDescriptions() {
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            tasks.add(new Todo("task number " + i));
+        }
+        ColumnarTaskList columns = new ColumnarTaskList(tasks);
+        for (int i = 0; i < 15_000; i++) {
+            columns.remove(0);
+        }
+        assertEquals(5_000, columns.size());
+        assertEquals("[T][ ] task number 15000", columns.get(0).toString());
+        assertEquals("[T][ ] task number 19999", columns.get(4_999).toString());
+    }
+
+    @Test
+    public void insertThenRemove_compactsArenaWithReferencesOutOfOrder() {
+        String padding = "x".repeat(1000);
+        ArrayList<String> model = new ArrayList<>();
+        ColumnarTaskList columns = new ColumnarTaskList();
+        for (int i = 0; i < 200; i++) {
+            columns.add(new Todo("task " + i + " " + padding));
+            model.add("[T][ ] task " + i + " " + padding);
+        }
+        for (int i = 0; i < 5; i++) {
+            columns.insert(i * 3, new Todo("inserted " + i + " " + padding));
+            model.add(i * 3, "[T][ ] inserted " + i + " " + padding);
+        }
+        for (int i = 0; i < 150; i++) {
+            columns.remove(columns.size() - 1);
+            model.remove(model.size() - 1);
+        }
+
+        assertEquals(model.size(), columns.size());
+        for (int i = 0; i < model.size(); i++) {
+            assertEquals(model.get(i), columns.get(i).toString());
+        }
+        columns.add(new Todo("after compaction"));
+        assertEquals("[T][ ] after compaction", columns.get(columns.size() - 1).toString());
+    }
+
+    @Test
+    public void queries_scanColumns() {
+        taskList.add(todo);
+        taskList.add(deadline);
+        taskList.add(event);
+
+        assertTrue(taskList.isDuplicate(new Todo("READ B\u00d6\u00d6K")));
+        assertEquals(1, taskList.findTasks("book").size());
+        assertEquals(2, taskList.findBetween(LocalDateTime.of(2019, 12, 1, 0, 0),
+                LocalDateTime.of(2019, 12, 2, 23, 59)).size());
+        Event review = new Event("code review", LocalDateTime.of(2019, 12, 2, 15, 0),
+                LocalDateTime.of(2019, 12, 2, 17, 0));
+        assertEquals(1, taskList.findOverlapping(review).size());
+        taskList.add(review);
+        List<Event[]> conflicts = taskList.findConflicts();
+        assertEquals(1, conflicts.size());
+    }
+}
@@ -0,0 +1,620 @@
+package robert.task;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ConcurrentTaskListTest {
+    @Test
+    public void constructor_fromTaskList_keepsOrderAndIds() {
+        TaskList source = new TaskList();
+        source.add(new Todo("read book"));
+        source.add(new Todo("return book"));
+        source.add(new Todo("join sports club"));
+        source.remove(1);
+
+        ConcurrentTaskList taskList = new ConcurrentTaskList(source);
+        assertEquals(2, taskList.size());
+        assertEquals(3, taskList.get(1).getId());
+        assertEquals(1, taskList.indexOfId(3));
+        assertEquals(-1, taskList.indexOfId(2));
+
+        Todo todo = new Todo("buy milk");
+        taskList.add(todo);
+        assertEquals(4, todo.getId());
+    }
+
+    @Test
+    public void constructor_fromLazyList_readsOnlyChunksThatChange() {
+        HashSet<Long> reads = new HashSet<>();
+        long[] offsets = new long[1000];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = i * 10;
+        }
+        LazyTaskList lazy = new LazyTaskList(new TaskSource() {
+            @Override
+            public Task read(long offset) {
+                reads.add(offset);
+                return new Todo("task at " + offset);
+            }
+
+            @Override
+            public void close() {
+            }
+        }, offsets, 8);
+
+        ConcurrentTaskList taskList = new ConcurrentTaskList(lazy);
+        assertTrue(reads.isEmpty());
+        assertEquals(1000, taskList.size());
+        assertEquals(1001, taskList.getNextId());
+        assertEquals(500, taskList.indexOfId(501));
+        assertTrue(reads.isEmpty());
+
+        taskList.markTask(700);
+        taskList.remove(10);
+        taskList.insert(0, new Todo("first"));
+        assertTrue(reads.size() <= 2 * TaskListSnapshot.CHUNK_SIZE, "Read " + reads.size() + " tasks");
+        assertEquals("[T][X] task at 7000", taskList.get(700).toString());
+        assertEquals("[T][ ] task at 110", taskList.get(11).toString());
+        assertEquals(1001, taskList.get(0).getId());
+        assertEquals(List.of("[T][X] task at 7000"), taskList.findTasks("7000").getTasks().stream()
+                .map(Task::toString).toList());
+        assertNotNull(taskList.findDuplicate(new Todo("TASK AT 9990")));
+        assertNull(taskList.findDuplicate(new Todo("task at 100")));
+    }
+
+    @Test
+    public void constructor_fromColumnarList_readsTasksOnceAndQueriesIndexes() {
+        ColumnarTaskList columns = new ColumnarTaskList();
+        for (int i = 0; i < 1000; i++) {
+            columns.add(new Deadline("return book " + i, LocalDateTime.of(2019, 12, 1, 18, 0).plusHours(i)));
+        }
+        columns.remove(3);
+
+        ConcurrentTaskList taskList = new ConcurrentTaskList(columns);
+        assertEquals(999, taskList.size());
+        assertEquals(1001, taskList.getNextId());
+        // Indexed queries return the tasks held by the list rather than new copies from the columns
+        assertSame(taskList.get(3), taskList.findTasks("book 4").get(0));
+        assertSame(taskList.get(3), taskList.findDuplicate(
+                new Deadline("Return Book 4", LocalDateTime.of(2019, 12, 1, 22, 0))));
+        assertSame(taskList.get(0), taskList.findUpcoming(LocalDateTime.of(2019, 1, 1, 0, 0), 1).get(0));
+        assertSame(taskList.get(10), taskList.findBetween(LocalDateTime.of(2019, 12, 2, 5, 0),
+                LocalDateTime.of(2019, 12, 2, 5, 0)).get(0));
+    }
+
+    @Test
+    public void constructor_largeList_indexesInBackgroundAndKeepsChangesMadeMeanwhile() throws Exception {
+        TaskList source = new TaskList();
+        for (int i = 0; i < ConcurrentTaskList.BACKGROUND_INDEXING_THRESHOLD; i++) {
+            source.add(new Todo("task " + i));
+        }
+
+        ConcurrentTaskList taskList = new ConcurrentTaskList(source);
+        taskList.add(new Todo("read book"));
+        taskList.markTask(5);
+        taskList.remove(0);
+        taskList.insert(0, new Todo("return book"));
+        taskList.awaitIndexes();
+
+        TaskList model = new TaskList(taskList.getTasks());
+        assertEquals(model.findTasks("book").getTasks(), taskList.findTasks("book").getTasks());
+        assertSame(taskList.get(0), taskList.findTasks("book").get(0));
+        assertSame(taskList.get(5), taskList.findDuplicate(new Todo("task 5")));
+        assertTrue(taskList.get(5).isDone());
+        assertNull(taskList.findDuplicate(new Todo("task 0")));
+        assertEquals(List.of("read"), taskList.completeWord("rea", 5));
+    }
+
+    @Test
+    public void randomChanges_overLazyList_matchArrayListModel() {
+        Random random = new Random(16);
+        long[] offsets = new long[700];
+        ArrayList<String> model = new ArrayList<>();
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = i;
+            model.add("[T][ ] base " + i);
+        }
+        ConcurrentTaskList taskList = new ConcurrentTaskList(new LazyTaskList(new TaskSource() {
+            @Override
+            public Task read(long offset) {
+                return new Todo("base " + offset);
+            }
+
+            @Override
+            public void close() {
+            }
+        }, offsets, 16));
+        TaskListSnapshot first = taskList.snapshot();
+        for (int step = 0; step < 600; step++) {
+            int action = random.nextInt(10);
+            if (action < 2 || model.isEmpty()) {
+                taskList.add(new Todo("task " + step));
+                model.add("[T][ ] task " + step);
+            } else if (action < 4) {
+                int index = random.nextInt(model.size() + 1);
+                taskList.insert(index, new Todo("task " + step));
+                model.add(index, "[T][ ] task " + step);
+            } else if (action < 7) {
+                int index = random.nextInt(model.size());
+                taskList.remove(index);
+                model.remove(index);
+            } else if (action < 8) {
+                int from = random.nextInt(model.size());
+                int[] indices = random.ints(from, Math.min(model.size(), from + 150)).limit(20)
+                        .distinct().sorted().toArray();
+                taskList.removeTasks(indices);
+                for (int i = indices.length - 1; i >= 0; i--) {
+                    model.remove(indices[i]);
+                }
+            } else {
+                int index = random.nextInt(model.size());
+                taskList.markTask(index);
+                model.set(index, model.get(index).replace("[ ]", "[X]"));
+            }
+        }
+
+        assertEquals(model.toString(), taskList.getTasks().toString());
+        for (int i = 0; i < model.size(); i++) {
+            assertEquals(i, taskList.indexOfId(taskList.get(i).getId()));
+        }
+        assertEquals(700, first.size());
+        assertEquals("[T][ ] base 699", first.get(699).toString());
+    }
+
+    @Test
+    public void snapshot_laterChanges_notReflected() {
+        ConcurrentTaskList taskList = new ConcurrentTaskList();
+        taskList.add(new Todo("read book"));
+        TaskList snapshot = taskList.snapshot();
+        taskList.add(new Todo("return book"));
+        taskList.remove(0);
+
+        assertEquals(1, snapshot.size());
+        assertEquals("[T][ ] read book", snapshot.get(0).toString());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(new Todo("x")));
+    }
+
+    @Test
+    public void snapshot_laterMark_showsTaskAsItWas() {
+        ConcurrentTaskList taskList = new ConcurrentTaskList();
+        taskList.add(new Todo("read book"));
+        TaskListSnapshot before = taskList.snapshot();
+        taskList.markTask(0);
+
+        assertEquals("[T][ ] read book", before.get(0).toString());
+        assertEquals("[T][X] read book", taskList.get(0).toString());
+        assertEquals(before.get(0).getId(), taskList.get(0).getId());
+        assertEquals(1, before.getVersion());
+        assertEquals(2, taskList.getVersion());
+    }
+
+    @Test
+    public void findDuplicate_afterChanges_returnsCurrentTask() {
+        ConcurrentTaskList taskList = new ConcurrentTaskList();
+        taskList.add(new Todo("read book"));
+        taskList.add(new Deadline("return book", LocalDateTime.of(2019, 12, 1, 18, 0)));
+        assertNull(taskList.findDuplicate(new Todo("join club")));
+
+        taskList.add(new Todo("join club"));
+        taskList.markTask(0);
+        taskList.markTasks(new int[] {1});
+
+        assertTrue(taskList.findDuplicate(new Todo("READ BOOK")).isDone());
+        assertTrue(taskList.findDuplicate(new Deadline("return book", LocalDateTime.of(2019, 12, 1, 18, 0))).isDone());
+        assertNull(taskList.findDuplicate(new Deadline("return book", LocalDateTime.of(2019, 12, 2, 18, 0))));
+        assertEquals(taskList.get(2), taskList.findDuplicate(new Todo("join club")));
+
+        taskList.removeTasks(new int[] {0, 2});
+        assertNull(taskList.findDuplicate(new Todo("read book")));
+        assertNull(taskList.findDuplicate(new Todo("join club")));
+        taskList.insert(0, new Todo("read book"));
+        assertEquals(taskList.get(0), taskList.findDuplicate(new Todo("read book")));
+    }
+
+    @Test
+    public void addAllNew_batchWithDuplicates_addsNewTasksInOneVersion() {
+        ConcurrentTaskList taskList = new ConcurrentTaskList();
+        for (int i = 0; i < 100; i++) {
+            taskList.add(new Todo("task " + i));
+        }
+        taskList.findFuzzy("task", 1);
+        long version = taskList.getVersion();
+        ArrayList<Task> batch = new ArrayList<>();
+        for (int i = 90; i < 300; i++) {
+            batch.add(new Todo("TASK " + i));
+        }
+        batch.add(new Todo("task 150"));
+
+        List<Task> added = taskList.addAllNew(batch);
+
+        assertEquals(200, added.size());
+        assertEquals(300, taskList.size());
+        assertEquals(version + 1, taskList.getVersion());
+        for (int i = 0; i < taskList.size(); i++) {
+            assertEquals(i + 1, taskList.get(i).getId());
+            assertEquals(i, taskList.indexOfId(i + 1));
+        }
+        assertEquals("TASK 299", taskList.get(299).getDescription());
+        assertSame(taskList.get(150), taskList.findDuplicate(new Todo("task 150")));
+        assertEquals("TASK 250", taskList.findFuzzy("TASK 250", 1).get(0).getDescription());
+        assertTrue(taskList.addAllNew(List.of(new Todo("task 5"))).isEmpty());
+
+        TaskList plain = new TaskList();
+        plain.add(new Todo("task 0"));
+        assertEquals(2, plain.addAllNew(List.of(new Todo("task 0"), new Todo("task 1"), new Todo("Task 1"),
+                new Todo("task 2"))).size());
+        assertEquals(3, plain.size());
+    }
+
+    @Test
+    public void randomChanges_matchArrayListModel() {
+        Random random = new Random(14);
+        ConcurrentTaskList taskList = new ConcurrentTaskList();
+        ArrayList<String> model = new ArrayList<>();
+        List<TaskListSnapshot> snapshots = new ArrayList<>();
+        List<String> snapshotContents = new ArrayList<>();
+        for (int step = 0; step < 5000; step++) {
+            int action = random.nextInt(10);
+            if (action < 5 || model.isEmpty()) {
+                taskList.add(new Todo("task " + step));
+                model.add("[T][ ] task " + step);
+            } else if (action < 8) {
+                int index = random.nextInt(model.size());
+                taskList.remove(index);
+                model.remove(index);
+            } else {
+                int index = random.nextInt(model.size());
+                taskList.markTask(index);
+                model.set(index, model.get(index).replace("[ ]", "[X]"));
+            }
+            if (step % 500 == 0) {
+                snapshots.add(taskList.snapshot());
+                snapshotContents.add(model.toString());
+            }
+        }
+
+        assertEquals(model.toString(), taskList.getTasks().toString());
+        for (int i = 0; i < model.size(); i++) {
+            assertEquals(model.get(i), taskList.get(i).toString());
+            assertEquals(i, taskList.indexOfId(taskList.get(i).getId()));
+        }
+        assertEquals(5000, taskList.getVersion());
+        for (int i = 0; i < snapshots.size(); i++) {
+            assertEquals(snapshotContents.get(i), snapshots.get(i).getTasks().toString());
+        }
+    }
+
+    @Test
+    public void queries_matchTaskList() {
+        ConcurrentTaskList taskList = new ConcurrentTaskList();
+        TaskList expected = new TaskList();
+        for (int i = 0; i < 40; i++) {
+            LocalDateTime from = LocalDateTime.of(2019, 12, 1 + i % 5, 9 + i % 7, 0);
+            taskList.add(new Event("meeting " + i, from, from.plusHours(2)));
+            expected.add(new Event("meeting " + i, from, from.plusHours(2)));
+        }
+        taskList.remove(7);
+        expected.remove(7);
+
+        assertEquals(expected.findTasks("meeting 1").getTasks().toString(),
+                taskList.findTasks("meeting 1").getTasks().toString());
+        LocalDateTime start = LocalDateTime.of(2019, 12, 2, 0, 0);
+        assertEquals(expected.findBetween(start, start.plusDays(1)).size(),
+                taskList.findBetween(start, start.plusDays(1)).size());
+        assertEquals(expected.findConflicts().size(), taskList.findConflicts().size());
+        assertNotNull(taskList.findDuplicate(new Event("meeting 3",
+                LocalDateTime.of(2019, 12, 4, 12, 0), LocalDateTime.of(2019, 12, 4, 14, 0))));
+    }
+
+    @Test
+    public void indexedQueries_afterMarks_keepOrderAndFindCopies() {
+        ConcurrentTaskList taskList = new ConcurrentTaskList();
+        for (int i = 0; i < 10; i++) {
+            LocalDateTime from = LocalDateTime.of(2019, 12, 2, 14, 0);
+            taskList.add(new Event("meeting " + i, from, from.plusHours(1 + i % 3)));
+        }
+        String found = taskList.findTasks("meeting").getTasks().toString();
+        String between = taskList.findBetween(LocalDateTime.of(2019, 12, 2, 0, 0),
+                LocalDateTime.of(2019, 12, 3, 0, 0)).getTasks().toString();
+        int conflicts = taskList.findConflicts().size();
+
+        taskList.markTasks(new int[] {0, 4});
+        taskList.markTask(9);
+
+        String marked = taskList.getTasks().toString();
+        assertEquals(marked, taskList.findTasks("meeting").getTasks().toString());
+        assertEquals(found.replace("[ ]", "[X]"), taskList.findTasks("meeting").getTasks().toString()
+                .replace("[ ]", "[X]"));
+        assertEquals(between.replace("[ ]", "[X]"), taskList.findBetween(LocalDateTime.of(2019, 12, 2, 0, 0),
+                LocalDateTime.of(2019, 12, 3, 0, 0)).getTasks().toString().replace("[ ]", "[X]"));
+        assertEquals(conflicts, taskList.findConflicts().size());
+        for (Event[] conflict : taskList.findConflicts()) {
+            assertSame(taskList.get(taskList.indexOfId(conflict[0].getId())), conflict[0]);
+            assertSame(taskList.get(taskList.indexOfId(conflict[1].getId())), conflict[1]);
+        }
+        assertSame(taskList.get(4), taskList.findOverlapping((Event) taskList.get(3)).get(3));
+    }
+
+    @Test
+    public void findFuzzy_afterChanges_matchesTaskList() {
+        ConcurrentTaskList taskList = new ConcurrentTaskList();
+        TaskList expected = new TaskList();
+        String[] descriptions = {"read book", "return book", "join book club", "buy bread", "bake bread"};
+        for (String description : descriptions) {
+            taskList.add(new Todo(description));
+            expected.add(new Todo(description));
+        }
+        assertEquals(expected.findFuzzy("bok", 3).getTasks().toString(),
+                taskList.findFuzzy("bok", 3).getTasks().toString());
+
+        taskList.remove(0);
+        expected.remove(0);
+        taskList.markTask(0);
+        expected.markTask(0);
+        taskList.add(new Todo("borrow books"));
+        expected.add(new Todo("borrow books"));
+        assertEquals(expected.findFuzzy("bok", 5).getTasks().toString(),
+                taskList.findFuzzy("bok", 5).getTasks().toString());
+        assertEquals("[T][X] return book", taskList.findFuzzy("retrun", 1).get(0).toString());
+        assertEquals(expected.findFuzzy("bred", 5).getTasks().toString(),
+                taskList.snapshot().findFuzzy("bred", 5).getTasks().toString());
+    }
+
+    @Test
+    public void findUpcoming_afterMarkAndUnmark_tracksCopies() {
+        ConcurrentTaskList taskList = new ConcurrentTaskList();
+        LocalDateTime now = LocalDateTime.of(2019, 11, 30, 0, 0);
+        taskList.add(new Deadline("return book", LocalDateTime.of(2019, 12, 1, 18, 0)));
+        taskList.add(new Event("project meeting", LocalDateTime.of(2019, 12, 2, 14, 0),
+                LocalDateTime.of(2019, 12, 2, 16, 0)));
+        assertEquals(2, taskList.findUpcoming(now, 5).size());
+
+        taskList.markTask(0);
+        assertEquals("[E][ ] project meeting (from: Dec 2 2019, 2:00 pm to: 4:00 pm)",
+                taskList.findUpcoming(now, 5).get(0).toString());
+        taskList.unmarkTask(0);
+        taskList.add(new Deadline("submit report", LocalDateTime.of(2019, 11, 30, 12, 0)));
+        TaskList upcoming = taskList.findUpcoming(now, 2);
+        assertEquals(2, upcoming.size());
+        assertSame(taskList.get(2), upcoming.get(0));
+        assertSame(taskList.get(0), upcoming.get(1));
+
+        taskList.remove(2);
+        assertSame(taskList.get(0), taskList.findUpcoming(now, 1).get(0));
+    }
+
+    @Test
+    public void insert_manyAtFront_splitsChunkAndKeepsOrder() {
+        ConcurrentTaskList taskList = new ConcurrentTaskList();
+        for (int i = 0; i < 100; i++) {
+            taskList.add(new Todo("back " + i));
+        }
+        TaskListSnapshot before = taskList.snapshot();
+        for (int i = 0; i < 200; i++) {
+            taskList.insert(0, new Todo("front " + i));
+        }
+
+        assertEquals(100, before.size());
+        assertEquals(300, taskList.size());
+        assertEquals("[T][ ] front 199", taskList.get(0).toString());
+        assertEquals("[T][ ] front 0", taskList.get(199).toString());
+        assertEquals("[T][ ] back 0", taskList.get(200).toString());
+        for (int i = 0; i < taskList.size(); i++) {
+            assertEquals(i, taskList.indexOfId(taskList.get(i).getId()));
+        }
+        assertEquals(200, taskList.findTasks("front").size());
+    }
+
+    @Test
+    public void concurrentAddsAndRemoves_readersSeeConsistentLists() throws Exception {
+        ConcurrentTaskList taskList = new ConcurrentTaskList();
+        int writers = 4;
+        int tasksPerWriter = 500;
+        AtomicBoolean isDone = new AtomicBoolean();
+        List<Throwable> failures = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < tasksPerWriter; i++) {
+                    taskList.add(new Todo("task " + writer + " " + i));
+                    if (i % 5 == 4) {
+                        int index = taskList.indexOfId(taskList.get(taskList.size() - 1).getId());
+                        if (index >= 0) {
+                            taskList.markTask(index);
+                        }
+                    }
+                }
+            }));
+        }
+        Thread reader = new Thread(() -> {
+            try {
+                while (!isDone.get()) {
+                    TaskList snapshot = taskList.snapshot();
+                    long previousId = 0;
+                    for (int i = 0; i < snapshot.size(); i++) {
+                        assertTrue(snapshot.get(i).getId() > previousId);
+                        previousId = snapshot.get(i).getId();
+                    }
+                    taskList.findTasks("task");
+                }
+            } catch (Throwable e) {
+                synchronized (failures) {
+                    failures.add(e);
+                }
+            }
+        });
+        reader.start();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        isDone.set(true);
+        reader.join();
+
+        assertEquals(List.of(), failures);
+        assertEquals(writers * tasksPerWriter, taskList.size());
+        HashSet<Long> ids = new HashSet<>();
+        for (Task task : taskList.getTasks()) {
+            ids.add(task.getId());
+        }
+        assertEquals(writers * tasksPerWriter, ids.size());
+        assertEquals(writers * tasksPerWriter + 1, taskList.getNextId());
+    }
+
+    @Test
+    public void queries_whileWriterHoldsLock_doNotWait() throws Exception {
+        ConcurrentTaskList taskList = new ConcurrentTaskList();
+        taskList.add(new Todo("read book"));
+        taskList.add(new Deadline("return book", LocalDateTime.of(2019, 12, 1, 18, 0)));
+        List<Object> results = new ArrayList<>();
+        Thread reader = new Thread(() -> {
+            results.add(taskList.findTasks("book").size());
+            results.add(taskList.findDuplicate(new Todo("READ book")).getDescription());
+            results.add(taskList.completeWord("re", 5));
+            results.add(taskList.findUpcoming(LocalDateTime.of(2019, 1, 1, 0, 0), 5).get(0).getDescription());
+            results.add(taskList.findFuzzy("retrun", 5).get(0).getDescription());
+        });
+        synchronized (taskList) {
+            reader.start();
+            reader.join(10_000);
+            assertFalse(reader.isAlive());
+        }
+
+        assertEquals(List.of(2, "read book", List.of("read", "return"), "return book", "return book"), results);
+    }
+
+    @Test
+    public void concurrentChanges_indexedQueriesMatchTheirVersion() throws Exception {
+        ConcurrentTaskList taskList = new ConcurrentTaskList();
+        AtomicBoolean isDone = new AtomicBoolean();
+        List<Throwable> failures = new ArrayList<>();
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 2000; i++) {
+                taskList.add(new Todo("task " + i));
+                if (i % 3 == 0) {
+                    taskList.markTask(taskList.size() - 1);
+                }
+                if (i % 4 == 0) {
+                    taskList.remove(taskList.size() / 2);
+                }
+            }
+        });
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 3; r++) {
+            readers.add(new Thread(() -> {
+                try {
+                    while (!isDone.get()) {
+                        List<Task> matches = taskList.findTasks("task").getTasks();
+                        for (int i = 1; i < matches.size(); i++) {
+                            assertTrue(matches.get(i - 1).getId() < matches.get(i).getId());
+                        }
+                        for (Task task : matches) {
+                            assertTrue(!task.isDone() || Long.parseLong(task.getDescription().substring(5)) % 3 == 0);
+                        }
+                        taskList.findDuplicate(new Todo("task 7"));
+                        taskList.completeWord("ta", 1);
+                    }
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            }));
+        }
+        for (Thread reader : readers) {
+            reader.start();
+        }
+        writer.start();
+        writer.join();
+        isDone.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertEquals(List.of(), failures);
+        TaskList model = new TaskList(taskList.getTasks());
+        assertEquals(model.findTasks("task").getTasks(), taskList.findTasks("task").getTasks());
+        assertEquals(model.findTasks("1").getTasks(), taskList.findTasks("1").getTasks());
+        assertEquals(model.findDuplicate(new Todo("task 1999")), taskList.findDuplicate(new Todo("task 1999")));
+    }
+
+    @Test
+    public void findTasks_parallel_matchesIndexedSearchInListOrder() {
+        Random random = new Random(15);
+        String[] words = {"read", "Return", "book", "club", "bread", "re-read", "b00k", "cl"};
+        TaskList indexed = new TaskList();
+        Task[] tasks = new Task[3000];
+        for (int i = 0; i < tasks.length; i++) {
+            StringBuilder description = new StringBuilder();
+            for (int w = random.nextInt(4); w >= 0; w--) {
+                description.append(words[random.nextInt(words.length)]).append(random.nextBoolean() ? " " : ",");
+            }
+            tasks[i] = new Todo(description.toString());
+            indexed.add(tasks[i]);
+        }
+        TaskListSnapshot snapshot = TaskListSnapshot.of(tasks, 0);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (String query : List.of("re", "read book", "B", "cl club", "00k", "bread,", "zzz", "")) {
+                String expected = indexed.findTasks(query).getTasks().toString();
+                assertEquals(expected, snapshot.findTasks(query, 0, pool).getTasks().toString(), query);
+                assertEquals(expected, snapshot.findTasks(query, Integer.MAX_VALUE, pool).getTasks().toString(),
+                        query);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void findTasks_parallelOverPartlyReadBase_readsBaseOnlyOnCallingThread() {
+        HashSet<Thread> readers = new HashSet<>();
+        long[] offsets = new long[4000];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = i;
+        }
+        LazyTaskList lazy = new LazyTaskList(new TaskSource() {
+            @Override
+            public Task read(long offset) {
+                return new Todo((offset % 3 == 0 ? "read book " : "club ") + offset);
+            }
+
+            @Override
+            public void close() {
+            }
+        }, offsets, 8) {
+            @Override
+            public Task get(int index) {
+                readers.add(Thread.currentThread());
+                return super.get(index);
+            }
+        };
+        TaskListSnapshot snapshot = TaskListSnapshot.of(lazy);
+        for (int i = 0; i < offsets.length; i += 2 * TaskListSnapshot.CHUNK_SIZE) {
+            snapshot = snapshot.withStatus(i, true);
+        }
+        TaskList expected = new TaskList(snapshot.getTasks());
+        readers.clear();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertEquals(expected.findTasks("book").getTasks().toString(),
+                    snapshot.findTasks("book", 0, pool).getTasks().toString());
+            assertEquals(expected.findTasks("club 39").getTasks().toString(),
+                    snapshot.findTasks("club 39", 0, pool).getTasks().toString());
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(Set.of(Thread.currentThread()), readers);
+    }
+}
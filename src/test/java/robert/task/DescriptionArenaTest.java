@@ -0,0 +1,42 @@
+package robert.task;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.time.LocalDateTime;
+
+public class DescriptionArenaTest {
+    @Test
+    public void compact_afterReleases_keepsLiveDescriptions() throws Exception {
+        for (DescriptionArena arena : new DescriptionArena[] {new HeapDescriptionArena(),
+                new DirectDescriptionArena()}) {
+            long[] references = new long[30_000];
+            for (int i = 0; i < references.length; i++) {
+                references[i] = arena.append("task number " + i + " \u00e9");
+            }
+            int count = 0;
+            for (int i = 0; i < references.length; i++) {
+                if (i % 3 == 0) {
+                    references[count++] = references[i];
+                } else {
+                    arena.release(references[i]);
+                }
+            }
+            assertTrue(arena.needsCompaction());
+            arena.compact(references, count);
+            assertFalse(arena.needsCompaction());
+            assertEquals("task number 0 \u00e9", arena.read(references[0]));
+            assertEquals("task number 29997 \u00e9", arena.read(references[count - 1]));
+            arena.close();
+        }
+    }
+
+    @Test
+    public void columnarTaskList_directArena_storesDescriptionsOffHeap() throws Exception {
+        try (ColumnarTaskList taskList = new ColumnarTaskList(4, new DirectDescriptionArena())) {
+            taskList.add(new Todo("read book"));
+            taskList.add(new Deadline("return book", LocalDateTime.of(2019, 12, 1, 18, 0)));
+            taskList.remove(0);
+            assertEquals("[D][ ] return book (by: Dec 1 2019, 6:00 pm)", taskList.get(0).toString());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package robert.task;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures how parallel find on a {@link TaskListSnapshot} scales with the number of threads.
+ * Not part of the test suite; run it by hand with a large enough heap, for example
+ * {@code java -Xmx4g -cp <classpath> robert.task.FindBenchmark 2000000 8}, where the optional
+ * arguments are the number of tasks and the most threads to try.
+ */
+public class FindBenchmark {
+    private static final String[] WORDS = {"read", "book", "return", "club", "meeting", "project", "buy", "bread"};
+    private static final int RUNS = 10;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        Task[] tasks = new Task[size];
+        for (int i = 0; i < size; i++) {
+            tasks[i] = new Todo(WORDS[i % WORDS.length] + " " + WORDS[(i / 7) % WORDS.length] + " item" + i);
+        }
+        TaskListSnapshot snapshot = TaskListSnapshot.of(tasks, 0);
+
+        double sequential = time(snapshot, Integer.MAX_VALUE, ForkJoinPool.commonPool());
+        System.out.printf("%d tasks, sequential: %.1f ms%n", size, sequential);
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            double parallel = time(snapshot, 0, pool);
+            pool.shutdown();
+            System.out.printf("%2d thread(s): %.1f ms, %.2fx%n", threads, parallel, sequential / parallel);
+        }
+    }
+
+    /**
+     * Returns the average time of one search, in milliseconds, after a warm-up.
+     */
+    private static double time(TaskListSnapshot snapshot, int threshold, ForkJoinPool pool) {
+        int matches = 0;
+        for (int i = 0; i < RUNS; i++) {
+            matches += snapshot.findTasks("book re", threshold, pool).size();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            matches += snapshot.findTasks("book re", threshold, pool).size();
+        }
+        assert matches > 0 : "The query should match some tasks";
+        return (System.nanoTime() - start) / 1e6 / RUNS;
+    }
+}
@@ -0,0 +1,106 @@
+package robert.task;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LazyTaskListTest {
+    private ArrayList<Long> reads;
+    private LazyTaskList taskList;
+
+    @BeforeEach
+    public void setUp() {
+        reads = new ArrayList<>();
+        TaskSource source = new TaskSource() {
+            @Override
+            public Task read(long offset) {
+                reads.add(offset);
+                return new Todo("task at " + offset);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        taskList = new LazyTaskList(source, new long[] {0, 10, 20, 30}, 2);
+    }
+
+    @Test
+    public void constructor_offsets_decodesNothing() {
+        assertEquals(4, taskList.size());
+        assertTrue(reads.isEmpty());
+    }
+
+    @Test
+    public void get_sameIndexTwice_decodesOnce() {
+        assertEquals("[T][ ] task at 20", taskList.get(2).toString());
+        assertSame(taskList.get(2), taskList.get(2));
+        assertEquals(1, reads.size());
+    }
+
+    @Test
+    public void get_heldTaskEvictedFromCache_returnsSameObject() {
+        Task held = taskList.get(0);
+        taskList.get(1);
+        taskList.get(2);
+        taskList.get(3);
+        assertSame(held, taskList.get(0));
+    }
+
+    @Test
+    public void markTask_evictedFromCache_keepsStatus() {
+        taskList.markTask(0);
+        for (int i = 1; i < taskList.size(); i++) {
+            taskList.get(i);
+        }
+        assertEquals("[T][X] task at 0", taskList.get(0).toString());
+    }
+
+    @Test
+    public void addAndRemove_mixedEntries_keepsOrder() {
+        Todo todo = new Todo("read book");
+        taskList.add(todo);
+        Task removed = taskList.remove(1);
+
+        assertEquals("[T][ ] task at 10", removed.toString());
+        assertEquals(4, taskList.size());
+        assertEquals("[T][ ] task at 20", taskList.get(1).toString());
+        assertSame(todo, taskList.get(3));
+    }
+
+    @Test
+    public void removeTasks_batch_shiftsRemainingOnce() {
+        Todo todo = new Todo("read book");
+        taskList.add(todo);
+        List<Task> removed = taskList.removeTasks(new int[] {0, 2, 3});
+
+        assertEquals("[T][ ] task at 0", removed.get(0).toString());
+        assertEquals("[T][ ] task at 30", removed.get(2).toString());
+        assertEquals(2, taskList.size());
+        assertEquals("[T][ ] task at 10", taskList.get(0).toString());
+        assertSame(todo, taskList.get(1));
+        assertEquals(1, taskList.indexOfId(5));
+    }
+
+    @Test
+    public void findTasks_keyword_searchesDecodedTasks() {
+        TaskList matches = taskList.findTasks("at 3");
+        assertEquals(1, matches.size());
+        assertEquals("[T][ ] task at 30", matches.get(0).toString());
+    }
+
+    @Test
+    public void indexOfId_afterRemoveAndAdd_findsShiftedTasks() {
+        Todo todo = new Todo("read book");
+        taskList.add(todo);
+        taskList.remove(0);
+
+        assertEquals(5, todo.getId());
+        assertEquals(3, taskList.indexOfId(5));
+        assertEquals(0, taskList.indexOfId(2));
+        assertEquals(-1, taskList.indexOfId(1));
+        assertEquals(2, taskList.get(0).getId());
+    }
+}
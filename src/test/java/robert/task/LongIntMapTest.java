@@ -0,0 +1,47 @@
+package robert.task;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.HashMap;
+import java.util.Random;
+
+public class LongIntMapTest {
+    @Test
+    public void putGetAndRemove_singleKeys_behaveLikeMap() {
+        LongIntMap map = new LongIntMap();
+        map.put(7, 1);
+        map.put(7, 2);
+        map.put(Long.MAX_VALUE, 3);
+
+        assertEquals(2, map.get(7));
+        assertEquals(3, map.get(Long.MAX_VALUE));
+        assertEquals(-1, map.get(8));
+        assertEquals(2, map.size());
+        map.remove(7);
+        map.remove(8);
+        assertEquals(-1, map.get(7));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void randomPutsAndRemoves_matchHashMapModel() {
+        Random random = new Random(23);
+        LongIntMap map = new LongIntMap();
+        HashMap<Long, Integer> model = new HashMap<>();
+        for (int step = 0; step < 50_000; step++) {
+            long key = 1 + random.nextInt(2_000);
+            if (random.nextInt(3) > 0) {
+                map.put(key, step);
+                model.put(key, step);
+            } else {
+                map.remove(key);
+                model.remove(key);
+            }
+        }
+
+        assertEquals(model.size(), map.size());
+        for (long key = 1; key <= 2_000; key++) {
+            assertEquals((int) model.getOrDefault(key, -1), map.get(key));
+        }
+    }
+}
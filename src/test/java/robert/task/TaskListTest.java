@@ -5,6 +5,8 @@ import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 
 public class TaskListTest {
     private TaskList taskList;
@@ -121,4 +123,486 @@ public class TaskListTest {
         assertEquals(todo, tasks.get(0));
         assertEquals(deadline, tasks.get(1));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void findDuplicate_sameTaskDifferentCase_returnsExistingTask() {
+        taskList.add(todo);
+        taskList.add(deadline);
+
+        assertEquals(todo, taskList.findDuplicate(new Todo("READ Book")));
+        assertEquals(deadline, taskList.findDuplicate(
+                new Deadline("return book", LocalDateTime.of(2019, 12, 1, 18, 0))));
+        assertNull(taskList.findDuplicate(new Deadline("return book", LocalDateTime.of(2019, 12, 2, 18, 0))));
+        assertFalse(taskList.isDuplicate(new Event("read book",
+                LocalDateTime.of(2019, 12, 2, 14, 0), LocalDateTime.of(2019, 12, 2, 16, 0))));
+    }
+
+    @Test
+    public void findDuplicate_afterRemove_isNotFound() {
+        taskList.add(todo);
+        assertTrue(taskList.isDuplicate(new Todo("read book")));
+
+        taskList.remove(0);
+        assertFalse(taskList.isDuplicate(new Todo("read book")));
+    }
+
+    @Test
+    public void findDuplicate_afterGetTasksMutation_seesChanges() {
+        taskList.add(todo);
+        assertTrue(taskList.isDuplicate(new Todo("read book")));
+
+        taskList.getTasks().clear();
+        assertFalse(taskList.isDuplicate(new Todo("read book")));
+        taskList.getTasks().add(event);
+        assertTrue(taskList.isDuplicate(new Event("Project Meeting",
+                LocalDateTime.of(2019, 12, 2, 14, 0), LocalDateTime.of(2019, 12, 2, 16, 0))));
+    }
+
+    @Test
+    public void findTasks_prefixAndMultipleKeywords_matchesAllKeywords() {
+        Todo club = new Todo("join the Bookworm club");
+        taskList.add(todo);
+        taskList.add(deadline);
+        taskList.add(club);
+
+        TaskList matches = taskList.findTasks("book");
+        assertEquals(3, matches.size());
+        assertEquals(todo, matches.get(0));
+        assertEquals(club, matches.get(2));
+
+        matches = taskList.findTasks("BOOK clu");
+        assertEquals(1, matches.size());
+        assertEquals(club, matches.get(0));
+        assertEquals(0, taskList.findTasks("ook").size());
+    }
+
+    @Test
+    public void findTasks_afterAddAndRemove_keepsListOrder() {
+        taskList.add(todo);
+        assertEquals(1, taskList.findTasks("book").size());
+
+        taskList.add(deadline);
+        taskList.remove(0);
+        taskList.add(new Todo("book flights"));
+        TaskList matches = taskList.findTasks("book");
+        assertEquals(2, matches.size());
+        assertEquals(deadline, matches.get(0));
+        assertEquals("[T][ ] book flights", matches.get(1).toString());
+    }
+
+    @Test
+    public void findTasks_afterRemoveAndInsertBack_keepsListOrder() {
+        for (int i = 0; i < 5; i++) {
+            taskList.add(new Todo("book " + i));
+        }
+        assertEquals(5, taskList.findTasks("book").size());
+        Task second = taskList.remove(1);
+        Task first = taskList.remove(0);
+        taskList.insert(0, first);
+        taskList.insert(1, second);
+        Task last = taskList.remove(4);
+        taskList.insert(4, last);
+
+        TaskList matches = taskList.findTasks("book");
+        assertEquals(5, matches.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals("[T][ ] book " + i, matches.get(i).toString());
+        }
+        assertEquals(5, taskList.findTasks("boo").size());
+        assertEquals(first, taskList.findTasks("book 0").get(0));
+    }
+
+    @Test
+    public void findTasks_manyInsertsAtSamePosition_keepsListOrder() {
+        ArrayList<String> model = new ArrayList<>();
+        taskList.add(new Todo("book first"));
+        taskList.add(new Todo("book last"));
+        model.add("[T][ ] book first");
+        model.add("[T][ ] book last");
+        assertEquals(2, taskList.findTasks("book").size());
+        for (int i = 0; i < 100; i++) {
+            taskList.insert(1, new Todo("book " + i));
+            model.add(1, "[T][ ] book " + i);
+        }
+
+        TaskList matches = taskList.findTasks("book");
+        assertEquals(model.size(), matches.size());
+        for (int i = 0; i < model.size(); i++) {
+            assertEquals(model.get(i), matches.get(i).toString());
+        }
+    }
+
+    @Test
+    public void findFuzzy_misspelledWords_ranksClosestFirst() {
+        Todo club = new Todo("join the book club");
+        Todo bread = new Todo("buy bread");
+        taskList.add(todo);
+        taskList.add(deadline);
+        taskList.add(club);
+        taskList.add(bread);
+
+        TaskList matches = taskList.findFuzzy("raed bok", 5);
+        assertEquals(todo, matches.get(0));
+        assertEquals(3, matches.size());
+
+        matches = taskList.findFuzzy("bread", 5);
+        assertEquals(bread, matches.get(0));
+        assertEquals(todo, matches.get(1)); // "read" is one edit away
+        assertEquals(2, matches.size());
+        assertEquals(1, taskList.findFuzzy("book", 1).size());
+        assertEquals(0, taskList.findFuzzy("xylophone", 5).size());
+    }
+
+    @Test
+    public void findFuzzy_afterAddAndRemove_updatesIndex() {
+        taskList.add(todo);
+        assertEquals(0, taskList.findFuzzy("meetnig", 5).size());
+
+        taskList.add(event);
+        assertEquals(event, taskList.findFuzzy("meetnig", 5).get(0));
+        taskList.remove(1);
+        assertEquals(0, taskList.findFuzzy("meetnig", 5).size());
+        taskList.remove(0);
+        assertEquals(0, taskList.findFuzzy("book", 5).size());
+    }
+
+    @Test
+    public void completeWord_afterAddAndRemove_updatesSuggestions() {
+        taskList.add(todo);
+        taskList.add(deadline);
+        assertEquals(List.of("read", "return"), taskList.completeWord("Re", 5));
+
+        taskList.add(new Todo("reply to email"));
+        taskList.remove(0);
+        assertEquals(List.of("reply", "return"), taskList.completeWord("re", 5));
+        assertEquals(List.of("book"), taskList.completeWord("b", 5));
+    }
+
+    @Test
+    public void editDistance_withLimit_stopsEarly() {
+        assertEquals(0, TrigramIndex.editDistance("book", "book", 2));
+        assertEquals(1, TrigramIndex.editDistance("bok", "book", 2));
+        assertEquals(1, TrigramIndex.editDistance("raed", "read", 2));
+        assertEquals(2, TrigramIndex.editDistance("bppk", "book", 2));
+        assertEquals(3, TrigramIndex.editDistance("book", "bookworm", 2));
+    }
+
+    @Test
+    public void findBetween_mixedTasks_returnsTimedTasksInTimeOrder() {
+        Deadline later = new Deadline("submit report", LocalDateTime.of(2019, 12, 5, 9, 0));
+        taskList.add(later);
+        taskList.add(todo);
+        taskList.add(event);
+        taskList.add(deadline);
+
+        TaskList matches = taskList.findBetween(LocalDateTime.of(2019, 12, 1, 0, 0),
+                LocalDateTime.of(2019, 12, 2, 23, 59));
+        assertEquals(2, matches.size());
+        assertEquals(deadline, matches.get(0));
+        assertEquals(event, matches.get(1));
+    }
+
+    @Test
+    public void findBetween_eventEndingInRange_isFoundOnce() {
+        Event conference = new Event("conference", LocalDateTime.of(2019, 11, 30, 9, 0),
+                LocalDateTime.of(2019, 12, 1, 17, 0));
+        taskList.add(conference);
+
+        TaskList matches = taskList.findBetween(LocalDateTime.of(2019, 11, 30, 0, 0),
+                LocalDateTime.of(2019, 12, 1, 23, 59));
+        assertEquals(1, matches.size());
+        assertEquals(0, taskList.findBetween(LocalDateTime.of(2019, 12, 3, 0, 0),
+                LocalDateTime.of(2019, 12, 3, 23, 59)).size());
+    }
+
+    @Test
+    public void findBetween_afterRemove_isNotFound() {
+        taskList.add(deadline);
+        LocalDateTime start = LocalDateTime.of(2019, 12, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2019, 12, 1, 23, 59);
+        assertEquals(1, taskList.findBetween(start, end).size());
+
+        taskList.remove(0);
+        assertEquals(0, taskList.findBetween(start, end).size());
+    }
+
+    @Test
+    public void findUpcoming_markUnmarkAndRemove_listsUndoneSoonestFirst() {
+        taskList.add(event);
+        taskList.add(todo);
+        taskList.add(deadline);
+        LocalDateTime now = LocalDateTime.of(2019, 11, 30, 0, 0);
+        TaskList upcoming = taskList.findUpcoming(now, 5);
+        assertEquals(2, upcoming.size());
+        assertSame(deadline, upcoming.get(0));
+        assertSame(event, upcoming.get(1));
+        assertEquals(1, taskList.findUpcoming(now, 1).size());
+        assertSame(event, taskList.findUpcoming(LocalDateTime.of(2019, 12, 1, 18, 1), 5).get(0));
+
+        taskList.markTask(2);
+        assertEquals(1, taskList.findUpcoming(now, 5).size());
+        taskList.unmarkTask(2);
+        assertSame(deadline, taskList.findUpcoming(now, 5).get(0));
+        taskList.remove(0);
+        assertEquals(1, taskList.findUpcoming(now, 5).size());
+    }
+
+    @Test
+    public void findUpcoming_randomChanges_matchesScanningList() {
+        Random random = new Random(18);
+        TaskList scanning = new ColumnarTaskList();
+        LocalDateTime base = LocalDateTime.of(2019, 12, 1, 0, 0);
+        for (int round = 0; round < 1_000; round++) {
+            int choice = random.nextInt(10);
+            if (taskList.size() == 0 || choice < 5) {
+                LocalDateTime time = base.plusMinutes(random.nextInt(10_000));
+                Task task = random.nextBoolean() ? new Deadline("deadline " + round, time)
+                        : random.nextBoolean() ? new Event("event " + round, time, time.plusHours(1))
+                        : new Todo("todo " + round);
+                taskList.add(task);
+                scanning.add(task); // Copied into columns
+            } else if (choice < 7) {
+                int index = random.nextInt(taskList.size());
+                taskList.markTask(index);
+                scanning.markTask(index);
+            } else if (choice < 9) {
+                int index = random.nextInt(taskList.size());
+                taskList.unmarkTask(index);
+                scanning.unmarkTask(index);
+            } else {
+                int index = random.nextInt(taskList.size());
+                taskList.remove(index);
+                scanning.remove(index);
+            }
+            if (round % 50 == 0) {
+                LocalDateTime from = base.plusMinutes(random.nextInt(10_000));
+                int limit = 1 + random.nextInt(20);
+                assertEquals(timesOf(scanning.findUpcoming(from, limit)), timesOf(taskList.findUpcoming(from, limit)));
+            }
+        }
+    }
+
+    private static List<LocalDateTime> timesOf(TaskList tasks) {
+        ArrayList<LocalDateTime> times = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            assertFalse(tasks.get(i).isDone());
+            times.add(UpcomingIndex.timeOf(tasks.get(i)));
+        }
+        return times;
+    }
+
+    @Test
+    public void findOverlapping_newEvent_returnsOverlappingEventsOnly() {
+        Event lunch = new Event("team lunch", LocalDateTime.of(2019, 12, 2, 12, 0),
+                LocalDateTime.of(2019, 12, 2, 14, 0));
+        taskList.add(event);
+        taskList.add(lunch);
+        taskList.add(deadline);
+
+        Event review = new Event("code review", LocalDateTime.of(2019, 12, 2, 13, 0),
+                LocalDateTime.of(2019, 12, 2, 15, 0));
+        TaskList overlapping = taskList.findOverlapping(review);
+        assertEquals(2, overlapping.size());
+        assertEquals(lunch, overlapping.get(0));
+        assertEquals(event, overlapping.get(1));
+
+        Event standup = new Event("standup", LocalDateTime.of(2019, 12, 2, 16, 0),
+                LocalDateTime.of(2019, 12, 2, 16, 15));
+        assertEquals(0, taskList.findOverlapping(standup).size());
+    }
+
+    @Test
+    public void findOverlapping_afterRemove_isNotFound() {
+        taskList.add(event);
+        assertEquals(1, taskList.findOverlapping(new Event("sync", event.getFrom(), event.getTo())).size());
+
+        taskList.remove(0);
+        assertEquals(0, taskList.findOverlapping(new Event("sync", event.getFrom(), event.getTo())).size());
+    }
+
+    @Test
+    public void findConflicts_randomEvents_matchesPairwiseCheck() {
+        Random random = new Random(42);
+        LocalDateTime base = LocalDateTime.of(2019, 12, 1, 0, 0);
+        for (int i = 0; i < 300; i++) {
+            LocalDateTime from = base.plusMinutes(random.nextInt(10_000));
+            taskList.add(new Event("event " + i, from, from.plusMinutes(random.nextInt(120))));
+        }
+        for (int i = 0; i < 100; i++) {
+            taskList.remove(random.nextInt(taskList.size()));
+        }
+
+        int expected = 0;
+        for (int i = 0; i < taskList.size(); i++) {
+            Event first = (Event) taskList.get(i);
+            int overlapping = 0;
+            for (int j = 0; j < taskList.size(); j++) {
+                Event second = (Event) taskList.get(j);
+                if (i != j && first.getFrom().isBefore(second.getTo()) && second.getFrom().isBefore(first.getTo())) {
+                    overlapping++;
+                }
+            }
+            assertEquals(overlapping, taskList.findOverlapping(first).size());
+            expected += overlapping;
+        }
+        List<Event[]> conflicts = taskList.findConflicts();
+        assertEquals(expected / 2, conflicts.size());
+        for (Event[] pair : conflicts) {
+            assertFalse(pair[1].getFrom().isBefore(pair[0].getFrom()));
+        }
+    }
+
+    @Test
+    public void add_tasksWithoutIds_assignsIncreasingIds() {
+        taskList.add(todo);
+        taskList.add(deadline);
+        assertEquals(1, todo.getId());
+        assertEquals(2, deadline.getId());
+
+        taskList.remove(0);
+        taskList.add(event);
+        assertEquals(3, event.getId());
+        assertEquals(-1, taskList.indexOfId(1));
+        assertEquals(0, taskList.indexOfId(2));
+        assertEquals(1, taskList.indexOfId(3));
+    }
+
+    @Test
+    public void removeTasksAndMarkTasks_randomBatches_matchArrayList() {
+        checkBatches(taskList);
+        checkBatches(new ColumnarTaskList());
+        checkBatches(new ConcurrentTaskList());
+    }
+
+    /**
+     * Applies random batches of marks, unmarks and removals, small and large,
+     * and compares the list against an ArrayList model.
+     */
+    private static void checkBatches(TaskList tasks) {
+        Random random = new Random(19);
+        ArrayList<String> expected = new ArrayList<>();
+        for (int round = 0; round < 300; round++) {
+            for (int i = random.nextInt(40); i > 0; i--) {
+                Todo todo = new Todo("task " + round + " " + i);
+                tasks.add(todo);
+                expected.add(todo.toString());
+            }
+            if (expected.isEmpty()) {
+                continue;
+            }
+            int[] indices = randomIndices(random, expected.size());
+            int choice = random.nextInt(3);
+            if (choice == 0) {
+                tasks.markTasks(indices);
+                for (int index : indices) {
+                    expected.set(index, expected.get(index).replace("[ ]", "[X]"));
+                }
+            } else if (choice == 1) {
+                tasks.unmarkTasks(indices);
+                for (int index : indices) {
+                    expected.set(index, expected.get(index).replace("[X]", "[ ]"));
+                }
+            } else {
+                List<Task> removed = tasks.removeTasks(indices);
+                assertEquals(indices.length, removed.size());
+                for (int i = indices.length - 1; i >= 0; i--) {
+                    assertEquals(expected.remove(indices[i]), removed.get(i).toString());
+                }
+            }
+            assertEquals(expected.size(), tasks.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i), tasks.get(i).toString());
+                assertEquals(i, tasks.indexOfId(tasks.get(i).getId()));
+            }
+        }
+    }
+
+    @Test
+    public void insert_deletedTasksAtOldPositions_matchesArrayList() {
+        for (TaskList tasks : List.of(taskList, new ColumnarTaskList(), new ConcurrentTaskList())) {
+            Random random = new Random(20);
+            ArrayList<String> expected = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                Todo todo = new Todo("task " + i);
+                tasks.add(todo);
+                expected.add(todo.toString());
+            }
+            for (int round = 0; round < 400; round++) {
+                int index = random.nextInt(tasks.size());
+                Task removed = tasks.remove(index);
+                if (random.nextBoolean()) {
+                    tasks.insert(index, removed);
+                    assertEquals(index, tasks.indexOfId(removed.getId()));
+                } else {
+                    expected.remove(index);
+                }
+            }
+            assertEquals(expected.size(), tasks.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i), tasks.get(i).toString());
+            }
+            assertEquals(expected.get(0), tasks.findTasks(expected.get(0).substring(7)).get(0).toString());
+        }
+    }
+
+    @Test
+    public void indexOfId_tasksMovedOutOfIdOrder_findsEveryTask() {
+        for (TaskList tasks : List.of(taskList, new ColumnarTaskList(), new ConcurrentTaskList())) {
+            Random random = new Random(31);
+            for (int i = 0; i < 300; i++) {
+                tasks.add(new Todo("task " + i));
+            }
+            for (int round = 0; round < 600; round++) {
+                Task moved = tasks.remove(random.nextInt(tasks.size()));
+                if (round % 7 == 0) {
+                    List<Task> removed = tasks.removeTasks(new int[] {0, tasks.size() / 2});
+                    assertEquals(-1, tasks.indexOfId(removed.get(1).getId()));
+                    tasks.add(new Todo("added " + round));
+                }
+                int index = random.nextInt(tasks.size() + 1);
+                tasks.insert(index, moved);
+                assertEquals(index, tasks.indexOfId(moved.getId()));
+                if (round % 50 == 0) {
+                    for (int i = 0; i < tasks.size(); i++) {
+                        assertEquals(i, tasks.indexOfId(tasks.get(i).getId()));
+                    }
+                }
+            }
+            assertEquals(-1, tasks.indexOfId(100_000));
+        }
+    }
+
+    private static int[] randomIndices(Random random, int size) {
+        double share = random.nextBoolean() ? 0.05 : 0.8;
+        return java.util.stream.IntStream.range(0, size).filter(i -> random.nextDouble() < share).toArray();
+    }
+
+    @Test
+    public void remove_randomPositions_matchesArrayList() {
+        Random random = new Random(7);
+        ArrayList<Task> expected = new ArrayList<>();
+        for (int round = 0; round < 2_000; round++) {
+            if (expected.isEmpty() || random.nextInt(3) > 0) {
+                Todo added = new Todo("task " + round);
+                taskList.add(added);
+                expected.add(added);
+            } else {
+                int index = random.nextInt(expected.size());
+                assertSame(expected.remove(index), taskList.remove(index));
+            }
+            if (round % 100 == 0) {
+                assertEquals(expected.size(), taskList.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    assertSame(expected.get(i), taskList.get(i));
+                    assertEquals(i, taskList.indexOfId(expected.get(i).getId()));
+                }
+            }
+        }
+        while (!expected.isEmpty()) {
+            int index = random.nextInt(expected.size());
+            assertSame(expected.remove(index), taskList.remove(index));
+        }
+        assertEquals(0, taskList.size());
+        assertEquals(0, taskList.getTasks().size());
+    }
+}
@@ -0,0 +1,71 @@
+package robert.task;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class WordTrieTest {
+    @Test
+    public void complete_prefix_returnsWordsInAlphabeticalOrder() {
+        WordTrie trie = new WordTrie();
+        for (String word : List.of("read", "book", "return", "re", "bookworm", "club")) {
+            trie.add(word);
+        }
+
+        assertEquals(List.of("re", "read", "return"), trie.complete("re", 5));
+        assertEquals(List.of("book"), trie.complete("b", 1));
+        assertEquals(List.of(), trie.complete("x", 5));
+        assertEquals(6, trie.complete("", 10).size());
+    }
+
+    @Test
+    public void remove_lastOccurrence_dropsWordAndEmptyBranch() {
+        WordTrie trie = new WordTrie();
+        trie.add("book");
+        trie.add("book");
+        trie.add("bookworm");
+
+        assertTrue(trie.remove("bookworm"));
+        assertEquals(List.of("book"), trie.complete("boo", 5));
+        assertTrue(trie.remove("book"));
+        assertEquals(List.of("book"), trie.complete("boo", 5));
+        assertTrue(trie.remove("book"));
+        assertEquals(List.of(), trie.complete("", 5));
+        assertFalse(trie.remove("book"));
+        assertFalse(trie.remove("bo"));
+    }
+
+    @Test
+    public void randomAddsAndRemoves_matchSortedMapModel() {
+        Random random = new Random(17);
+        WordTrie trie = new WordTrie();
+        TreeMap<String, Integer> model = new TreeMap<>();
+        for (int step = 0; step < 5000; step++) {
+            StringBuilder word = new StringBuilder();
+            for (int i = random.nextInt(4); i >= 0; i--) {
+                word.append((char) ('a' + random.nextInt(3)));
+            }
+            String key = word.toString();
+            if (random.nextInt(3) > 0) {
+                trie.add(key);
+                model.merge(key, 1, Integer::sum);
+            } else {
+                assertEquals(model.containsKey(key), trie.remove(key));
+                model.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+            }
+        }
+
+        for (String prefix : List.of("", "a", "ab", "cba", "b")) {
+            List<String> expected = new ArrayList<>();
+            for (String key : model.tailMap(prefix).keySet()) {
+                if (key.startsWith(prefix) && expected.size() < 7) {
+                    expected.add(key);
+                }
+            }
+            assertEquals(expected, trie.complete(prefix, 7), prefix);
+        }
+    }
+}
@@ -25,11 +25,8 @@ then
     exit 1
 fi
 
-# Clean up data file before testing
-if [ -e "../data/duke.txt" ]
-then
-    rm ../data/duke.txt
-fi
+# Clean up data file and its journals before testing
+rm -f ../data/duke.txt ../data/duke.txt.journal ../data/duke.txt.journal.old
 
 # run the program, feed commands from input.txt file and redirect the output to the ACTUAL.TXT
 java -classpath ../bin robert.Robert < input.txt > ACTUAL.TXT